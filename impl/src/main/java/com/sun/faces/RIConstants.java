@@ -163,6 +163,13 @@ public class RIConstants {
      */
     public static final String ANNOTATED_CLASSES = FACES_PREFIX + "AnnotatedClasses";
 
+    /**
+     * Key in the FacesContext attributes for the {@link java.io.Flushable}
+     * that sends the content rendered so far to the client, if early flushing
+     * is enabled for the current response.
+     */
+    public static final String EARLY_FLUSH = FACES_PREFIX + "EarlyFlush";
+
     private RIConstants() {
         throw new IllegalStateException();
     }
@@ -148,6 +148,7 @@ import com.sun.faces.facelets.util.ReflectionUtil;
 import com.sun.faces.mgbean.BeanManager;
 import com.sun.faces.spi.InjectionProvider;
 import com.sun.faces.util.FacesLogger;
+import com.sun.faces.util.ResourceChangeWatcher;
 
 /**
  * <p>
@@ -281,7 +282,12 @@ public class ApplicationAssociate {
         devModeEnabled = appImpl.getProjectStage() == Development;
         hasPushBuilder = checkForPushBuilder();
 
-        if (!devModeEnabled) {
+        // with a watcher, resources are cached in development too, as long as
+        // their changes can be detected
+        ResourceChangeWatcher watcher = ResourceChangeWatcher.getInstance(externalContext);
+        if (watcher != null) {
+            resourceCache = new ResourceCache(watcher, !devModeEnabled);
+        } else if (!devModeEnabled) {
             resourceCache = new ResourceCache();
         }
 
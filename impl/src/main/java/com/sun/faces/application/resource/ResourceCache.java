@@ -44,9 +44,12 @@ import com.sun.faces.config.WebConfiguration;
 import com.sun.faces.config.WebConfiguration.WebContextInitParameter;
 import com.sun.faces.util.FacesLogger;
 import com.sun.faces.util.MultiKeyConcurrentHashMap;
+import com.sun.faces.util.ResourceChangeWatcher;
 import com.sun.faces.util.Util;
 
+import javax.faces.context.FacesContext;
 import javax.servlet.ServletContext;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
@@ -86,6 +89,12 @@ public class ResourceCache {
     private long checkPeriod;
 
 
+    private ResourceChangeWatcher watcher;
+
+
+    private boolean cacheUnwatched = true;
+
+
     // ------------------------------------------------------------ Constructors
 
 
@@ -96,6 +105,20 @@ public class ResourceCache {
         this(WebConfiguration.getInstance());
     }
 
+    /**
+     * Constructs a new ResourceCache that relies on <code>watcher</code> to
+     * detect changes of resources served from the file system.
+     *
+     * @param watcher the watcher of the application, may be <code>null</code>
+     * @param cacheUnwatched if <code>false</code>, resources that cannot be
+     *  watched are not cached at all
+     */
+    public ResourceCache(ResourceChangeWatcher watcher, boolean cacheUnwatched) {
+        this(WebConfiguration.getInstance());
+        this.watcher = watcher;
+        this.cacheUnwatched = cacheUnwatched;
+    }
+
     private ResourceCache(WebConfiguration config) {
         this(getCheckPeriod(config));
 
@@ -134,12 +157,16 @@ public class ResourceCache {
                        "Caching ResourceInfo: {0}",
                        info.toString());
         }
+        ResourceChangeWatcher.Handle handle = watch(info);
+        if (handle == null && !cacheUnwatched) {
+            return null;
+        }
         ResourceInfoCheckPeriodProxy proxy =
               resourceCache.putIfAbsent(info.name,
                                         info.libraryName,
                                         info.localePrefix,
                                         new ArrayList(contracts),
-                                        new ResourceInfoCheckPeriodProxy(info, checkPeriod));
+                                        new ResourceInfoCheckPeriodProxy(info, checkPeriod, handle));
         return ((proxy != null) ? proxy.getResourceInfo() : null);
 
     }
@@ -185,6 +212,23 @@ public class ResourceCache {
     // --------------------------------------------------------- Private Methods
 
 
+    private ResourceChangeWatcher.Handle watch(ResourceInfo info) {
+
+        if (watcher == null || info.getHelper() instanceof ClasspathResourceHelper) {
+            return null;
+        }
+        URL url;
+        if (info instanceof FaceletResourceInfo) {
+            url = ((FaceletResourceInfo) info).getUrl();
+        } else {
+            FacesContext context = FacesContext.getCurrentInstance();
+            url = (context != null) ? info.getHelper().getURL(info, context) : null;
+        }
+        return watcher.watch(url);
+
+    }
+
+
     private static Long getCheckPeriod(WebConfiguration webConfig) {
 
         String val = webConfig.getOptionValue(WebContextInitParameter.ResourceUpdateCheckPeriod);
@@ -215,22 +259,28 @@ public class ResourceCache {
 
         private ResourceInfo resourceInfo;
         private Long checkTime;
+        private ResourceChangeWatcher.Handle handle;
 
 
         // -------------------------------------------------------- Constructors
 
 
         public ResourceInfoCheckPeriodProxy(ResourceInfo resourceInfo,
-                                            long checkPeriod) {
+                                            long checkPeriod,
+                                            ResourceChangeWatcher.Handle handle) {
 
             this.resourceInfo = resourceInfo;
-            if (checkPeriod != -1L && (!(resourceInfo.getHelper() instanceof ClasspathResourceHelper))) {
+            this.handle = handle;
+            if (handle == null && checkPeriod != -1L && (!(resourceInfo.getHelper() instanceof ClasspathResourceHelper))) {
                 checkTime = System.currentTimeMillis() + checkPeriod;
             }
         }
 
         private boolean needsRefreshed() {
 
+            if (handle != null) {
+                return handle.isChanged();
+            }
             return (checkTime != null
                        && (checkTime < System.currentTimeMillis()));
 
@@ -621,9 +621,10 @@ public class FaceletFullStateManagementStrategy extends StateManagementStrategy
      * Save the component state.
      *
      * @param context the Faces context.
+     * @param recorder collects the state for statistics, may be <code>null</code>.
      * @return the saved state.
      */
-    private Object saveComponentState(FacesContext context) {
+    private Object saveComponentState(FacesContext context, final ViewStateStatistics.Recorder recorder) {
 
         final HashMap<String, Object> stateMap = new HashMap<>();
         final StateContext stateContext = StateContext.getStateContext(context);
@@ -650,6 +651,9 @@ public class FaceletFullStateManagementStrategy extends StateManagementStrategy
                         }
                         if (stateObj != null) {
                             stateMap.put(component.getClientId(finalContext), stateObj);
+                            if (recorder != null) {
+                                recorder.component(component, stateObj);
+                            }
                         }
                     } else {
                         result = REJECT;
@@ -727,7 +731,9 @@ public class FaceletFullStateManagementStrategy extends StateManagementStrategy
         /*
          * Save the component state.
          */
-        Object state = saveComponentState(context);
+        ViewStateStatistics.Recorder recorder =
+              ViewStateStatistics.getRecorder(context, viewRoot.getViewId());
+        Object state = saveComponentState(context, recorder);
 
         /*
          * Save the tree structure.
@@ -738,6 +744,9 @@ public class FaceletFullStateManagementStrategy extends StateManagementStrategy
 
         result = new Object[]{tree, state};
         StateContext.release(context);
+        if (recorder != null) {
+            recorder.view(result);
+        }
         
         return result;
     }
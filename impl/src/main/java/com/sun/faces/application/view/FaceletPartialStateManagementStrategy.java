@@ -478,6 +478,8 @@ public class FaceletPartialStateManagementStrategy extends StateManagementStrate
 
         final Map<String, Object> stateMap = new HashMap<>();
         final StateContext stateContext = StateContext.getStateContext(context);
+        final ViewStateStatistics.Recorder recorder =
+              ViewStateStatistics.getRecorder(context, viewRoot.getViewId());
 
         context.getAttributes().put(SKIP_ITERATION_HINT, true);
         Set<VisitHint> hints = EnumSet.of(VisitHint.SKIP_ITERATION);
@@ -500,6 +502,9 @@ public class FaceletPartialStateManagementStrategy extends StateManagementStrate
                         }
                         if (stateObj != null) {
                             stateMap.put(target.getClientId(context.getFacesContext()), stateObj);
+                            if (recorder != null) {
+                                recorder.component(target, stateObj);
+                            }
                         }
                     } else {
                         return VisitResult.REJECT;
@@ -513,6 +518,10 @@ public class FaceletPartialStateManagementStrategy extends StateManagementStrate
 
         saveDynamicActions(context, stateContext, stateMap);
         StateContext.release(context);
-        return new Object[]{null, stateMap};
+        Object[] result = new Object[]{null, stateMap};
+        if (recorder != null) {
+            recorder.view(result);
+        }
+        return result;
     }
 }
@@ -41,12 +41,18 @@
 package com.sun.faces.application.view;
 
 import static com.sun.faces.RIConstants.DYNAMIC_COMPONENT;
+import static com.sun.faces.RIConstants.EARLY_FLUSH;
 import static com.sun.faces.RIConstants.FACELETS_ENCODING_KEY;
 import static com.sun.faces.RIConstants.FLOW_DEFINITION_ID_SUFFIX;
+import static com.sun.faces.config.WebConfiguration.BooleanWebContextInitParameter.AutomaticStatelessViews;
+import static com.sun.faces.config.WebConfiguration.BooleanWebContextInitParameter.EnableEarlyFlush;
+import static com.sun.faces.config.WebConfiguration.BooleanWebContextInitParameter.EnableViewSnapshots;
+import static com.sun.faces.config.WebConfiguration.BooleanWebContextInitParameter.PreEncodeLiteralText;
 import static com.sun.faces.config.WebConfiguration.WebContextInitParameter.FaceletsBufferSize;
 import static com.sun.faces.config.WebConfiguration.WebContextInitParameter.FaceletsViewMappings;
 import static com.sun.faces.config.WebConfiguration.WebContextInitParameter.StateSavingMethod;
 import static com.sun.faces.context.StateContext.getStateContext;
+import static com.sun.faces.renderkit.RenderKitUtils.PredefinedPostbackParameter.VIEW_STATE_PARAM;
 import static com.sun.faces.util.ComponentStruct.ADD;
 import static com.sun.faces.util.ComponentStruct.REMOVE;
 import static com.sun.faces.util.RequestStateManager.FACELET_FACTORY;
@@ -87,8 +93,10 @@ import java.beans.BeanDescriptor;
 import java.beans.BeanInfo;
 import java.beans.PropertyDescriptor;
 import java.io.FileNotFoundException;
+import java.io.Flushable;
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -154,12 +162,15 @@ import com.sun.faces.config.WebConfiguration;
 import com.sun.faces.context.StateContext;
 import com.sun.faces.facelets.el.ContextualCompositeMethodExpression;
 import com.sun.faces.facelets.el.VariableMapperWrapper;
+import com.sun.faces.facelets.impl.BuildDependencyTracker;
 import com.sun.faces.facelets.impl.DefaultFaceletFactory;
 import com.sun.faces.facelets.impl.XMLFrontMatterSaver;
 import com.sun.faces.facelets.tag.composite.CompositeComponentBeanInfo;
 import com.sun.faces.facelets.tag.jsf.CompositeComponentTagHandler;
 import com.sun.faces.facelets.tag.ui.UIDebug;
+import com.sun.faces.io.EncodingOutputWriter;
 import com.sun.faces.renderkit.RenderKitUtils;
+import com.sun.faces.renderkit.StatelessViewToken;
 import com.sun.faces.util.Cache;
 import com.sun.faces.util.Cache.Factory;
 import com.sun.faces.util.ComponentStruct;
@@ -201,6 +212,21 @@ public class FaceletViewHandlingStrategy extends ViewHandlingStrategy {
     private Cache<Resource, BeanInfo> metadataCache;
     private Map<String, List<String>> contractMappings;
 
+    // marks views rendered without state, null unless automatic stateless
+    // views are enabled
+    private StatelessViewToken statelessViewToken;
+
+    // write static template text as bytes straight to the response stream
+    private boolean preEncodeLiteralText;
+
+    // view IDs mapped to the tree their Facelet produced, null unless
+    // view snapshots are enabled
+    private Map<String, ViewSnapshot> viewSnapshots;
+
+    // send the head and the content before the first form state to the
+    // client before the rest of the page is rendered
+    private boolean earlyFlush;
+
 
     // ------------------------------------------------------------ Constructors
 
@@ -251,7 +277,9 @@ public class FaceletViewHandlingStrategy extends ViewHandlingStrategy {
                 context.setViewRoot(viewRoot);
                 vdl.buildView(context, viewRoot);
                 
-                if (!viewRoot.isTransient()) {
+                // a view rendered stateless as its saved state was empty is
+                // restored completely by building it
+                if (!viewRoot.isTransient() && !isRenderedStateless(context, viewId)) {
                     throw new FacesException("Unable to restore view " + viewId);
                 }
                 
@@ -375,20 +403,38 @@ public class FaceletViewHandlingStrategy extends ViewHandlingStrategy {
         RequestStateManager.set(ctx, FACELET_FACTORY, faceletFactory);
         Facelet facelet = faceletFactory.getFacelet(ctx, view.getViewId());
 
+        // with partial state saving the view may be restored from the tree
+        // the Facelet produced before, or that tree may have to be captured
+        ViewSnapshot snapshot = null;
+        Map<Object, Object> attributesBefore = null;
+        BuildDependencyTracker tracker = null;
+        if (viewSnapshots != null && stateCtx.isPartialStateSaving(ctx, view.getViewId())) {
+            snapshot = viewSnapshots.get(view.getViewId());
+            if (snapshot == null || !snapshot.isCurrent(facelet)) {
+                attributesBefore = new HashMap<>(ctx.getAttributes());
+                tracker = BuildDependencyTracker.start(ctx);
+                snapshot = null;
+            } else if (!ctx.isPostback() || !snapshot.isUsable(facelet)) {
+                snapshot = null;
+            }
+        }
+
         // populate UIViewRoot
         try {
             ctx.getAttributes().put(IS_BUILDING_INITIAL_STATE, Boolean.TRUE);
             stateCtx.setTrackViewModifications(false);
-            facelet.apply(ctx, view);
+            if (snapshot == null || !snapshot.restore(ctx, view)) {
+                facelet.apply(ctx, view);
+            }
             
             if (facelet instanceof XMLFrontMatterSaver) {
                 XMLFrontMatterSaver frontMatterSaver = (XMLFrontMatterSaver) facelet;
-                
+            
                 String docType = frontMatterSaver.getSavedDoctype();
                 if (docType != null) {
                     saveDOCTYPEToFacesContextAttributes(docType);
                 }
-                
+            
                 String XMLDECL = frontMatterSaver.getSavedXMLDecl();
                 if (XMLDECL != null) {
                     saveXMLDECLToFacesContextAttributes(XMLDECL);
@@ -402,8 +448,15 @@ public class FaceletViewHandlingStrategy extends ViewHandlingStrategy {
             doPostBuildActions(ctx, view);
         } finally {
             ctx.getAttributes().remove(IS_BUILDING_INITIAL_STATE);
+            if (tracker != null) {
+                BuildDependencyTracker.stop(ctx);
+            }
         }
         ctx.getApplication().publishEvent(ctx, PostAddToViewEvent.class, UIViewRoot.class, view);
+        if (tracker != null) {
+            viewSnapshots.put(view.getViewId(),
+                              ViewSnapshot.capture(ctx, view, facelet, tracker.getDependency(), attributesBefore));
+        }
         markInitialState(ctx, view);
         
         setViewPopulated(ctx, view);
@@ -426,6 +479,7 @@ public class FaceletViewHandlingStrategy extends ViewHandlingStrategy {
         }
 
         WriteBehindStateWriter stateWriter = null;
+        EncodingOutputWriter encodingWriter = null;
         try {
             // Only build the view if this view has not yet been built.
             if (!isViewPopulated(ctx, viewToRender)) {
@@ -434,12 +488,21 @@ public class FaceletViewHandlingStrategy extends ViewHandlingStrategy {
             }
 
             // Setup writer and assign it to the ctx
+            ExternalContext extContext = ctx.getExternalContext();
             ResponseWriter origWriter = ctx.getResponseWriter();
+            Writer outputWriter = null;
             if (origWriter == null) {
-                origWriter = createResponseWriter(ctx);
+                // partial responses are written by the PartialResponseWriter
+                if (preEncodeLiteralText && !ctx.getPartialViewContext().isPartialRequest()) {
+                    origWriter = createUnboundResponseWriter(ctx);
+                    encodingWriter = createEncodingOutputWriter(extContext,
+                                                                origWriter.getCharacterEncoding());
+                    outputWriter = encodingWriter;
+                }
+                if (outputWriter == null) {
+                    origWriter = createResponseWriter(ctx);
+                }
             }
-
-            ExternalContext extContext = ctx.getExternalContext();
             
             /*
              * Make sure we have a session here if we are using server state
@@ -449,14 +512,23 @@ public class FaceletViewHandlingStrategy extends ViewHandlingStrategy {
              * Note if you flag a view as transient then we won't acquire the
              * session as you are stating it does not need one.
              */
-            if (isServerStateSaving() && !viewToRender.isTransient()) {
+            boolean statelessCandidate = offerStatelessViewToken(ctx, viewToRender);
+            if (isServerStateSaving() && !viewToRender.isTransient()
+                  && !statelessCandidate) {
                 getSession(ctx);
             }            
             
-            Writer outputWriter = extContext.getResponseOutputWriter();
+            if (outputWriter == null) {
+                outputWriter = extContext.getResponseOutputWriter();
+            }
             stateWriter = new WriteBehindStateWriter(outputWriter,
                                                      ctx,
                                                      responseBufferSize);
+            if (statelessCandidate && isServerStateSaving()) {
+                // the session may still have to be created once the state
+                // has been saved
+                stateWriter.holdContent();
+            }
 
             ResponseWriter writer = origWriter.cloneWithWriter(stateWriter);
             ctx.setResponseWriter(writer);
@@ -488,6 +560,16 @@ public class FaceletViewHandlingStrategy extends ViewHandlingStrategy {
                     // Do not escape.
                     writer.writeDoctype(docType);
                 }
+                if (earlyFlush) {
+                    final WriteBehindStateWriter flushWriter = stateWriter;
+                    stateWriter.setEarlyFlush(true);
+                    ctx.getAttributes().put(EARLY_FLUSH, new Flushable() {
+                        @Override
+                        public void flush() throws IOException {
+                            flushWriter.flushEarly();
+                        }
+                    });
+                }
                 writer.startDocument();
                 viewToRender.encodeAll(ctx);
                 try {
@@ -508,6 +590,10 @@ public class FaceletViewHandlingStrategy extends ViewHandlingStrategy {
                 stateWriter.flushToWriter();
             }
 
+            if (encodingWriter != null) {
+                encodingWriter.writeBuffer();
+            }
+
         } catch (FileNotFoundException fnfe) {
             handleFaceletNotFound(ctx, viewToRender.getViewId(), fnfe.getMessage());
         } catch (Exception e) {
@@ -516,6 +602,9 @@ public class FaceletViewHandlingStrategy extends ViewHandlingStrategy {
             if (stateWriter != null) {
                 stateWriter.release();
             }
+            if (earlyFlush) {
+                ctx.getAttributes().remove(EARLY_FLUSH);
+            }
         }
     }
 
@@ -584,9 +673,11 @@ public class FaceletViewHandlingStrategy extends ViewHandlingStrategy {
 
         // PENDING this implementation is terribly wasteful.
         // Must find a better way.
+        // there is no FaceletContext yet when the metadata is created
+        // during the warm up, see FaceletWarmUp
         FaceletContext faceletContext = (FaceletContext) context.getAttributes().get(FACELET_CONTEXT_KEY);
         DefaultFaceletFactory factory = (DefaultFaceletFactory) RequestStateManager.get(context, FACELET_FACTORY);
-        VariableMapper orig = faceletContext.getVariableMapper();
+        VariableMapper orig = (faceletContext != null) ? faceletContext.getVariableMapper() : null;
 
         // Create tmp and facetComponent
         UIComponent tmp = context.getApplication().createComponent("javax.faces.NamingContainer");
@@ -618,7 +709,9 @@ public class FaceletViewHandlingStrategy extends ViewHandlingStrategy {
                 
             };
             
-            faceletContext.setVariableMapper(wrapper);
+            if (faceletContext != null) {
+                faceletContext.setVariableMapper(wrapper);
+            }
             context.getAttributes().put(IS_BUILDING_METADATA, TRUE);
 
             // Because mojarra currently requires a <cc:interface>
@@ -650,7 +743,9 @@ public class FaceletViewHandlingStrategy extends ViewHandlingStrategy {
         }
         finally {
             context.getAttributes().remove(IS_BUILDING_METADATA);
-            faceletContext.setVariableMapper(orig);
+            if (faceletContext != null) {
+                faceletContext.setVariableMapper(orig);
+            }
         }
         
         // we extract the compcomp metadata and return it, making sure
@@ -1039,6 +1134,16 @@ public class FaceletViewHandlingStrategy extends ViewHandlingStrategy {
             }
         });
 
+        if (webConfig.isOptionEnabled(AutomaticStatelessViews)) {
+            statelessViewToken = StatelessViewToken.getInstance(
+                  FacesContext.getCurrentInstance().getExternalContext());
+        }
+        preEncodeLiteralText = webConfig.isOptionEnabled(PreEncodeLiteralText);
+        if (webConfig.isOptionEnabled(EnableViewSnapshots)) {
+            viewSnapshots = new ConcurrentHashMap<>();
+        }
+        earlyFlush = webConfig.isOptionEnabled(EnableEarlyFlush);
+
         try {
             responseBufferSizeSet = webConfig.isSet(FaceletsBufferSize);
             responseBufferSize =
@@ -1122,6 +1227,20 @@ public class FaceletViewHandlingStrategy extends ViewHandlingStrategy {
      */
     protected ResponseWriter createResponseWriter(FacesContext context) throws IOException {
 
+        ResponseWriter writer = createUnboundResponseWriter(context);
+
+        // Now, clone with the real writer
+        return writer.cloneWithWriter(context.getExternalContext().getResponseOutputWriter());
+    }
+
+    /**
+     * Creates a {@link ResponseWriter} for the response content type and
+     * encoding, and applies both to the response, without obtaining the
+     * response writer. The returned writer writes to a {@link NullWriter}
+     * and is meant to be cloned.
+     */
+    private ResponseWriter createUnboundResponseWriter(FacesContext context) throws IOException {
+
         ExternalContext extContext = context.getExternalContext();
         RenderKit renderKit = context.getRenderKit();
         // Avoid a cryptic NullPointerException when the renderkit ID
@@ -1160,12 +1279,44 @@ public class FaceletViewHandlingStrategy extends ViewHandlingStrategy {
         extContext.setResponseContentType(str);
         extContext.setResponseCharacterEncoding(encoding);
 
-        // Now, clone with the real writer
-        writer = writer.cloneWithWriter(extContext.getResponseOutputWriter());
-
         return writer;
     }
 
+    /**
+     * Opens the response output stream for writing pre-encoded literal
+     * text.
+     *
+     * @return the writer, or <code>null</code> if the encoding keeps state
+     *  between characters or the response writer has already been obtained
+     */
+    private EncodingOutputWriter createEncodingOutputWriter(ExternalContext extContext,
+                                                            String encoding)
+    throws IOException {
+
+        Charset charset;
+        try {
+            charset = Charset.forName(encoding);
+        } catch (IllegalArgumentException iae) {
+            return null;
+        }
+        if (!EncodingOutputWriter.isSupported(charset)) {
+            return null;
+        }
+
+        try {
+            return new EncodingOutputWriter(extContext.getResponseOutputStream(),
+                                            charset,
+                                            responseBufferSize);
+        } catch (IllegalStateException ise) {
+            if (LOGGER.isLoggable(FINE)) {
+                LOGGER.log(FINE,
+                           "Response writer already in use, literal text will be encoded on each render",
+                           ise);
+            }
+            return null;
+        }
+    }
+
     /**
      * Handles the case where rendering throws an Exception.
      *
@@ -2176,6 +2327,60 @@ public class FaceletViewHandlingStrategy extends ViewHandlingStrategy {
         return false;
     }
 
+    /**
+     * <p>Determines whether the view about to be rendered may be marked
+     * stateless by a {@link StatelessViewToken}, should its state turn out
+     * to be empty once saved.  This requires that no session exists, as the
+     * state of views rendered for a session protects them from cross-site
+     * request forgery.  If the state is kept on the server, the session is
+     * then only created if the state is not empty, which must happen before
+     * the response is committed.  This cannot be guaranteed for partial
+     * requests, nor if the content is flushed early, so the session is
+     * created up front in those cases.</p>
+     *
+     * @param ctx the {@link FacesContext} for the current request
+     * @param viewToRender the view about to be rendered
+     * @return <code>true</code> if the view may be rendered stateless
+     */
+    private boolean offerStatelessViewToken(FacesContext ctx, UIViewRoot viewToRender) {
+
+        if (statelessViewToken == null
+              || viewToRender.isTransient()
+              || ctx.getExternalContext().getSession(false) != null
+              || (isServerStateSaving()
+                  && (earlyFlush || ctx.getPartialViewContext().isPartialRequest()))
+              || isProtectedView(ctx, viewToRender.getViewId())) {
+            return false;
+        }
+        statelessViewToken.offer(ctx, viewToRender.getViewId());
+        return true;
+
+    }
+
+
+    /**
+     * @param context the {@link FacesContext} for the current request
+     * @param viewId the ID of the view being restored
+     * @return <code>true</code> if the postback carries a valid
+     *  {@link StatelessViewToken} for <code>viewId</code>
+     */
+    private boolean isRenderedStateless(FacesContext context, String viewId) {
+
+        return (statelessViewToken != null
+                && !isProtectedView(context, viewId)
+                && statelessViewToken.verify(VIEW_STATE_PARAM.getValue(context), viewId));
+
+    }
+
+
+    private static boolean isProtectedView(FacesContext ctx, String viewId) {
+
+        // protected views rely on the view state to guard against CSRF
+        return ctx.getApplication().getViewHandler()
+              .getProtectedViewsUnmodifiable().contains(viewId);
+
+    }
+
     /**
      * Get a session (if we are using server state saving).
      * 
@@ -0,0 +1,346 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.application.view;
+
+import static com.sun.faces.config.WebConfiguration.BooleanWebContextInitParameter.EnableFaceletsWarmUp;
+import static com.sun.faces.config.WebConfiguration.WebContextInitParameter.FaceletsWarmUpThreads;
+import static com.sun.faces.config.WebConfiguration.WebContextInitParameter.WebAppResourcesDirectory;
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.WARNING;
+import static com.sun.faces.util.RequestStateManager.FACELET_FACTORY;
+import static javax.faces.FactoryFinder.VIEW_DECLARATION_LANGUAGE_FACTORY;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import javax.faces.FactoryFinder;
+import javax.faces.application.Resource;
+import javax.faces.application.ResourceHandler;
+import javax.faces.context.FacesContext;
+import javax.faces.view.ViewDeclarationLanguage;
+import javax.faces.view.ViewDeclarationLanguageFactory;
+
+import com.sun.faces.application.ApplicationAssociate;
+import com.sun.faces.config.InitFacesContext;
+import com.sun.faces.config.WebConfiguration;
+import com.sun.faces.facelets.impl.DefaultFaceletFactory;
+import com.sun.faces.util.FacesLogger;
+import com.sun.faces.util.RequestStateManager;
+
+/**
+ * <p>
+ * Compiles every Facelet of the application while it is being deployed so
+ * the first requests do not pay for parsing and compiling views, their
+ * templates and the composite components they use.
+ * </p>
+ *
+ * <p>
+ * The Facelets are discovered through
+ * {@link ViewDeclarationLanguage#getViews(FacesContext, String, javax.faces.application.ViewVisitOption...)},
+ * which, when not restricted to top level views, also returns the templates
+ * and includes below <code>/WEB-INF</code> and the composite components in the
+ * web application resources directory.  They are compiled in parallel on a
+ * <code>ForkJoinPool</code> into the regular Facelet cache.  Views also get
+ * their view metadata Facelet compiled.  Once all Facelets are compiled, the
+ * <code>BeanInfo</code> of each composite component is created into the
+ * metadata cache of the {@link FaceletViewHandlingStrategy}.  This happens on
+ * the calling thread, building the metadata keeps its state in the attributes
+ * of the <code>FacesContext</code> which is shared by the workers.
+ * </p>
+ *
+ * <p>
+ * Enabled through <code>com.sun.faces.enableFaceletsWarmUp</code>, the
+ * parallelism is set with <code>com.sun.faces.faceletsWarmUpThreads</code>
+ * (defaults to the number of available processors).  Compile times are
+ * logged per Facelet at <code>FINE</code>.
+ * </p>
+ */
+public final class FaceletWarmUp {
+
+    private static final Logger LOGGER = FacesLogger.APPLICATION_VIEW.getLogger();
+
+    private final InitFacesContext context;
+    private final DefaultFaceletFactory factory;
+    private final ViewDeclarationLanguage vdl;
+    private final String resourcesDirectory;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    private FaceletWarmUp(InitFacesContext context,
+                          DefaultFaceletFactory factory,
+                          ViewDeclarationLanguage vdl,
+                          String resourcesDirectory) {
+
+        this.context = context;
+        this.factory = factory;
+        this.vdl = vdl;
+        this.resourcesDirectory = resourcesDirectory;
+
+    }
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    /**
+     * <p>
+     * Compile all Facelets of the application if the warm up is enabled.
+     * Failures are logged, they never prevent the application from starting.
+     * </p>
+     *
+     * @param context the <code>FacesContext</code> used during initialization
+     */
+    public static void warmUp(InitFacesContext context) {
+
+        WebConfiguration webConfig = WebConfiguration.getInstance(context.getExternalContext());
+        if (!webConfig.isOptionEnabled(EnableFaceletsWarmUp)) {
+            return;
+        }
+        ApplicationAssociate associate = ApplicationAssociate.getInstance(context.getExternalContext());
+        DefaultFaceletFactory factory = (associate != null) ? associate.getFaceletFactory() : null;
+        ViewDeclarationLanguage vdl = getFaceletViewDeclarationLanguage();
+        if (factory == null || vdl == null) {
+            if (LOGGER.isLoggable(FINE)) {
+                LOGGER.fine("Facelets are disabled, skipping Facelets warm up");
+            }
+            return;
+        }
+
+        String resourcesDirectory = webConfig.getOptionValue(WebAppResourcesDirectory);
+        if (!resourcesDirectory.endsWith("/")) {
+            resourcesDirectory += '/';
+        }
+        new FaceletWarmUp(context, factory, vdl, resourcesDirectory)
+              .run(vdl.getViews(context, "/").collect(Collectors.toList()),
+                   getThreads(webConfig.getOptionValue(FaceletsWarmUpThreads)));
+
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private void run(List<String> paths, int threads) {
+
+        long start = System.nanoTime();
+
+        // compilation stores the DOCTYPE and XML declaration as attributes of
+        // the current FacesContext, don't let them leak out of the warm up
+        Map<Object, Object> attributes = context.getAttributes();
+        Map<Object, Object> savedAttributes = new HashMap<>(attributes);
+
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        Map<String, Long> times = new HashMap<>();
+        try {
+            List<ForkJoinTask<Long>> tasks = new ArrayList<>(paths.size());
+            for (String path : paths) {
+                tasks.add(pool.submit(() -> compile(path, loader)));
+            }
+            for (int i = 0, size = paths.size(); i < size; i++) {
+                Long time = tasks.get(i).join();
+                if (time != null) {
+                    times.put(paths.get(i), time);
+                }
+            }
+
+            RequestStateManager.set(context, FACELET_FACTORY, factory);
+            for (Map.Entry<String, Long> time : times.entrySet()) {
+                String[] id = getCompositeComponentId(time.getKey(), resourcesDirectory);
+                if (id != null) {
+                    time.setValue(time.getValue() + createMetadata(time.getKey(), id[0], id[1]));
+                }
+            }
+        } finally {
+            pool.shutdown();
+            attributes.clear();
+            attributes.putAll(savedAttributes);
+        }
+
+        if (LOGGER.isLoggable(FINE)) {
+            times.entrySet()
+                 .stream()
+                 .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                 .forEach(time -> LOGGER.log(FINE, "Compiled Facelet {0} in {1} ms",
+                                             new Object[] { time.getKey(), TimeUnit.NANOSECONDS.toMillis(time.getValue()) }));
+        }
+        if (LOGGER.isLoggable(INFO)) {
+            LOGGER.log(INFO,
+                       "Compiled {0} of {1} Facelets in {2} ms using {3} threads",
+                       new Object[] { times.size(),
+                                      paths.size(),
+                                      TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                                      threads });
+        }
+
+    }
+
+
+    /**
+     * @return the compile time in nanoseconds, or <code>null</code> if the
+     *  Facelet failed to compile
+     */
+    private Long compile(String path, ClassLoader loader) {
+
+        Thread thread = Thread.currentThread();
+        ClassLoader previousLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(loader);
+
+        // makes the initialization FacesContext the current instance of
+        // the worker thread
+        context.addInitContextEntryForCurrentThread();
+        try {
+            long start = System.nanoTime();
+            URL url = context.getExternalContext().getResource(path);
+            if (url == null) {
+                return null;
+            }
+            factory.getFacelet(context, url);
+            if (!path.startsWith(resourcesDirectory) && !path.startsWith("/WEB-INF/")) {
+                factory.getMetadataFacelet(context, url);
+            }
+            return System.nanoTime() - start;
+        } catch (Exception e) {
+            if (LOGGER.isLoggable(WARNING)) {
+                LOGGER.log(WARNING, "Unable to compile Facelet " + path + " during warm up", e);
+            }
+            return null;
+        } finally {
+            context.removeInitContextEntryForCurrentThread();
+            thread.setContextClassLoader(previousLoader);
+        }
+
+    }
+
+
+    /**
+     * @return the time it took to create the <code>BeanInfo</code> of the
+     *  composite component in nanoseconds
+     */
+    private long createMetadata(String path, String libraryName, String resourceName) {
+
+        long start = System.nanoTime();
+        try {
+            ResourceHandler handler = context.getApplication().getResourceHandler();
+            Resource resource = handler.createResource(resourceName, libraryName);
+            if (resource != null) {
+                vdl.getComponentMetadata(context, resource);
+            }
+        } catch (Exception e) {
+            // the metadata is created when the component is first used
+            if (LOGGER.isLoggable(FINE)) {
+                LOGGER.log(FINE, "Unable to create the metadata of composite component " + path + " during warm up", e);
+            }
+        }
+        return System.nanoTime() - start;
+
+    }
+
+
+    /**
+     * @param path the path of a Facelet
+     * @param resourcesDirectory the web application resources directory,
+     *  ending with a <code>/</code>
+     * @return the library and resource name of the composite component
+     *  at <code>path</code>, or <code>null</code> if the Facelet is not below
+     *  a library of the resources directory.  A versioned library resolves to
+     *  its latest version, as it does when the component is used.
+     */
+    static String[] getCompositeComponentId(String path, String resourcesDirectory) {
+
+        if (!path.startsWith(resourcesDirectory)) {
+            return null;
+        }
+        int libraryEnd = path.indexOf('/', resourcesDirectory.length());
+        int nameStart = path.lastIndexOf('/') + 1;
+        if (libraryEnd <= resourcesDirectory.length()
+              || path.lastIndexOf('/', nameStart - 2) > libraryEnd) {
+            // no library, or nested deeper than a library version
+            return null;
+        }
+        return new String[] { path.substring(resourcesDirectory.length(), libraryEnd),
+                              path.substring(nameStart) };
+
+    }
+
+
+    private static ViewDeclarationLanguage getFaceletViewDeclarationLanguage() {
+
+        ViewDeclarationLanguageFactory vdlFactory = (ViewDeclarationLanguageFactory)
+              FactoryFinder.getFactory(VIEW_DECLARATION_LANGUAGE_FACTORY);
+        for (ViewDeclarationLanguage vdl : vdlFactory.getAllViewDeclarationLanguages()) {
+            if (vdl instanceof FaceletViewHandlingStrategy) {
+                return vdl;
+            }
+        }
+        return null;
+
+    }
+
+
+    /**
+     * @param value the value of <code>com.sun.faces.faceletsWarmUpThreads</code>
+     * @return the number of threads to compile with
+     */
+    static int getThreads(String value) {
+
+        int threads;
+        try {
+            threads = Integer.parseInt(value);
+        } catch (NumberFormatException nfe) {
+            threads = 0;
+        }
+        return (threads > 0) ? threads : Runtime.getRuntime().availableProcessors();
+
+    }
+
+}
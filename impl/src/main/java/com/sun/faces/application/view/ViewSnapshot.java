@@ -0,0 +1,433 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.application.view;
+
+import static java.util.logging.Level.FINE;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import javax.faces.FacesException;
+import javax.faces.component.UIComponent;
+import javax.faces.component.UIViewRoot;
+import javax.faces.context.FacesContext;
+import javax.faces.view.facelets.Facelet;
+
+import com.sun.faces.RIConstants;
+import com.sun.faces.facelets.compiler.UILeaf;
+import com.sun.faces.util.FacesLogger;
+
+/**
+ * <p>
+ * The component tree produced by building a view for the first time, kept
+ * so that later postbacks can restore it instead of executing the Facelet
+ * again.
+ * </p>
+ *
+ * <p>
+ * The snapshot holds the full state of every component, as it would be
+ * saved with full state saving, taken before the initial state is marked.
+ * Restoring it creates new component instances from that state, so
+ * components, attached objects and collections are never shared between
+ * requests while immutable values such as expressions are. Transient
+ * Facelets text is copied from a detached template.  Each subtree is
+ * assembled before it is added to the view, as Facelets does, so
+ * <code>PostAddToViewEvent</code> listeners restored with the components,
+ * such as those of <code>f:event</code> or <code>@ListenerFor</code>, see
+ * their children.
+ * </p>
+ *
+ * <p>
+ * A snapshot is only usable if the tree does not depend on the request. It
+ * is not when an expression was evaluated while building the view, e.g. by
+ * <code>c:if</code> or <code>c:forEach</code>, when a component is obtained
+ * through a binding, when the view contains composite components, whose
+ * metadata is not part of their state, or other transient components. In
+ * these cases the snapshot just records why, so the view is built from the
+ * Facelet as usual without being analyzed again.
+ * </p>
+ */
+final class ViewSnapshot {
+
+    private static final Logger LOGGER = FacesLogger.APPLICATION_VIEW.getLogger();
+
+    /**
+     * The {@link FacesContext} attributes the view build may set that are
+     * needed to render the response, the content type and encoding of
+     * <code>f:view</code>.
+     */
+    private static final String[] CONTEXT_ATTRIBUTES = {
+          "facelets.ContentType",
+          RIConstants.FACELETS_ENCODING_KEY
+    };
+
+    private final Facelet facelet;
+    private final Object dependency;
+    private final Object rootState;
+    private final Node[] nodes;
+    private final Map<Object, Object> contextAttributes;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    private ViewSnapshot(Facelet facelet,
+                         Object dependency,
+                         Object rootState,
+                         Node[] nodes,
+                         Map<Object, Object> contextAttributes) {
+
+        this.facelet = facelet;
+        this.dependency = dependency;
+        this.rootState = rootState;
+        this.nodes = nodes;
+        this.contextAttributes = contextAttributes;
+
+    }
+
+
+    // --------------------------------------------------------- Package Methods
+
+
+    /**
+     * <p>
+     * Takes a snapshot of <code>root</code>, which must have been built from
+     * <code>facelet</code> but not have its initial state marked yet.
+     * </p>
+     *
+     * @param context the {@link FacesContext} for the current request
+     * @param root the view just built
+     * @param facelet the Facelet the view was built from
+     * @param dependency the first request dependency found while building
+     *  the view, if any
+     * @param attributesBefore a copy of the {@link FacesContext} attributes
+     *  taken before the view was built
+     * @return the snapshot, which may not be usable
+     */
+    static ViewSnapshot capture(FacesContext context,
+                                UIViewRoot root,
+                                Facelet facelet,
+                                Object dependency,
+                                Map<Object, Object> attributesBefore) {
+
+        if (dependency == null && root.isTransient()) {
+            dependency = "transient view";
+        }
+
+        List<Node> nodes = new ArrayList<>();
+        if (dependency == null) {
+            dependency = captureChildren(context, root, -1, nodes);
+        }
+
+        ViewSnapshot snapshot;
+        if (dependency != null) {
+            if (LOGGER.isLoggable(FINE)) {
+                LOGGER.log(FINE,
+                           "View {0} will be built on every postback as it depends on {1}",
+                           new Object[] { root.getViewId(), dependency });
+            }
+            snapshot = new ViewSnapshot(facelet, dependency, null, null, null);
+        } else {
+            Object[] state = (Object[]) root.saveState(context);
+            snapshot = new ViewSnapshot(facelet,
+                                        null,
+                                        (state != null) ? state[0] : null,
+                                        nodes.toArray(new Node[nodes.size()]),
+                                        getAddedAttributes(context, attributesBefore));
+        }
+        return snapshot;
+
+    }
+
+
+    /**
+     * @param facelet the current Facelet for the view
+     * @return <code>true</code> if this snapshot was taken from
+     *  <code>facelet</code>, whether it is usable or not
+     */
+    boolean isCurrent(Facelet facelet) {
+
+        return this.facelet == facelet;
+
+    }
+
+
+    /**
+     * @param facelet the current Facelet for the view
+     * @return <code>true</code> if the view may be restored from this
+     *  snapshot
+     */
+    boolean isUsable(Facelet facelet) {
+
+        return this.facelet == facelet && dependency == null;
+
+    }
+
+
+    /**
+     * <p>
+     * Restores the snapshot into <code>root</code>, which must only contain
+     * the view metadata.  The locale and render kit of <code>root</code>
+     * are kept as they were calculated for the current request.
+     * </p>
+     *
+     * @param context the {@link FacesContext} for the current request
+     * @param root the view to populate
+     * @return <code>false</code> if <code>root</code> was left untouched as
+     *  it already has content
+     */
+    boolean restore(FacesContext context, UIViewRoot root) {
+
+        if (root.getChildCount() > 0) {
+            return false;
+        }
+        for (String name : root.getFacets().keySet()) {
+            if (!UIViewRoot.METADATA_FACET_NAME.equals(name)) {
+                return false;
+            }
+        }
+
+        Locale locale = root.getLocale();
+        String renderKitId = root.getRenderKitId();
+        if (rootState != null) {
+            Object[] state = (Object[]) root.saveState(context);
+            Object viewMapId = (state != null) ? state[1] : null;
+            root.restoreState(context, new Object[] { rootState, viewMapId });
+            root.setLocale(locale);
+            root.setRenderKitId(renderKitId);
+        }
+
+        // subtrees are assembled first and then added to the view, which
+        // publishes the PostAddToViewEvents
+        UIComponent[] components = new UIComponent[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            Node node = nodes[i];
+            if (node.parent == -1) {
+                if (UIViewRoot.METADATA_FACET_NAME.equals(node.facetName)
+                      && root.getFacet(node.facetName) != null) {
+                    // the metadata has been built when the view was created
+                    continue;
+                }
+                components[i] = node.newInstance(context);
+            } else if (components[node.parent] != null) {
+                components[i] = node.newInstance(context);
+                node.addTo(components[node.parent], components[i]);
+            }
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            if (nodes[i].parent == -1 && components[i] != null) {
+                nodes[i].addTo(root, components[i]);
+            }
+        }
+
+        context.getAttributes().putAll(contextAttributes);
+        return true;
+
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    /**
+     * @return the reason the children of <code>parent</code> cannot be
+     *  captured, or <code>null</code> if they have been
+     */
+    private static Object captureChildren(FacesContext context,
+                                          UIComponent parent,
+                                          int parentIndex,
+                                          List<Node> nodes) {
+
+        for (Map.Entry<String, UIComponent> facet : parent.getFacets().entrySet()) {
+            Object dependency = capture(context, facet.getValue(), facet.getKey(), parentIndex, nodes);
+            if (dependency != null) {
+                return dependency;
+            }
+        }
+        if (parent.getChildCount() > 0) {
+            for (UIComponent child : parent.getChildren()) {
+                Object dependency = capture(context, child, null, parentIndex, nodes);
+                if (dependency != null) {
+                    return dependency;
+                }
+            }
+        }
+        return null;
+
+    }
+
+
+    private static Object capture(FacesContext context,
+                                  UIComponent component,
+                                  String facetName,
+                                  int parentIndex,
+                                  List<Node> nodes) {
+
+        if (UIComponent.isCompositeComponent(component)) {
+            return "composite component " + component.getId();
+        }
+
+        Node node;
+        if (component.isTransient()) {
+            UILeaf template = (component instanceof UILeaf)
+                              ? ((UILeaf) component).copy()
+                              : null;
+            if (template == null) {
+                return "transient component " + component.getId();
+            }
+            node = new Node(parentIndex,
+                            facetName,
+                            component.getId(),
+                            template,
+                            new HashMap<>(component.getAttributes()));
+        } else {
+            Class<? extends UIComponent> type = component.getClass();
+            try {
+                type.getConstructor();
+            } catch (NoSuchMethodException nsme) {
+                return "component without public constructor " + component.getId();
+            }
+            node = new Node(parentIndex,
+                            facetName,
+                            component.getId(),
+                            type,
+                            component.saveState(context));
+        }
+
+        int index = nodes.size();
+        nodes.add(node);
+        return captureChildren(context, component, index, nodes);
+
+    }
+
+
+    /**
+     * @return the {@link #CONTEXT_ATTRIBUTES} the view build set
+     */
+    static Map<Object, Object> getAddedAttributes(FacesContext context,
+                                                  Map<Object, Object> attributesBefore) {
+
+        Map<Object, Object> attributes = context.getAttributes();
+        Map<Object, Object> added = new HashMap<>(4);
+        for (String name : CONTEXT_ATTRIBUTES) {
+            Object value = attributes.get(name);
+            if (value != null && !value.equals(attributesBefore.get(name))) {
+                added.put(name, value);
+            }
+        }
+        return added;
+
+    }
+
+
+    // ---------------------------------------------------------- Nested Classes
+
+
+    private static final class Node {
+
+        private final int parent;
+        private final String facetName;
+        private final String id;
+        private final UILeaf template;
+        private final Map<String, Object> attributes;
+        private final Class<? extends UIComponent> type;
+        private final Object state;
+
+        Node(int parent,
+             String facetName,
+             String id,
+             UILeaf template,
+             Map<String, Object> attributes) {
+            this.parent = parent;
+            this.facetName = facetName;
+            this.id = id;
+            this.template = template;
+            this.attributes = attributes;
+            this.type = null;
+            this.state = null;
+        }
+
+        Node(int parent,
+             String facetName,
+             String id,
+             Class<? extends UIComponent> type,
+             Object state) {
+            this.parent = parent;
+            this.facetName = facetName;
+            this.id = id;
+            this.template = null;
+            this.attributes = null;
+            this.type = type;
+            this.state = state;
+        }
+
+        UIComponent newInstance(FacesContext context) {
+            UIComponent component;
+            if (template != null) {
+                component = template.copy();
+                component.getAttributes().putAll(attributes);
+            } else {
+                try {
+                    component = type.newInstance();
+                } catch (InstantiationException | IllegalAccessException e) {
+                    throw new FacesException(e);
+                }
+                component.restoreState(context, state);
+            }
+            component.setId(id);
+            return component;
+        }
+
+        void addTo(UIComponent parent, UIComponent component) {
+            if (facetName != null) {
+                parent.getFacets().put(facetName, component);
+            } else {
+                parent.getChildren().add(component);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,432 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.application.view;
+
+import static com.sun.faces.config.WebConfiguration.BooleanWebContextInitParameter.EnableViewStateStatistics;
+
+import java.beans.ConstructorProperties;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.faces.component.UIComponent;
+import javax.faces.context.ExternalContext;
+import javax.faces.context.FacesContext;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.servlet.ServletContext;
+
+import com.sun.faces.config.WebConfiguration;
+import com.sun.faces.spi.SerializationProvider;
+import com.sun.faces.spi.SerializationProviderFactory;
+import com.sun.faces.util.FacesLogger;
+
+/**
+ * <p>
+ * Collects the serialized size of the state saved by
+ * {@link FaceletPartialStateManagementStrategy} and
+ * {@link FaceletFullStateManagementStrategy}, per view ID and per component
+ * class, if <code>com.sun.faces.enableViewStateStatistics</code> is enabled.
+ * The statistics are registered with the platform MBean server as
+ * <code>com.sun.faces:type=ViewStateStatistics,context=&lt;context path&gt;</code>,
+ * and each saved view is logged at level <code>FINE</code>.
+ * </p>
+ *
+ * <p>
+ * Sizes are measured by serializing the state with the configured
+ * <code>SerializationProvider</code>, before any compression.  Each
+ * component's state is measured on its own and so includes the overhead
+ * of a separate stream, which makes the component sizes an upper bound.
+ * As the state is serialized once more for measuring, this is meant
+ * for diagnosis rather than for permanent use in production.
+ * </p>
+ */
+public class ViewStateStatistics implements ViewStateStatisticsMXBean {
+
+    private static final Logger LOGGER = FacesLogger.APPLICATION.getLogger();
+
+    private static final String STATISTICS_KEY =
+          ViewStateStatistics.class.getName();
+
+    private final ConcurrentMap<String, Entry> views = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Entry> componentTypes = new ConcurrentHashMap<>();
+    private final SerializationProvider serialProvider;
+    private ObjectName objectName;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    private ViewStateStatistics(ExternalContext extContext) {
+
+        serialProvider = SerializationProviderFactory.createInstance(extContext);
+
+    }
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    /**
+     * @param context the <code>FacesContext</code> for the current request
+     * @param viewId the ID of the view being saved
+     * @return a <code>Recorder</code> collecting the state of the view,
+     *  or <code>null</code> if statistics are disabled
+     */
+    static Recorder getRecorder(FacesContext context, String viewId) {
+
+        ExternalContext extContext = context.getExternalContext();
+        if (!WebConfiguration.getInstance(extContext).isOptionEnabled(EnableViewStateStatistics)) {
+            return null;
+        }
+        Map<String, Object> appMap = extContext.getApplicationMap();
+        ViewStateStatistics statistics = (ViewStateStatistics) appMap.get(STATISTICS_KEY);
+        if (statistics == null) {
+            synchronized (ViewStateStatistics.class) {
+                statistics = (ViewStateStatistics) appMap.get(STATISTICS_KEY);
+                if (statistics == null) {
+                    statistics = new ViewStateStatistics(extContext);
+                    statistics.register(extContext.getApplicationContextPath());
+                    appMap.put(STATISTICS_KEY, statistics);
+                }
+            }
+        }
+        return statistics.new Recorder(viewId);
+
+    }
+
+
+    /**
+     * <p>Unregisters the statistics of the application from the MBean
+     * server, if any.</p>
+     * @param context the <code>ServletContext</code> of the application
+     */
+    public static void unregister(ServletContext context) {
+
+        Object statistics = context.getAttribute(STATISTICS_KEY);
+        if (statistics instanceof ViewStateStatistics) {
+            ObjectName name = ((ViewStateStatistics) statistics).objectName;
+            if (name != null) {
+                try {
+                    ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+                } catch (JMException jme) {
+                    if (LOGGER.isLoggable(Level.FINE)) {
+                        LOGGER.log(Level.FINE, "Unable to unregister " + name, jme);
+                    }
+                }
+            }
+            context.removeAttribute(STATISTICS_KEY);
+        }
+
+    }
+
+
+    // ------------------------------------ Methods from ViewStateStatisticsMXBean
+
+
+    @Override
+    public Map<String, SizeStatistics> getViews() {
+
+        return snapshot(views);
+
+    }
+
+
+    @Override
+    public Map<String, SizeStatistics> getComponentTypes() {
+
+        return snapshot(componentTypes);
+
+    }
+
+
+    @Override
+    public void reset() {
+
+        views.clear();
+        componentTypes.clear();
+
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private void register(String contextPath) {
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("com.sun.faces:type=ViewStateStatistics,context="
+                                             + ObjectName.quote(contextPath));
+            server.registerMBean(this, name);
+            objectName = name;
+        } catch (JMException jme) {
+            if (LOGGER.isLoggable(Level.WARNING)) {
+                LOGGER.log(Level.WARNING,
+                           "Unable to register the view state statistics MBean",
+                           jme);
+            }
+        }
+
+    }
+
+
+    private static Map<String, SizeStatistics> snapshot(Map<String, Entry> entries) {
+
+        Map<String, SizeStatistics> result = new TreeMap<>();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            Entry e = entry.getValue();
+            result.put(entry.getKey(), new SizeStatistics(e.count.sum(),
+                                                          e.totalSize.sum(),
+                                                          e.maxSize.get()));
+        }
+        return result;
+
+    }
+
+
+    private static void add(ConcurrentMap<String, Entry> entries, String key, long size) {
+
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            Entry newEntry = new Entry();
+            entry = entries.putIfAbsent(key, newEntry);
+            if (entry == null) {
+                entry = newEntry;
+            }
+        }
+        entry.add(size);
+
+    }
+
+
+    private long sizeOf(Object state) {
+
+        CountingOutputStream counter = new CountingOutputStream();
+        try (ObjectOutputStream oos = serialProvider.createObjectOutputStream(counter)) {
+            oos.writeObject(state);
+        } catch (IOException ioe) {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE, "Unable to measure state", ioe);
+            }
+            return -1;
+        }
+        return counter.count;
+
+    }
+
+
+    // ----------------------------------------------------------- Inner Classes
+
+
+    /**
+     * <p>
+     * Collects the state saved for a single view.  Instances are confined
+     * to the thread saving the view.
+     * </p>
+     */
+    final class Recorder {
+
+        private final String viewId;
+        private final Map<String, long[]> componentSizes = new HashMap<>();
+
+
+        private Recorder(String viewId) {
+
+            this.viewId = viewId;
+
+        }
+
+
+        /**
+         * @param component the component whose state has been saved
+         * @param state the saved state
+         */
+        void component(UIComponent component, Object state) {
+
+            long size = sizeOf(state);
+            if (size >= 0) {
+                long[] total = componentSizes.get(component.getClass().getName());
+                if (total == null) {
+                    componentSizes.put(component.getClass().getName(), new long[] { size });
+                } else {
+                    total[0] += size;
+                }
+            }
+
+        }
+
+
+        /**
+         * @param state the state of the view, as returned from <code>saveView</code>
+         */
+        void view(Object state) {
+
+            long size = sizeOf(state);
+            if (size < 0) {
+                return;
+            }
+            add(views, viewId, size);
+            for (Map.Entry<String, long[]> entry : componentSizes.entrySet()) {
+                add(componentTypes, entry.getKey(), entry.getValue()[0]);
+            }
+            if (LOGGER.isLoggable(Level.FINE)) {
+                Map<String, Long> sizes = new TreeMap<>();
+                for (Map.Entry<String, long[]> entry : componentSizes.entrySet()) {
+                    sizes.put(entry.getKey(), entry.getValue()[0]);
+                }
+                LOGGER.log(Level.FINE,
+                           "Saved state of view {0}: {1} bytes, by component class: {2}",
+                           new Object[] { viewId, size, sizes });
+            }
+
+        }
+
+    }
+
+
+    /**
+     * <p>
+     * The size statistics of a view or component class.
+     * </p>
+     */
+    public static final class SizeStatistics {
+
+        private final long count;
+        private final long totalSize;
+        private final long maxSize;
+
+
+        @ConstructorProperties({ "count", "totalSize", "maxSize" })
+        public SizeStatistics(long count, long totalSize, long maxSize) {
+
+            this.count = count;
+            this.totalSize = totalSize;
+            this.maxSize = maxSize;
+
+        }
+
+
+        /**
+         * @return the number of times state has been saved
+         */
+        public long getCount() {
+            return count;
+        }
+
+
+        /**
+         * @return the sum of all sizes, in bytes
+         */
+        public long getTotalSize() {
+            return totalSize;
+        }
+
+
+        /**
+         * @return the largest size, in bytes
+         */
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+
+        /**
+         * @return the average size, in bytes
+         */
+        public long getAverageSize() {
+            return ((count > 0) ? totalSize / count : 0);
+        }
+
+    }
+
+
+    private static final class Entry {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalSize = new LongAdder();
+        private final AtomicLong maxSize = new AtomicLong();
+
+
+        void add(long size) {
+
+            count.increment();
+            totalSize.add(size);
+            long max;
+            while (size > (max = maxSize.get()) && !maxSize.compareAndSet(max, size)) {
+                // retry
+            }
+
+        }
+
+    }
+
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+    }
+
+}
@@ -41,6 +41,9 @@
 package com.sun.faces.application.view;
 
 import com.sun.faces.RIConstants;
+import com.sun.faces.io.EncodedText;
+import com.sun.faces.io.EncodedTextSink;
+import com.sun.faces.io.EncodingOutputWriter;
 import com.sun.faces.io.FastStringWriter;
 import com.sun.faces.util.Util;
 
@@ -54,7 +57,7 @@ import java.io.Writer;
  * Custom {@link Writer} to efficiently handle the state manager replacement
  * marker written out by {@link MultiViewHandler#writeState(javax.faces.context.FacesContext)}.
  */
-final class WriteBehindStateWriter extends Writer {
+final class WriteBehindStateWriter extends Writer implements EncodedTextSink {
 
     // length of the state marker
     private static final int STATE_MARKER_LEN =
@@ -70,6 +73,7 @@ final class WriteBehindStateWriter extends Writer {
     private char[] buf;
     private FacesContext context;
     private Object state;
+    private boolean earlyFlush;
 
 
     // -------------------------------------------------------- Constructors
@@ -171,6 +175,19 @@ final class WriteBehindStateWriter extends Writer {
     }
 
 
+    // ---------------------------------------- Methods from EncodedTextSink
+
+
+    @Override
+    public boolean write(EncodedText text) throws IOException {
+        // once state has been written the content is buffered as characters
+        // so that the state field markers can be replaced
+        return out == orig
+               && orig instanceof EncodedTextSink
+               && ((EncodedTextSink) orig).write(text);
+    }
+
+
     // ------------------------------------------------------ Public Methods
 
 
@@ -197,7 +214,55 @@ final class WriteBehindStateWriter extends Writer {
      * is called will then be buffered and written out later after the
      * entire view has been rendered.
      */
-    public void writingState() {
+    public void writingState() throws IOException {
+        if (!stateWritten) {
+            if (earlyFlush) {
+                // send everything up to the state of the first form
+                flushEarly();
+            }
+            this.stateWritten = true;
+            out = fWriter = new FastStringWriter(1024);
+        }
+    }
+
+    /**
+     * @param earlyFlush <code>true</code> if the content written before the
+     *  first state field marker should be sent to the client when that marker
+     *  is reached
+     */
+    void setEarlyFlush(boolean earlyFlush) {
+        this.earlyFlush = earlyFlush;
+    }
+
+    /**
+     * <p>Sends the content written so far to the client.  This commits the
+     * response, so the Flash gets to write its cookie first.  Nothing is
+     * sent once the content is being buffered for the state field markers
+     * to be replaced.</p>
+     *
+     * @throws IOException if an error occurs
+     */
+    void flushEarly() throws IOException {
+
+        if (out != orig) {
+            return;
+        }
+        if (orig instanceof EncodingOutputWriter) {
+            ((EncodingOutputWriter) orig).writeBuffer();
+        }
+        context.getExternalContext().responseFlushBuffer();
+
+    }
+
+    /**
+     * Buffers all content from now on, not only the content following the
+     * first state field marker, so that the response is not committed
+     * before the state has been saved.  This allows the session to be
+     * created on demand when the state is written.  {@link #flushEarly()}
+     * does nothing from then on, which is why views are not rendered this
+     * way if early flushing is enabled.
+     */
+    void holdContent() {
         if (!stateWritten) {
             this.stateWritten = true;
             out = fWriter = new FastStringWriter(1024);
@@ -113,19 +113,25 @@ import org.xml.sax.helpers.DefaultHandler;
 
 import com.sun.faces.application.ApplicationAssociate;
 import com.sun.faces.application.WebappLifecycleListener;
+import com.sun.faces.application.view.FaceletWarmUp;
+import com.sun.faces.application.view.ViewStateStatistics;
 import com.sun.faces.config.WebConfiguration.WebContextInitParameter;
 import com.sun.faces.el.ChainTypeCompositeELResolver;
 import com.sun.faces.el.ELContextImpl;
 import com.sun.faces.el.ELContextListenerImpl;
 import com.sun.faces.el.ELUtils;
 import com.sun.faces.el.FacesCompositeELResolver;
+import com.sun.faces.facelets.impl.FaceletCacheStatistics;
 import com.sun.faces.mgbean.BeanBuilder;
 import com.sun.faces.mgbean.BeanManager;
 import com.sun.faces.push.WebsocketEndpoint;
+import com.sun.faces.renderkit.AsyncStateSerializer;
+import com.sun.faces.spi.ViewStateStoreFactory;
 import com.sun.faces.util.FacesLogger;
 import com.sun.faces.util.MessageUtils;
 import com.sun.faces.util.MojarraThreadFactory;
 import com.sun.faces.util.ReflectionUtils;
+import com.sun.faces.util.ResourceChangeWatcher;
 import com.sun.faces.util.Timer;
 import com.sun.faces.util.Util;
 
@@ -287,6 +293,8 @@ public class ConfigureListener implements ServletRequestListener, HttpSessionLis
             webConfig.doPostBringupActions();
             configManager.publishPostConfigEvent();
 
+            FaceletWarmUp.warmUp(initContext);
+
         } catch (Throwable t) {
             LOGGER.log(SEVERE, "Critical error during deployment: ", t);
             caughtThrowable = t;
@@ -349,6 +357,12 @@ public class ConfigureListener implements ServletRequestListener, HttpSessionLis
             if (webResourcePool != null) {
                 webResourcePool.shutdownNow();
             }
+
+            AsyncStateSerializer.shutdown(context);
+            ViewStateStoreFactory.shutdown(context);
+            ViewStateStatistics.unregister(context);
+            FaceletCacheStatistics.unregister(context);
+            ResourceChangeWatcher.shutdown(context);
             
             if (LOGGER.isLoggable(FINE)) {
                 LOGGER.log(FINE,
@@ -44,6 +44,7 @@ import static com.sun.faces.RIConstants.FACES_PREFIX;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -94,9 +95,10 @@ public class InitFacesContext extends NoOpFacesContext {
     }
 
     @Override
-    public Map<Object, Object> getAttributes() {
+    public synchronized Map<Object, Object> getAttributes() {
         if (attributes == null) {
-            attributes = new HashMap<>();
+            // Facelets may be compiled concurrently during startup
+            attributes = Collections.synchronizedMap(new HashMap<Object, Object>());
         }
         
         return attributes;
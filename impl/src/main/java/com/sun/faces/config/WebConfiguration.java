@@ -956,6 +956,22 @@ public class WebConfiguration {
               "com.sun.faces.serializationProvider",
               ""
         ),
+        ViewStateStoreClass(
+              "com.sun.faces.viewStateStore",
+              ""
+        ),
+        MappedViewStateStoreDirectory(
+              "com.sun.faces.mappedViewStateStoreDirectory",
+              ""
+        ),
+        MappedViewStateStoreSegmentSize(
+              "com.sun.faces.mappedViewStateStoreSegmentSize",
+              "67108864" // 64 MB
+        ),
+        MappedViewStateStoreSegments(
+              "com.sun.faces.mappedViewStateStoreSegments",
+              "8"
+        ),
         ResponseBufferSize(
               "com.sun.faces.responseBufferSize",
               "1024"
@@ -987,6 +1003,26 @@ public class WebConfiguration {
               "com.sun.faces.clientStateTimeout",
               ""
         ),
+        ServerStateSerializationThreads(
+              "com.sun.faces.serverStateSerializationThreads",
+              "2"
+        ),
+        ServerStateSerializationQueueSize(
+              "com.sun.faces.serverStateSerializationQueueSize",
+              "256"
+        ),
+        ClientStateEncryptionMode(
+              "com.sun.faces.clientStateEncryptionMode",
+              "cbc" // or gcm
+        ),
+        FaceletsWarmUpThreads(
+              "com.sun.faces.faceletsWarmUpThreads",
+              "0" // number of available processors
+        ),
+        FaceletCacheMaxSize(
+              "com.sun.faces.faceletCacheMaxSize",
+              "0" // kilobytes of source, 0 means unbounded
+        ),
         DefaultResourceMaxAge(
               "com.sun.faces.defaultResourceMaxAge",
               "604800000" // 7 days
@@ -999,6 +1035,14 @@ public class WebConfiguration {
               "com.sun.faces.compressableMimeTypes",
               ""
         ),
+        CompressViewStateCodec(
+              "com.sun.faces.compressViewStateCodec",
+              "gzip"
+        ),
+        CompressViewStateLevel(
+              "com.sun.faces.compressViewStateLevel",
+              "-1" // Deflater.DEFAULT_COMPRESSION
+        ),
         DisableUnicodeEscaping(
             "com.sun.faces.disableUnicodeEscaping",
             "auto"
@@ -1093,6 +1137,10 @@ public class WebConfiguration {
         WebAppContractsDirectory(
               ResourceHandler.WEBAPP_CONTRACTS_DIRECTORY_PARAM_NAME,
               "/contracts"
+        ),
+        TableStreamingRows(
+              "com.sun.faces.tableStreamingRows",
+              "0"
         );
 
 
@@ -1304,6 +1352,58 @@ public class WebConfiguration {
                true,
                 SerializeServerState
         ),
+        DeltaEncodeServerState(
+              "com.sun.faces.deltaEncodeServerState",
+              false
+        ),
+        SerializeServerStateAsynchronously(
+              "com.sun.faces.serializeServerStateAsynchronously",
+              false
+        ),
+        EnableViewStateStatistics(
+              "com.sun.faces.enableViewStateStatistics",
+              false
+        ),
+        AutomaticStatelessViews(
+              "com.sun.faces.automaticStatelessViews",
+              false
+        ),
+        EnablePrecompiledFacelets(
+              "com.sun.faces.enablePrecompiledFacelets",
+              false
+        ),
+        EnableFaceletsWarmUp(
+              "com.sun.faces.enableFaceletsWarmUp",
+              false
+        ),
+        WatchResourceChanges(
+              "com.sun.faces.watchResourceChanges",
+              false
+        ),
+        PreEncodeLiteralText(
+              "com.sun.faces.preEncodeLiteralText",
+              false
+        ),
+        EnableViewSnapshots(
+              "com.sun.faces.enableViewSnapshots",
+              false
+        ),
+        FoldConstantExpressions(
+              "com.sun.faces.foldConstantExpressions",
+              false
+        ),
+        CacheTemplateResolution(
+              "com.sun.faces.cacheTemplateResolution",
+              false
+        ),
+        EnableEarlyFlush(
+              "com.sun.faces.enableEarlyFlush",
+              false
+        ),
+        CompactClientIds(
+              "com.sun.faces.compactClientIds",
+              false
+        ),
         EnableViewStateIdRendering(
             "com.sun.faces.enableViewStateIdRendering",
             true
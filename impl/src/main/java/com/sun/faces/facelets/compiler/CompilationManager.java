@@ -52,6 +52,7 @@ import com.sun.faces.facelets.tag.ui.CompositionHandler;
 import com.sun.faces.facelets.tag.ui.UILibrary;
 import com.sun.faces.util.FacesLogger;
 
+import javax.el.ExpressionFactory;
 import javax.faces.view.facelets.*;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -91,6 +92,11 @@ final class CompilationManager {
     private CompilationMessageHolder messageHolder = null;
 
     private WebConfiguration config;
+
+    private final ConstantFolder constantFolder;
+
+    // approximate number of characters compiled, see getSize()
+    private long size;
     
     public CompilationManager(String alias, Compiler compiler) {
         
@@ -116,6 +122,17 @@ final class CompilationManager {
         this.units.push(new CompilationUnit());
 
         config = WebConfiguration.getInstance();
+
+        // constant expression folding, if enabled
+        ConstantFolder folder = null;
+        if (config != null
+                && config.isOptionEnabled(WebConfiguration.BooleanWebContextInitParameter.FoldConstantExpressions)) {
+            ExpressionFactory factory = compiler.createExpressionFactory();
+            if (factory != null) {
+                folder = new ConstantFolder(factory);
+            }
+        }
+        this.constantFolder = folder;
         
     }
         
@@ -156,12 +173,13 @@ final class CompilationManager {
         if (value.length() == 0) {
             return;
         }
+        this.size += value.length();
 
         TextUnit unit;
         if (this.currentUnit() instanceof TextUnit) {
             unit = (TextUnit) this.currentUnit();
         } else {
-            unit = new TextUnit(this.alias, this.nextTagId());
+            unit = new TextUnit(this.alias, this.nextTagId(), this.constantFolder);
             this.startUnit(unit);
         }
         unit.writeInstruction(value);
@@ -177,12 +195,13 @@ final class CompilationManager {
         if (value.length() == 0) {
             return;
         }
+        this.size += value.length();
 
         TextUnit unit;
         if (this.currentUnit() instanceof TextUnit) {
             unit = (TextUnit) this.currentUnit();
         } else {
-            unit = new TextUnit(this.alias, this.nextTagId());
+            unit = new TextUnit(this.alias, this.nextTagId(), this.constantFolder);
             this.startUnit(unit);
         }
         unit.write(value);
@@ -200,12 +219,13 @@ final class CompilationManager {
         if (text.length() == 0) {
             return;
         }
+        this.size += text.length();
           
         TextUnit unit;
         if (this.currentUnit() instanceof TextUnit) {
             unit = (TextUnit) this.currentUnit();
         } else {
-            unit = new TextUnit(this.alias, this.nextTagId());
+            unit = new TextUnit(this.alias, this.nextTagId(), this.constantFolder);
             this.startUnit(unit);
         }
           
@@ -231,6 +251,7 @@ final class CompilationManager {
         if (log.isLoggable(Level.FINE)) {
             log.fine("Tag Pushed: " + orig);
         }
+        this.size += sizeOf(orig);
 
         Tag t = this.tagDecorator.decorate(orig);
         String[] qname = this.determineQName(t);
@@ -252,7 +273,7 @@ final class CompilationManager {
                 viewRootUnit.removeChildren();
                 this.currentUnit().addChild(viewRootUnit);
             }
-            this.startUnit(new TrimmedTagUnit(this.tagLibrary, qname[0], qname[1], t, this
+            this.startUnit(new TrimmedTagUnit(this.tagLibrary, qname[0], qname[1], this.fold(t), this
                     .nextTagId()));
             if (log.isLoggable(Level.FINE)) {
             	log.fine("New Namespace and [Trimmed] TagUnit pushed");
@@ -274,7 +295,7 @@ final class CompilationManager {
                     .toNamespaceUnit(this.tagLibrary);
             this.units.push(nsUnit);
             this.currentUnit().addChild(iface);
-            this.startUnit(new ImplementationUnit(this.tagLibrary, qname[0], qname[1], t, this
+            this.startUnit(new ImplementationUnit(this.tagLibrary, qname[0], qname[1], this.fold(t), this
                     .nextTagId()));
             if (log.isLoggable(Level.FINE)) {
             	log.fine("New Namespace and ImplementationUnit pushed");
@@ -284,11 +305,11 @@ final class CompilationManager {
             this.units.push(new RemoveUnit());
         } else if (this.tagLibrary.containsTagHandler(qname[0], qname[1])) {
             if (isInterface(qname[0], qname[1])) {
-                InterfaceUnit iface = new InterfaceUnit(this.tagLibrary, qname[0], qname[1], t, this.nextTagId());
+                InterfaceUnit iface = new InterfaceUnit(this.tagLibrary, qname[0], qname[1], this.fold(t), this.nextTagId());
                 setInterfaceUnit(iface);
                 this.startUnit(iface);
             } else {
-                this.startUnit(new TagUnit(this.tagLibrary, qname[0], qname[1], t, this.nextTagId()));
+                this.startUnit(new TagUnit(this.tagLibrary, qname[0], qname[1], this.fold(t), this.nextTagId()));
             }
         } else if (this.tagLibrary.containsNamespace(qname[0], t)) {
             throw new TagException(orig, "Tag Library supports namespace: "+qname[0]+", but no tag was defined for name: "+qname[1]);
@@ -297,7 +318,7 @@ final class CompilationManager {
             if (this.currentUnit() instanceof TextUnit) {
                 unit = (TextUnit) this.currentUnit();
             } else {
-                unit = new TextUnit(this.alias, this.nextTagId());
+                unit = new TextUnit(this.alias, this.nextTagId(), this.constantFolder);
                 this.startUnit(unit);
             }
             unit.startTag(t);
@@ -364,6 +385,24 @@ final class CompilationManager {
         return ((CompilationUnit) this.units.get(0)).createFaceletHandler();
     }
 
+    /**
+     * @return the approximate size of the compiled markup in characters:
+     *  the text, comments and processing instructions plus the names and
+     *  values of the tags and their attributes
+     */
+    public long getSize() {
+        return this.size;
+    }
+
+    private static int sizeOf(Tag tag) {
+        // account for the angle brackets, quotes and separators as well
+        int tagSize = tag.getQName().length() + 3;
+        for (TagAttribute attribute : tag.getAttributes().getAll()) {
+            tagSize += attribute.getQName().length() + attribute.getValue().length() + 4;
+        }
+        return tagSize;
+    }
+
     private CompilationUnit currentUnit() {
         if (!this.units.isEmpty()) {
             return (CompilationUnit) this.units.peek();
@@ -403,6 +442,12 @@ final class CompilationManager {
         unit.startNotify(this);
     }
 
+    private Tag fold(Tag tag) {
+        return ((this.constantFolder != null)
+                ? this.constantFolder.fold(tag)
+                : tag);
+    }
+
     private Tag trimAttributes(Tag tag) {
         Tag t = this.trimJSFCAttribute(tag);
         t = this.trimNSAttributes(t);
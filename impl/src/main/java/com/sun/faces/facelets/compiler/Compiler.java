@@ -112,9 +112,51 @@ public abstract class Compiler {
         return this.doMetadataCompile(src, alias);
     }
 
+    /**
+     * Compile a Facelet from its precompiled form.
+     *
+     * @param src the precompiled Facelet
+     * @param alias the alias of the Facelet
+     * @return the compiled handler
+     * @throws IOException if the Facelet cannot be read
+     */
+    public final FaceletHandler compile(PrecompiledFacelet src, String alias)
+    throws IOException {
+
+        return this.doCompile(src, alias);
+    }
+
+    /**
+     * Compile the metadata of a Facelet from its precompiled form.
+     *
+     * @param src the precompiled Facelet
+     * @param alias the alias of the Facelet
+     * @return the compiled metadata handler
+     * @throws IOException if the Facelet cannot be read
+     */
+    public final FaceletHandler metadataCompile(PrecompiledFacelet src, String alias)
+    throws IOException {
+
+        return this.doMetadataCompile(src, alias);
+    }
+
     protected abstract FaceletHandler doMetadataCompile(URL src, String alias)
     throws IOException;
 
+    /**
+     * Compilers that cannot make use of precompiled Facelets compile the
+     * original source.
+     */
+    protected FaceletHandler doCompile(PrecompiledFacelet src, String alias)
+    throws IOException {
+        return this.doCompile(src.getSource(), alias);
+    }
+
+    protected FaceletHandler doMetadataCompile(PrecompiledFacelet src, String alias)
+    throws IOException {
+        return this.doMetadataCompile(src.getSource(), alias);
+    }
+
     protected abstract FaceletHandler doCompile(URL src, String alias)
     throws IOException;
 
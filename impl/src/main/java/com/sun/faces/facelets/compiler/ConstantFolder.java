@@ -0,0 +1,341 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.facelets.compiler;
+
+import com.sun.faces.facelets.el.DefaultFunctionMapper;
+import com.sun.faces.facelets.el.DefaultVariableMapper;
+import com.sun.faces.facelets.el.ELText;
+import com.sun.faces.facelets.tag.TagAttributeImpl;
+import com.sun.faces.facelets.tag.TagAttributesImpl;
+
+import javax.el.CompositeELResolver;
+import javax.el.ELContext;
+import javax.el.ELException;
+import javax.el.ELResolver;
+import javax.el.ExpressionFactory;
+import javax.el.FunctionMapper;
+import javax.el.VariableMapper;
+import javax.faces.view.facelets.Tag;
+import javax.faces.view.facelets.TagAttribute;
+
+/**
+ * <p>Evaluates expressions made up only of literals and operators, such as
+ * <code>#{2 * 60}</code> or <code>#{'a' += 'b'}</code>, while a Facelet is
+ * compiled, so that they don't have to be evaluated on every request.</p>
+ *
+ * <p>Attributes of tag handlers are replaced by constant
+ * {@link TagAttributeImpl}s.  Template text and the attributes of plain
+ * markup are only rewritten when the value of the expression doesn't need
+ * to be escaped.</p>
+ */
+final class ConstantFolder {
+
+    private static final String[] KEYWORDS = {
+          "true", "false", "null", "and", "or", "not", "eq", "ne",
+          "lt", "gt", "le", "ge", "div", "mod", "empty"
+    };
+
+    private static final String[] OPERATORS = {
+          "&&", "||", "==", "!=", "<=", ">=", "+=",
+          "+", "-", "*", "/", "%", "(", ")", "!", "<", ">", "?", ":"
+    };
+
+    private final ExpressionFactory factory;
+
+    private final ELContext context;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    ConstantFolder(ExpressionFactory factory) {
+
+        this.factory = factory;
+        this.context = new ConstantELContext();
+
+    }
+
+
+    // --------------------------------------------------------- Package Methods
+
+
+    /**
+     * @return a copy of <code>tag</code> with its constant attributes
+     *  folded, or <code>tag</code> itself if none was
+     */
+    Tag fold(Tag tag) {
+
+        TagAttribute[] attrs = tag.getAttributes().getAll();
+        TagAttribute[] folded = null;
+        for (int i = 0; i < attrs.length; i++) {
+            TagAttribute attr = attrs[i];
+            if (attr.isLiteral() || !isConstantText(attr.getValue())) {
+                continue;
+            }
+            Object value;
+            try {
+                value = factory.createValueExpression(context,
+                                                      attr.getValue(),
+                                                      Object.class).getValue(context);
+            } catch (ELException e) {
+                // leave it to be reported when the page is rendered
+                continue;
+            }
+            if (folded == null) {
+                folded = attrs.clone();
+            }
+            folded[i] = new TagAttributeImpl(attr.getLocation(),
+                                             attr.getNamespace(),
+                                             attr.getLocalName(),
+                                             attr.getQName(),
+                                             attr.getValue(),
+                                             value);
+        }
+
+        return ((folded != null)
+                ? new Tag(tag, new TagAttributesImpl(folded))
+                : tag);
+
+    }
+
+
+    /**
+     * @return <code>text</code> with the constant expressions whose values
+     *  are safe to write without escaping replaced by those values
+     */
+    String foldText(String text) {
+
+        try {
+            return ELText.replaceExpressions(text, expr -> {
+                if (!isConstant(expr)) {
+                    return null;
+                }
+                try {
+                    String value = (String) factory.createValueExpression(context,
+                                                                           expr,
+                                                                           String.class).getValue(context);
+                    if (value == null) {
+                        value = "";
+                    }
+                    return (isSafe(value) ? value : null);
+                } catch (ELException e) {
+                    return null;
+                }
+            });
+        } catch (ELException e) {
+            return text;
+        }
+
+    }
+
+
+    /**
+     * @param expr an expression, including its delimiters
+     * @return <code>true</code> if <code>expr</code> contains nothing but
+     *  literals, operators and whitespace
+     */
+    static boolean isConstant(String expr) {
+
+        int len = expr.length() - 1;
+        if (len < 2 || expr.charAt(1) != '{' || expr.charAt(len) != '}') {
+            return false;
+        }
+        int i = 2;
+        boolean empty = true;
+        while (i < len) {
+            char c = expr.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            empty = false;
+            if (c == '\'' || c == '"') {
+                i++;
+                while (i < len && expr.charAt(i) != c) {
+                    i += (expr.charAt(i) == '\\') ? 2 : 1;
+                }
+                if (i >= len) {
+                    return false;
+                }
+                i++;
+            } else if (Character.isDigit(c)
+                       || (c == '.' && i + 1 < len && Character.isDigit(expr.charAt(i + 1)))) {
+                i++;
+                while (i < len && isNumberPart(expr.charAt(i - 1), expr.charAt(i))) {
+                    i++;
+                }
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < len && Character.isJavaIdentifierPart(expr.charAt(i))) {
+                    i++;
+                }
+                if (!isKeyword(expr.substring(start, i))) {
+                    return false;
+                }
+            } else {
+                int n = matchOperator(expr, i, len);
+                if (n == 0) {
+                    return false;
+                }
+                i += n;
+            }
+        }
+        return !empty;
+
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private boolean isConstantText(String value) {
+
+        boolean[] constant = { true };
+        try {
+            ELText.replaceExpressions(value, expr -> {
+                if (!isConstant(expr)) {
+                    constant[0] = false;
+                }
+                return null;
+            });
+        } catch (ELException e) {
+            return false;
+        }
+        return constant[0];
+
+    }
+
+
+    private static boolean isNumberPart(char prev, char c) {
+
+        return (Character.isDigit(c) || c == '.' || c == 'e' || c == 'E'
+                || ((c == '+' || c == '-') && (prev == 'e' || prev == 'E')));
+
+    }
+
+
+    private static boolean isKeyword(String word) {
+
+        for (String keyword : KEYWORDS) {
+            if (keyword.equals(word)) {
+                return true;
+            }
+        }
+        return false;
+
+    }
+
+
+    private static int matchOperator(String expr, int i, int end) {
+
+        for (String op : OPERATORS) {
+            if (expr.startsWith(op, i) && i + op.length() <= end) {
+                return op.length();
+            }
+        }
+        return 0;
+
+    }
+
+
+    /*
+     * Only printable ASCII that can't start markup, an entity or another
+     * expression is written as is.
+     */
+    private static boolean isSafe(String value) {
+
+        for (int i = 0, len = value.length(); i < len; i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c > 0x7e) {
+                return false;
+            }
+            switch (c) {
+                case '<':
+                case '>':
+                case '&':
+                case '"':
+                case '\'':
+                case '\\':
+                case '#':
+                case '$':
+                case '{':
+                case '}':
+                    return false;
+                default:
+                    break;
+            }
+        }
+        return true;
+
+    }
+
+
+    // ----------------------------------------------------------- Nested Classes
+
+
+    /*
+     * Constant expressions don't resolve anything, so an empty resolver is
+     * all they need.
+     */
+    private static final class ConstantELContext extends ELContext {
+
+        private final ELResolver resolver = new CompositeELResolver();
+        private final FunctionMapper functionMapper = new DefaultFunctionMapper();
+        private final VariableMapper variableMapper = new DefaultVariableMapper();
+
+        @Override
+        public ELResolver getELResolver() {
+            return resolver;
+        }
+
+        @Override
+        public FunctionMapper getFunctionMapper() {
+            return functionMapper;
+        }
+
+        @Override
+        public VariableMapper getVariableMapper() {
+            return variableMapper;
+        }
+
+    }
+
+}
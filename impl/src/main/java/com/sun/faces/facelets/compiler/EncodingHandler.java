@@ -53,12 +53,23 @@ public class EncodingHandler implements FaceletHandler {
     private final FaceletHandler next;
     private final String encoding;
     private final CompilationMessageHolder messageHolder;
+    private final long size;
     
     public EncodingHandler(FaceletHandler next, String encoding,
             CompilationMessageHolder messageHolder) {
+        this(next, encoding, messageHolder, 0);
+    }
+
+    /**
+     * @param size the approximate size of the compiled markup in characters,
+     *  see {@link CompilationManager#getSize()}
+     */
+    public EncodingHandler(FaceletHandler next, String encoding,
+            CompilationMessageHolder messageHolder, long size) {
         this.next = next;
         this.encoding = encoding;
         this.messageHolder = messageHolder;
+        this.size = size;
     }
 
     @Override
@@ -75,6 +86,14 @@ public class EncodingHandler implements FaceletHandler {
         }
     }
     
+    /**
+     * @return the approximate size of the compiled markup in characters, or
+     *  <code>0</code> if it is not known
+     */
+    public long getSize() {
+        return this.size;
+    }
+
     public static CompilationMessageHolder getCompilationMessageHolder(FaceletContext ctx) {
 
         return (CompilationMessageHolder) ctx.getFacesContext().getAttributes().get("facelets.compilationMessages");
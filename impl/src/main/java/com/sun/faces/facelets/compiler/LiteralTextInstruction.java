@@ -41,24 +41,29 @@
 package com.sun.faces.facelets.compiler;
 
 import com.sun.faces.config.FaceletsConfiguration;
+import com.sun.faces.io.EncodedText;
+import com.sun.faces.io.EncodedTextSink;
+import javax.faces.context.ResponseWriter;
 import javax.faces.context.FacesContext;
 import java.io.IOException;
 import javax.el.ELContext;
 import javax.el.ExpressionFactory;
 
 final class LiteralTextInstruction implements Instruction {
-    private final String text;
+    private final EncodedText text;
 
     public LiteralTextInstruction(String text) {
-        this.text = text;
+        this.text = new EncodedText(text);
     }
 
     @Override
     public void write(FacesContext context) throws IOException {
+        ResponseWriter writer = context.getResponseWriter();
         if (FaceletsConfiguration.getInstance(context).isEscapeInlineText(context)) {
-            context.getResponseWriter().writeText(this.text, null);
-        } else {
-            context.getResponseWriter().write(this.text);
+            writer.writeText(this.text.getText(), null);
+        } else if (!(writer instanceof EncodedTextSink)
+                   || !((EncodedTextSink) writer).write(this.text)) {
+            writer.write(this.text.getText());
         }
     }
 
@@ -0,0 +1,858 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.facelets.compiler;
+
+import com.sun.faces.util.FacesLogger;
+import com.sun.faces.util.Util;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.LocatorImpl;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+
+/**
+ * <p>
+ * A Facelet document that has been parsed at build time. The result of
+ * parsing is kept as a compact binary recording of the SAX events the
+ * document produced, together with the XML declaration and the timestamp
+ * of the source it was created from.  {@link SAXCompiler} replays the
+ * recording into its regular compilation handler, so the resulting
+ * <code>FaceletHandler</code> tree is identical to the one obtained from
+ * the source while the XML parsing step is skipped entirely.
+ * </p>
+ *
+ * <p>
+ * Recordings are created by {@link #precompile(File, File)} (or the
+ * <code>main</code> method, which is what the <code>jsf-tools</code>
+ * precompilation task invokes) and are looked up from the classpath below
+ * {@link #PRECOMPILED_ROOT} using the Facelet alias, e.g.
+ * <code>META-INF/faces-precompiled/index.xhtml.fpc</code>.  A recording is
+ * only used while the timestamp of the source still matches the one it was
+ * created from.
+ * </p>
+ */
+public final class PrecompiledFacelet {
+
+    private static final Logger LOGGER = FacesLogger.FACELETS_COMPILER.getLogger();
+
+    /**
+     * The classpath location below which precompiled Facelets are stored.
+     */
+    public static final String PRECOMPILED_ROOT = "META-INF/faces-precompiled";
+
+    /**
+     * The suffix appended to the Facelet path to obtain the name of its
+     * precompiled form.
+     */
+    public static final String PRECOMPILED_SUFFIX = ".fpc";
+
+    private static final int MAGIC = 0x46504346;
+    private static final int VERSION = 2;
+
+    /*
+     * Archives store timestamps with a two second resolution, so a source
+     * read from an expanded WAR may differ slightly from the file the
+     * recording was made from.
+     */
+    private static final long TIMESTAMP_TOLERANCE = 2000L;
+
+    private static final int END = 0;
+    private static final int START_DOCUMENT = 1;
+    private static final int END_DOCUMENT = 2;
+    private static final int START_DTD = 3;
+    private static final int END_DTD = 4;
+    private static final int START_PREFIX_MAPPING = 5;
+    private static final int END_PREFIX_MAPPING = 6;
+    private static final int START_ELEMENT = 7;
+    private static final int END_ELEMENT = 8;
+    private static final int CHARACTERS = 9;
+    private static final int IGNORABLE_WHITESPACE = 10;
+    private static final int COMMENT = 11;
+    private static final int START_CDATA = 12;
+    private static final int END_CDATA = 13;
+    private static final int PROCESSING_INSTRUCTION = 14;
+
+    private final URL source;
+    private final String xmlDeclaration;
+    private final boolean doctype;
+    private final byte[] events;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    private PrecompiledFacelet(URL source,
+                               String xmlDeclaration,
+                               boolean doctype,
+                               byte[] events) {
+
+        this.source = source;
+        this.xmlDeclaration = xmlDeclaration;
+        this.doctype = doctype;
+        this.events = events;
+
+    }
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    /**
+     * @return the source of the Facelet this recording was created from
+     */
+    public URL getSource() {
+
+        return source;
+
+    }
+
+
+    /**
+     * <p>
+     * Locate the precompiled form of the Facelet identified by
+     * <code>alias</code>.
+     * </p>
+     *
+     * @param source the source of the Facelet
+     * @param alias the path of the Facelet relative to the application root
+     * @return the precompiled form, or <code>null</code> if there is none or
+     *  if it is out of date with respect to <code>source</code>
+     */
+    public static PrecompiledFacelet find(URL source, String alias) {
+
+        URL url = Util.getCurrentLoader(PrecompiledFacelet.class)
+              .getResource(getResourceName(alias));
+        if (url == null) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(url.openStream()))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+                if (LOGGER.isLoggable(Level.WARNING)) {
+                    LOGGER.log(Level.WARNING,
+                               "Ignoring precompiled Facelet {0}: unsupported format",
+                               url);
+                }
+                return null;
+            }
+            long lastModified = in.readLong();
+            if (Math.abs(lastModified - Util.getLastModified(source)) >= TIMESTAMP_TOLERANCE) {
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE,
+                               "Precompiled Facelet {0} is out of date, compiling {1}",
+                               new Object[] { url, source });
+                }
+                return null;
+            }
+            String xmlDeclaration = readText(in);
+            boolean doctype = in.readBoolean();
+            byte[] events = new byte[in.readInt()];
+            in.readFully(events);
+            return new PrecompiledFacelet(source,
+                                          ((xmlDeclaration.length() > 0) ? xmlDeclaration : null),
+                                          doctype,
+                                          events);
+        } catch (IOException | RuntimeException e) {
+            if (LOGGER.isLoggable(Level.WARNING)) {
+                LOGGER.log(Level.WARNING,
+                           "Unable to read precompiled Facelet " + url,
+                           e);
+            }
+            return null;
+        }
+
+    }
+
+
+    /**
+     * <p>
+     * Precompile every Facelet below <code>sourceDir</code> into
+     * <code>targetDir</code>.  <code>sourceDir</code> is the root of the web
+     * application, <code>targetDir</code> is typically its
+     * <code>WEB-INF/classes</code> directory.
+     * </p>
+     *
+     * @param sourceDir the root of the web application
+     * @param targetDir the classpath directory receiving the recordings
+     * @param suffixes the file suffixes identifying Facelets, e.g.
+     *  <code>.xhtml</code>
+     * @return the number of Facelets that were precompiled
+     * @throws IOException if a Facelet cannot be read or parsed, or the
+     *  recording cannot be written
+     */
+    public static int precompile(File sourceDir, File targetDir, String... suffixes)
+    throws IOException {
+
+        if (!sourceDir.isDirectory()) {
+            throw new IOException("The source directory " + sourceDir + " does not exist");
+        }
+        List<File> facelets = new ArrayList<>();
+        collect(sourceDir, suffixes, facelets);
+        String root = sourceDir.getCanonicalPath();
+        for (File facelet : facelets) {
+            String path = facelet.getCanonicalPath().substring(root.length());
+            String alias = path.replace(File.separatorChar, '/');
+            File target = new File(targetDir, getResourceName(alias));
+            File parent = target.getParentFile();
+            if (!parent.isDirectory() && !parent.mkdirs()) {
+                throw new IOException("Unable to create directory " + parent);
+            }
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(target))) {
+                precompile(facelet, out);
+            }
+        }
+        return facelets.size();
+
+    }
+
+
+    /**
+     * <p>
+     * Record the SAX events of <code>facelet</code> to <code>out</code>.
+     * </p>
+     *
+     * @param facelet the Facelet source
+     * @param out the stream receiving the recording
+     * @throws IOException if the Facelet cannot be read or parsed
+     */
+    public static void precompile(File facelet, OutputStream out)
+    throws IOException {
+
+        Recorder recorder = new Recorder();
+        String xmlDeclaration;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(facelet), 1024)) {
+            xmlDeclaration = readXmlDeclaration(in);
+            InputSource input = new InputSource(in);
+            input.setSystemId(facelet.toURI().toString());
+            createSAXParser(recorder).parse(input, recorder);
+        } catch (SAXException | ParserConfigurationException e) {
+            throw new IOException("Error Parsing " + facelet + ": " + e.getMessage(), e);
+        }
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeLong(facelet.lastModified());
+        writeText(data, ((xmlDeclaration != null) ? xmlDeclaration : ""));
+        data.writeBoolean(recorder.doctype);
+        byte[] events = recorder.toByteArray();
+        data.writeInt(events.length);
+        data.write(events);
+        data.flush();
+
+    }
+
+
+    /**
+     * <p>
+     * Precompile the Facelets of a web application from the command line.
+     * </p>
+     *
+     * <pre>
+     * java com.sun.faces.facelets.compiler.PrecompiledFacelet &lt;webapp dir&gt; &lt;target dir&gt; [suffix...]
+     * </pre>
+     *
+     * @param args the web application directory, the target directory and
+     *  optionally the Facelet suffixes (defaults to <code>.xhtml</code>)
+     * @throws IOException if precompilation fails
+     */
+    public static void main(String[] args) throws IOException {
+
+        if (args.length < 2) {
+            System.err.println("Usage: PrecompiledFacelet <webapp dir> <target dir> [suffix...]");
+            return;
+        }
+        String[] suffixes = new String[args.length - 2];
+        System.arraycopy(args, 2, suffixes, 0, suffixes.length);
+        int count = precompile(new File(args[0]), new File(args[1]), suffixes);
+        System.out.println("Precompiled " + count + " Facelet(s) into " + args[1]);
+
+    }
+
+
+    // --------------------------------------------------------- Package Methods
+
+
+    /**
+     * @return the XML declaration of the source document, or
+     *  <code>null</code> if it has none
+     */
+    String getXmlDeclaration() {
+
+        return xmlDeclaration;
+
+    }
+
+
+    /**
+     * @return <code>true</code> if the source document declares a DOCTYPE
+     */
+    boolean hasDoctype() {
+
+        return doctype;
+
+    }
+
+
+    /**
+     * <p>
+     * Replay the recorded events to <code>handler</code>.
+     * </p>
+     */
+    <H extends ContentHandler & LexicalHandler> void replay(H handler)
+    throws IOException, SAXException {
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(events));
+        List<String> names = new ArrayList<>();
+        LocatorImpl locator = new LocatorImpl();
+        locator.setSystemId(source.toExternalForm());
+        handler.setDocumentLocator(locator);
+        AttributesImpl attributes = new AttributesImpl();
+        for (int event = in.readUnsignedByte(); event != END; event = in.readUnsignedByte()) {
+            switch (event) {
+                case START_DOCUMENT:
+                    handler.startDocument();
+                    break;
+                case END_DOCUMENT:
+                    handler.endDocument();
+                    break;
+                case START_DTD:
+                    handler.startDTD(readName(in, names),
+                                     readName(in, names),
+                                     readName(in, names));
+                    break;
+                case END_DTD:
+                    handler.endDTD();
+                    break;
+                case START_PREFIX_MAPPING:
+                    handler.startPrefixMapping(readName(in, names),
+                                               readName(in, names));
+                    break;
+                case END_PREFIX_MAPPING:
+                    handler.endPrefixMapping(readName(in, names));
+                    break;
+                case START_ELEMENT:
+                    locate(in, locator);
+                    String uri = readName(in, names);
+                    String localName = readName(in, names);
+                    String qName = readName(in, names);
+                    attributes.clear();
+                    for (int i = in.readInt(); i > 0; i--) {
+                        attributes.addAttribute(readName(in, names),
+                                                readName(in, names),
+                                                readName(in, names),
+                                                readName(in, names),
+                                                readText(in));
+                    }
+                    handler.startElement(uri, localName, qName, attributes);
+                    break;
+                case END_ELEMENT:
+                    locate(in, locator);
+                    handler.endElement(readName(in, names),
+                                       readName(in, names),
+                                       readName(in, names));
+                    break;
+                case CHARACTERS: {
+                    locate(in, locator);
+                    char[] ch = readText(in).toCharArray();
+                    handler.characters(ch, 0, ch.length);
+                    break;
+                }
+                case IGNORABLE_WHITESPACE: {
+                    locate(in, locator);
+                    char[] ch = readText(in).toCharArray();
+                    handler.ignorableWhitespace(ch, 0, ch.length);
+                    break;
+                }
+                case COMMENT: {
+                    locate(in, locator);
+                    char[] ch = readText(in).toCharArray();
+                    handler.comment(ch, 0, ch.length);
+                    break;
+                }
+                case START_CDATA:
+                    locate(in, locator);
+                    handler.startCDATA();
+                    break;
+                case END_CDATA:
+                    locate(in, locator);
+                    handler.endCDATA();
+                    break;
+                case PROCESSING_INSTRUCTION:
+                    locate(in, locator);
+                    handler.processingInstruction(readName(in, names),
+                                                  readText(in));
+                    break;
+                default:
+                    throw new IOException("Corrupt precompiled Facelet " + source
+                                          + ": unknown event " + event);
+            }
+        }
+
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private static String getResourceName(String alias) {
+
+        return PRECOMPILED_ROOT
+               + ((alias.charAt(0) == '/') ? alias : '/' + alias)
+               + PRECOMPILED_SUFFIX;
+
+    }
+
+
+    private static void collect(File dir, String[] suffixes, List<File> facelets) {
+
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                collect(file, suffixes, facelets);
+            } else if (isFacelet(file.getName(), suffixes)) {
+                facelets.add(file);
+            }
+        }
+
+    }
+
+
+    private static boolean isFacelet(String name, String[] suffixes) {
+
+        if (suffixes == null || suffixes.length == 0) {
+            return name.endsWith(".xhtml");
+        }
+        for (String suffix : suffixes) {
+            if (name.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+
+    }
+
+
+    /**
+     * Reads the XML declaration from the start of <code>in</code>, using
+     * the encoding indicated by a byte order mark or by the declaration
+     * itself.  The declaration is plain ASCII, so for encodings without a
+     * byte order mark it is located by decoding as ISO-8859-1 first.
+     */
+    static String readXmlDeclaration(InputStream in) throws IOException {
+
+        in.mark(128);
+        try {
+            byte[] b = new byte[128];
+            int read = 0;
+            for (int n; read < b.length && (n = in.read(b, read, b.length - read)) > 0; ) {
+                read += n;
+            }
+            int offset = 0;
+            Charset charset;
+            if (read >= 3 && (b[0] & 0xFF) == 0xEF && (b[1] & 0xFF) == 0xBB && (b[2] & 0xFF) == 0xBF) {
+                charset = StandardCharsets.UTF_8;
+                offset = 3;
+            } else if (read >= 2 && (((b[0] & 0xFF) == 0xFE && (b[1] & 0xFF) == 0xFF)
+                                     || (b[0] == 0 && b[1] == '<'))) {
+                charset = StandardCharsets.UTF_16BE;
+                offset = ((b[0] == 0) ? 0 : 2);
+            } else if (read >= 2 && (((b[0] & 0xFF) == 0xFF && (b[1] & 0xFF) == 0xFE)
+                                     || (b[0] == '<' && b[1] == 0))) {
+                charset = StandardCharsets.UTF_16LE;
+                offset = ((b[0] == '<') ? 0 : 2);
+            } else {
+                charset = StandardCharsets.ISO_8859_1;
+            }
+            Matcher m = SAXCompiler.XmlDeclaration.matcher(
+                  new String(b, offset, read - offset, charset));
+            if (!m.find()) {
+                return null;
+            }
+            if (charset == StandardCharsets.ISO_8859_1 && m.group(3) != null) {
+                // decode the declaration as declared
+                Charset declared;
+                try {
+                    declared = Charset.forName(m.group(3));
+                } catch (IllegalArgumentException iae) {
+                    return m.group(0);
+                }
+                m = SAXCompiler.XmlDeclaration.matcher(new String(b, 0, read, declared));
+                return (m.find() ? m.group(0) : null);
+            }
+            return m.group(0);
+        } finally {
+            in.reset();
+        }
+
+    }
+
+
+    private static SAXParser createSAXParser(Recorder recorder)
+    throws SAXException, ParserConfigurationException {
+
+        // mirrors the parser configuration used by SAXCompiler
+        SAXParserFactory factory = Util.createSAXParserFactory();
+        factory.setNamespaceAware(true);
+        factory.setFeature("http://xml.org/sax/features/namespace-prefixes", true);
+        factory.setFeature("http://xml.org/sax/features/validation", false);
+        factory.setValidating(false);
+        SAXParser parser = factory.newSAXParser();
+        XMLReader reader = parser.getXMLReader();
+        reader.setProperty("http://xml.org/sax/properties/lexical-handler", recorder);
+        reader.setErrorHandler(recorder);
+        reader.setEntityResolver(recorder);
+        return parser;
+
+    }
+
+
+    private static String readName(DataInputStream in, List<String> names)
+    throws IOException {
+
+        int index = in.readInt();
+        if (index < 0) {
+            return null;
+        }
+        if (index == names.size()) {
+            names.add(readText(in));
+        }
+        return names.get(index);
+
+    }
+
+
+    private static void locate(DataInputStream in, LocatorImpl locator)
+    throws IOException {
+
+        locator.setLineNumber(in.readInt());
+        locator.setColumnNumber(in.readInt());
+
+    }
+
+
+    private static String readText(DataInputStream in) throws IOException {
+
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+
+    }
+
+
+    private static void writeText(DataOutputStream out, String text)
+    throws IOException {
+
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+
+    }
+
+
+    // ---------------------------------------------------------- Nested Classes
+
+
+    /**
+     * Records the SAX events produced by parsing a Facelet.  Element,
+     * attribute and namespace names are written once and referenced by
+     * index afterwards.
+     */
+    private static final class Recorder extends DefaultHandler implements LexicalHandler {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String,Integer> names = new HashMap<>();
+        private Locator locator;
+        private boolean doctype;
+
+
+        // ----------------------------------------------------- Package Methods
+
+
+        byte[] toByteArray() throws IOException {
+
+            out.writeByte(END);
+            out.flush();
+            return bytes.toByteArray();
+
+        }
+
+
+        // ------------------------------------------- Methods from DefaultHandler
+
+
+        @Override
+        public void setDocumentLocator(Locator locator) {
+            this.locator = locator;
+        }
+
+        @Override
+        public void startDocument() throws SAXException {
+            event(START_DOCUMENT);
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            event(END_DOCUMENT);
+        }
+
+        @Override
+        public void startPrefixMapping(String prefix, String uri) throws SAXException {
+            event(START_PREFIX_MAPPING);
+            name(prefix);
+            name(uri);
+        }
+
+        @Override
+        public void endPrefixMapping(String prefix) throws SAXException {
+            event(END_PREFIX_MAPPING);
+            name(prefix);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+        throws SAXException {
+            locatedEvent(START_ELEMENT);
+            try {
+                name(uri);
+                name(localName);
+                name(qName);
+                int len = attributes.getLength();
+                out.writeInt(len);
+                for (int i = 0; i < len; i++) {
+                    name(attributes.getURI(i));
+                    name(attributes.getLocalName(i));
+                    name(attributes.getQName(i));
+                    name(attributes.getType(i));
+                    writeText(out, attributes.getValue(i));
+                }
+            } catch (IOException ioe) {
+                throw new SAXException(ioe);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            locatedEvent(END_ELEMENT);
+            name(uri);
+            name(localName);
+            name(qName);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            text(CHARACTERS, ch, start, length);
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+            text(IGNORABLE_WHITESPACE, ch, start, length);
+        }
+
+        @Override
+        public void processingInstruction(String target, String data) throws SAXException {
+            locatedEvent(PROCESSING_INSTRUCTION);
+            name(target);
+            try {
+                writeText(out, ((data != null) ? data : ""));
+            } catch (IOException ioe) {
+                throw new SAXException(ioe);
+            }
+        }
+
+        @Override
+        public InputSource resolveEntity(String publicId, String systemId) throws SAXException {
+            // same DTD the runtime compiler resolves every entity to
+            URL url = PrecompiledFacelet.class.getClassLoader().getResource("com/sun/faces/xhtml/default.dtd");
+            return new InputSource(url.toString());
+        }
+
+        @Override
+        public void fatalError(SAXParseException e) throws SAXException {
+            throw e;
+        }
+
+
+        // ------------------------------------------ Methods from LexicalHandler
+
+
+        @Override
+        public void startDTD(String name, String publicId, String systemId) throws SAXException {
+            doctype = true;
+            event(START_DTD);
+            name(name);
+            name(publicId);
+            name(systemId);
+        }
+
+        @Override
+        public void endDTD() throws SAXException {
+            event(END_DTD);
+        }
+
+        @Override
+        public void startEntity(String name) throws SAXException {
+            // entities are expanded by the parser
+        }
+
+        @Override
+        public void endEntity(String name) throws SAXException {
+            // entities are expanded by the parser
+        }
+
+        @Override
+        public void startCDATA() throws SAXException {
+            locatedEvent(START_CDATA);
+        }
+
+        @Override
+        public void endCDATA() throws SAXException {
+            locatedEvent(END_CDATA);
+        }
+
+        @Override
+        public void comment(char[] ch, int start, int length) throws SAXException {
+            text(COMMENT, ch, start, length);
+        }
+
+
+        // ----------------------------------------------------- Private Methods
+
+
+        private void event(int event) throws SAXException {
+
+            try {
+                out.writeByte(event);
+            } catch (IOException ioe) {
+                throw new SAXException(ioe);
+            }
+
+        }
+
+
+        /**
+         * Records an event along with the current location, which the
+         * compilation handler consults for the tags and text it creates.
+         */
+        private void locatedEvent(int event) throws SAXException {
+
+            event(event);
+            try {
+                out.writeInt((locator != null) ? locator.getLineNumber() : -1);
+                out.writeInt((locator != null) ? locator.getColumnNumber() : -1);
+            } catch (IOException ioe) {
+                throw new SAXException(ioe);
+            }
+
+        }
+
+
+        private void text(int event, char[] ch, int start, int length) throws SAXException {
+
+            locatedEvent(event);
+            try {
+                writeText(out, new String(ch, start, length));
+            } catch (IOException ioe) {
+                throw new SAXException(ioe);
+            }
+
+        }
+
+
+        private void name(String name) throws SAXException {
+
+            try {
+                if (name == null) {
+                    out.writeInt(-1);
+                    return;
+                }
+                Integer index = names.get(name);
+                if (index != null) {
+                    out.writeInt(index);
+                } else {
+                    index = names.size();
+                    names.put(name, index);
+                    out.writeInt(index);
+                    writeText(out, name);
+                }
+            } catch (IOException ioe) {
+                throw new SAXException(ioe);
+            }
+
+        }
+
+    }
+
+}
@@ -76,7 +76,7 @@ import javax.faces.context.FacesContext;
  */
 public final class SAXCompiler extends Compiler {
     
-    private final static Pattern XmlDeclaration = Pattern.compile("^<\\?xml.+?version=['\"](.+?)['\"](.+?encoding=['\"]((.+?))['\"])?.*?\\?>");
+    final static Pattern XmlDeclaration = Pattern.compile("^<\\?xml.+?version=['\"](.+?)['\"](.+?encoding=['\"]((.+?))['\"])?.*?\\?>");
 
     private static class CompilationHandler extends DefaultHandler implements
             LexicalHandler {
@@ -452,6 +452,55 @@ public final class SAXCompiler extends Compiler {
         return doCompile(mgr, handler, src, alias);
     }
 
+    @Override
+    protected FaceletHandler doCompile(PrecompiledFacelet src, String alias)
+    throws IOException {
+
+        CompilationManager mgr = new CompilationManager(alias, this);
+        CompilationHandler handler = new CompilationHandler(mgr, alias);
+        return doCompile(mgr, handler, src, alias);
+
+    }
+
+    @Override
+    protected FaceletHandler doMetadataCompile(PrecompiledFacelet src, String alias)
+    throws IOException {
+
+        CompilationManager mgr = new CompilationManager("metadata/" + alias, this);
+        CompilationHandler handler = new MetadataCompilationHandler(mgr, alias);
+        return doCompile(mgr, handler, src, alias);
+
+    }
+
+    protected FaceletHandler doCompile(CompilationManager mngr,
+                                       CompilationHandler handler,
+                                       PrecompiledFacelet src,
+                                       String alias)
+    throws IOException {
+
+        // the recording was made without validation and without the
+        // doctype restriction, let the parser report those cases
+        if (this.isValidating()
+              || (src.hasDoctype() && handler.isDisallowDoctypeDeclSet() && handler.isDisallowDoctypeDecl())) {
+            return doCompile(mngr, handler, src.getSource(), alias);
+        }
+
+        String encoding = getEncoding();
+        try {
+            writeXmlDecl(src.getXmlDeclaration(), mngr);
+            src.replay(handler);
+        } catch (SAXException e) {
+            throw new FaceletException("Error Parsing " + alias + ": "
+                    + e.getMessage(), e.getCause());
+        }
+        FaceletHandler result = new EncodingHandler(mngr.createFaceletHandler(), encoding,
+                mngr.getCompilationMessageHolder(), mngr.getSize());
+        mngr.setCompilationMessageHolder(null);
+
+        return result;
+
+    }
+
     protected FaceletHandler doCompile(CompilationManager mngr,
                                        CompilationHandler handler,
                                        URL src,
@@ -474,7 +523,7 @@ public final class SAXCompiler extends Compiler {
             throw e;
         }
         FaceletHandler result = new EncodingHandler(mngr.createFaceletHandler(), encoding,
-                mngr.getCompilationMessageHolder());
+                mngr.getCompilationMessageHolder(), mngr.getSize());
         mngr.setCompilationMessageHolder(null);
 
         return result;
@@ -503,16 +552,7 @@ public final class SAXCompiler extends Compiler {
                 String r = new String(b, encoding);
                 Matcher m = XmlDeclaration.matcher(r);
                 if (m.find()) {
-                    WebConfiguration config = mngr.getWebConfiguration();
-                    FaceletsConfiguration faceletsConfig = config.getFaceletsConfiguration();
-                    boolean currentModeIsXhtml = faceletsConfig.isProcessCurrentDocumentAsFaceletsXhtml(mngr.getAlias());
-
-                    // We want to write the XML declaration if and only if
-                    // the file extension for the current file has a mapping
-                    // with the value of XHTML
-                    if (currentModeIsXhtml) {
-                        Util.saveXMLDECLToFacesContextAttributes(m.group(0) + "\n");
-                    }
+                    writeXmlDecl(m.group(0), mngr);
                 }
             }
         } finally {
@@ -520,6 +560,21 @@ public final class SAXCompiler extends Compiler {
         }
     }
 
+    private static void writeXmlDecl(String xmlDecl, CompilationManager mngr) {
+        if (xmlDecl != null) {
+            WebConfiguration config = mngr.getWebConfiguration();
+            FaceletsConfiguration faceletsConfig = config.getFaceletsConfiguration();
+            boolean currentModeIsXhtml = faceletsConfig.isProcessCurrentDocumentAsFaceletsXhtml(mngr.getAlias());
+
+            // We want to write the XML declaration if and only if
+            // the file extension for the current file has a mapping
+            // with the value of XHTML
+            if (currentModeIsXhtml) {
+                Util.saveXMLDECLToFacesContextAttributes(xmlDecl + "\n");
+            }
+        }
+    }
+
     private SAXParser createSAXParser(CompilationHandler handler)
             throws SAXException, ParserConfigurationException {
         SAXParserFactory factory = Util.createSAXParserFactory();
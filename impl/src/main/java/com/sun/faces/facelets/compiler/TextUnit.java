@@ -70,9 +70,16 @@ final class TextUnit extends CompilationUnit {
     private final String alias;
 
     private final String id;
+
+    private final ConstantFolder folder;
     
     public TextUnit(String alias, String id) {
+        this(alias, id, null);
+    }
+
+    public TextUnit(String alias, String id, ConstantFolder folder) {
         this.alias = alias;
+        this.folder = folder;
         this.id = id;
         this.buffer = new StringBuffer();
         this.textBuffer = new StringBuffer();
@@ -118,6 +125,9 @@ final class TextUnit extends CompilationUnit {
             if (child) {
                 s = trimRight(s);
             }
+            if (s.length() > 0 && this.folder != null) {
+                s = this.folder.foldText(s);
+            }
             if (s.length() > 0) {
                 ELText txt = ELText.parse(s, alias);
                 if (txt != null) {
@@ -187,6 +197,15 @@ final class TextUnit extends CompilationUnit {
                 this.buffer.append(' ').append(qname).append("=\"").append(
                         value).append("\"");
 
+                if (this.folder != null) {
+                    String folded = this.folder.foldText(value);
+                    if (folded.length() == 0 && value.length() > 0) {
+                        // an empty attribute isn't written
+                        continue;
+                    }
+                    value = folded;
+                }
+
                 ELText txt = ELText.parse(value);
                 if (txt != null) {
                     if (txt.isLiteral()) {
@@ -130,7 +130,7 @@ final class UIInstructionHandler extends AbstractUIHandler {
                 // mark it owned by a facelet instance
                 String uid;
                 IdMapper mapper = IdMapper.getMapper(ctx.getFacesContext());
-                String mid = ((mapper != null) ? mapper.getAliasedId(id) : id);
+                String mid = ((mapper != null) ? mapper.getAliasedInstructionId(id) : id);
                 UIComponent ancestorNamingContainer = parent.getNamingContainer();
                 if (null != ancestorNamingContainer &&
                         ancestorNamingContainer instanceof UniqueIdVendor) {
@@ -67,6 +67,11 @@ public final class UIInstructions extends UILeaf {
         }
     }
 
+    @Override
+    public UILeaf copy() {
+        return new UIInstructions(this.txt, this.instructions);
+    }
+
     @Override
     public String toString() {
         return (this.txt != null) ? this.txt.toString() : "UIInstructions["
@@ -250,4 +250,15 @@ public class UILeaf extends UIComponentBase implements UntargetableComponent {
         super.setTransient(tranzient);
     }
 
+    /**
+     * Creates a new leaf rendering the same content, without parent, id
+     * or attributes.
+     * 
+     * @return the new leaf, or <code>null</code> if this leaf cannot be
+     * copied
+     */
+    public UILeaf copy() {
+        return null;
+    }
+
 }
@@ -40,15 +40,21 @@
 
 package com.sun.faces.facelets.compiler;
 
+import com.sun.faces.io.EncodedText;
+import com.sun.faces.io.EncodedTextSink;
 import javax.faces.context.FacesContext;
 import javax.faces.context.ResponseWriter;
 import java.io.IOException;
 
 public final class UILiteralText extends UILeaf {
     
-    private final String text;
+    private final EncodedText text;
     
     public UILiteralText(String text) {
+        this(new EncodedText(text));
+    }
+
+    UILiteralText(EncodedText text) {
         this.text = text;
     }
 
@@ -56,12 +62,20 @@ public final class UILiteralText extends UILeaf {
     public void encodeBegin(FacesContext faces) throws IOException {
         if (this.isRendered()) {
             ResponseWriter writer = faces.getResponseWriter();
-            writer.write(this.text);
+            if (!(writer instanceof EncodedTextSink)
+                  || !((EncodedTextSink) writer).write(this.text)) {
+                writer.write(this.text.getText());
+            }
         }
     }
+    @Override
+    public UILeaf copy() {
+        return new UILiteralText(this.text);
+    }
+
     @Override
     public String toString() {
-        return this.text;
+        return this.text.getText();
     }
 
 }
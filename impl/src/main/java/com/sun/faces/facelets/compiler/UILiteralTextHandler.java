@@ -41,6 +41,7 @@
 package com.sun.faces.facelets.compiler;
 
 import com.sun.faces.facelets.tag.jsf.ComponentSupport;
+import com.sun.faces.io.EncodedText;
 
 import javax.faces.component.UIComponent;
 import javax.faces.component.UniqueIdVendor;
@@ -50,16 +51,21 @@ import java.io.IOException;
 final class UILiteralTextHandler extends AbstractUIHandler {
     
     protected final String txtString;
+
+    // shared by all components created by this handler so the encoded
+    // bytes survive rebuilding the view
+    private final EncodedText encodedText;
     
     public UILiteralTextHandler(String txtString) {
         this.txtString = txtString;
+        this.encodedText = new EncodedText(txtString);
     }
 
     @Override
     public void apply(FaceletContext ctx, UIComponent parent)
             throws IOException {
         if (parent != null) {
-            UIComponent c = new UILiteralText(this.txtString);
+            UIComponent c = new UILiteralText(this.encodedText);
             String uid;
             UIComponent ancestorNamingContainer = parent.getNamingContainer();
             if (null != ancestorNamingContainer &&
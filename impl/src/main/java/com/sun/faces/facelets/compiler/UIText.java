@@ -92,6 +92,11 @@ public final class UIText extends UILeaf {
         return true;
     }
 
+    @Override
+    public UILeaf copy() {
+        return new UIText(this.alias, this.txt);
+    }
+
     @Override
     public String toString() {
         return this.txt.toString();
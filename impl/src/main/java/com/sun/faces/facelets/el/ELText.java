@@ -50,6 +50,7 @@ import java.io.IOException;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 import com.sun.faces.util.HtmlUtils;
 import com.sun.faces.util.MessageUtils;
@@ -449,6 +450,68 @@ public class ELText {
         }
     }
 
+    /**
+     * Replaces expressions in the passed String, leaving everything else,
+     * including escaped expressions, as is. The replacement text must not
+     * contain <code>\</code>, <code>$</code> or <code>#</code> so that the
+     * result parses like the input with the replaced expressions turned into
+     * literal text.
+     * 
+     * @param in
+     *            String to process
+     * @param replacement
+     *            called with each expression, including its delimiters,
+     *            returns the literal text to use instead or
+     *            <code>null</code> to keep the expression
+     * @return the String with the expressions replaced, or <code>in</code>
+     *         if none was
+     * @throws javax.el.ELException
+     */
+    public static String replaceExpressions(String in,
+            Function<String, String> replacement) throws ELException {
+        char[] ca = in.toCharArray();
+        int i = 0;
+        char c = 0;
+        int len = ca.length;
+        int end = len - 1;
+        boolean esc = false;
+        int vlen = 0;
+        int copied = 0;
+        StringBuilder out = null;
+
+        while (i < len) {
+            c = ca[i];
+            if ('\\' == c) {
+                esc = !esc;
+                if (esc && i < end && (ca[i + 1] == '$' || ca[i + 1] == '#')) {
+                    i++;
+                    continue;
+                }
+            } else if (!esc && ('$' == c || '#' == c)) {
+                if (i < end && '{' == ca[i + 1]) {
+                    vlen = findVarLength(ca, i);
+                    String text = replacement.apply(new String(ca, i, vlen));
+                    if (text != null) {
+                        if (out == null) {
+                            out = new StringBuilder(len);
+                        }
+                        out.append(ca, copied, i - copied).append(text);
+                        copied = i + vlen;
+                    }
+                    i += vlen;
+                    continue;
+                }
+            }
+            esc = false;
+            i++;
+        }
+
+        if (out == null) {
+            return in;
+        }
+        return out.append(ca, copied, len - copied).toString();
+    }
+
     private static int findVarLength(char[] ca, int s) throws ELException {
         int i = s;
         int len = ca.length;
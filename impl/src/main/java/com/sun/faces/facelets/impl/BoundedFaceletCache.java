@@ -0,0 +1,243 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.facelets.impl;
+
+
+import javax.faces.view.facelets.FaceletCache;
+import com.sun.faces.util.BoundedConcurrentCache;
+import com.sun.faces.util.ConcurrentCache;
+import com.sun.faces.util.ExpiringConcurrentCache;
+import com.sun.faces.util.ResourceChangeWatcher;
+import com.sun.faces.util.Util;
+
+import javax.faces.FacesException;
+import java.io.IOException;
+
+import java.net.URL;
+
+import java.util.concurrent.ExecutionException;
+
+
+/**
+ * <p>
+ * FaceletCache implementation holding at most a configured amount of
+ * Facelets, used instead of {@link DefaultFaceletCache} when
+ * <code>com.sun.faces.faceletCacheMaxSize</code> is set.  Applications that
+ * create views dynamically or include many distinct sources would otherwise
+ * keep every Facelet they ever compiled.
+ * </p>
+ *
+ * <p>
+ * The size of a Facelet is estimated from the size of the markup it was
+ * compiled from, in kilobytes.  Facelets and view metadata Facelets are kept in two caches,
+ * each bounded by the configured size; when one is full the least frequently
+ * used Facelets are evicted (see {@link BoundedConcurrentCache}).  Entries
+ * are keyed by the external form of their URL, which avoids the host name
+ * resolution <code>URL.equals()</code> may perform.
+ * </p>
+ */
+final class BoundedFaceletCache extends FaceletCache<DefaultFacelet> {
+
+    /**
+     * Constructor
+     * @param refreshPeriod cache refresh period (in milliseconds), negative
+     *  value means 'never refresh'
+     * @param maxSize the maximum size of each cache, in kilobytes of source
+     * @param statistics collects the cache statistics
+     * @param watcher if not <code>null</code>, used instead of polling the
+     *  last modified time of Facelets that can be watched
+     */
+    BoundedFaceletCache(final long refreshPeriod,
+                        long maxSize,
+                        FaceletCacheStatistics statistics,
+                        final ResourceChangeWatcher watcher) {
+
+        final boolean checkExpiry = (refreshPeriod > 0);
+
+        ConcurrentCache.Factory<Key, DefaultFaceletCache.Record> faceletFactory =
+            new ConcurrentCache.Factory<Key, DefaultFaceletCache.Record>() {
+            @Override
+            public DefaultFaceletCache.Record newInstance(final Key key) throws IOException {
+                return DefaultFaceletCache.createRecord(key.url, getMemberFactory(), refreshPeriod, checkExpiry, watcher);
+            }
+        };
+
+        ConcurrentCache.Factory<Key, DefaultFaceletCache.Record> metadataFaceletFactory =
+            new ConcurrentCache.Factory<Key, DefaultFaceletCache.Record>() {
+            @Override
+            public DefaultFaceletCache.Record newInstance(final Key key) throws IOException {
+                return DefaultFaceletCache.createRecord(key.url, getMetadataMemberFactory(), refreshPeriod, checkExpiry, watcher);
+            }
+        };
+
+        ExpiringConcurrentCache.ExpiryChecker<Key, DefaultFaceletCache.Record> checker =
+            checkExpiry ? new ExpiryChecker() : new NeverExpired();
+        Weigher weigher = new Weigher();
+        _faceletCache = new BoundedConcurrentCache<>(faceletFactory, checker, weigher, maxSize, statistics);
+        _metadataFaceletCache = new BoundedConcurrentCache<>(metadataFaceletFactory, checker, weigher, maxSize, statistics);
+        statistics.addCache(_faceletCache);
+        statistics.addCache(_metadataFaceletCache);
+    }
+
+    @Override
+    public DefaultFacelet getFacelet(URL url) throws IOException {
+        Util.notNull("url", url);
+        DefaultFacelet f = null;
+
+        try {
+            f = _faceletCache.get(new Key(url)).getFacelet();
+        } catch (ExecutionException e) {
+            _unwrapIOException(e);
+        }
+        return f;
+    }
+
+    @Override
+    public boolean isFaceletCached(URL url) {
+        Util.notNull("url", url);
+
+        return _faceletCache.containsKey(new Key(url));
+    }
+
+    @Override
+    public DefaultFacelet getViewMetadataFacelet(URL url) throws IOException {
+        Util.notNull("url", url);
+
+        DefaultFacelet f = null;
+
+        try {
+            f = _metadataFaceletCache.get(new Key(url)).getFacelet();
+        } catch (ExecutionException e) {
+            _unwrapIOException(e);
+        }
+        return f;
+    }
+
+    @Override
+    public boolean isViewMetadataFaceletCached(URL url) {
+        Util.notNull("url", url);
+
+        return _metadataFaceletCache.containsKey(new Key(url));
+    }
+
+    private void _unwrapIOException(ExecutionException e) throws IOException {
+        Throwable t = e.getCause();
+        if (t instanceof IOException) {
+            throw (IOException)t;
+        }
+        if (t.getCause() instanceof IOException) {
+            throw (IOException)t.getCause();
+        }
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException)t;
+        }
+        throw new FacesException(t);
+    }
+
+    private final BoundedConcurrentCache<Key, DefaultFaceletCache.Record> _faceletCache;
+    private final BoundedConcurrentCache<Key, DefaultFaceletCache.Record> _metadataFaceletCache;
+
+    /**
+     * Cache key comparing URLs by their external form.
+     */
+    static final class Key {
+        Key(URL url) {
+            this.url = url;
+            this.id = url.toExternalForm();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return (obj instanceof Key) && id.equals(((Key) obj).id);
+        }
+
+        @Override
+        public int hashCode() {
+            return id.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return id;
+        }
+
+        final URL url;
+        final String id;
+    }
+
+    /**
+     * Weighs a Facelet by the size of the markup it was compiled from, in
+     * kilobytes, as counted by the compiler.
+     */
+    private static class Weigher implements BoundedConcurrentCache.Weigher<Key, DefaultFaceletCache.Record> {
+
+        @Override
+        public int weigh(Key key, DefaultFaceletCache.Record record) {
+            long size = record.getFacelet().getSize();
+            return (size > 0) ? (int) Math.min(Integer.MAX_VALUE, (size + 1023) / 1024) : 1;
+        }
+    }
+
+    private static class ExpiryChecker implements ExpiringConcurrentCache.ExpiryChecker<Key, DefaultFaceletCache.Record> {
+
+        @Override
+        public boolean isExpired(Key key, DefaultFaceletCache.Record record) {
+            if (record.getHandle() != null) {
+                return record.getHandle().isChanged();
+            }
+            if (System.currentTimeMillis() > record.getNextRefreshTime()) {
+                record.getAndUpdateNextRefreshTime();
+                long lastModified = Util.getLastModified(key.url);
+                // The record is considered expired if its original last modified time
+                // is older than the URL's current last modified time
+                return (lastModified > record.getLastModified());
+            }
+            return false;
+        }
+    }
+
+    private static class NeverExpired implements ExpiringConcurrentCache.ExpiryChecker<Key, DefaultFaceletCache.Record> {
+        @Override
+        public boolean isExpired(Key key, DefaultFaceletCache.Record value) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.facelets.impl;
+
+import java.beans.FeatureDescriptor;
+import java.util.Iterator;
+
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.faces.context.FacesContext;
+
+/**
+ * <p>Records whether building a view depended on anything but the Facelet
+ * itself.  While a tracker is installed, every top level identifier
+ * resolved through the {@link ELResolver} of a {@link DefaultFaceletContext}
+ * is taken as such a dependency, as are tag handlers that consult request
+ * data directly.  Expressions stored in components for later evaluation
+ * are not affected, only those evaluated while the tree is built, e.g. by
+ * <code>c:if</code>, <code>c:forEach</code> or <code>ui:include</code>.</p>
+ *
+ * <p>Only the first dependency is kept as it suffices to know the tree may
+ * differ from one request to the next.</p>
+ */
+public final class BuildDependencyTracker {
+
+    private static final String TRACKER_KEY =
+          BuildDependencyTracker.class.getName();
+
+    private Object dependency;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    private BuildDependencyTracker() { }
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    /**
+     * <p>Installs a tracker for the current request.</p>
+     *
+     * @param context the {@link FacesContext} for the current request
+     * @return the installed tracker
+     */
+    public static BuildDependencyTracker start(FacesContext context) {
+
+        BuildDependencyTracker tracker = new BuildDependencyTracker();
+        context.getAttributes().put(TRACKER_KEY, tracker);
+        return tracker;
+
+    }
+
+
+    /**
+     * <p>Removes the tracker of the current request, if any.</p>
+     *
+     * @param context the {@link FacesContext} for the current request
+     */
+    public static void stop(FacesContext context) {
+
+        context.getAttributes().remove(TRACKER_KEY);
+
+    }
+
+
+    /**
+     * @param context the {@link FacesContext} for the current request
+     * @return the tracker of the current request or <code>null</code>
+     */
+    public static BuildDependencyTracker getCurrentInstance(FacesContext context) {
+
+        return (BuildDependencyTracker) context.getAttributes().get(TRACKER_KEY);
+
+    }
+
+
+    /**
+     * <p>Records <code>dependency</code> with the tracker of the current
+     * request, if any.</p>
+     *
+     * @param context the {@link FacesContext} for the current request
+     * @param dependency describes what the view depends on, typically a
+     *  tag attribute
+     */
+    public static void record(FacesContext context, Object dependency) {
+
+        BuildDependencyTracker tracker = getCurrentInstance(context);
+        if (tracker != null) {
+            tracker.record(dependency);
+        }
+
+    }
+
+
+    public void record(Object dependency) {
+
+        if (this.dependency == null) {
+            this.dependency = dependency;
+        }
+
+    }
+
+
+    /**
+     * @return the first recorded dependency, or <code>null</code> if the
+     *  view only depends on its Facelet
+     */
+    public Object getDependency() {
+
+        return dependency;
+
+    }
+
+
+    // --------------------------------------------------------- Package Methods
+
+
+    ELResolver wrap(ELResolver resolver) {
+
+        return new TrackingELResolver(resolver);
+
+    }
+
+
+    // ---------------------------------------------------------- Nested Classes
+
+
+    private final class TrackingELResolver extends ELResolver {
+
+        private final ELResolver delegate;
+
+        TrackingELResolver(ELResolver delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object getValue(ELContext context, Object base, Object property) {
+            track(base, property);
+            return delegate.getValue(context, base, property);
+        }
+
+        @Override
+        public Class<?> getType(ELContext context, Object base, Object property) {
+            track(base, property);
+            return delegate.getType(context, base, property);
+        }
+
+        @Override
+        public void setValue(ELContext context, Object base, Object property, Object value) {
+            track(base, property);
+            delegate.setValue(context, base, property, value);
+        }
+
+        @Override
+        public boolean isReadOnly(ELContext context, Object base, Object property) {
+            return delegate.isReadOnly(context, base, property);
+        }
+
+        @Override
+        public Object invoke(ELContext context, Object base, Object method, Class<?>[] paramTypes, Object[] params) {
+            track(base, method);
+            return delegate.invoke(context, base, method, paramTypes, params);
+        }
+
+        @Override
+        public Object convertToType(ELContext context, Object obj, Class<?> targetType) {
+            return delegate.convertToType(context, obj, targetType);
+        }
+
+        @Override
+        public Iterator<FeatureDescriptor> getFeatureDescriptors(ELContext context, Object base) {
+            return delegate.getFeatureDescriptors(context, base);
+        }
+
+        @Override
+        public Class<?> getCommonPropertyType(ELContext context, Object base) {
+            return delegate.getCommonPropertyType(context, base);
+        }
+
+        private void track(Object base, Object property) {
+            // members of a resolved base were accounted for by the base
+            if (base == null) {
+                record(property);
+            }
+        }
+
+    }
+
+}
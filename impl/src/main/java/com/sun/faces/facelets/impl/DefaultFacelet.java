@@ -41,6 +41,7 @@
 package com.sun.faces.facelets.impl;
 
 import javax.faces.view.facelets.Facelet;
+import com.sun.faces.facelets.compiler.EncodingHandler;
 import com.sun.faces.facelets.tag.jsf.ComponentSupport;
 import com.sun.faces.util.FacesLogger;
 import com.sun.faces.util.Util;
@@ -59,6 +60,8 @@ import java.net.URL;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -75,6 +78,9 @@ final class DefaultFacelet extends Facelet implements XMLFrontMatterSaver {
     private final static String APPLIED_KEY = "com.sun.faces.facelets.APPLIED";
     private static final String JAVAX_FACES_ERROR_XHTML = "javax.faces.error.xhtml";
 
+    // paths may be computed by expressions, so only this many are cached
+    private static final int MAX_RESOLVED_PATHS = 64;
+
     private final String alias;
 
     private final ExpressionFactory elFactory;
@@ -95,6 +101,9 @@ final class DefaultFacelet extends Facelet implements XMLFrontMatterSaver {
     
     private String savedXMLDecl;
 
+    // resolved template and include URLs; null if not cached
+    private final ConcurrentMap<String, URL> resolvedPaths;
+
     public DefaultFacelet(DefaultFaceletFactory factory,
                           ExpressionFactory el,
                           URL src,
@@ -109,6 +118,9 @@ final class DefaultFacelet extends Facelet implements XMLFrontMatterSaver {
         this.mapper = factory.idMappers.get(alias);
         this.createTime = System.currentTimeMillis();
         this.refreshPeriod = this.factory.getRefreshPeriod();
+        this.resolvedPaths = this.factory.isCachingResolvedURLs()
+                             ? new ConcurrentHashMap<>()
+                             : null;
 
         String DOCTYPE = Util.getDOCTYPEFromFacesContextAttributes(FacesContext.getCurrentInstance());
         if (null != DOCTYPE) {
@@ -243,6 +255,17 @@ final class DefaultFacelet extends Facelet implements XMLFrontMatterSaver {
         return this.elFactory;
     }
 
+    /**
+     * The approximate size of the markup this Facelet was compiled from
+     * 
+     * @return size in characters, or 0 if it is not known
+     */
+    long getSize() {
+        return (this.root instanceof EncodingHandler)
+               ? ((EncodingHandler) this.root).getSize()
+               : 0;
+    }
+
     /**
      * The time when this Facelet was created, NOT the URL source code
      * 
@@ -254,16 +277,34 @@ final class DefaultFacelet extends Facelet implements XMLFrontMatterSaver {
 
     /**
      * Delegates resolution to DefaultFaceletFactory reference. Also, caches
-     * URLs for relative paths.
+     * the resolved URLs with this Facelet, if enabled, so that they are
+     * discarded along with it. Absolute paths are cached per set of
+     * resource library contracts.
      * 
+     * @param context
+     *            the current FacesContext
      * @param path
      *            a relative url path
      * @return URL pointing to destination
      * @throws IOException
      *             if there is a problem creating the URL for the path specified
      */
-    private URL getRelativePath(String path) throws IOException {
-        return this.factory.resolveURL(this.src, path);
+    private URL getRelativePath(FacesContext context, String path) throws IOException {
+        if (this.resolvedPaths == null) {
+            return this.factory.resolveURL(this.src, path);
+        }
+        String key = (path.startsWith("/")
+                      ? this.factory.getContractsKey(context) + '\u0000' + path
+                      : path);
+        URL url = this.resolvedPaths.get(key);
+        if (url == null) {
+            url = this.factory.resolveURL(this.src, path);
+            // once full, further paths are resolved on every use
+            if (this.resolvedPaths.size() < MAX_RESOLVED_PATHS) {
+                this.resolvedPaths.put(key, url);
+            }
+        }
+        return url;
     }
 
     /**
@@ -298,7 +339,7 @@ final class DefaultFacelet extends Facelet implements XMLFrontMatterSaver {
 
     /**
      * Used for delegation by the DefaultFaceletContext. First pulls the URL
-     * from {@link #getRelativePath(String) getRelativePath(String)}, then
+     * from {@link #getRelativePath(FacesContext, String) getRelativePath(FacesContext, String)}, then
      * calls
      * {@link #include(DefaultFaceletContext, javax.faces.component.UIComponent, String)}.
      * 
@@ -328,7 +369,7 @@ final class DefaultFacelet extends Facelet implements XMLFrontMatterSaver {
                 return;
             }
         } else {
-            url = this.getRelativePath(path);
+            url = this.getRelativePath(ctx.getFacesContext(), path);
         }
         this.include(ctx, parent, url);
     }
@@ -45,6 +45,7 @@ import javax.faces.view.facelets.FaceletCache;
 import com.sun.faces.util.ConcurrentCache;
 import com.sun.faces.util.ExpiringConcurrentCache;
 import com.sun.faces.util.FacesLogger;
+import com.sun.faces.util.ResourceChangeWatcher;
 import com.sun.faces.util.Util;
 
 import javax.faces.FacesException;
@@ -70,6 +71,17 @@ final class DefaultFaceletCache extends FaceletCache<DefaultFacelet> {
      * 0 means 'always refresh', negative value means 'never refresh'
      */
     DefaultFaceletCache(final long refreshPeriod) {
+        this(refreshPeriod, null);
+    }
+
+    /**
+     *Constructor
+     * @param refreshPeriod cache refresh period (in seconds).
+     * 0 means 'always refresh', negative value means 'never refresh'
+     * @param watcher if not <code>null</code>, used instead of polling the
+     * last modified time of Facelets that can be watched
+     */
+    DefaultFaceletCache(final long refreshPeriod, final ResourceChangeWatcher watcher) {
 
         // We will be delegating object storage to the ExpiringCocurrentCache
         // Create Factory objects here for the cache. The objects will be delegating to our
@@ -81,11 +93,7 @@ final class DefaultFaceletCache extends FaceletCache<DefaultFacelet> {
             new ConcurrentCache.Factory<URL, Record>() {
             @Override
             public Record newInstance(final URL key) throws IOException {
-                // Make sure that the expensive timestamp retrieval is not done
-                // if no expiry check is going to be performed
-                long lastModified = checkExpiry ? Util.getLastModified(key) : 0;
-                return new Record(System.currentTimeMillis(), lastModified,
-                                  getMemberFactory().newInstance(key), refreshPeriod);
+                return createRecord(key, getMemberFactory(), refreshPeriod, checkExpiry, watcher);
             }
         };
 
@@ -93,11 +101,7 @@ final class DefaultFaceletCache extends FaceletCache<DefaultFacelet> {
             new ConcurrentCache.Factory<URL, Record>() {
             @Override
             public Record newInstance(final URL key) throws IOException {
-                // Make sure that the expensive timestamp retrieval is not done
-                // if no expiry check is going to be performed
-                long lastModified = checkExpiry ? Util.getLastModified(key) : 0;
-                return new Record(System.currentTimeMillis(), lastModified,
-                                  getMetadataMemberFactory().newInstance(key), refreshPeriod);
+                return createRecord(key, getMetadataMemberFactory(), refreshPeriod, checkExpiry, watcher);
             }
         };
 
@@ -117,6 +121,20 @@ final class DefaultFaceletCache extends FaceletCache<DefaultFacelet> {
         }
     }
 
+    static Record createRecord(URL url,
+                               MemberFactory<DefaultFacelet> factory,
+                               long refreshPeriod,
+                               boolean checkExpiry,
+                               ResourceChangeWatcher watcher) throws IOException {
+        // Start watching before the Facelet is read, so no change is missed
+        ResourceChangeWatcher.Handle handle = (checkExpiry && watcher != null) ? watcher.watch(url) : null;
+        // Make sure that the expensive timestamp retrieval is not done
+        // if no expiry check is going to be performed
+        long lastModified = (checkExpiry && handle == null) ? Util.getLastModified(url) : 0;
+        return new Record(System.currentTimeMillis(), lastModified,
+                          factory.newInstance(url), refreshPeriod, handle);
+    }
+
     @Override
     public DefaultFacelet getFacelet(URL url) throws IOException {
         com.sun.faces.util.Util.notNull("url", url);
@@ -180,9 +198,15 @@ final class DefaultFaceletCache extends FaceletCache<DefaultFacelet> {
      * This class holds the Facelet instance and its original URL's last modified time. It also produces
      * the time when the next expiry check should be performed
      */
-    private static class Record {
+    static class Record {
         Record(long creationTime, long lastModified, DefaultFacelet facelet, long refreshInterval) {
+            this(creationTime, lastModified, facelet, refreshInterval, null);
+        }
+
+        Record(long creationTime, long lastModified, DefaultFacelet facelet, long refreshInterval,
+               ResourceChangeWatcher.Handle handle) {
             _facelet = facelet;
+            _handle = handle;
             _creationTime = creationTime;
             _lastModified = lastModified;
             _refreshInterval = refreshInterval;
@@ -198,6 +222,10 @@ final class DefaultFaceletCache extends FaceletCache<DefaultFacelet> {
         long getLastModified() {
             return _lastModified;
         }
+
+        ResourceChangeWatcher.Handle getHandle() {
+            return _handle;
+        }
         
         long getNextRefreshTime() {
             // There is no point in calculating the next refresh time if we are refreshing always/never
@@ -214,12 +242,16 @@ final class DefaultFaceletCache extends FaceletCache<DefaultFacelet> {
         private final long _creationTime;
         private final AtomicLong _nextRefreshTime;
         private final DefaultFacelet _facelet;
+        private final ResourceChangeWatcher.Handle _handle;
     }
 
     private static class ExpiryChecker implements ExpiringConcurrentCache.ExpiryChecker<URL, Record> {
 
         @Override
         public boolean isExpired(URL url, Record record) {
+            if (record.getHandle() != null) {
+                return record.getHandle().isChanged();
+            }
             if (System.currentTimeMillis() > record.getNextRefreshTime()) {
                 record.getAndUpdateNextRefreshTime();
                 long lastModified = Util.getLastModified(url);
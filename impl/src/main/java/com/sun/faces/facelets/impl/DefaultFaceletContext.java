@@ -84,6 +84,9 @@ final class DefaultFaceletContext extends FaceletContextImplBase {
 
     private final ELContext ctx;
 
+    // non-null if the dependencies of the view being built are tracked
+    private final ELResolver trackingResolver;
+
     private final DefaultFacelet facelet;
     private final List<Facelet> faceletHierarchy;
 
@@ -100,6 +103,7 @@ final class DefaultFaceletContext extends FaceletContextImplBase {
     public DefaultFaceletContext(DefaultFaceletContext ctx,
             DefaultFacelet facelet) {
         this.ctx = ctx.ctx;
+        this.trackingResolver = ctx.trackingResolver;
         this.clients = ctx.clients;
         this.faces = ctx.faces;
         this.fnMapper = ctx.fnMapper;
@@ -128,6 +132,11 @@ final class DefaultFaceletContext extends FaceletContextImplBase {
             this.varMapper = new DefaultVariableMapper();
         }
         this.fnMapper = this.ctx.getFunctionMapper();
+        BuildDependencyTracker tracker =
+                BuildDependencyTracker.getCurrentInstance(faces);
+        this.trackingResolver = (tracker != null)
+                ? tracker.wrap(this.ctx.getELResolver())
+                : null;
         this.faces.getAttributes().put(FaceletContext.FACELET_CONTEXT_KEY,
                 this);
     }
@@ -323,6 +332,9 @@ final class DefaultFaceletContext extends FaceletContextImplBase {
 
     @Override
     public ELResolver getELResolver() {
+        if (this.trackingResolver != null) {
+            return this.trackingResolver;
+        }
         return this.ctx.getELResolver();
     }
 
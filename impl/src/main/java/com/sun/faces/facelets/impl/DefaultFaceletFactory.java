@@ -41,6 +41,7 @@
 package com.sun.faces.facelets.impl;
 
 import com.sun.faces.RIConstants;
+import com.sun.faces.config.WebConfiguration;
 import com.sun.faces.context.FacesFileNotFoundException;
 import java.net.MalformedURLException;
 import javax.faces.FactoryFinder;
@@ -48,6 +49,7 @@ import javax.faces.component.UIComponent;
 import javax.faces.view.facelets.Facelet;
 import javax.faces.view.facelets.FaceletCache;
 import com.sun.faces.facelets.compiler.Compiler;
+import com.sun.faces.facelets.compiler.PrecompiledFacelet;
 import com.sun.faces.util.Cache;
 import com.sun.faces.util.FacesLogger;
 import com.sun.faces.util.Util;
@@ -101,10 +103,15 @@ public class DefaultFaceletFactory {
     
     private long refreshPeriod;
 
+    private boolean usePrecompiled;
+
     private FaceletCache<DefaultFacelet> cache;
 
     private ConcurrentMap<String, FaceletCache<DefaultFacelet>> cachePerContract;
 
+    // resolved view URLs, by contracts and view id; null if not cached
+    private ConcurrentMap<String, URL> resolvedURLs;
+
     Cache<String,IdMapper> idMappers;
     
 
@@ -151,10 +158,24 @@ public class DefaultFaceletFactory {
         this.cachePerContract = new ConcurrentHashMap<>();
         this.resolver = resolver;
         this.baseUrl = resolver.resolveUrl("/");
-        this.idMappers = new Cache<>(new IdMapperFactory());
         // this.location = url;
         refreshPeriod = (refreshPeriod >= 0) ? refreshPeriod * 1000 : -1;
         this.refreshPeriod = refreshPeriod;
+        FacesContext context = FacesContext.getCurrentInstance();
+        this.idMappers = new Cache<>(new IdMapperFactory(context != null
+              && WebConfiguration.getInstance(context.getExternalContext())
+                    .isOptionEnabled(WebConfiguration.BooleanWebContextInitParameter.CompactClientIds)));
+        this.usePrecompiled = (context != null)
+              && WebConfiguration.getInstance(context.getExternalContext())
+                    .isOptionEnabled(WebConfiguration.BooleanWebContextInitParameter.EnablePrecompiledFacelets);
+        // Resolved URLs can only be reused as long as Facelets are never
+        // refreshed, since a refresh may also change which file a path
+        // resolves to
+        this.resolvedURLs = (context != null && refreshPeriod < 0
+                && WebConfiguration.getInstance(context.getExternalContext())
+                    .isOptionEnabled(WebConfiguration.BooleanWebContextInitParameter.CacheTemplateResolution))
+              ? new ConcurrentHashMap<>()
+              : null;
         if (log.isLoggable(Level.FINE)) {
             log.log(Level.FINE, "Using ResourceResolver: {0}", resolver);
             log.log(Level.FINE, "Using Refresh Period: {0}", refreshPeriod);
@@ -212,14 +233,14 @@ public class DefaultFaceletFactory {
       */
     public Facelet getFacelet(FacesContext context, String uri) throws IOException {
 
-        return this.getFacelet(context, resolveURL(uri));
+        return this.getFacelet(context, resolveURL(context, uri));
 
     }
 
 
     public Facelet getMetadataFacelet(FacesContext context, String uri) throws IOException {
 
-        return this.getMetadataFacelet(context, resolveURL(uri));
+        return this.getMetadataFacelet(context, resolveURL(context, uri));
 
     }
 
@@ -308,17 +329,36 @@ public class DefaultFaceletFactory {
         return false;
     }
 
-    private FaceletCache<DefaultFacelet> getCache(FacesContext context) {
+    /**
+     * @return <code>true</code> if the URLs that templates and includes
+     *  resolve to may be cached with the Facelets that reference them
+     */
+    boolean isCachingResolvedURLs() {
+        return (this.resolvedURLs != null);
+    }
+
+    /**
+     * @return the key that identifies the resource library contracts of the
+     *  current view, or an empty String if there are none
+     */
+    String getContractsKey(FacesContext context) {
         List<String> contracts = context.getResourceLibraryContracts();
-        if(!contracts.isEmpty()) {
-            StringBuilder builder = new StringBuilder();
-            for (int i=0; i<contracts.size(); i++) {
-                builder.append(contracts.get(i));
-                if (i + 1 != contracts.size()) {
-                    builder.append(",");
-                }
+        if (contracts.isEmpty()) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i=0; i<contracts.size(); i++) {
+            builder.append(contracts.get(i));
+            if (i + 1 != contracts.size()) {
+                builder.append(",");
             }
-            String contractsKey = builder.toString();
+        }
+        return builder.toString();
+    }
+
+    private FaceletCache<DefaultFacelet> getCache(FacesContext context) {
+        String contractsKey = getContractsKey(context);
+        if(!contractsKey.isEmpty()) {
             FaceletCache<DefaultFacelet> faceletCache = cachePerContract.get(contractsKey);
             if(faceletCache == null) {
                 // PENDING(FCAPUTO) we don't support com.sun.faces.config.WebConfiguration.WebContextInitParameter#FaceletCache for contracts
@@ -331,13 +371,24 @@ public class DefaultFaceletFactory {
         return this.cache;
     }
 
-    private URL resolveURL(String uri) throws IOException {
+    private URL resolveURL(FacesContext context, String uri) throws IOException {
         // PENDING(FCAPUTO) Deactivated caching for resource library contracts. If we still want to cache it, we need a cache per contract libraries list.
         //         But the ResourceHandler caches on his own (using ResourceManager).
+        String key = null;
+        if (this.resolvedURLs != null) {
+            key = getContractsKey(context) + '\u0000' + uri;
+            URL url = this.resolvedURLs.get(key);
+            if (url != null) {
+                return url;
+            }
+        }
         URL url = this.resolveURL(this.baseUrl, uri);
         if (url == null) {
             throw new IOException("'" + uri + "' not found.");
         }
+        if (key != null) {
+            this.resolvedURLs.put(key, url);
+        }
         return url;
     }
 
@@ -454,7 +505,12 @@ public class DefaultFaceletFactory {
         String escapedBaseURL = Pattern.quote(this.baseUrl.getFile());
         String alias = '/' + url.getFile().replaceFirst(escapedBaseURL, "");
         try {
-            FaceletHandler h = this.compiler.compile(url, alias);
+            PrecompiledFacelet precompiled = (usePrecompiled)
+                                             ? PrecompiledFacelet.find(url, alias)
+                                             : null;
+            FaceletHandler h = (precompiled != null)
+                               ? this.compiler.compile(precompiled, alias)
+                               : this.compiler.compile(url, alias);
             return new DefaultFacelet(this,
                                       this.compiler.createExpressionFactory(),
                                       url,
@@ -476,7 +532,12 @@ public class DefaultFaceletFactory {
         String escapedBaseURL = Pattern.quote(this.baseUrl.getFile());
         String alias = '/' + url.getFile().replaceFirst(escapedBaseURL, "");
         try {
-            FaceletHandler h = this.compiler.metadataCompile(url, alias);
+            PrecompiledFacelet precompiled = (usePrecompiled)
+                                             ? PrecompiledFacelet.find(url, alias)
+                                             : null;
+            FaceletHandler h = (precompiled != null)
+                               ? this.compiler.metadataCompile(precompiled, alias)
+                               : this.compiler.metadataCompile(url, alias);
             return new DefaultFacelet(this,
                                       this.compiler.createExpressionFactory(),
                                       url,
@@ -502,6 +563,15 @@ public class DefaultFaceletFactory {
 
     private static final class IdMapperFactory implements Cache.Factory<String,IdMapper> {
 
+        private final boolean compact;
+
+
+        IdMapperFactory(boolean compact) {
+
+            this.compact = compact;
+
+        }
+
 
         // ------------------------------------------ Methods from Cache.Factory
 
@@ -509,7 +579,7 @@ public class DefaultFaceletFactory {
         @Override
         public IdMapper newInstance(String arg) throws InterruptedException {
 
-            return new IdMapper();
+            return new IdMapper(compact);
 
         }
 
@@ -40,10 +40,12 @@
 
 package com.sun.faces.facelets.impl;
 
+import javax.faces.context.FacesContext;
 import javax.faces.view.facelets.FaceletCache;
 import javax.faces.view.facelets.FaceletCacheFactory;
 
 import com.sun.faces.config.WebConfiguration;
+import com.sun.faces.util.ResourceChangeWatcher;
 
 /**
  * Default implementation of {@link FaceletCacheFactory}.
@@ -59,11 +61,33 @@ public class FaceletCacheFactoryImpl extends FaceletCacheFactory {
         WebConfiguration webConfig = WebConfiguration.getInstance();
         String refreshPeriod = webConfig.getOptionValue(WebConfiguration.WebContextInitParameter.FaceletsDefaultRefreshPeriod);
         long period = Long.parseLong(refreshPeriod) * 1000;
-        FaceletCache<DefaultFacelet> result = new DefaultFaceletCache(period);
+        long maxSize = getMaxSize(webConfig);
+        FacesContext context = FacesContext.getCurrentInstance();
+        ResourceChangeWatcher watcher = (period > 0)
+                                        ? ResourceChangeWatcher.getInstance(context.getExternalContext())
+                                        : null;
+        FaceletCache<DefaultFacelet> result;
+        if (maxSize > 0 && period != 0) {
+            result = new BoundedFaceletCache(period,
+                                             maxSize,
+                                             FaceletCacheStatistics.getInstance(context.getExternalContext()),
+                                             watcher);
+        } else {
+            result = new DefaultFaceletCache(period, watcher);
+        }
         return result;
 
     }
 
 
+    private static long getMaxSize(WebConfiguration webConfig) {
+
+        try {
+            return Long.parseLong(webConfig.getOptionValue(WebConfiguration.WebContextInitParameter.FaceletCacheMaxSize));
+        } catch (NumberFormatException nfe) {
+            return 0;
+        }
+
+    }
 
 }
@@ -0,0 +1,329 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.facelets.impl;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.faces.context.ExternalContext;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.servlet.ServletContext;
+
+import com.sun.faces.util.BoundedConcurrentCache;
+import com.sun.faces.util.FacesLogger;
+
+/**
+ * <p>
+ * Hit, miss, eviction and compile time statistics of the
+ * {@link BoundedFaceletCache}s of an application.  The statistics are
+ * registered with the platform MBean server as
+ * <code>com.sun.faces:type=FaceletCacheStatistics,context=&lt;context path&gt;</code>.
+ * </p>
+ */
+public class FaceletCacheStatistics
+      implements FaceletCacheStatisticsMXBean, BoundedConcurrentCache.Listener<Object> {
+
+    private static final Logger LOGGER = FacesLogger.FACELETS_FACTORY.getLogger();
+
+    private static final String STATISTICS_KEY =
+          FaceletCacheStatistics.class.getName();
+
+    /**
+     * Upper bounds of the compile time histogram buckets, in milliseconds.
+     */
+    private static final long[] BUCKETS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000 };
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder[] compileTimes = new LongAdder[BUCKETS.length + 1];
+    private final List<BoundedConcurrentCache<?, ?>> caches = new CopyOnWriteArrayList<>();
+    private ObjectName objectName;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    private FaceletCacheStatistics() {
+
+        for (int i = 0; i < compileTimes.length; i++) {
+            compileTimes[i] = new LongAdder();
+        }
+
+    }
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    /**
+     * @param extContext the <code>ExternalContext</code> of the application
+     * @return the statistics of the application, registered with the MBean
+     *  server when first requested
+     */
+    static FaceletCacheStatistics getInstance(ExternalContext extContext) {
+
+        Map<String, Object> appMap = extContext.getApplicationMap();
+        FaceletCacheStatistics statistics = (FaceletCacheStatistics) appMap.get(STATISTICS_KEY);
+        if (statistics == null) {
+            synchronized (FaceletCacheStatistics.class) {
+                statistics = (FaceletCacheStatistics) appMap.get(STATISTICS_KEY);
+                if (statistics == null) {
+                    statistics = new FaceletCacheStatistics();
+                    statistics.register(extContext.getApplicationContextPath());
+                    appMap.put(STATISTICS_KEY, statistics);
+                }
+            }
+        }
+        return statistics;
+
+    }
+
+
+    /**
+     * <p>Unregisters the statistics of the application from the MBean
+     * server, if any.</p>
+     * @param context the <code>ServletContext</code> of the application
+     */
+    public static void unregister(ServletContext context) {
+
+        Object statistics = context.getAttribute(STATISTICS_KEY);
+        if (statistics instanceof FaceletCacheStatistics) {
+            ObjectName name = ((FaceletCacheStatistics) statistics).objectName;
+            if (name != null) {
+                try {
+                    ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+                } catch (JMException jme) {
+                    if (LOGGER.isLoggable(Level.FINE)) {
+                        LOGGER.log(Level.FINE, "Unable to unregister " + name, jme);
+                    }
+                }
+            }
+            ((FaceletCacheStatistics) statistics).caches.clear();
+            context.removeAttribute(STATISTICS_KEY);
+        }
+
+    }
+
+
+    // ---------------------------------- Methods from FaceletCacheStatisticsMXBean
+
+
+    @Override
+    public long getHits() {
+
+        return hits.sum();
+
+    }
+
+
+    @Override
+    public long getMisses() {
+
+        return misses.sum();
+
+    }
+
+
+    @Override
+    public double getHitRatio() {
+
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return ((total > 0) ? (double) h / total : 0);
+
+    }
+
+
+    @Override
+    public long getEvictions() {
+
+        return evictions.sum();
+
+    }
+
+
+    @Override
+    public long getRejections() {
+
+        return rejections.sum();
+
+    }
+
+
+    @Override
+    public long getCachedFacelets() {
+
+        long size = 0;
+        for (BoundedConcurrentCache<?, ?> cache : caches) {
+            size += cache.size();
+        }
+        return size;
+
+    }
+
+
+    @Override
+    public long getCachedSize() {
+
+        long weight = 0;
+        for (BoundedConcurrentCache<?, ?> cache : caches) {
+            weight += cache.weight();
+        }
+        return weight;
+
+    }
+
+
+    @Override
+    public Map<String, Long> getCompileTimeHistogram() {
+
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKETS.length; i++) {
+            result.put("<=" + BUCKETS[i], compileTimes[i].sum());
+        }
+        result.put(">" + BUCKETS[BUCKETS.length - 1], compileTimes[BUCKETS.length].sum());
+        return result;
+
+    }
+
+
+    @Override
+    public void reset() {
+
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+        rejections.reset();
+        for (LongAdder compileTime : compileTimes) {
+            compileTime.reset();
+        }
+
+    }
+
+
+    // ------------------------------- Methods from BoundedConcurrentCache.Listener
+
+
+    @Override
+    public void hit(Object key) {
+
+        hits.increment();
+
+    }
+
+
+    @Override
+    public void miss(Object key, long nanos) {
+
+        misses.increment();
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 0;
+        while (bucket < BUCKETS.length && millis > BUCKETS[bucket]) {
+            bucket++;
+        }
+        compileTimes[bucket].increment();
+
+    }
+
+
+    @Override
+    public void evicted(Object key) {
+
+        evictions.increment();
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Evicted Facelet {0} from the cache", key);
+        }
+
+    }
+
+
+    @Override
+    public void rejected(Object key) {
+
+        rejections.increment();
+        if (LOGGER.isLoggable(Level.FINEST)) {
+            LOGGER.log(Level.FINEST, "Facelet {0} not admitted to the cache", key);
+        }
+
+    }
+
+
+    // --------------------------------------------------------- Package Methods
+
+
+    void addCache(BoundedConcurrentCache<?, ?> cache) {
+
+        caches.add(cache);
+
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private void register(String contextPath) {
+
+        try {
+            ObjectName name = new ObjectName("com.sun.faces:type=FaceletCacheStatistics,context="
+                                             + ObjectName.quote(contextPath));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            objectName = name;
+        } catch (JMException jme) {
+            if (LOGGER.isLoggable(Level.WARNING)) {
+                LOGGER.log(Level.WARNING,
+                           "Unable to register the Facelet cache statistics MBean",
+                           jme);
+            }
+        }
+
+    }
+
+}
@@ -49,18 +49,41 @@ import java.util.concurrent.atomic.AtomicInteger;
 /**
  * Used to provide aliases to Facelets generated unique IDs with tend to be
  * womewhat long.
+ *
+ * <p>In compact mode the aliases are base 62 numbers, and the IDs of
+ * template text are aliased separately from the IDs of components, so that
+ * the component aliases stay as short as possible.</p>
  */
 public class IdMapper {
 
     private static final String KEY = IdMapper.class.getName();
 
-    private Cache<String,String> idCache = new Cache<>(new IdGen());
+    private static final char[] DIGITS =
+          "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+    private Cache<String,String> idCache;
+
+    private Cache<String,String> instructionIdCache;
 
 
     // ------------------------------------------------------------ Constructors
 
 
-    IdMapper() { }
+    IdMapper() {
+
+        this(false);
+
+    }
+
+
+    IdMapper(boolean compact) {
+
+        idCache = new Cache<>(new IdGen('t', compact));
+        instructionIdCache = ((compact)
+                              ? new Cache<>(new IdGen('i', true))
+                              : idCache);
+
+    }
 
 
     // ---------------------------------------------------------- Public Methods
@@ -73,6 +96,17 @@ public class IdMapper {
     }
 
 
+    /**
+     * @param id the generated ID of a block of template text
+     * @return the alias of <code>id</code>
+     */
+    public String getAliasedInstructionId(String id) {
+
+        return instructionIdCache.get(id);
+
+    }
+
+
     public static void setMapper(FacesContext ctx, IdMapper mapper) {
 
         Util.notNull("ctx", ctx);
@@ -92,12 +126,41 @@ public class IdMapper {
 
     }
 
+
+    // --------------------------------------------------------- Package Methods
+
+
+    static String toBase62(int value) {
+
+        if (value == 0) {
+            return "0";
+        }
+        char[] buf = new char[6];
+        int pos = buf.length;
+        while (value > 0) {
+            buf[--pos] = DIGITS[value % DIGITS.length];
+            value /= DIGITS.length;
+        }
+        return new String(buf, pos, buf.length - pos);
+
+    }
+
     
     // ---------------------------------------------------------- Nested Classes
 
     private static final class IdGen implements Cache.Factory<String,String> {
 
         private AtomicInteger counter = new AtomicInteger(0);
+        private final char prefix;
+        private final boolean compact;
+
+
+        IdGen(char prefix, boolean compact) {
+
+            this.prefix = prefix;
+            this.compact = compact;
+
+        }
 
 
         // ------------------------------------------ Methods from Cache.Factory
@@ -106,7 +169,8 @@ public class IdMapper {
         @Override
         public String newInstance(String arg) throws InterruptedException {
 
-            return 't' + Integer.toString(counter.incrementAndGet());
+            int id = counter.incrementAndGet();
+            return prefix + ((compact) ? toBase62(id) : Integer.toString(id));
 
         }
 
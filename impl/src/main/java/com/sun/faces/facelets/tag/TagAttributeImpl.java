@@ -73,6 +73,10 @@ public class TagAttributeImpl extends TagAttribute {
 
     private final boolean literal;
 
+    private final boolean constant;
+
+    private final Object constantValue;
+
     private final String localName;
 
     private final Location location;
@@ -89,6 +93,8 @@ public class TagAttributeImpl extends TagAttribute {
     
     public TagAttributeImpl() {
         this.literal = false;
+        this.constant = false;
+        this.constantValue = null;
         this.localName = null;
         this.location = null;
         this.namespace = null;
@@ -110,6 +116,33 @@ public class TagAttributeImpl extends TagAttribute {
         } catch (ELException e) {
             throw new TagAttributeException(this, e);
         }
+        this.constant = false;
+        this.constantValue = null;
+    }
+
+    /**
+     * Creates an attribute whose value is an expression that was found at
+     * compile time to always evaluate to <code>constantValue</code>. Such an
+     * attribute is not literal, so expressions are still created for it, but
+     * it is never evaluated when its value is requested.
+     * 
+     * @param location the location of the attribute
+     * @param ns the namespace of the attribute
+     * @param localName the local name of the attribute
+     * @param qName the qualified name of the attribute
+     * @param value the expression
+     * @param constantValue the value of the expression
+     */
+    public TagAttributeImpl(Location location, String ns, String localName,
+            String qName, String value, Object constantValue) {
+        this.location = location;
+        this.namespace = ns;
+        this.localName = (null == localName || 0 == localName.length()) ? qName : localName;
+        this.qName = qName;
+        this.value = value;
+        this.literal = false;
+        this.constant = true;
+        this.constantValue = constantValue;
     }
 
     /**
@@ -334,6 +367,13 @@ public class TagAttributeImpl extends TagAttribute {
                     throw new TagAttributeException(this, e);
                 }
             }
+        } else if (this.constant) {
+            try {
+                return ctx.getExpressionFactory().coerceToType(this.constantValue,
+                        type);
+            } catch (Exception e) {
+                throw new TagAttributeException(this, e);
+            }
         } else {
             ValueExpression ve = this.getValueExpression(ctx, type);
             try {
@@ -372,6 +412,25 @@ public class TagAttributeImpl extends TagAttribute {
         return this.literal;
     }
 
+    /**
+     * If this TagAttributeImpl is an expression that always evaluates to
+     * the same value
+     * 
+     * @return true if this attribute is constant
+     */
+    public boolean isConstant() {
+        return this.constant;
+    }
+
+    /**
+     * The value a constant attribute evaluates to
+     * 
+     * @return the value, <code>null</code> if this attribute is not constant
+     */
+    public Object getConstantValue() {
+        return this.constantValue;
+    }
+
     /*
      * (non-Javadoc)
      * 
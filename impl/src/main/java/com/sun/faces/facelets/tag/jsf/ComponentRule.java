@@ -41,6 +41,7 @@
 package com.sun.faces.facelets.tag.jsf;
 
 import com.sun.faces.facelets.el.LegacyValueBinding;
+import com.sun.faces.facelets.tag.TagAttributeImpl;
 import com.sun.faces.util.FacesLogger;
 
 import javax.faces.component.UIComponent;
@@ -71,6 +72,22 @@ final class ComponentRule extends MetaRule {
         }
     }
     
+    final static class ConstantAttributeMetadata extends Metadata {
+
+        private final String name;
+        private final Object value;
+
+        public ConstantAttributeMetadata(String name, Object value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        public void applyMetadata(FaceletContext ctx, Object instance) {
+            ((UIComponent) instance).getAttributes().put(this.name, this.value);
+        }
+    }
+    
     final static class ValueExpressionMetadata extends Metadata {
 
         private final String name;
@@ -136,6 +153,14 @@ final class ComponentRule extends MetaRule {
                 if (type == null) {
                     type = Object.class;
                 }
+                if (isConstant(attribute, type)) {
+                    if (meta.getWriteMethod(name) == null) {
+                        return new ConstantAttributeMetadata(name,
+                                ((TagAttributeImpl) attribute).getConstantValue());
+                    }
+                    // set the property once, like a literal
+                    return null;
+                }
                 return new ValueExpressionMetadata(name, type, attribute);
             } else if (meta.getWriteMethod(name) == null) {
 
@@ -148,6 +173,21 @@ final class ComponentRule extends MetaRule {
         return null;
     }
 
+    /*
+     * Constant expressions are stored as plain values, unless the property
+     * type may need an expression to be coerced to.
+     */
+    private static boolean isConstant(TagAttribute attr, Class type) {
+        if (!(attr instanceof TagAttributeImpl)
+                || !((TagAttributeImpl) attr).isConstant()) {
+            return false;
+        }
+        return type.isPrimitive() || type == Object.class
+                || type == String.class || type == Boolean.class
+                || type == Character.class || type.isEnum()
+                || Number.class.isAssignableFrom(type);
+    }
+
     private static void warnAttr(TagAttribute attr, Class type, String n) {
         if (log.isLoggable(Level.FINER)) {
             log.finer(attr + " Property '" + n + "' is not on type: "
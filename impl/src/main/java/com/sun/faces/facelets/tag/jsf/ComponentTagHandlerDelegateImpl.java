@@ -44,6 +44,7 @@ import com.sun.faces.component.behavior.AjaxBehaviors;
 import com.sun.faces.component.validator.ComponentValidators;
 import com.sun.faces.component.CompositeComponentStackManager;
 import com.sun.faces.context.StateContext;
+import com.sun.faces.facelets.impl.BuildDependencyTracker;
 import com.sun.faces.facelets.impl.IdMapper;
 import com.sun.faces.facelets.tag.MetaRulesetImpl;
 import com.sun.faces.facelets.tag.jsf.core.FacetHandler;
@@ -577,6 +578,8 @@ public class ComponentTagHandlerDelegateImpl extends TagHandlerDelegate {
         FacesContext faces = ctx.getFacesContext();
         Application app = faces.getApplication();
         if (this.binding != null) {
+            // the bound component may be provided by a bean
+            BuildDependencyTracker.record(faces, this.binding);
             ValueExpression ve = this.binding.getValueExpression(ctx,
                                                                  Object.class);
             c = app.createComponent(ve, faces, this.componentType, this.rendererType);
@@ -41,6 +41,7 @@
 package com.sun.faces.facelets.tag.jsf.core;
 
 import com.sun.faces.RIConstants;
+import com.sun.faces.facelets.impl.BuildDependencyTracker;
 import com.sun.faces.facelets.tag.TagHandlerImpl;
 import com.sun.faces.facelets.tag.jsf.ComponentSupport;
 
@@ -123,6 +124,8 @@ public final class ViewHandler extends TagHandlerImpl {
         UIViewRoot root = ComponentSupport.getViewRoot(ctx, parent);
         if (root != null) {
             if (this.renderKitId != null) {
+                // overrides the render kit calculated for the request
+                BuildDependencyTracker.record(ctx.getFacesContext(), this.renderKitId);
                 String v = this.renderKitId.getValue(ctx);
                 root.setRenderKitId(v);
             }
@@ -186,6 +189,8 @@ public final class ViewHandler extends TagHandlerImpl {
          * we establish the locale in all cases.
          */
         if (this.locale != null && root != null) {
+            // overrides the locale calculated for the request
+            BuildDependencyTracker.record(ctx.getFacesContext(), this.locale);
             try {
                 root.setLocale(ComponentSupport.getLocale(ctx, this.locale));
             } catch (TagAttributeException tae) {
@@ -0,0 +1,128 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.io;
+
+import java.nio.charset.Charset;
+
+/**
+ * <p>Static markup together with its encoded form.  The bytes are computed
+ * the first time the text is written using a particular charset and kept
+ * for as long as the owning instance, typically a compiled Facelet, lives.
+ * Only the most recently used charset is retained as a response charset
+ * rarely varies for a given page.</p>
+ *
+ * <p>This class is thread safe.</p>
+ */
+public final class EncodedText {
+
+    private final String text;
+    private volatile Encoded encoded;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    public EncodedText(String text) {
+
+        if (text == null) {
+            throw new NullPointerException();
+        }
+        this.text = text;
+
+    }
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    /**
+     * @return the characters of this text
+     */
+    public String getText() {
+
+        return text;
+
+    }
+
+
+    /**
+     * <p>Returns the text encoded using <code>charset</code>.  The returned
+     * array is shared and must not be modified.</p>
+     *
+     * @param charset the charset of the response
+     * @return the encoded text
+     */
+    public byte[] getBytes(Charset charset) {
+
+        Encoded result = encoded;
+        if (result == null || !result.charset.equals(charset)) {
+            result = new Encoded(charset, text.getBytes(charset));
+            encoded = result;
+        }
+        return result.bytes;
+
+    }
+
+
+    @Override
+    public String toString() {
+
+        return text;
+
+    }
+
+
+    // ---------------------------------------------------------- Nested Classes
+
+
+    private static final class Encoded {
+
+        private final Charset charset;
+        private final byte[] bytes;
+
+        Encoded(Charset charset, byte[] bytes) {
+            this.charset = charset;
+            this.bytes = bytes;
+        }
+
+    }
+
+}
@@ -0,0 +1,245 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>A {@link Writer} encoding characters directly onto an
+ * {@link OutputStream}, typically the <code>ServletOutputStream</code> of
+ * the response.  Unlike {@link java.io.OutputStreamWriter} it accepts
+ * {@link EncodedText}, which is written to the stream as is.</p>
+ *
+ * <p>Pre-encoded bytes can only be interleaved with freshly encoded
+ * characters when the charset keeps no state between characters, see
+ * {@link #isSupported(Charset)}.</p>
+ *
+ * <p>This class is not thread safe.</p>
+ */
+public final class EncodingOutputWriter extends Writer implements EncodedTextSink {
+
+    private final OutputStream out;
+    private final Charset charset;
+    private final CharsetEncoder encoder;
+    private final CharBuffer chars;
+    private final ByteBuffer bytes;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    /**
+     * @param out the stream to write to
+     * @param charset the charset used to encode characters, must be
+     *  {@link #isSupported(Charset) supported}
+     * @param bufferSize the number of characters buffered before they
+     *  are encoded
+     */
+    public EncodingOutputWriter(OutputStream out, Charset charset, int bufferSize) {
+
+        if (!isSupported(charset)) {
+            throw new IllegalArgumentException(charset.name());
+        }
+        this.out = out;
+        this.charset = charset;
+        this.encoder = charset.newEncoder()
+              .onMalformedInput(CodingErrorAction.REPLACE)
+              .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.chars = CharBuffer.allocate(Math.max(bufferSize, 64));
+        this.bytes = ByteBuffer.allocate(
+              (int) Math.ceil(chars.capacity() * encoder.maxBytesPerChar()));
+
+    }
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    /**
+     * @param charset a charset
+     * @return <code>true</code> if bytes encoded separately with
+     *  <code>charset</code> may be concatenated, which holds for UTF-8 and
+     *  the single byte charsets
+     */
+    public static boolean isSupported(Charset charset) {
+
+        if (StandardCharsets.UTF_8.equals(charset)
+              || StandardCharsets.ISO_8859_1.equals(charset)
+              || StandardCharsets.US_ASCII.equals(charset)) {
+            return true;
+        }
+        String name = charset.name();
+        return name.startsWith("ISO-8859-") || name.startsWith("windows-125");
+
+    }
+
+
+    public Charset getCharset() {
+
+        return charset;
+
+    }
+
+
+    /**
+     * <p>Encodes the buffered characters onto the stream without flushing
+     * the stream itself, leaving it to the container to decide when the
+     * response is committed.</p>
+     *
+     * @throws IOException if an error occurs writing
+     */
+    public void writeBuffer() throws IOException {
+
+        encodeChars();
+
+    }
+
+
+    // ------------------------------------------------- Methods from Writer
+
+
+    @Override
+    public void write(int c) throws IOException {
+
+        if (!chars.hasRemaining()) {
+            encodeChars();
+        }
+        chars.put((char) c);
+
+    }
+
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+
+        while (len > 0) {
+            if (!chars.hasRemaining()) {
+                encodeChars();
+            }
+            int n = Math.min(len, chars.remaining());
+            chars.put(cbuf, off, n);
+            off += n;
+            len -= n;
+        }
+
+    }
+
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+
+        while (len > 0) {
+            if (!chars.hasRemaining()) {
+                encodeChars();
+            }
+            int n = Math.min(len, chars.remaining());
+            chars.put(str, off, off + n);
+            off += n;
+            len -= n;
+        }
+
+    }
+
+
+    @Override
+    public void flush() throws IOException {
+
+        encodeChars();
+        out.flush();
+
+    }
+
+
+    @Override
+    public void close() throws IOException {
+
+        encodeChars();
+        out.close();
+
+    }
+
+
+    // ---------------------------------------- Methods from EncodedTextSink
+
+
+    @Override
+    public boolean write(EncodedText text) throws IOException {
+
+        encodeChars();
+        out.write(text.getBytes(charset));
+        return true;
+
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private void encodeChars() throws IOException {
+
+        if (chars.position() == 0) {
+            return;
+        }
+        chars.flip();
+        CoderResult result;
+        do {
+            result = encoder.encode(chars, bytes, false);
+            if (bytes.position() > 0) {
+                out.write(bytes.array(), 0, bytes.position());
+                bytes.clear();
+            }
+        } while (result.isOverflow());
+        // a dangling high surrogate stays in the buffer until its
+        // low surrogate arrives
+        chars.compact();
+
+    }
+
+}
@@ -0,0 +1,294 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.model;
+
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import javax.faces.FacesException;
+import javax.faces.model.DataModel;
+import javax.faces.model.DataModelEvent;
+import javax.faces.model.DataModelListener;
+
+/**
+ * <p>A forward only {@link DataModel} over an {@link Iterable}.  Unlike
+ * {@link javax.faces.model.IterableDataModel}, which copies the wrapped
+ * data into a <code>List</code>, rows are pulled from an
+ * <code>Iterator</code> as the row index advances and only the current
+ * row is retained.  Combined with the
+ * <code>com.sun.faces.tableStreamingRows</code> context parameter this
+ * allows large tables to be rendered in bounded memory, for example:</p>
+ *
+ * <pre>
+ * return CursorDataModel.of(() -&gt; repository.streamAll());
+ * </pre>
+ *
+ * <p>Moving the row index backwards obtains a fresh <code>Iterator</code>
+ * and skips ahead, so every pass over the table (decode, validation,
+ * update and render) iterates the data again.  Iterators that implement
+ * <code>AutoCloseable</code> are closed once they are exhausted, replaced
+ * or the row index is reset to <code>-1</code>, as {@link javax.faces.component.UIData}
+ * does after each pass.  The same applies to the <code>Stream</code>s of
+ * a model created by {@link #of(Supplier)}.  The row count is unknown and reported as
+ * <code>-1</code>.</p>
+ *
+ * @param <E> the row type
+ */
+public class CursorDataModel<E> extends DataModel<E> {
+
+    private Iterable<E> iterable;
+    private Iterator<E> iterator;
+    private E current;
+    private int position = -1;
+    private int index = -1;
+    private boolean exhausted;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    public CursorDataModel() {
+        this(null);
+    }
+
+
+    public CursorDataModel(Iterable<E> iterable) {
+        setWrappedData(iterable);
+    }
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    /**
+     * @param streams supplies a new <code>Stream</code> of the rows for
+     *  every pass over the table
+     * @param <E> the row type
+     * @return a <code>CursorDataModel</code> iterating the supplied
+     *  <code>Stream</code>s, closing each when done with it
+     */
+    public static <E> CursorDataModel<E> of(Supplier<? extends Stream<E>> streams) {
+        return new CursorDataModel<>(() -> new StreamIterator<>(streams.get()));
+    }
+
+
+    // ------------------------------------------------- Methods from DataModel
+
+
+    @Override
+    public boolean isRowAvailable() {
+        return seek();
+    }
+
+
+    /**
+     * @return <code>-1</code>, as the number of rows is not known up front
+     */
+    @Override
+    public int getRowCount() {
+        return -1;
+    }
+
+
+    @Override
+    public E getRowData() {
+        if (iterable == null) {
+            return null;
+        }
+        if (!seek()) {
+            throw new IllegalArgumentException();
+        }
+        return current;
+    }
+
+
+    @Override
+    public int getRowIndex() {
+        return index;
+    }
+
+
+    @Override
+    public void setRowIndex(int rowIndex) {
+
+        if (rowIndex < -1) {
+            throw new IllegalArgumentException();
+        }
+
+        int oldRowIndex = index;
+        index = rowIndex;
+
+        if (iterable == null) {
+            return;
+        }
+        if (rowIndex == -1) {
+            // the pass is over, don't keep the cursor open until the next one
+            reset();
+        }
+
+        DataModelListener[] listeners = getDataModelListeners();
+        if (oldRowIndex != rowIndex && listeners != null) {
+            DataModelEvent event = new DataModelEvent(this,
+                                                      rowIndex,
+                                                      seek() ? current : null);
+            for (DataModelListener listener : listeners) {
+                if (listener != null) {
+                    listener.rowSelected(event);
+                }
+            }
+        }
+
+    }
+
+
+    @Override
+    public Object getWrappedData() {
+        return iterable;
+    }
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void setWrappedData(Object data) {
+
+        reset();
+        if (data == null) {
+            iterable = null;
+            setRowIndex(-1);
+        } else {
+            iterable = (Iterable<E>) data;
+            setRowIndex(0);
+        }
+
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    /*
+     * Positions the cursor on the current row index, starting over if the
+     * index has moved backwards.  Returns false if there is no such row.
+     */
+    private boolean seek() {
+
+        if (iterable == null || index < 0) {
+            return false;
+        }
+        if (iterator == null || index < position) {
+            reset();
+            iterator = iterable.iterator();
+        }
+        while (position < index) {
+            if (exhausted) {
+                return false;
+            }
+            if (!iterator.hasNext()) {
+                exhausted = true;
+                close(iterator);
+                return false;
+            }
+            current = iterator.next();
+            position++;
+        }
+        return true;
+
+    }
+
+
+    private void reset() {
+
+        if (iterator != null && !exhausted) {
+            close(iterator);
+        }
+        iterator = null;
+        current = null;
+        position = -1;
+        exhausted = false;
+
+    }
+
+
+    private static void close(Iterator<?> iterator) {
+
+        if (iterator instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) iterator).close();
+            } catch (Exception e) {
+                throw new FacesException(e);
+            }
+        }
+
+    }
+
+
+    // ----------------------------------------------------------- Inner Classes
+
+
+    private static final class StreamIterator<E> implements Iterator<E>, AutoCloseable {
+
+        private final Stream<E> stream;
+        private final Iterator<E> iterator;
+
+        StreamIterator(Stream<E> stream) {
+            this.stream = stream;
+            iterator = stream.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public E next() {
+            return iterator.next();
+        }
+
+        @Override
+        public void close() {
+            stream.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,301 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.renderkit;
+
+import static com.sun.faces.config.WebConfiguration.WebContextInitParameter.ServerStateSerializationQueueSize;
+import static com.sun.faces.config.WebConfiguration.WebContextInitParameter.ServerStateSerializationThreads;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.faces.FacesException;
+import javax.faces.context.ExternalContext;
+import javax.servlet.ServletContext;
+
+import com.sun.faces.config.WebConfiguration;
+import com.sun.faces.util.FacesLogger;
+import com.sun.faces.util.MojarraThreadFactory;
+
+/**
+ * <p>
+ * Serializes server side state on a bounded pool of background threads, so
+ * that the response does not have to wait for it.  The state is detached
+ * from the component tree by copying its <code>Object[]</code>,
+ * <code>HashMap</code> and <code>ArrayList</code> containers, as components
+ * reuse the arrays returned from <code>saveState</code>.  A
+ * {@link PendingState} is stored in place of the serialized state until the
+ * work is done.
+ * </p>
+ *
+ * <p>
+ * If the queue is full or the pool has been shut down, the state is
+ * serialized on the calling thread.  It is only used with stores that opt
+ * in by way of {@link com.sun.faces.spi.ViewStateStore#acceptsPendingState()}.
+ * </p>
+ */
+public final class AsyncStateSerializer {
+
+    private static final Logger LOGGER = FacesLogger.RENDERKIT.getLogger();
+
+    private static final String SERIALIZER_KEY =
+          AsyncStateSerializer.class.getName();
+
+    private final ThreadPoolExecutor executor;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    AsyncStateSerializer(int threads, int queueSize) {
+
+        executor = new ThreadPoolExecutor(threads,
+                                          threads,
+                                          60,
+                                          TimeUnit.SECONDS,
+                                          new ArrayBlockingQueue<Runnable>(queueSize),
+                                          new MojarraThreadFactory("StateSerializer"));
+        // don't keep idle threads (and with them the application) around
+        executor.allowCoreThreadTimeOut(true);
+
+    }
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    /**
+     * @param extContext the <code>ExternalContext</code> for this application
+     * @return the <code>AsyncStateSerializer</code> of the current
+     *  application, created on first access
+     */
+    static AsyncStateSerializer getInstance(ExternalContext extContext) {
+
+        Map<String, Object> appMap = extContext.getApplicationMap();
+        AsyncStateSerializer serializer =
+              (AsyncStateSerializer) appMap.get(SERIALIZER_KEY);
+        if (serializer == null) {
+            synchronized (AsyncStateSerializer.class) {
+                serializer = (AsyncStateSerializer) appMap.get(SERIALIZER_KEY);
+                if (serializer == null) {
+                    WebConfiguration webConfig =
+                          WebConfiguration.getInstance(extContext);
+                    serializer = new AsyncStateSerializer(
+                          Math.max(1, ServerSideStateHelper.getIntegerConfigValue(
+                                webConfig, ServerStateSerializationThreads)),
+                          Math.max(1, ServerSideStateHelper.getIntegerConfigValue(
+                                webConfig, ServerStateSerializationQueueSize)));
+                    appMap.put(SERIALIZER_KEY, serializer);
+                }
+            }
+        }
+        return serializer;
+
+    }
+
+
+    /**
+     * <p>Shuts down the <code>AsyncStateSerializer</code> of the application,
+     * if any.  Pending work will still be completed.</p>
+     * @param context the <code>ServletContext</code> of the application
+     */
+    public static void shutdown(ServletContext context) {
+
+        Object serializer = context.getAttribute(SERIALIZER_KEY);
+        if (serializer instanceof AsyncStateSerializer) {
+            ((AsyncStateSerializer) serializer).executor.shutdown();
+            context.removeAttribute(SERIALIZER_KEY);
+        }
+
+    }
+
+
+    /**
+     * @param state the state returned from <code>UIViewRoot.processSaveState</code>
+     * @param serializer performs the serialization of the detached state
+     * @return a <code>PendingState</code> to store in place of the serialized
+     *  state
+     */
+    PendingState submit(Object state, final Serializer serializer) {
+
+        final Object detached = detach(state);
+        FutureTask<Object> task = new FutureTask<>(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                try {
+                    return serializer.serialize(detached);
+                } catch (Exception e) {
+                    // otherwise this would only surface once the state is restored
+                    if (LOGGER.isLoggable(Level.WARNING)) {
+                        LOGGER.log(Level.WARNING, "Unable to serialize state", e);
+                    }
+                    throw e;
+                }
+            }
+        });
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException ree) {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Unable to serialize state asynchronously, serializing on the request thread");
+            }
+            task.run();
+        }
+        return new PendingState(task);
+
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private static Object detach(Object state) {
+
+        if (state instanceof Object[]) {
+            Object[] array = ((Object[]) state).clone();
+            for (int i = 0; i < array.length; i++) {
+                array[i] = detach(array[i]);
+            }
+            return array;
+        }
+        if (state instanceof HashMap) {
+            Map<?, ?> map = (Map<?, ?>) state;
+            Map<Object, Object> copy = new HashMap<>(Math.max(4, (int) (map.size() / .75f) + 1));
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                copy.put(entry.getKey(), detach(entry.getValue()));
+            }
+            return copy;
+        }
+        if (state instanceof ArrayList) {
+            List<?> list = (List<?>) state;
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object element : list) {
+                copy.add(detach(element));
+            }
+            return copy;
+        }
+        return state;
+
+    }
+
+
+    // ----------------------------------------------------------- Inner Classes
+
+
+    /**
+     * Performs the actual serialization.
+     */
+    interface Serializer {
+
+        Object serialize(Object state) throws Exception;
+
+    }
+
+
+    /**
+     * <p>
+     * Stands in for serialized state which may not be available yet.  If it
+     * is itself serialized, e.g. for session replication, it is replaced by
+     * the serialized state once that is available.
+     * </p>
+     */
+    static final class PendingState implements Serializable {
+
+        private static final long serialVersionUID = 5513837006432541498L;
+
+        private final transient Future<Object> future;
+
+
+        PendingState(Future<Object> future) {
+
+            this.future = future;
+
+        }
+
+
+        /**
+         * @return the serialized state, waiting for it if necessary
+         */
+        Object get() {
+
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        return future.get();
+                    } catch (InterruptedException ie) {
+                        // the state is needed either way, finish waiting
+                        interrupted = true;
+                    }
+                }
+            } catch (ExecutionException ee) {
+                throw new FacesException(ee.getCause());
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+        }
+
+
+        private Object writeReplace() throws ObjectStreamException {
+
+            return get();
+
+        }
+
+    }
+
+}
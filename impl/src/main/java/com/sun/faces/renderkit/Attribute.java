@@ -40,6 +40,10 @@
 
 package com.sun.faces.renderkit;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * <p class="changed_added_2_0"></p>
  * @author asmirnov@exadel.com
@@ -51,6 +55,12 @@ public class Attribute implements Comparable<Attribute> {
 	
 	private final String[] events;
 
+	private AttributeToken token;
+
+	private int ordinal = -1;
+
+	private Map<String, Attribute> index;
+
 	/**
 	 * <p class="changed_added_2_0"></p>
 	 * @param name
@@ -69,6 +79,28 @@ public class Attribute implements Comparable<Attribute> {
 		return new Attribute(name,events);
 	}
 
+	/**
+	 * <p>Assign each attribute its position within <code>attributes</code>
+	 * and share a name lookup between them, so that
+	 * {@link RenderKitUtils#renderPassThruAttributes} can track the set
+	 * attributes as a bitset of ordinals.  Used by the generated
+	 * <code>AttributeManager</code>; each instance may only belong to one
+	 * indexed array.</p>
+	 * @param attributes the pass through attributes of a component
+	 * @return <code>attributes</code>
+	 */
+	public static Attribute[] indexed(Attribute... attributes) {
+		Map<String, Attribute> index = new HashMap<>(attributes.length * 2);
+		Map<String, Attribute> shared = Collections.unmodifiableMap(index);
+		for (int i = 0; i < attributes.length; i++) {
+			Attribute attribute = attributes[i];
+			attribute.ordinal = i;
+			attribute.index = shared;
+			index.put(attribute.getName(), attribute);
+		}
+		return attributes;
+	}
+
 	/**
 	 * <p class="changed_added_2_0"></p>
 	 * @return the name
@@ -85,6 +117,34 @@ public class Attribute implements Comparable<Attribute> {
 		return events;
 	}
 
+	/**
+	 * <p>The interned token for this attribute name.  Resolved lazily,
+	 * since most instances only serve as binary search keys.</p>
+	 * @return the token
+	 */
+	public AttributeToken getToken() {
+		AttributeToken result = token;
+		if (result == null) {
+			result = token = AttributeToken.valueOf(name);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the position within the indexed array, or <code>-1</code>
+	 */
+	public int getOrdinal() {
+		return ordinal;
+	}
+
+	/**
+	 * @return the attributes of the indexed array keyed by name, or
+	 *  <code>null</code> if this attribute has not been indexed
+	 */
+	public Map<String, Attribute> getIndex() {
+		return index;
+	}
+
         @Override
 	public int compareTo(Attribute o) {
 		// Compare attributes by name for a fast search in the RenderKitUtils methods.
@@ -0,0 +1,138 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.renderkit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>An interned HTML attribute name together with its pre-encoded
+ * <code> name="</code> prefix.  Renderers that write the same attribute
+ * names over and over can hand one of these to
+ * {@link RenderKitUtils#writeAttribute(javax.faces.context.ResponseWriter, AttributeToken, Object, String)}
+ * so that the Mojarra <code>ResponseWriter</code> can copy the prefix
+ * in a single call instead of assembling it for every attribute.</p>
+ *
+ * <p>Tokens are shared and immutable.  Only attribute names from a fixed
+ * vocabulary (renderer constants or the pass through attribute tables)
+ * should be interned through {@link #valueOf(String)}.</p>
+ */
+public final class AttributeToken {
+
+    private static final ConcurrentMap<String, AttributeToken> TOKENS =
+          new ConcurrentHashMap<>();
+
+    public static final AttributeToken ID = valueOf("id");
+    public static final AttributeToken NAME = valueOf("name");
+    public static final AttributeToken TYPE = valueOf("type");
+    public static final AttributeToken VALUE = valueOf("value");
+    public static final AttributeToken CLASS = valueOf("class");
+    public static final AttributeToken STYLE = valueOf("style");
+
+    private final String name;
+    private final char[] prefix;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    private AttributeToken(String name) {
+
+        this.name = name;
+        this.prefix = (' ' + name + "=\"").toCharArray();
+
+    }
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    /**
+     * @param name the attribute name
+     * @return the shared token for <code>name</code>
+     * @throws NullPointerException if <code>name</code> is <code>null</code>
+     */
+    public static AttributeToken valueOf(String name) {
+
+        AttributeToken token = TOKENS.get(name);
+        if (token == null) {
+            AttributeToken newToken = new AttributeToken(name);
+            token = TOKENS.putIfAbsent(name, newToken);
+            if (token == null) {
+                token = newToken;
+            }
+        }
+        return token;
+
+    }
+
+
+    /**
+     * @return the attribute name
+     */
+    public String getName() {
+
+        return name;
+
+    }
+
+
+    /**
+     * <p>The characters <code> name="</code>.  The returned array is shared
+     * and must not be modified.</p>
+     *
+     * @return the pre-encoded attribute prefix
+     */
+    public char[] getPrefix() {
+
+        return prefix;
+
+    }
+
+
+    @Override
+    public String toString() {
+
+        return name;
+
+    }
+
+}
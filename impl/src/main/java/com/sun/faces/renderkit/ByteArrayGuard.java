@@ -44,11 +44,13 @@ import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
 import javax.crypto.Mac;
 import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 import javax.faces.FacesException;
 import javax.faces.context.FacesContext;
 
 import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -62,6 +64,7 @@ import java.security.NoSuchAlgorithmException;
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.SecretKeySpec;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
@@ -73,7 +76,15 @@ import javax.xml.bind.DatatypeConverter;
  * decryption <code>Ciphers</code> to <code>ResponseStateManager</code>
  * implementations wishing to provide encryption support.</p>
  * 
- * <p>The algorithm used to encrypt byte array is AES with CBC.</p>
+ * <p>The algorithm used to encrypt byte array is AES with CBC, authenticated
+ * with HMAC-SHA256.  Alternatively AES with GCM may be used, which encrypts
+ * and authenticates in a single pass using the same key.</p>
+ *
+ * <p><code>Cipher</code> and <code>Mac</code> instances are confined to the
+ * thread using them and reused by subsequent requests handled by the same
+ * thread, avoiding the provider lookup of <code>getInstance</code> on every
+ * request.  Only JDK classes are kept in thread locals so the application
+ * class loader will not be pinned.</p>
  *  
  * <p>Original author Inderjeet Singh, J2EE Blue Prints Team. Modified to suit JSF
  * needs.</p> 
@@ -92,12 +103,36 @@ public final class ByteArrayGuard {
     private static final String CIPHER_CODE = "AES/CBC/PKCS5Padding";
     private static final String MAC_CODE = "HmacSHA256";
     private static final String SK_SESSION_KEY = RIConstants.FACES_PREFIX + "SK"; 
+
+    private static final int GCM_IV_LENGTH = 12;
+    private static final int GCM_TAG_LENGTH = 16;
+    private static final String GCM_CIPHER_CODE = "AES/GCM/NoPadding";
+
+    private static final ThreadLocal<Cipher> CBC_CIPHER = new ThreadLocal<>();
+    private static final ThreadLocal<Cipher> GCM_CIPHER = new ThreadLocal<>();
+    private static final ThreadLocal<Mac> MAC = new ThreadLocal<>();
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     private SecretKey sk;
+    private final boolean gcm;
 
     // ------------------------------------------------------------ Constructors
 
     public ByteArrayGuard() {
 
+        this(false);
+
+    }
+
+    /**
+     * @param gcm <code>true</code> if AES with GCM should be used instead
+     *  of AES with CBC and HMAC-SHA256.  The two modes produce different
+     *  layouts, so data encrypted in one mode cannot be decrypted in the other.
+     */
+    public ByteArrayGuard(boolean gcm) {
+
+        this.gcm = gcm;
+
         try {
             setupKeyAndMac();
         } catch (Exception e) {
@@ -113,6 +148,25 @@ public final class ByteArrayGuard {
 
     // ---------------------------------------------------------- Public Methods    
 
+    /**
+     * @return the number of bytes preceding the encrypted data, which
+     *  is where the MAC and the initialization vector will be stored
+     *  (only the initialization vector when using GCM)
+     */
+    public int getHeaderLength() {
+        return (gcm ? GCM_IV_LENGTH : MAC_LENGTH + IV_LENGTH);
+    }
+
+
+    /**
+     * @return the maximum number of bytes by which the encrypted data may
+     *  exceed the plain data due to padding or the authentication tag
+     */
+    public int getMaxPaddingLength() {
+        return (gcm ? GCM_TAG_LENGTH : IV_LENGTH);
+    }
+
+
     /**
      * This method:
      *    Encrypts bytes using a cipher.  
@@ -124,34 +178,66 @@ public final class ByteArrayGuard {
      * @return the encrypted byte array.
      */
     public byte[] encrypt(FacesContext facesContext, byte[] bytes) {
-        byte[] securedata = null;
+        int headerLength = getHeaderLength();
+        byte[] buf = new byte[headerLength + bytes.length + getMaxPaddingLength()];
+        System.arraycopy(bytes, 0, buf, headerLength, bytes.length);
+        int length = encrypt(facesContext, buf, bytes.length);
+        return ((length != -1) ? Arrays.copyOf(buf, length) : null);
+    }
+
+
+    /**
+     * Encrypts <code>length</code> bytes stored in <code>buf</code> at
+     * offset {@link #getHeaderLength()} in place and stores the MAC and
+     * the initialization vector in front of the encrypted data, resulting
+     * in the same layout as {@link #encrypt(FacesContext, byte[])}.
+     * <code>buf</code> must provide room for {@link #getMaxPaddingLength()}
+     * additional bytes.
+     * @param buf the buffer holding the plain data
+     * @param length the number of bytes to encrypt
+     * @return the number of bytes of secured data starting at offset
+     *  <code>0</code>, or <code>-1</code> if encryption failed
+     */
+    public int encrypt(FacesContext facesContext, byte[] buf, int length) {
         try {
+            SecretKey secKey = getSecretKey(facesContext);
+            int headerLength = getHeaderLength();
+            if (gcm) {
+                // |IV|encrypted data and tag|
+                byte[] iv = new byte[GCM_IV_LENGTH];
+                RANDOM.nextBytes(iv);
+                System.arraycopy(iv, 0, buf, 0, GCM_IV_LENGTH);
+                Cipher encryptCipher = getCipher(GCM_CIPHER, GCM_CIPHER_CODE);
+                encryptCipher.init(Cipher.ENCRYPT_MODE, secKey,
+                                   new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv));
+                return headerLength
+                       + encryptCipher.doFinal(buf, headerLength, length, buf, headerLength);
+            }
+
             // Generate IV
-            SecureRandom rand = new SecureRandom();
-            byte[] iv = new byte[16];
-            rand.nextBytes(iv);
+            byte[] iv = new byte[IV_LENGTH];
+            RANDOM.nextBytes(iv);
+            System.arraycopy(iv, 0, buf, MAC_LENGTH, IV_LENGTH);
             IvParameterSpec ivspec = new IvParameterSpec(iv);
-            Cipher encryptCipher = Cipher.getInstance(CIPHER_CODE);
-            SecretKey secKey = getSecretKey(facesContext);
+            Cipher encryptCipher = getCipher(CBC_CIPHER, CIPHER_CODE);
             encryptCipher.init(Cipher.ENCRYPT_MODE, secKey, ivspec);
-            Mac encryptMac = Mac.getInstance(MAC_CODE);
+            Mac encryptMac = getMac();
             encryptMac.init(secKey);
-            encryptMac.update(iv);
-            // encrypt the plaintext
-            byte[] encdata = encryptCipher.doFinal(bytes);
-            byte[] macBytes = encryptMac.doFinal(encdata);
-            byte[] tmp = concatBytes(macBytes, iv);
-            securedata = concatBytes(tmp, encdata);
-        } catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException | InvalidAlgorithmParameterException | IllegalStateException | IllegalBlockSizeException | BadPaddingException e) {
+            // encrypt the plaintext in place
+            int encLength = encryptCipher.doFinal(buf, headerLength, length, buf, headerLength);
+            // the IV is followed by the encrypted data, so one pass covers both
+            encryptMac.update(buf, MAC_LENGTH, IV_LENGTH + encLength);
+            encryptMac.doFinal(buf, 0);
+            return headerLength + encLength;
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException | InvalidAlgorithmParameterException | IllegalStateException | IllegalBlockSizeException | BadPaddingException | ShortBufferException e) {
             if (LOGGER.isLoggable(Level.SEVERE)) {
                 LOGGER.log(Level.SEVERE,
                            "Unexpected exception initializing encryption."
                            + "  No encryption will be performed.",
                            e);
             }
-            return null;
+            return -1;
         }
-        return securedata;
     }
 
 
@@ -163,48 +249,80 @@ public final class ByteArrayGuard {
      * @return Decrypted byte array.
      */
     public byte[] decrypt(FacesContext facesContext, byte[] bytes) {
-        try {
-            // Extract MAC
-            byte[] macBytes = new byte[MAC_LENGTH];
-            System.arraycopy(bytes, 0, macBytes, 0, macBytes.length);
-
-            // Extract IV
-            byte[] iv = new byte[IV_LENGTH];
-            System.arraycopy(bytes, macBytes.length, iv, 0, iv.length);
+        byte[] buf = bytes.clone();
+        int length = decrypt(facesContext, buf, buf.length);
+        if (length == -1) {
+            return null;
+        }
+        int headerLength = getHeaderLength();
+        return Arrays.copyOfRange(buf, headerLength, headerLength + length);
+    }
 
-            // Extract encrypted data
-            byte[] encdata = new byte[bytes.length - macBytes.length - iv.length];
-            System.arraycopy(bytes, macBytes.length + iv.length, encdata, 0, encdata.length);
 
-            IvParameterSpec ivspec = new IvParameterSpec(iv);
+    /**
+     * Decrypts the first <code>length</code> bytes of <code>buf</code>, laid
+     * out as produced by {@link #encrypt(FacesContext, byte[], int)}, in
+     * place.  The decryption is only performed if the regenerated MAC
+     * is the same as the MAC for the received value.
+     * @param buf the buffer holding the secured data
+     * @param length the number of bytes of secured data
+     * @return the number of decrypted bytes, stored at offset
+     *  {@link #getHeaderLength()}, or <code>-1</code> if the data could
+     *  not be verified or decrypted
+     */
+    public int decrypt(FacesContext facesContext, byte[] buf, int length) {
+        int headerLength = getHeaderLength();
+        if (length < headerLength + (gcm ? GCM_TAG_LENGTH : 0)) {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE,
+                           "Secured data of length {0} is too short to be verified.",
+                           length);
+            }
+            return -1;
+        }
+        try {
             SecretKey secKey =  getSecretKey(facesContext);
-            Cipher decryptCipher = Cipher.getInstance(CIPHER_CODE);
+            if (gcm) {
+                // the tag is verified before any decrypted data is released
+                Cipher decryptCipher = getCipher(GCM_CIPHER, GCM_CIPHER_CODE);
+                decryptCipher.init(Cipher.DECRYPT_MODE, secKey,
+                                   new GCMParameterSpec(GCM_TAG_LENGTH * 8, buf, 0, GCM_IV_LENGTH));
+                return decryptCipher.doFinal(buf, headerLength, length - headerLength, buf, headerLength);
+            }
+
+            IvParameterSpec ivspec = new IvParameterSpec(buf, MAC_LENGTH, IV_LENGTH);
+            Cipher decryptCipher = getCipher(CBC_CIPHER, CIPHER_CODE);
             decryptCipher.init(Cipher.DECRYPT_MODE, secKey, ivspec);
 
             // verify MAC by regenerating it and comparing it with the received value
-            Mac decryptMac = Mac.getInstance(MAC_CODE);
+            Mac decryptMac = getMac();
             decryptMac.init(secKey);
-            decryptMac.update(iv);
-            decryptMac.update(encdata);
+            decryptMac.update(buf, MAC_LENGTH, length - MAC_LENGTH);
             byte[] macBytesCalculated = decryptMac.doFinal();
-            if (areArrayEqualsConstantTime(macBytes, macBytesCalculated)) {
+            if (areArrayEqualsConstantTime(buf, macBytesCalculated)) {
                 // continue only if the MAC was valid
-                // System.out.println("Valid MAC found!");
-                byte[] plaindata = decryptCipher.doFinal(encdata);
-                return plaindata;
+                return decryptCipher.doFinal(buf, headerLength, length - headerLength, buf, headerLength);
             } else {
-                System.err.println("ERROR: MAC did not verify!");
-                return null;
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.fine("MAC did not verify, the secured data will not be decrypted.");
+                }
+                return -1;
+            }
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException | InvalidAlgorithmParameterException | IllegalStateException | IllegalBlockSizeException | BadPaddingException | ShortBufferException e) {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE, "Unable to decrypt the secured data.", e);
             }
-        } catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException | InvalidAlgorithmParameterException | IllegalStateException | IllegalBlockSizeException | BadPaddingException e) {
-            System.err.println("ERROR: Decrypting:"+e.getCause());
-            return null; // Signal to JSF runtime
+            return -1; // Signal to JSF runtime
         }
     }
 
+    /**
+     * Compares the leading <code>array2.length</code> bytes of
+     * <code>array1</code> with <code>array2</code>.
+     */
     private boolean areArrayEqualsConstantTime(byte[] array1, byte[] array2) {
         boolean result = true;
-        for(int i=0; i<array1.length; i++) {
+        for(int i=0; i<array2.length; i++) {
             if (array1[i] != array2[i]) {
                 result = false;
             }
@@ -249,23 +367,25 @@ public final class ByteArrayGuard {
         }
     }
 
-    /**
-     * This method concatenates two byte arrays
-     * @return a byte array of array1||array2
-     * @param array1 first byte array to be concatenated
-     * @param array2 second byte array to be concatenated
-     */
-    private static byte[] concatBytes(byte[] array1, byte[] array2) {
-        byte[] cBytes = new byte[array1.length + array2.length];
-        try {
-            System.arraycopy(array1, 0, cBytes, 0, array1.length);
-            System.arraycopy(array2, 0, cBytes, array1.length, array2.length);
-        } catch(Exception e) {
-            throw new FacesException(e);
+    private static Cipher getCipher(ThreadLocal<Cipher> cache, String transformation)
+    throws NoSuchAlgorithmException, NoSuchPaddingException {
+        Cipher cipher = cache.get();
+        if (cipher == null) {
+            cipher = Cipher.getInstance(transformation);
+            cache.set(cipher);
         }
-        return cBytes;
-    }  
-    
+        return cipher;
+    }
+
+    private static Mac getMac() throws NoSuchAlgorithmException {
+        Mac mac = MAC.get();
+        if (mac == null) {
+            mac = Mac.getInstance(MAC_CODE);
+            MAC.set(mac);
+        }
+        return mac;
+    }
+
     private SecretKey getSecretKey(FacesContext facesContext) {
 
         SecretKey result = sk;
@@ -42,12 +42,12 @@ package com.sun.faces.renderkit;
 
 import static com.sun.faces.config.WebConfiguration.BooleanWebContextInitParameter.AutoCompleteOffOnViewState;
 import static com.sun.faces.config.WebConfiguration.BooleanWebContextInitParameter.EnableViewStateIdRendering;
+import static com.sun.faces.config.WebConfiguration.WebContextInitParameter.ClientStateEncryptionMode;
 import static com.sun.faces.config.WebConfiguration.WebContextInitParameter.ClientStateTimeout;
 import static com.sun.faces.config.WebConfiguration.WebContextInitParameter.ClientStateWriteBufferSize;
 import static com.sun.faces.renderkit.RenderKitUtils.PredefinedPostbackParameter.VIEW_STATE_PARAM;
 
 import java.io.BufferedOutputStream;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -59,20 +59,16 @@ import java.io.Writer;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 import javax.faces.FacesException;
 import javax.faces.context.FacesContext;
 import javax.faces.context.ResponseWriter;
 
-import com.sun.faces.RIConstants;
 import com.sun.faces.config.WebConfiguration.BooleanWebContextInitParameter;
 import com.sun.faces.util.DebugObjectOutputStream;
 import com.sun.faces.util.DebugUtil;
 import com.sun.faces.util.FacesLogger;
 import com.sun.faces.util.Util;
-import java.util.Base64;
 
 /**
  * <p>
@@ -219,7 +215,8 @@ public class ClientSideStateHelper extends StateHelper {
             return null;
         }
 
-        if ("stateless".equals(stateString)) {
+        if ("stateless".equals(stateString)
+              || StatelessViewToken.isValidToken(ctx, stateString, viewId)) {
             return "stateless";
         }
 
@@ -239,29 +236,30 @@ public class ClientSideStateHelper extends StateHelper {
      */
     protected Object doGetState(FacesContext ctx, String stateString) {
 
-        if ("stateless".equals(stateString)) {
+        // a token that did not verify carries no state either
+        if ("stateless".equals(stateString) || StatelessViewToken.isToken(stateString)) {
             return null;
         }
 
         ObjectInputStream ois = null;
-        InputStream bis = null;
+        StateBuffer buffer = StateBuffer.acquire(csBuffSize);
         try {
-            if (guard != null) {
-                byte[] bytes = stateString.getBytes(RIConstants.CHAR_ENCODING);
-                byte[] decodedBytes = Base64.getDecoder().decode(bytes);
-
-                bytes = guard.decrypt(ctx, decodedBytes);
-                if (bytes == null) return null;
-                bis = new ByteArrayInputStream(bytes);
+            InputStream bis;
+            try {
+                buffer.readBase64(stateString);
+            } catch (IllegalArgumentException iae) {
+                throw new FacesException("Unable to decode stateString", iae);
             }
-
-
-            if (null != bis && compressViewState) {
-                bis = new GZIPInputStream(bis);
+            if (guard != null) {
+                int length = guard.decrypt(ctx, buffer.getBuffer(), buffer.size());
+                if (length == -1) return null;
+                bis = buffer.getInputStream(guard.getHeaderLength(), length);
+            } else {
+                bis = buffer.getInputStream(0, buffer.size());
             }
 
-            if (null == bis) {
-                throw new FacesException("Unable to encode stateString");
+            if (compressViewState) {
+                bis = compressionCodec.createDecompressingStream(bis);
             }
 
             ois = serialProvider.createObjectInputStream(bis);
@@ -326,6 +324,7 @@ public class ClientSideStateHelper extends StateHelper {
                     }
                 }
             }
+            buffer.release();
         }
     }
 
@@ -347,13 +346,25 @@ public class ClientSideStateHelper extends StateHelper {
             writer.flush();
             return;
         }
+        String statelessToken = StatelessViewToken.getOfferedToken(facesContext, state);
+        if (statelessToken != null) {
+            writer.write(statelessToken);
+            writer.flush();
+            return;
+        }
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        OutputStream base = null;
+        // The state is serialized, compressed, encrypted and Base64 encoded
+        // within a single buffer retained by the current thread.  When
+        // encryption is enabled, room for the MAC and IV is reserved in
+        // front of the serialized state.
+        StateBuffer buffer = StateBuffer.acquire(csBuffSize);
+        int headerLength = ((guard != null) ? guard.getHeaderLength() : 0);
+        buffer.setSize(headerLength);
+        OutputStream base;
         if (compressViewState) {
-            base = new GZIPOutputStream(baos, csBuffSize);
+            base = compressionCodec.createCompressingStream(buffer);
         } else {
-            base = baos;
+            base = buffer;
         }
 
         ObjectOutputStream oos = null;
@@ -410,22 +421,24 @@ public class ClientSideStateHelper extends StateHelper {
             oos.close();
             oos = null;
 
-            // get bytes for encrypting
-            byte[] bytes = baos.toByteArray();
-
             if (guard != null) {
                 // this will MAC
-                bytes = guard.encrypt(facesContext, bytes);
+                int plainLength = buffer.size() - headerLength;
+                buffer.ensureCapacity(buffer.size() + guard.getMaxPaddingLength());
+                int length = guard.encrypt(facesContext, buffer.getBuffer(), plainLength);
+                if (length == -1) {
+                    throw new FacesException("Unable to encrypt the view state");
+                }
+                buffer.setSize(length);
             }
 
             // Base 64 encode
-            String encodedBytes = new String(Base64.getEncoder().encode(bytes));
-            writer.write(encodedBytes);
+            int written = buffer.writeBase64(writer);
 
             if (LOGGER.isLoggable(Level.FINE)) {
                 LOGGER.log(Level.FINE,
                            "Client State: total number of characters written: {0}",
-                           encodedBytes.length());
+                           written);
             }
         } finally {
             if (oos != null) {
@@ -437,6 +450,7 @@ public class ClientSideStateHelper extends StateHelper {
                     }
                 }
             }
+            buffer.release();
         }
     }
 
@@ -473,7 +487,8 @@ public class ClientSideStateHelper extends StateHelper {
 
         if (webConfig.canProcessJndiEntries() &&
                 !webConfig.isSet(BooleanWebContextInitParameter.DisableClientStateEncryption)) {
-            guard = new ByteArrayGuard();
+            guard = new ByteArrayGuard("gcm".equalsIgnoreCase(
+                  webConfig.getOptionValue(ClientStateEncryptionMode)));
         } else {
             if (LOGGER.isLoggable(Level.FINE)) {
                 LOGGER.log(Level.FINE, "jsf.config.webconfig.enventry.clientencrypt");
@@ -611,7 +626,7 @@ public class ClientSideStateHelper extends StateHelper {
         @Override
         public void write(String str, int off, int len) throws IOException {
 
-            sb.append(str.toCharArray(), off, len);
+            sb.append(str, off, off + len);
 
         }
 
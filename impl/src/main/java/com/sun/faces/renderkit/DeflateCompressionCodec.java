@@ -0,0 +1,265 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.renderkit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import com.sun.faces.spi.CompressionCodec;
+
+/**
+ * <p>
+ * A {@link CompressionCodec} producing raw deflate data without the
+ * header and checksum of the GZIP format, using a configurable compression
+ * level and an optional preset dictionary.
+ * </p>
+ *
+ * <p>
+ * A preset dictionary primes the compressor with byte sequences which are
+ * expected to occur in the data.  View state is dominated by Java
+ * serialization class descriptors and state keys which are the same for
+ * every view, so the {@link #STATE_DICTIONARY} allows these to be encoded
+ * as back references even in small states.  As the dictionary must be
+ * identical when decompressing, changing it invalidates state written
+ * with a previous dictionary.
+ * </p>
+ */
+public class DeflateCompressionCodec implements CompressionCodec {
+
+    private static final int BUFFER_SIZE = 1024;
+
+    /**
+     * <p>A dictionary of the class names and keys commonly found in
+     * serialized view state.  zlib favors matches close to the data, so
+     * the most frequent sequences are placed at the end, which is the
+     * Java serialization form of the types making up nearly every
+     * state.</p>
+     */
+    public static final byte[] STATE_DICTIONARY = createStateDictionary(
+          "javax.faces.component.behavior.AjaxBehavior"
+          + "javax.faces.component.UIViewParameter"
+          + "javax.faces.component.UISelectItems"
+          + "javax.faces.component.UISelectOne"
+          + "javax.faces.component.UISelectMany"
+          + "javax.faces.component.UIData"
+          + "javax.faces.component.UIForm"
+          + "javax.faces.component.UIOutput$PropertyKeys"
+          + "javax.faces.component.UICommand$PropertyKeys"
+          + "javax.faces.component.UIInput$PropertyKeys"
+          + "javax.faces.component.UIComponentBase$PropertyKeys"
+          + "javax.faces.component.UIComponent$PropertyKeysPrivate"
+          + "javax.faces.component.UIComponent$PropertyKeys"
+          + "javax.faces.component.StateHolderSaver"
+          + "javax.faces.component.AttachedObjectListHolder"
+          + "com.sun.faces.facelets.MARK_ID"
+          + "com.sun.faces.application.view.StateHolderSaver"
+          + "javax.faces.convert.NumberConverter"
+          + "javax.faces.convert.DateTimeConverter"
+          + "javax.faces.validator.BeanValidator"
+          + "javax.faces.validator.LengthValidator"
+          + "java.util.concurrent.ConcurrentHashMap"
+          + "java.util.LinkedHashMap"
+          + "java.util.ArrayList"
+          + "java.util.HashMap"
+          + "java.lang.Number"
+          + "java.lang.Integer"
+          + "java.lang.Long"
+          + "java.lang.Enum"
+          + "java.lang.Boolean"
+          + "java.lang.String"
+          + "[Ljava.lang.Object;"
+          + "savedStateLjava/io/Serializable;classNameLjava/lang/String;"
+          + "styleClassstyle"
+          + "immediatedisabledreadonly"
+          + "requiredMessageconverterMessagevalidatorMessagerequired"
+          + "rendererTypepassThroughAttributesbehaviorssystemEventListeners"
+          + "bindingsattributesThatAreSetattributesrendered"
+          + "submittedValuelocalValueSetvalidvalue");
+
+    private final int level;
+    private final byte[] dictionary;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    /**
+     * @param level the compression level, between <code>0</code> and
+     *  <code>9</code>, or <code>-1</code> for the default level
+     * @param dictionary the preset dictionary, may be <code>null</code>
+     */
+    public DeflateCompressionCodec(int level, byte[] dictionary) {
+
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level " + level);
+        }
+        this.level = level;
+        this.dictionary = dictionary;
+
+    }
+
+
+    // ------------------------------------------- Methods from CompressionCodec
+
+
+    @Override
+    public OutputStream createCompressingStream(OutputStream destination)
+    throws IOException {
+
+        Deflater deflater = new Deflater(level, true);
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary);
+        }
+        return new DeflaterOutputStream(destination, deflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    def.end();
+                }
+            }
+        };
+
+    }
+
+
+    @Override
+    public InputStream createDecompressingStream(InputStream source)
+    throws IOException {
+
+        Inflater inflater = new Inflater(true);
+        if (dictionary != null) {
+            inflater.setDictionary(dictionary);
+        }
+        return new RawInflaterInputStream(source, inflater);
+
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private static byte[] createStateDictionary(String names) {
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(2048);
+        byte[] bytes = names.getBytes(StandardCharsets.ISO_8859_1);
+        baos.write(bytes, 0, bytes.length);
+        HashMap<String, Object> map = new HashMap<>();
+        map.put("value", new ArrayList<>());
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            oos.writeObject(new Object[] {
+                  map,
+                  Boolean.TRUE,
+                  Integer.valueOf(0),
+                  Long.valueOf(0)
+            });
+        } catch (IOException ioe) {
+            throw new IllegalStateException(ioe);
+        }
+        return baos.toByteArray();
+
+    }
+
+
+    // ----------------------------------------------------------- Inner Classes
+
+
+    /**
+     * <p>
+     * Raw inflation may require an extra dummy byte after the compressed
+     * data, which is supplied once the source is exhausted.
+     * </p>
+     */
+    private static final class RawInflaterInputStream extends InflaterInputStream {
+
+        private boolean eof;
+
+
+        RawInflaterInputStream(InputStream source, Inflater inflater) {
+
+            super(source, inflater, BUFFER_SIZE);
+
+        }
+
+
+        @Override
+        protected void fill() throws IOException {
+
+            if (eof) {
+                throw new EOFException("Unexpected end of ZLIB input stream");
+            }
+            len = in.read(buf, 0, buf.length);
+            if (len == -1) {
+                buf[0] = 0;
+                len = 1;
+                eof = true;
+            }
+            inf.setInput(buf, 0, len);
+
+        }
+
+
+        @Override
+        public void close() throws IOException {
+
+            try {
+                super.close();
+            } finally {
+                inf.end();
+            }
+
+        }
+
+    }
+
+}
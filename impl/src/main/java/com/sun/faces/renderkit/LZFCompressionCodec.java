@@ -0,0 +1,505 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.renderkit;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DataFormatException;
+
+import com.sun.faces.spi.CompressionCodec;
+
+/**
+ * <p>
+ * A pure Java {@link CompressionCodec} implementing the LZF algorithm.
+ * LZF only finds matches within the last 8 KB of the data and does not
+ * apply any entropy coding, so it compresses less than deflate, but at a
+ * fraction of the CPU cost.
+ * </p>
+ *
+ * <p>
+ * Data is split into blocks of up to 64 KB.  Each block is preceded by
+ * a type byte and its lengths as variable length integers:
+ * </p>
+ * <pre>
+ *     END        := 0x00
+ *     STORED     := 0x01 rawLength bytes[rawLength]
+ *     COMPRESSED := 0x02 rawLength compressedLength bytes[compressedLength]
+ * </pre>
+ */
+public class LZFCompressionCodec implements CompressionCodec {
+
+    private static final int BLOCK_SIZE = 0xFFFF;
+
+    private static final int END = 0;
+    private static final int STORED = 1;
+    private static final int COMPRESSED = 2;
+
+    private static final int HASH_LOG = 14;
+    private static final int HASH_SIZE = 1 << HASH_LOG;
+    private static final int MAX_LITERAL = 1 << 5;
+    private static final int MAX_OFFSET = 1 << 13;
+    private static final int MAX_REFERENCE = (1 << 8) + (1 << 3);
+
+
+    // ------------------------------------------- Methods from CompressionCodec
+
+
+    @Override
+    public OutputStream createCompressingStream(OutputStream destination)
+    throws IOException {
+
+        return new LZFOutputStream(destination);
+
+    }
+
+
+    @Override
+    public InputStream createDecompressingStream(InputStream source)
+    throws IOException {
+
+        return new LZFInputStream(source);
+
+    }
+
+
+    // ------------------------------------------------- Package Private Methods
+
+
+    /**
+     * @param in the data to compress
+     * @param inLength the number of bytes to compress
+     * @param out the target of the compressed data, must be at least
+     *  <code>inLength + inLength / 32 + 2</code> bytes long
+     * @param hashTable scratch space of <code>HASH_SIZE</code> entries,
+     *  the content of which does not need to be cleared between calls
+     * @return the number of bytes written to <code>out</code>
+     */
+    static int compress(byte[] in, int inLength, byte[] out, int[] hashTable) {
+
+        int ip = 0;
+        int op = 1;
+        int literals = 0;
+
+        if (inLength > 2) {
+            int hval = ((in[0] & 0xff) << 8) | (in[1] & 0xff);
+            while (ip < inLength - 2) {
+                hval = (hval << 8) | (in[ip + 2] & 0xff);
+                int slot = ((hval >>> (24 - HASH_LOG)) - hval * 5) & (HASH_SIZE - 1);
+                int ref = hashTable[slot];
+                hashTable[slot] = ip;
+                int off = ip - ref - 1;
+
+                if (off >= 0 && off < MAX_OFFSET
+                      && in[ref] == in[ip]
+                      && in[ref + 1] == in[ip + 1]
+                      && in[ref + 2] == in[ip + 2]) {
+                    int maxLength = Math.min(inLength - ip, MAX_REFERENCE);
+                    int length = 3;
+                    while (length < maxLength && in[ref + length] == in[ip + length]) {
+                        length++;
+                    }
+
+                    // terminate the current literal run
+                    if (literals == 0) {
+                        op--;
+                    } else {
+                        out[op - literals - 1] = (byte) (literals - 1);
+                    }
+
+                    length -= 2;
+                    if (length < 7) {
+                        out[op++] = (byte) ((off >>> 8) + (length << 5));
+                    } else {
+                        out[op++] = (byte) ((off >>> 8) + (7 << 5));
+                        out[op++] = (byte) (length - 7);
+                    }
+                    out[op++] = (byte) off;
+
+                    // start a new literal run
+                    literals = 0;
+                    op++;
+
+                    ip += length + 2;
+                    if (ip >= inLength - 2) {
+                        break;
+                    }
+                    hval = ((in[ip] & 0xff) << 8) | (in[ip + 1] & 0xff);
+                } else {
+                    out[op++] = in[ip++];
+                    if (++literals == MAX_LITERAL) {
+                        out[op - literals - 1] = (byte) (literals - 1);
+                        literals = 0;
+                        op++;
+                    }
+                }
+            }
+        }
+
+        while (ip < inLength) {
+            out[op++] = in[ip++];
+            if (++literals == MAX_LITERAL) {
+                out[op - literals - 1] = (byte) (literals - 1);
+                literals = 0;
+                op++;
+            }
+        }
+
+        if (literals == 0) {
+            op--;
+        } else {
+            out[op - literals - 1] = (byte) (literals - 1);
+        }
+        return op;
+
+    }
+
+
+    /**
+     * @param in the compressed data
+     * @param inLength the number of compressed bytes
+     * @param out the target of the decompressed data
+     * @param outLength the expected number of decompressed bytes
+     * @throws DataFormatException if the compressed data is invalid
+     */
+    static void decompress(byte[] in, int inLength, byte[] out, int outLength)
+    throws DataFormatException {
+
+        int ip = 0;
+        int op = 0;
+        while (ip < inLength) {
+            int ctrl = in[ip++] & 0xff;
+            if (ctrl < MAX_LITERAL) {
+                int length = ctrl + 1;
+                if (ip + length > inLength || op + length > outLength) {
+                    throw new DataFormatException("Invalid literal run");
+                }
+                System.arraycopy(in, ip, out, op, length);
+                ip += length;
+                op += length;
+            } else {
+                int length = ctrl >>> 5;
+                int ref = op - ((ctrl & 0x1f) << 8) - 1;
+                if (length == 7) {
+                    if (ip >= inLength) {
+                        throw new DataFormatException("Truncated reference");
+                    }
+                    length += in[ip++] & 0xff;
+                }
+                if (ip >= inLength) {
+                    throw new DataFormatException("Truncated reference");
+                }
+                ref -= in[ip++] & 0xff;
+                length += 2;
+                if (ref < 0 || op + length > outLength) {
+                    throw new DataFormatException("Invalid reference");
+                }
+                // references may overlap the data being written
+                for (int i = 0; i < length; i++) {
+                    out[op++] = out[ref++];
+                }
+            }
+        }
+        if (op != outLength) {
+            throw new DataFormatException("Invalid block length");
+        }
+
+    }
+
+
+    // ----------------------------------------------------------- Inner Classes
+
+
+    private static final class LZFOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private final byte[] block = new byte[BLOCK_SIZE];
+        private final byte[] compressed = new byte[BLOCK_SIZE + BLOCK_SIZE / 32 + 2];
+        private final int[] hashTable = new int[HASH_SIZE];
+        private int position;
+        private boolean closed;
+
+
+        LZFOutputStream(OutputStream out) {
+
+            this.out = out;
+
+        }
+
+
+        @Override
+        public void write(int b) throws IOException {
+
+            if (position == BLOCK_SIZE) {
+                writeBlock();
+            }
+            block[position++] = (byte) b;
+
+        }
+
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+
+            while (len > 0) {
+                if (position == BLOCK_SIZE) {
+                    writeBlock();
+                }
+                int chunk = Math.min(len, BLOCK_SIZE - position);
+                System.arraycopy(b, off, block, position, chunk);
+                position += chunk;
+                off += chunk;
+                len -= chunk;
+            }
+
+        }
+
+
+        @Override
+        public void flush() throws IOException {
+
+            writeBlock();
+            out.flush();
+
+        }
+
+
+        @Override
+        public void close() throws IOException {
+
+            if (!closed) {
+                closed = true;
+                try {
+                    writeBlock();
+                    out.write(END);
+                } finally {
+                    out.close();
+                }
+            }
+
+        }
+
+
+        private void writeBlock() throws IOException {
+
+            if (position == 0) {
+                return;
+            }
+            int length = compress(block, position, compressed, hashTable);
+            if (length < position) {
+                out.write(COMPRESSED);
+                writeLength(position);
+                writeLength(length);
+                out.write(compressed, 0, length);
+            } else {
+                out.write(STORED);
+                writeLength(position);
+                out.write(block, 0, position);
+            }
+            position = 0;
+
+        }
+
+
+        private void writeLength(int length) throws IOException {
+
+            while ((length & ~0x7f) != 0) {
+                out.write((length & 0x7f) | 0x80);
+                length >>>= 7;
+            }
+            out.write(length);
+
+        }
+
+    }
+
+
+    private static final class LZFInputStream extends InputStream {
+
+        private final InputStream in;
+        private final byte[] block = new byte[BLOCK_SIZE];
+        private byte[] compressed;
+        private int position;
+        private int limit;
+        private boolean eof;
+
+
+        LZFInputStream(InputStream in) {
+
+            this.in = in;
+
+        }
+
+
+        @Override
+        public int read() throws IOException {
+
+            if (position == limit && !readBlock()) {
+                return -1;
+            }
+            return block[position++] & 0xff;
+
+        }
+
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+
+            if (len == 0) {
+                return 0;
+            }
+            if (position == limit && !readBlock()) {
+                return -1;
+            }
+            int chunk = Math.min(len, limit - position);
+            System.arraycopy(block, position, b, off, chunk);
+            position += chunk;
+            return chunk;
+
+        }
+
+
+        @Override
+        public int available() throws IOException {
+
+            return limit - position;
+
+        }
+
+
+        @Override
+        public void close() throws IOException {
+
+            in.close();
+
+        }
+
+
+        private boolean readBlock() throws IOException {
+
+            while (!eof) {
+                int type = in.read();
+                switch (type) {
+                    case END:
+                        eof = true;
+                        break;
+                    case STORED:
+                        limit = readBlockLength();
+                        readFully(block, limit);
+                        position = 0;
+                        break;
+                    case COMPRESSED:
+                        limit = readBlockLength();
+                        int length = readLength();
+                        if (compressed == null || compressed.length < length) {
+                            compressed = new byte[length];
+                        }
+                        readFully(compressed, length);
+                        try {
+                            decompress(compressed, length, block, limit);
+                        } catch (DataFormatException dfe) {
+                            throw new IOException(dfe);
+                        }
+                        position = 0;
+                        break;
+                    case -1:
+                        throw new EOFException("Unexpected end of LZF input stream");
+                    default:
+                        throw new IOException("Invalid LZF block type " + type);
+                }
+                if (limit > position) {
+                    return true;
+                }
+            }
+            return false;
+
+        }
+
+
+        private int readBlockLength() throws IOException {
+
+            int length = readLength();
+            if (length > BLOCK_SIZE) {
+                throw new IOException("Invalid LZF block length " + length);
+            }
+            return length;
+
+        }
+
+
+        private int readLength() throws IOException {
+
+            int length = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = in.read();
+                if (b == -1) {
+                    throw new EOFException("Unexpected end of LZF input stream");
+                }
+                length |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    if (length < 0 || length > BLOCK_SIZE + BLOCK_SIZE / 32 + 2) {
+                        throw new IOException("Invalid LZF block length " + length);
+                    }
+                    return length;
+                }
+            }
+            throw new IOException("Invalid LZF block length");
+
+        }
+
+
+        private void readFully(byte[] b, int length) throws IOException {
+
+            int read = 0;
+            while (read < length) {
+                int n = in.read(b, read, length - read);
+                if (n == -1) {
+                    throw new EOFException("Unexpected end of LZF input stream");
+                }
+                read += n;
+            }
+
+        }
+
+    }
+
+}
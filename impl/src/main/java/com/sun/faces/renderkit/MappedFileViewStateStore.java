@@ -0,0 +1,438 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.renderkit;
+
+import static com.sun.faces.config.WebConfiguration.WebContextInitParameter.MappedViewStateStoreDirectory;
+import static com.sun.faces.config.WebConfiguration.WebContextInitParameter.MappedViewStateStoreSegmentSize;
+import static com.sun.faces.config.WebConfiguration.WebContextInitParameter.MappedViewStateStoreSegments;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.SecureRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.faces.FacesException;
+import javax.faces.context.ExternalContext;
+import javax.faces.context.FacesContext;
+
+import com.sun.faces.config.WebConfiguration;
+import com.sun.faces.spi.SerializationProvider;
+import com.sun.faces.spi.SerializationProviderFactory;
+import com.sun.faces.util.FacesLogger;
+
+/**
+ * <p>
+ * A {@link com.sun.faces.spi.ViewStateStore} that keeps the serialized view state outside of the
+ * heap in a ring of memory-mapped files.  The session only holds a small
+ * index mapping the logical and actual view identifiers to a handle of the
+ * state within the ring, using the same structure as the
+ * {@link SessionViewStateStore}.
+ * </p>
+ *
+ * <p>
+ * State is appended to the current segment.  Once the segment is full, the
+ * next segment of the ring is recycled, which invalidates all state it used
+ * to hold.  The total amount of state kept by the application is therefore
+ * bounded by <code>com.sun.faces.mappedViewStateStoreSegments</code> times
+ * <code>com.sun.faces.mappedViewStateStoreSegmentSize</code>.  Handles of
+ * recycled segments resolve to <code>null</code> which results in a
+ * <code>ViewExpiredException</code> just as if the view had been evicted
+ * from the session.
+ * </p>
+ *
+ * <p>
+ * Each entry is written with a tag that is unique to the entry and kept in
+ * its handle.  The tag combines a random epoch chosen when the store is
+ * created with a sequence number, so a handle that outlives the entry it
+ * was created for, for example in a session that is restored after a
+ * restart, never resolves to the state of another view or session.
+ * </p>
+ *
+ * <p>
+ * As the files are local to the node, this store requires sticky sessions
+ * when used in a cluster.
+ * </p>
+ */
+public class MappedFileViewStateStore extends SessionViewStateStore
+      implements Closeable {
+
+    private static final Logger LOGGER = FacesLogger.RENDERKIT.getLogger();
+
+    /**
+     * The session attribute under which the handle index is stored.
+     */
+    public static final String HANDLE_MAP =
+          MappedFileViewStateStore.class.getName() + ".HandleMap";
+
+    /**
+     * Size of the tag and length prefix of each entry.
+     */
+    private static final int HEADER_SIZE = 12;
+
+    private final int segmentSize;
+    private final Segment[] segments;
+    private final SerializationProvider serialProvider;
+    private final long epoch = new SecureRandom().nextLong();
+
+    /**
+     * The generation of the segment currently being written.  Guarded by
+     * <code>this</code>.
+     */
+    private int generation;
+
+    /**
+     * The number of entries written so far.  Guarded by <code>this</code>.
+     */
+    private long sequence;
+
+    /**
+     * Set once the store has been closed.  Guarded by <code>this</code>.
+     */
+    private boolean closed;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    /**
+     * Construct a new <code>MappedFileViewStateStore</code> instance.
+     */
+    public MappedFileViewStateStore() {
+
+        // states are kept in the files rather than the session, deltas
+        // would keep their base in memory
+        super(false);
+        FacesContext ctx = FacesContext.getCurrentInstance();
+        ExternalContext extContext = ctx.getExternalContext();
+        WebConfiguration webConfig = WebConfiguration.getInstance(extContext);
+        segmentSize =
+              ServerSideStateHelper.getIntegerConfigValue(webConfig, MappedViewStateStoreSegmentSize);
+        int numberOfSegments =
+              ServerSideStateHelper.getIntegerConfigValue(webConfig, MappedViewStateStoreSegments);
+        serialProvider = SerializationProviderFactory.createInstance(extContext);
+
+        File directory = getDirectory(webConfig, extContext);
+        segments = new Segment[Math.max(numberOfSegments, 2)];
+        try {
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = new Segment(directory, segmentSize);
+            }
+        } catch (IOException ioe) {
+            throw new FacesException(ioe);
+        }
+        segments[0].recycle(0);
+
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE,
+                       "Mapped {0} view state segments of {1} bytes in {2}",
+                       new Object[] { segments.length, segmentSize, directory });
+        }
+
+    }
+
+
+    // ------------------------------------------------- Methods from Closeable
+
+
+    /**
+     * <p>Releases the segments and deletes their files.  Called when the
+     * application is undeployed, see
+     * {@link com.sun.faces.spi.ViewStateStoreFactory#shutdown(javax.servlet.ServletContext)}.
+     * State that is looked up afterwards resolves to <code>null</code>.</p>
+     */
+    @Override
+    public synchronized void close() {
+
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Segment segment : segments) {
+            segment.close();
+        }
+
+    }
+
+
+    // ---------------------------------------- Methods from SessionViewStateStore
+
+
+    @Override
+    protected String getAttributeName() {
+
+        return HANDLE_MAP;
+
+    }
+
+
+    @Override
+    protected Object toStoredValue(Object[] state) {
+
+        return write(serialize(state));
+
+    }
+
+
+    @Override
+    protected Object[] fromStoredValue(Object value) {
+
+        byte[] bytes = ((value instanceof Handle) ? read((Handle) value) : null);
+        return ((bytes != null) ? deserialize(bytes) : null);
+
+    }
+
+
+    @Override
+    public boolean acceptsPendingState() {
+
+        // the state is serialized into the segment when stored
+        return false;
+
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private static File getDirectory(WebConfiguration webConfig,
+                                     ExternalContext extContext) {
+
+        String path = webConfig.getOptionValue(MappedViewStateStoreDirectory);
+        File directory;
+        if (path != null && path.length() > 0) {
+            directory = new File(path);
+        } else {
+            directory = (File) extContext.getApplicationMap()
+                  .get("javax.servlet.context.tempdir");
+            if (directory == null) {
+                directory = new File(System.getProperty("java.io.tmpdir"));
+            }
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new FacesException("Unable to create view state directory "
+                                     + directory);
+        }
+        return directory;
+
+    }
+
+
+    private byte[] serialize(Object[] state) {
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
+        try (ObjectOutputStream oos = serialProvider.createObjectOutputStream(baos)) {
+            //noinspection NonSerializableObjectPassedToObjectStream
+            oos.writeObject(state);
+        } catch (IOException ioe) {
+            throw new FacesException(ioe);
+        }
+        return baos.toByteArray();
+
+    }
+
+
+    private Object[] deserialize(byte[] bytes) {
+
+        try (ObjectInputStream ois = serialProvider
+              .createObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Object[]) ois.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new FacesException(e);
+        }
+
+    }
+
+
+    /**
+     * @param bytes the serialized state
+     * @return the handle of the entry the state was written to
+     */
+    synchronized Handle write(byte[] bytes) {
+
+        if (closed) {
+            throw new FacesException("The view state store has been closed");
+        }
+        int length = HEADER_SIZE + bytes.length;
+        if (length > segmentSize) {
+            throw new FacesException("Serialized view state of " + bytes.length
+                                     + " bytes exceeds the segment size of "
+                                     + segmentSize + " bytes");
+        }
+        Segment segment = segments[generation % segments.length];
+        if (segment.position + length > segmentSize) {
+            generation = (generation + 1) & Integer.MAX_VALUE;
+            segment = segments[generation % segments.length];
+            segment.recycle(generation);
+        }
+        int offset = segment.position;
+        long tag = epoch + (++sequence);
+        ByteBuffer buffer = segment.buffer.duplicate();
+        buffer.position(offset);
+        buffer.putLong(tag);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+        segment.position = offset + length;
+        return new Handle(generation, offset, tag);
+
+    }
+
+
+    /**
+     * @param handle a handle returned by {@link #write(byte[])}
+     * @return the serialized state, or <code>null</code> if the entry has
+     *  been recycled or the handle wasn't created by this store
+     */
+    byte[] read(Handle handle) {
+
+        int gen = handle.generation;
+        int offset = handle.offset;
+        if (gen < 0 || offset < 0 || offset > segmentSize - HEADER_SIZE) {
+            return null;
+        }
+        Segment segment = segments[gen % segments.length];
+        MappedByteBuffer mapped = segment.buffer;
+        if (segment.generation != gen || mapped == null) {
+            return null;
+        }
+        ByteBuffer buffer = mapped.duplicate();
+        buffer.position(offset);
+        if (buffer.getLong() != handle.tag) {
+            return null;
+        }
+        int length = buffer.getInt();
+        if (length < 0 || length > segmentSize - offset - HEADER_SIZE) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+
+        // the segment may have been recycled while copying
+        return ((segment.generation == gen) ? bytes : null);
+
+    }
+
+
+    // ----------------------------------------------------------- Inner Classes
+
+
+    /**
+     * <p>
+     * The location of an entry, kept in the session in place of the state.
+     * </p>
+     */
+    static final class Handle implements Serializable {
+
+        private static final long serialVersionUID = -2262326386958424532L;
+
+        private final int generation;
+        private final int offset;
+        private final long tag;
+
+
+        Handle(int generation, int offset, long tag) {
+
+            this.generation = generation;
+            this.offset = offset;
+            this.tag = tag;
+
+        }
+
+    }
+
+
+    private static final class Segment {
+
+        private final File file;
+        private volatile MappedByteBuffer buffer;
+        private volatile int generation = -1;
+        private int position;
+
+
+        Segment(File directory, int size) throws IOException {
+
+            file = File.createTempFile("viewstate", ".seg", directory);
+            file.deleteOnExit();
+            // the mapping stays valid once the channel is closed
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                 FileChannel channel = raf.getChannel()) {
+                raf.setLength(size);
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+
+        }
+
+
+        void close() {
+
+            // invalidate all handles, then drop the mapping so that it is
+            // released once the buffer is collected
+            generation = -1;
+            buffer = null;
+            if (!file.delete() && LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE,
+                           "Unable to delete view state segment {0}, it will be deleted on exit",
+                           file);
+            }
+
+        }
+
+
+        void recycle(int generation) {
+
+            this.generation = generation;
+            position = 0;
+
+        }
+
+    }
+
+}
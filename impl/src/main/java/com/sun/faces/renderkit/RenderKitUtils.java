@@ -95,6 +95,7 @@ import com.sun.faces.RIConstants;
 import com.sun.faces.config.WebConfiguration;
 import com.sun.faces.el.ELUtils;
 import com.sun.faces.facelets.util.DevTools;
+import com.sun.faces.renderkit.html_basic.HtmlResponseWriter;
 import com.sun.faces.util.FacesLogger;
 import com.sun.faces.util.RequestStateManager;
 import com.sun.faces.util.Util;
@@ -575,6 +576,50 @@ public class RenderKitUtils {
     }
 
 
+    private static AttributeToken prefixAttribute(final Attribute attr,
+                                                  boolean isXhtml) {
+        String attrName = attr.getName();
+        String prefixed = prefixAttribute(attrName, isXhtml);
+        return (prefixed == attrName)
+               ? attr.getToken()
+               : AttributeToken.valueOf(prefixed);
+    }
+
+
+    /**
+     * <p>Write an attribute using its pre-encoded {@link AttributeToken}.
+     * The token is only used when <code>writer</code> is Mojarra's own
+     * {@link HtmlResponseWriter}; any other writer, including
+     * <code>ResponseWriterWrapper</code> subclasses, sees a regular
+     * {@link ResponseWriter#writeAttribute(String, Object, String)} call so
+     * that its overrides keep being invoked.</p>
+     *
+     * @param writer the current writer
+     * @param token the attribute name
+     * @param value the attribute value
+     * @param componentPropertyName the component property name, may be
+     *  <code>null</code>
+     * @throws IOException if an error occurs during the write
+     */
+    public static void writeAttribute(ResponseWriter writer,
+                                      AttributeToken token,
+                                      Object value,
+                                      String componentPropertyName)
+    throws IOException {
+
+        if (writer.getClass() == HtmlResponseWriter.class) {
+            ((HtmlResponseWriter) writer).writeAttribute(token,
+                                                         value,
+                                                         componentPropertyName);
+        } else {
+            writer.writeAttribute(token.getName(),
+                                  value,
+                                  componentPropertyName);
+        }
+
+    }
+
+
     /**
      * <p>Renders the attributes from {@link #BOOLEAN_ATTRIBUTES}
      * using <code>XHMTL</code> semantics (i.e., disabled="disabled").</p>
@@ -734,42 +779,45 @@ public class RenderKitUtils {
         String behaviorEventName = getSingleBehaviorEventName(behaviors);
         boolean renderedBehavior = false;
 
-        Collections.sort(setAttributes);
         boolean isXhtml =
               RIConstants.XHTML_CONTENT_TYPE.equals(writer.getContentType());
         Map<String, Object> attrMap = component.getAttributes();
-        for (String name : setAttributes) {
-
-            // Note that this search can be optimized by switching from
-            // an array to a Map<String, Attribute>.  This would change
-            // the search time from O(log n) to O(1).
-            int index = Arrays.binarySearch(knownAttributes, Attribute.attr(name));
-            if (index >= 0) {
-                Object value =
-                      attrMap.get(name);
-                if (value != null && shouldRenderAttribute(value)) {
-
-                    Attribute attr = knownAttributes[index];
-
-                    if (isBehaviorEventAttribute(attr, behaviorEventName)) {
-                        renderHandler(context,
-                                      component,
-                                      null,
-                                      name,
-                                      value,
-                                      behaviorEventName,
-                                      null,
-                                      false,
-                                      false);
-
+        long[] setOrdinals = getSetOrdinals(knownAttributes, setAttributes);
+        if (setOrdinals != null) {
+
+            // Iterate only the set bits, in the order of knownAttributes
+            for (int i = 0; i < setOrdinals.length; i++) {
+                long word = setOrdinals[i];
+                while (word != 0) {
+                    Attribute attr = knownAttributes[(i << 6)
+                                                     + Long.numberOfTrailingZeros(word)];
+                    word &= word - 1;
+                    if (renderPassThruAttribute(context,
+                                                writer,
+                                                component,
+                                                attr,
+                                                attrMap,
+                                                behaviorEventName,
+                                                isXhtml)) {
                         renderedBehavior = true;
-                    } else {
-                        writer.writeAttribute(prefixAttribute(name, isXhtml),
-                                              value,
-                                              name);
                     }
                 }
             }
+        } else {
+            Collections.sort(setAttributes);
+            for (String name : setAttributes) {
+                int index = Arrays.binarySearch(knownAttributes, Attribute.attr(name));
+                if (index >= 0
+                      && renderPassThruAttribute(context,
+                                                 writer,
+                                                 component,
+                                                 knownAttributes[index],
+                                                 attrMap,
+                                                 behaviorEventName,
+                                                 isXhtml)) {
+                    renderedBehavior = true;
+                }
+            }
         }
 
         // We did not render out the behavior as part of our optimized
@@ -833,9 +881,10 @@ public class RenderKitUtils {
             Object value = attrMap.get(attrName);
 
             if (value != null && shouldRenderAttribute(value) && !hasBehavior) {
-                writer.writeAttribute(prefixAttribute(attrName, isXhtml),
-                                      value,
-                                      attrName);
+                writeAttribute(writer,
+                               prefixAttribute(attribute, isXhtml),
+                               value,
+                               attrName);
             } else if (hasBehavior) {
 
                 // If we've got a behavior for this attribute,
@@ -1614,6 +1663,78 @@ public class RenderKitUtils {
         return keys.next();
     }
 
+    // Maps the set attribute names onto a bitset of ordinals within
+    // knownAttributes.  Returns null if knownAttributes was not indexed
+    // by the generated AttributeManager, in which case the caller falls
+    // back to searching the array by name.  Used by
+    // renderPassThruAttributesOptimized.
+    private static long[] getSetOrdinals(Attribute[] knownAttributes,
+                                         List<String> setAttributes) {
+
+        if (knownAttributes.length == 0) {
+            return null;
+        }
+        Map<String, Attribute> index = knownAttributes[0].getIndex();
+        if (index == null) {
+            return null;
+        }
+
+        long[] bits = new long[(knownAttributes.length + 63) >>> 6];
+        for (String name : setAttributes) {
+            Attribute attr = index.get(name);
+            if (attr != null) {
+                int ordinal = attr.getOrdinal();
+                if (ordinal >= knownAttributes.length
+                      || knownAttributes[ordinal] != attr) {
+                    // not the array the index was built for
+                    return null;
+                }
+                bits[ordinal >>> 6] |= 1L << ordinal;
+            }
+        }
+        return bits;
+
+    }
+
+    // Renders a single known attribute that has been set on the component.
+    // Returns true if the attribute was rendered as a behavior handler.
+    // Used by renderPassThruAttributesOptimized.
+    private static boolean renderPassThruAttribute(FacesContext context,
+                                                   ResponseWriter writer,
+                                                   UIComponent component,
+                                                   Attribute attr,
+                                                   Map<String, Object> attrMap,
+                                                   String behaviorEventName,
+                                                   boolean isXhtml)
+    throws IOException {
+
+        String name = attr.getName();
+        Object value = attrMap.get(name);
+        if (value == null || !shouldRenderAttribute(value)) {
+            return false;
+        }
+
+        if (isBehaviorEventAttribute(attr, behaviorEventName)) {
+            renderHandler(context,
+                          component,
+                          null,
+                          name,
+                          value,
+                          behaviorEventName,
+                          null,
+                          false,
+                          false);
+            return true;
+        }
+
+        writeAttribute(writer,
+                       prefixAttribute(attr, isXhtml),
+                       value,
+                       name);
+        return false;
+
+    }
+
     // Tests whether the specified Attribute matches to specified
     // behavior event name.  Used by renderPassThruAttributesOptimized.
     private static boolean isBehaviorEventAttribute(Attribute attr,
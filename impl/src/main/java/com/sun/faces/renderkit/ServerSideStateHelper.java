@@ -44,6 +44,7 @@ import static com.sun.faces.config.WebConfiguration.BooleanWebContextInitParamet
 import static com.sun.faces.config.WebConfiguration.BooleanWebContextInitParameter.EnableViewStateIdRendering;
 import static com.sun.faces.config.WebConfiguration.BooleanWebContextInitParameter.GenerateUniqueServerStateIds;
 import static com.sun.faces.config.WebConfiguration.BooleanWebContextInitParameter.SerializeServerState;
+import static com.sun.faces.config.WebConfiguration.BooleanWebContextInitParameter.SerializeServerStateAsynchronously;
 import static com.sun.faces.config.WebConfiguration.BooleanWebContextInitParameter.SerializeServerStateDeprecated;
 import static com.sun.faces.config.WebConfiguration.WebContextInitParameter.NumberOfLogicalViews;
 import static com.sun.faces.config.WebConfiguration.WebContextInitParameter.NumberOfViews;
@@ -54,14 +55,11 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.util.Collections;
 import java.util.Map;
 import java.security.SecureRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 import javax.faces.FacesException;
 import javax.faces.component.UIViewRoot;
@@ -71,10 +69,10 @@ import javax.faces.context.ResponseWriter;
 
 import com.sun.faces.config.WebConfiguration;
 import com.sun.faces.config.WebConfiguration.WebContextInitParameter;
+import com.sun.faces.spi.ViewStateStore;
+import com.sun.faces.spi.ViewStateStoreFactory;
 import com.sun.faces.util.FacesLogger;
-import com.sun.faces.util.LRUMap;
 import com.sun.faces.util.RequestStateManager;
-import com.sun.faces.util.TypedCollections;
 import com.sun.faces.util.Util;
 
 /**
@@ -125,6 +123,26 @@ public class ServerSideStateHelper extends StateHelper {
     protected final SecureRandom random;
 
 
+    /**
+     * The store holding the state of the views.
+     */
+    protected final ViewStateStore store;
+
+
+    /**
+     * Serializes state in the background, if enabled and the store keeps
+     * the state as passed in.
+     */
+    protected final AsyncStateSerializer asyncSerializer;
+
+
+    /**
+     * Whether or not the store serializes the component state on its own,
+     * which a delta encoding {@link SessionViewStateStore} does.
+     */
+    private final boolean storeSerializesState;
+
+
     // ------------------------------------------------------------ Constructors
 
 
@@ -148,6 +166,22 @@ public class ServerSideStateHelper extends StateHelper {
         } else {
             random = null;
         }
+        ExternalContext extContext = FacesContext.getCurrentInstance().getExternalContext();
+        store = ViewStateStoreFactory.getInstance(extContext);
+        // a delta encoding store serializes the state on its own, after
+        // computing the delta
+        storeSerializesState = (store instanceof SessionViewStateStore
+                                && ((SessionViewStateStore) store).deltaEncoding);
+        if (storeSerializesState) {
+            ((SessionViewStateStore) store).setStateHelper(this);
+        }
+        if ((webConfig.isOptionEnabled(SerializeServerStateDeprecated) || webConfig.isOptionEnabled(SerializeServerState))
+              && webConfig.isOptionEnabled(SerializeServerStateAsynchronously)
+              && store.acceptsPendingState()) {
+            asyncSerializer = AsyncStateSerializer.getInstance(extContext);
+        } else {
+            asyncSerializer = null;
+        }
 
     }
 
@@ -181,68 +215,57 @@ public class ServerSideStateHelper extends StateHelper {
         String id;
         
         UIViewRoot viewRoot = ctx.getViewRoot();
+        String statelessToken = ((!viewRoot.isTransient())
+                                 ? StatelessViewToken.getOfferedToken(ctx, state)
+                                 : null);
 
-        if (!viewRoot.isTransient()) {
+        if (statelessToken != null) {
+            id = statelessToken;
+        } else if (!viewRoot.isTransient()) {
             if (!ctx.getAttributes().containsKey("com.sun.faces.ViewStateValue")) {
                 Util.notNull("state", state);
                 Object[] stateToWrite = (Object[]) state;
-                ExternalContext externalContext = ctx.getExternalContext();
-                Object sessionObj = externalContext.getSession(true);
-                Map<String, Object> sessionMap = externalContext.getSessionMap();
-
-                //noinspection SynchronizationOnLocalVariableOrMethodParameter
-                synchronized (sessionObj) {
-                    Map<String, Map> logicalMap = TypedCollections.dynamicallyCastMap(
-                          (Map) sessionMap
-                                .get(LOGICAL_VIEW_MAP), String.class, Map.class);
-                    if (logicalMap == null) {
-                        logicalMap = Collections.synchronizedMap(new LRUMap<String, Map>(numberOfLogicalViews));
-                        sessionMap.put(LOGICAL_VIEW_MAP, logicalMap);
-                    }
-
-                    Object structure = stateToWrite[0];
-                    Object savedState = handleSaveState(stateToWrite[1]);
 
-                    String idInLogicalMap = (String)
-                              RequestStateManager.get(ctx, RequestStateManager.LOGICAL_VIEW_MAP);
-                    if (idInLogicalMap == null) {
-                        idInLogicalMap = ((generateUniqueStateIds)
-                                              ? createRandomId()
-                                              : createIncrementalRequestId(ctx));
-                    }
-                    String idInActualMap = null;
-                    if(ctx.getPartialViewContext().isPartialRequest()){
-                        // If partial request, do not change actual view Id, because page not actually changed.
-                        // Otherwise partial requests will soon overflow cache with values that would be never used.
-                        idInActualMap = (String) RequestStateManager.get(ctx, RequestStateManager.ACTUAL_VIEW_MAP);
-                    }
-                    if (null == idInActualMap) {
-                            idInActualMap = ((generateUniqueStateIds) ? createRandomId()
-                                                        : createIncrementalRequestId(ctx));
-                    }
-                    Map<String, Object[]> actualMap =
-                          TypedCollections.dynamicallyCastMap(
-                                logicalMap.get(idInLogicalMap), String.class, Object[].class);
-                    if (actualMap == null) {
-                        actualMap = new LRUMap<>(numberOfViews);
-                        logicalMap.put(idInLogicalMap, actualMap);
-                    }
+                // serialization and compression happen before the store is
+                // involved so concurrent requests of the same session do not
+                // have to wait for each other
+                Object structure = stateToWrite[0];
+                Object savedState;
+                if (storeSerializesState) {
+                    savedState = stateToWrite[1];
+                } else if (asyncSerializer != null) {
+                    savedState = asyncSerializer.submit(stateToWrite[1], new AsyncStateSerializer.Serializer() {
+                        @Override
+                        public Object serialize(Object state) {
+                            return handleSaveState(state);
+                        }
+                    });
+                } else {
+                    savedState = handleSaveState(stateToWrite[1]);
+                }
 
-                    id = idInLogicalMap + ':' + idInActualMap;
+                String idInLogicalMap = (String)
+                          RequestStateManager.get(ctx, RequestStateManager.LOGICAL_VIEW_MAP);
+                if (idInLogicalMap == null) {
+                    idInLogicalMap = ((generateUniqueStateIds)
+                                          ? createRandomId()
+                                          : createIncrementalRequestId(ctx));
+                }
+                String idInActualMap = null;
+                if(ctx.getPartialViewContext().isPartialRequest()){
+                    // If partial request, do not change actual view Id, because page not actually changed.
+                    // Otherwise partial requests will soon overflow cache with values that would be never used.
+                    idInActualMap = (String) RequestStateManager.get(ctx, RequestStateManager.ACTUAL_VIEW_MAP);
+                }
+                if (null == idInActualMap) {
+                        idInActualMap = ((generateUniqueStateIds) ? createRandomId()
+                                                    : createIncrementalRequestId(ctx));
+                }
 
-                    Object[] stateArray = actualMap.get(idInActualMap);
-                    // reuse the array if possible
-                    if (stateArray != null) {
-                        stateArray[0] = structure;
-                        stateArray[1] = savedState;
-                    } else {
-                        actualMap.put(idInActualMap, new Object[]{ structure, savedState });
-                    }
+                id = idInLogicalMap + ':' + idInActualMap;
 
-                    // always call put/setAttribute as we may be in a clustered environment.
-                    sessionMap.put(LOGICAL_VIEW_MAP, logicalMap);
-                    ctx.getAttributes().put("com.sun.faces.ViewStateValue", id);
-                }
+                store.put(ctx, idInLogicalMap, idInActualMap, new Object[] { structure, savedState });
+                ctx.getAttributes().put("com.sun.faces.ViewStateValue", id);
             } else {
                 id = (String) ctx.getAttributes().get("com.sun.faces.ViewStateValue");
             }
@@ -291,7 +314,8 @@ public class ServerSideStateHelper extends StateHelper {
             return null;
         }
         
-        if ("stateless".equals(compoundId)) {
+        if ("stateless".equals(compoundId)
+              || StatelessViewToken.isValidToken(ctx, compoundId, viewId)) {
             return "stateless";
         }
 
@@ -315,33 +339,18 @@ public class ServerSideStateHelper extends StateHelper {
             return null;
         }
 
-        //noinspection SynchronizationOnLocalVariableOrMethodParameter
-        synchronized (sessionObj) {
-            Map logicalMap = (Map) externalCtx.getSessionMap() .get(LOGICAL_VIEW_MAP);
-            if (logicalMap != null) {
-                Map actualMap = (Map) logicalMap.get(idInLogicalMap);
-                if (actualMap != null) {
-                    RequestStateManager.set(ctx,
-                                            RequestStateManager.LOGICAL_VIEW_MAP,
-                                            idInLogicalMap);
-                    
-                    Object[] restoredState = new Object[2];
-                    Object[] state = (Object[]) actualMap.get(idInActualMap);
-                    if(state != null){
-                        restoredState[0] = state[0];
-                        restoredState[1] = state[1];
-                        
-                        RequestStateManager.set(ctx,
-                                                RequestStateManager.ACTUAL_VIEW_MAP,
-                                                idInActualMap);
-                        if (state.length == 2 && state[1] != null) {
-                            restoredState[1] = handleRestoreState(state[1]);
-                        }
-                    }
-
-                    return restoredState;
-                }
+        Object[] state = store.get(ctx, idInLogicalMap, idInActualMap);
+        if (state != null) {
+            RequestStateManager.set(ctx,
+                                    RequestStateManager.LOGICAL_VIEW_MAP,
+                                    idInLogicalMap);
+            RequestStateManager.set(ctx,
+                                    RequestStateManager.ACTUAL_VIEW_MAP,
+                                    idInActualMap);
+            if (state[1] != null && !storeSerializesState) {
+                state[1] = handleRestoreState(state[1]);
             }
+            return state;
         }
 
         return null;
@@ -360,6 +369,22 @@ public class ServerSideStateHelper extends StateHelper {
      */
     protected Integer getIntegerConfigValue(WebContextInitParameter param) {
 
+        return getIntegerConfigValue(webConfig, param);
+
+    }
+
+
+    /**
+     * <p>Parses the <code>Integer</code> based configuration value <code>param</code>,
+     * falling back to the default value of the parameter if the configured
+     * value cannot be parsed.</p>
+     * @param webConfig the <code>WebConfiguration</code> of the application
+     * @param param the paramter to parse
+     * @return the Integer representation of the parameter value
+     */
+    static Integer getIntegerConfigValue(WebConfiguration webConfig,
+                                         WebContextInitParameter param) {
+
         String noOfViewsStr = webConfig.getOptionValue(param);
         Integer value = null;
         try {
@@ -400,7 +425,7 @@ public class ServerSideStateHelper extends StateHelper {
             try {
                 oas = serialProvider
                       .createObjectOutputStream(((compressViewState)
-                                                 ? new GZIPOutputStream(baos, 1024)
+                                                 ? compressionCodec.createCompressingStream(baos)
                                                  : baos));
                 //noinspection NonSerializableObjectPassedToObjectStream
                 oas.writeObject(state);
@@ -434,11 +459,15 @@ public class ServerSideStateHelper extends StateHelper {
      */
     protected Object handleRestoreState(Object state) {
 
+        if (state instanceof AsyncStateSerializer.PendingState) {
+            // only blocks if the postback arrived before serialization finished
+            state = ((AsyncStateSerializer.PendingState) state).get();
+        }
         if (webConfig.isOptionEnabled(SerializeServerStateDeprecated) || webConfig.isOptionEnabled(SerializeServerState)) {
             try (ByteArrayInputStream bais = new ByteArrayInputStream((byte[]) state);
                  ObjectInputStream ois = serialProvider
                       .createObjectInputStream(((compressViewState)
-                                                ? new GZIPInputStream(bais, 1024)
+                                                ? compressionCodec.createDecompressingStream(bais)
                                                 : bais));) {
                 return ois.readObject();
             } catch (Exception e) {
@@ -458,11 +487,20 @@ public class ServerSideStateHelper extends StateHelper {
      */
     private String createIncrementalRequestId(FacesContext ctx) {
 
-        Map<String, Object> sm = ctx.getExternalContext().getSessionMap();
+        ExternalContext externalContext = ctx.getExternalContext();
+        Map<String, Object> sm = externalContext.getSessionMap();
         AtomicInteger idgen =
               (AtomicInteger) sm.get(STATEMANAGED_SERIAL_ID_KEY);
         if (idgen == null) {
-            idgen = new AtomicInteger(1);
+            Object sessionObj = externalContext.getSession(true);
+            //noinspection SynchronizationOnLocalVariableOrMethodParameter
+            synchronized (sessionObj) {
+                idgen = (AtomicInteger) sm.get(STATEMANAGED_SERIAL_ID_KEY);
+                if (idgen == null) {
+                    idgen = new AtomicInteger(1);
+                    sm.put(STATEMANAGED_SERIAL_ID_KEY, idgen);
+                }
+            }
         }
 
         // always call put/setAttribute as we may be in a clustered environment.
@@ -490,7 +528,8 @@ public class ServerSideStateHelper extends StateHelper {
     public boolean isStateless(FacesContext facesContext, String viewId) throws IllegalStateException {
         if (facesContext.isPostback()) {
             String compoundId = getStateParamValue(facesContext);
-            if (compoundId != null && "stateless".equals(compoundId)) {
+            if ("stateless".equals(compoundId)
+                  || StatelessViewToken.isValidToken(facesContext, compoundId, viewId)) {
                 return true;
             }
 
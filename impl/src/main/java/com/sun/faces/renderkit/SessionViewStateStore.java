@@ -0,0 +1,463 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.renderkit;
+
+import static com.sun.faces.config.WebConfiguration.BooleanWebContextInitParameter.DeltaEncodeServerState;
+import static com.sun.faces.config.WebConfiguration.WebContextInitParameter.NumberOfLogicalViews;
+import static com.sun.faces.config.WebConfiguration.WebContextInitParameter.NumberOfViews;
+import static com.sun.faces.renderkit.ServerSideStateHelper.LOGICAL_VIEW_MAP;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.faces.context.ExternalContext;
+import javax.faces.context.FacesContext;
+
+import com.sun.faces.config.WebConfiguration;
+import com.sun.faces.spi.ViewStateStore;
+import com.sun.faces.util.LRUMap;
+
+/**
+ * <p>
+ * The default {@link ViewStateStore}.  State is kept within the session in
+ * a {@link LogicalViewMap} stored under {@link ServerSideStateHelper#LOGICAL_VIEW_MAP}.
+ * </p>
+ *
+ * <p>
+ * The session itself is only locked when the <code>LogicalViewMap</code> is
+ * first created.  Afterwards each logical view is guarded by its own lock so
+ * that concurrent requests of the same session only contend when they
+ * operate on the same logical view, and then only for the duration of the
+ * map update.
+ * </p>
+ *
+ * <p>
+ * If <code>com.sun.faces.deltaEncodeServerState</code> is enabled, the first
+ * state stored for a logical view becomes its base, and subsequent states are
+ * stored as a {@link StateDelta} against it.  The full state is only rebuilt
+ * when it is requested.  Once a state differs too much from the base, it is
+ * stored in full and becomes the new base.  The delta is computed on the
+ * state as saved by the components, so with
+ * <code>com.sun.faces.serializeServerState</code> the
+ * <code>ServerSideStateHelper</code> leaves serialization to this store,
+ * which serializes the base and the changes against it separately.  In
+ * that case a deserialized copy of the base is kept for computing deltas,
+ * so the state handed out on restore is never shared with it.
+ * </p>
+ */
+public class SessionViewStateStore implements ViewStateStore {
+
+    /**
+     * The number of logical views as configured by the user.
+     */
+    protected final Integer numberOfLogicalViews;
+
+
+    /**
+     * The number of views as configured by the user.
+     */
+    protected final Integer numberOfViews;
+
+
+    /**
+     * Whether or not states of a logical view are stored as deltas against
+     * a common base.
+     */
+    protected final boolean deltaEncoding;
+
+
+    /**
+     * Serializes the component state if delta encoding is enabled, see
+     * {@link #setStateHelper(ServerSideStateHelper)}.
+     */
+    private volatile ServerSideStateHelper stateHelper;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    /**
+     * Construct a new <code>SessionViewStateStore</code> instance.
+     */
+    public SessionViewStateStore() {
+
+        this(WebConfiguration.getInstance().isOptionEnabled(DeltaEncodeServerState));
+
+    }
+
+
+    /**
+     * Construct a new <code>SessionViewStateStore</code> instance.
+     * @param deltaEncoding <code>true</code> if states of a logical view
+     *  should be stored as deltas against a common base.  This requires
+     *  {@link #toStoredValue(Object[])} to return an <code>Object[]</code>.
+     */
+    protected SessionViewStateStore(boolean deltaEncoding) {
+
+        this.deltaEncoding = deltaEncoding;
+        WebConfiguration webConfig = WebConfiguration.getInstance();
+        numberOfLogicalViews =
+              ServerSideStateHelper.getIntegerConfigValue(webConfig, NumberOfLogicalViews);
+        numberOfViews =
+              ServerSideStateHelper.getIntegerConfigValue(webConfig, NumberOfViews);
+
+    }
+
+
+    // --------------------------------------------- Methods from ViewStateStore
+
+
+    @Override
+    public void put(FacesContext context,
+                    String idInLogicalMap,
+                    String idInActualMap,
+                    Object[] state) {
+
+        Object value = toStoredValue(state);
+
+        ExternalContext externalContext = context.getExternalContext();
+        Map<String, Object> sessionMap = externalContext.getSessionMap();
+        LogicalViewMap logicalMap = getLogicalViewMap(externalContext, true);
+
+        ActualViewMap actualMap = logicalMap.get(idInLogicalMap);
+        if (actualMap == null) {
+            ActualViewMap newMap = new ActualViewMap(numberOfViews);
+            actualMap = logicalMap.putIfAbsent(idInLogicalMap, newMap);
+            if (actualMap == null) {
+                actualMap = newMap;
+            }
+        }
+
+        if (deltaEncoding) {
+            value = encode(actualMap, (Object[]) value);
+        }
+
+        //noinspection SynchronizationOnLocalVariableOrMethodParameter
+        synchronized (actualMap) {
+            actualMap.put(idInActualMap, value);
+        }
+        logicalMap.touch(actualMap, numberOfLogicalViews);
+
+        // always call put/setAttribute as we may be in a clustered environment.
+        sessionMap.put(getAttributeName(), logicalMap);
+
+    }
+
+
+    @Override
+    public Object[] get(FacesContext context,
+                        String idInLogicalMap,
+                        String idInActualMap) {
+
+        LogicalViewMap logicalMap =
+              getLogicalViewMap(context.getExternalContext(), false);
+        if (logicalMap == null) {
+            return null;
+        }
+
+        ActualViewMap actualMap = logicalMap.get(idInLogicalMap);
+        if (actualMap == null) {
+            return null;
+        }
+
+        Object value;
+        //noinspection SynchronizationOnLocalVariableOrMethodParameter
+        synchronized (actualMap) {
+            value = actualMap.get(idInActualMap);
+        }
+        logicalMap.touch(actualMap, numberOfLogicalViews);
+
+        if (value instanceof StateDelta) {
+            StateDelta delta = (StateDelta) value;
+            return StateDelta.toState(deserialize(delta.getBase()),
+                                      deserializeState(delta.getPatch()));
+        }
+        if (value != null && deltaEncoding) {
+            return deserialize(fromStoredValue(value));
+        }
+        return ((value != null) ? fromStoredValue(value) : null);
+
+    }
+
+
+    /**
+     * <p>The state is kept as passed in, unless delta encoding is enabled,
+     * which requires the state to be available when it is stored.</p>
+     */
+    @Override
+    public boolean acceptsPendingState() {
+
+        return !deltaEncoding;
+
+    }
+
+
+    // ------------------------------------------------------- Protected Methods
+
+
+    /**
+     * @return the name of the session attribute holding the
+     *  <code>LogicalViewMap</code>
+     */
+    protected String getAttributeName() {
+
+        return LOGICAL_VIEW_MAP;
+
+    }
+
+
+    /**
+     * <p>Converts the state passed to {@link #put(FacesContext, String, String, Object[])}
+     * into the value kept in the session.  This is called before any lock
+     * is acquired.</p>
+     * @param state the state to store
+     * @return the value to keep in the session
+     */
+    protected Object toStoredValue(Object[] state) {
+
+        return new Object[] { state[0], state[1] };
+
+    }
+
+
+    /**
+     * <p>Converts a value produced by {@link #toStoredValue(Object[])} back
+     * into the state.  This is called after all locks have been released.</p>
+     * @param value the value kept in the session
+     * @return the state, or <code>null</code> if it is no longer available
+     */
+    protected Object[] fromStoredValue(Object value) {
+
+        Object[] state = (Object[]) value;
+        return new Object[] { state[0], state[1] };
+
+    }
+
+
+    // ---------------------------------------------------------- Package Methods
+
+
+    /**
+     * <p>Called by the <code>ServerSideStateHelper</code> if delta encoding
+     * is enabled, which then passes the component state to
+     * {@link #put(FacesContext, String, String, Object[])} as saved, and
+     * expects it back the same way from
+     * {@link #get(FacesContext, String, String)}.  Serialization, if
+     * enabled, is left to this store, so it can compute the delta on the
+     * saved state.</p>
+     * @param stateHelper the helper serializing the component state
+     */
+    void setStateHelper(ServerSideStateHelper stateHelper) {
+
+        this.stateHelper = stateHelper;
+
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    /**
+     * @return the value to store for <code>state</code>, either a
+     *  {@link StateDelta} against the base of <code>actualMap</code>, or
+     *  the serialized state, which then becomes the new base
+     */
+    private Object encode(ActualViewMap actualMap, Object[] state) {
+
+        Object[] base;
+        Object[] baseState;
+        //noinspection SynchronizationOnLocalVariableOrMethodParameter
+        synchronized (actualMap) {
+            base = actualMap.base;
+            baseState = actualMap.baseState;
+        }
+        if (base != null && baseState == null) {
+            // the deserialized base is not kept when the session is
+            // serialized itself
+            baseState = deserialize(base);
+        }
+
+        // the delta is computed outside of the lock, it references its
+        // base so a concurrent change of the base does no harm
+        StateDelta delta = ((baseState != null)
+                            ? StateDelta.create(baseState, state)
+                            : null);
+        if (delta != null) {
+            return new StateDelta(base, serializeState(delta.getPatch()));
+        }
+        base = new Object[] { state[0], serializeState(state[1]) };
+        baseState = deserialize(base);
+        //noinspection SynchronizationOnLocalVariableOrMethodParameter
+        synchronized (actualMap) {
+            actualMap.base = base;
+            actualMap.baseState = baseState;
+        }
+        return base;
+
+    }
+
+
+    private Object[] deserialize(Object[] value) {
+
+        return new Object[] { value[0], deserializeState(value[1]) };
+
+    }
+
+
+    private Object serializeState(Object state) {
+
+        ServerSideStateHelper helper = stateHelper;
+        return ((helper != null && state != null) ? helper.handleSaveState(state) : state);
+
+    }
+
+
+    private Object deserializeState(Object value) {
+
+        ServerSideStateHelper helper = stateHelper;
+        return ((helper != null && value != null) ? helper.handleRestoreState(value) : value);
+
+    }
+
+
+    private LogicalViewMap getLogicalViewMap(ExternalContext externalContext,
+                                             boolean create) {
+
+        Object sessionObj = externalContext.getSession(create);
+        if (sessionObj == null) {
+            return null;
+        }
+        Map<String, Object> sessionMap = externalContext.getSessionMap();
+        String attributeName = getAttributeName();
+        Object logicalMap = sessionMap.get(attributeName);
+        if (logicalMap instanceof LogicalViewMap) {
+            return (LogicalViewMap) logicalMap;
+        }
+        if (!create) {
+            return null;
+        }
+
+        //noinspection SynchronizationOnLocalVariableOrMethodParameter
+        synchronized (sessionObj) {
+            logicalMap = sessionMap.get(attributeName);
+            if (!(logicalMap instanceof LogicalViewMap)) {
+                logicalMap = new LogicalViewMap();
+                sessionMap.put(attributeName, logicalMap);
+            }
+        }
+        return (LogicalViewMap) logicalMap;
+
+    }
+
+
+    // ----------------------------------------------------------- Inner Classes
+
+
+    /**
+     * <p>
+     * A concurrent map of the logical views of a session.  Each access to a
+     * logical view records a stamp from a per-session clock, which is used to
+     * evict the least recently used logical view once more than
+     * <code>numberOfLogicalViews</code> are present.
+     * </p>
+     */
+    public static final class LogicalViewMap extends ConcurrentHashMap<String, ActualViewMap> {
+
+        private static final long serialVersionUID = 6427263474367183466L;
+
+        private final AtomicLong clock = new AtomicLong();
+
+
+        void touch(ActualViewMap actualMap, int maxLogicalViews) {
+
+            actualMap.lastAccess = clock.incrementAndGet();
+            while (size() > maxLogicalViews) {
+                Map.Entry<String, ActualViewMap> eldest = null;
+                for (Map.Entry<String, ActualViewMap> entry : entrySet()) {
+                    if (eldest == null
+                        || entry.getValue().lastAccess < eldest.getValue().lastAccess) {
+                        eldest = entry;
+                    }
+                }
+                if (eldest == null) {
+                    break;
+                }
+                remove(eldest.getKey(), eldest.getValue());
+            }
+
+        }
+
+    }
+
+
+    /**
+     * <p>
+     * The actual views of a single logical view.  Instances must only be
+     * accessed while holding their monitor.
+     * </p>
+     */
+    public static final class ActualViewMap extends LRUMap<String, Object> {
+
+        private static final long serialVersionUID = -3394285421637436853L;
+
+        private volatile long lastAccess;
+
+        /**
+         * The state deltas are created against, if delta encoding is enabled.
+         * Kept apart from the entries so it survives their eviction.
+         */
+        private Object[] base;
+
+        /**
+         * The deserialized copy of <code>base</code> deltas are computed
+         * against.
+         */
+        private transient Object[] baseState;
+
+
+        ActualViewMap(int maxCapacity) {
+            super(maxCapacity);
+        }
+
+    }
+
+}
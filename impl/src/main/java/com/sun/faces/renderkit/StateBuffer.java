@@ -0,0 +1,324 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.renderkit;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A growable byte buffer in which view state is serialized, compressed,
+ * encrypted and Base64 encoded without intermediate copies.
+ * </p>
+ *
+ * <p>
+ * Buffers are confined to the thread that acquired them.  When released,
+ * the backing array is retained by the thread and handed out again on the
+ * next {@link #acquire(int)}, provided it does not exceed
+ * {@link #MAX_RETAINED_SIZE}.  Only <code>byte[]</code> and
+ * <code>char[]</code> instances are kept in thread locals so that pooled
+ * buffers cannot pin the application class loader.
+ * </p>
+ */
+final class StateBuffer extends OutputStream {
+
+    /**
+     * Buffers larger than this will not be retained for reuse.
+     */
+    static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+    private static final int CHAR_CHUNK_SIZE = 4096;
+
+    private static final ThreadLocal<byte[]> BYTES = new ThreadLocal<>();
+    private static final ThreadLocal<char[]> CHARS = new ThreadLocal<>();
+
+    private static final char[] BASE64_CHARS =
+          "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    private static final int[] BASE64_VALUES = new int[128];
+    static {
+        Arrays.fill(BASE64_VALUES, -1);
+        for (int i = 0; i < BASE64_CHARS.length; i++) {
+            BASE64_VALUES[BASE64_CHARS[i]] = i;
+        }
+    }
+
+    private byte[] buf;
+    private int count;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    private StateBuffer(byte[] buf) {
+
+        this.buf = buf;
+
+    }
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    /**
+     * @param initialCapacity the capacity to use if no retained buffer is
+     *  available for the current thread
+     * @return an empty buffer which must be {@link #release() released} once
+     *  no longer in use
+     */
+    static StateBuffer acquire(int initialCapacity) {
+
+        byte[] bytes = BYTES.get();
+        if (bytes != null) {
+            // nested acquisitions will allocate their own array
+            BYTES.remove();
+        } else {
+            bytes = new byte[initialCapacity];
+        }
+        return new StateBuffer(bytes);
+
+    }
+
+
+    /**
+     * <p>Returns the backing array to the current thread for reuse.  The
+     * buffer must not be used afterwards.</p>
+     */
+    void release() {
+
+        if (buf != null && buf.length <= MAX_RETAINED_SIZE) {
+            BYTES.set(buf);
+        }
+        buf = null;
+        count = 0;
+
+    }
+
+
+    /**
+     * @return the backing array, valid until the next write to this buffer
+     */
+    byte[] getBuffer() {
+
+        return buf;
+
+    }
+
+
+    int size() {
+
+        return count;
+
+    }
+
+
+    /**
+     * <p>Sets the number of valid bytes, growing the backing array if
+     * necessary.  Used to reserve space ahead of data written later on or
+     * to account for data written to the backing array directly.</p>
+     * @param size the new number of valid bytes
+     */
+    void setSize(int size) {
+
+        ensureCapacity(size);
+        count = size;
+
+    }
+
+
+    void ensureCapacity(int capacity) {
+
+        if (capacity > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(capacity, buf.length << 1));
+        }
+
+    }
+
+
+    /**
+     * @param offset the offset of the first byte to read
+     * @param length the number of bytes to read
+     * @return an <code>InputStream</code> reading directly from the
+     *  backing array
+     */
+    InputStream getInputStream(int offset, int length) {
+
+        return new ByteArrayInputStream(buf, offset, length);
+
+    }
+
+
+    /**
+     * <p>Base64 encodes all bytes of this buffer to <code>writer</code>.</p>
+     * @param writer the target <code>Writer</code>
+     * @return the number of characters written
+     * @throws IOException if an error occurs writing to <code>writer</code>
+     */
+    int writeBase64(Writer writer) throws IOException {
+
+        char[] chars = CHARS.get();
+        if (chars == null) {
+            chars = new char[CHAR_CHUNK_SIZE];
+        } else {
+            CHARS.remove();
+        }
+
+        int written = 0;
+        int pos = 0;
+        int i = 0;
+        int full = count - (count % 3);
+        while (i < full) {
+            int bits = ((buf[i++] & 0xff) << 16)
+                       | ((buf[i++] & 0xff) << 8)
+                       | (buf[i++] & 0xff);
+            chars[pos++] = BASE64_CHARS[(bits >>> 18) & 0x3f];
+            chars[pos++] = BASE64_CHARS[(bits >>> 12) & 0x3f];
+            chars[pos++] = BASE64_CHARS[(bits >>> 6) & 0x3f];
+            chars[pos++] = BASE64_CHARS[bits & 0x3f];
+            if (pos == CHAR_CHUNK_SIZE) {
+                writer.write(chars, 0, pos);
+                written += pos;
+                pos = 0;
+            }
+        }
+        int remaining = count - full;
+        if (remaining > 0) {
+            int bits = (buf[i++] & 0xff) << 16;
+            if (remaining == 2) {
+                bits |= (buf[i] & 0xff) << 8;
+            }
+            chars[pos++] = BASE64_CHARS[(bits >>> 18) & 0x3f];
+            chars[pos++] = BASE64_CHARS[(bits >>> 12) & 0x3f];
+            chars[pos++] = ((remaining == 2) ? BASE64_CHARS[(bits >>> 6) & 0x3f] : '=');
+            chars[pos++] = '=';
+        }
+        if (pos > 0) {
+            writer.write(chars, 0, pos);
+            written += pos;
+        }
+
+        CHARS.set(chars);
+        return written;
+
+    }
+
+
+    /**
+     * <p>Replaces the content of this buffer with the Base64 decoded
+     * representation of <code>encoded</code>.</p>
+     * @param encoded Base64 encoded data
+     * @throws IllegalArgumentException if <code>encoded</code> is not a valid
+     *  Base64 encoding
+     */
+    void readBase64(CharSequence encoded) {
+
+        int length = encoded.length();
+        if (length % 4 != 0) {
+            throw new IllegalArgumentException("Invalid Base64 length " + length);
+        }
+        int padding = 0;
+        if (length > 0 && encoded.charAt(length - 1) == '=') {
+            padding++;
+            if (encoded.charAt(length - 2) == '=') {
+                padding++;
+            }
+        }
+        int size = (length / 4) * 3 - padding;
+        ensureCapacity(size);
+
+        int pos = 0;
+        for (int i = 0; i < length; i += 4) {
+            int bits = (decode(encoded.charAt(i)) << 18)
+                       | (decode(encoded.charAt(i + 1)) << 12);
+            buf[pos++] = (byte) (bits >>> 16);
+            if (pos < size) {
+                bits |= decode(encoded.charAt(i + 2)) << 6;
+                buf[pos++] = (byte) (bits >>> 8);
+                if (pos < size) {
+                    bits |= decode(encoded.charAt(i + 3));
+                    buf[pos++] = (byte) bits;
+                }
+            }
+        }
+        count = size;
+
+    }
+
+
+    // ------------------------------------------------- Methods from OutputStream
+
+
+    @Override
+    public void write(int b) {
+
+        ensureCapacity(count + 1);
+        buf[count++] = (byte) b;
+
+    }
+
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private static int decode(char c) {
+
+        int value = ((c < 128) ? BASE64_VALUES[c] : -1);
+        if (value == -1) {
+            throw new IllegalArgumentException("Illegal Base64 character " + (int) c);
+        }
+        return value;
+
+    }
+
+}
@@ -0,0 +1,405 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.renderkit;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>
+ * A view state stored as the structural difference to a base state of the
+ * same logical view.  Successive postbacks on a page usually only change a
+ * few values within the <code>Object[]</code> and <code>HashMap</code>
+ * graph returned by <code>UIViewRoot.processSaveState</code>, so only the
+ * changed entries are kept, along with a reference to the base.  Unchanged
+ * parts are shared with the base when the state is rebuilt.
+ * </p>
+ *
+ * <p>
+ * Leaves are considered unchanged if they are the same instance, if they
+ * are equal strings, boxed primitives or enums, or if they are arrays of
+ * primitives with equal elements.  The delta is therefore computed on the
+ * state as it is saved, before it is serialized or compressed, see
+ * {@link SessionViewStateStore}.
+ * </p>
+ */
+final class StateDelta implements Serializable {
+
+    private static final long serialVersionUID = -2786463218472593411L;
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private final Object[] base;
+    private final Object patch;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    /**
+     * @param base the base state
+     * @param patch the changes to <code>base</code>, as returned by
+     *  {@link #getPatch()} of a <code>StateDelta</code> created for it
+     */
+    StateDelta(Object[] base, Object patch) {
+
+        this.base = base;
+        this.patch = patch;
+
+    }
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    /**
+     * @param base the base state
+     * @param state the state to encode
+     * @return a <code>StateDelta</code> of <code>state</code> relative to
+     *  <code>base</code>, or <code>null</code> if they differ too much for a
+     *  delta to be worthwhile
+     */
+    static StateDelta create(Object[] base, Object[] state) {
+
+        Differ differ = new Differ();
+        Object patch = differ.diff(base, state);
+        if (patch instanceof Replace || differ.changed * 2 > differ.total) {
+            return null;
+        }
+        return new StateDelta(base, patch);
+
+    }
+
+
+    /**
+     * @return the base state
+     */
+    Object[] getBase() {
+
+        return base;
+
+    }
+
+
+    /**
+     * @return the changes to the base state
+     */
+    Object getPatch() {
+
+        return patch;
+
+    }
+
+
+    /**
+     * @return the full state, rebuilt from the base and the changes
+     */
+    Object[] toState() {
+
+        return toState(base, patch);
+
+    }
+
+
+    /**
+     * @param base the base state
+     * @param patch the changes to <code>base</code>
+     * @return the full state, rebuilt from the base and the changes
+     */
+    static Object[] toState(Object[] base, Object patch) {
+
+        return (Object[]) apply(base, patch);
+
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private static Object apply(Object base, Object patch) {
+
+        if (patch == null) {
+            return ((base instanceof Object[]) ? ((Object[]) base).clone() : base);
+        }
+        if (patch instanceof Replace) {
+            return ((Replace) patch).value;
+        }
+        if (patch instanceof ArrayPatch) {
+            ArrayPatch arrayPatch = (ArrayPatch) patch;
+            Object[] array = ((Object[]) base).clone();
+            for (int i = 0; i < arrayPatch.indices.length; i++) {
+                int index = arrayPatch.indices[i];
+                array[index] = apply(array[index], arrayPatch.patches[i]);
+            }
+            return array;
+        }
+        MapPatch mapPatch = (MapPatch) patch;
+        @SuppressWarnings("unchecked")
+        Map<Object, Object> map = new HashMap<>((Map<Object, Object>) base);
+        for (Object key : mapPatch.removed) {
+            map.remove(key);
+        }
+        for (int i = 0; i < mapPatch.keys.length; i++) {
+            Object key = mapPatch.keys[i];
+            map.put(key, apply(map.get(key), mapPatch.patches[i]));
+        }
+        return map;
+
+    }
+
+
+    // ----------------------------------------------------------- Inner Classes
+
+
+    /**
+     * Computes the patch turning one state into another, counting the
+     * number of leaves visited and replaced along the way.
+     */
+    private static final class Differ {
+
+        private int total;
+        private int changed;
+
+
+        /**
+         * @return <code>null</code> if <code>current</code> is equivalent to
+         *  <code>base</code>, otherwise the patch to apply to <code>base</code>
+         */
+        Object diff(Object base, Object current) {
+
+            if (base == current) {
+                total++;
+                return null;
+            }
+            if (base instanceof Object[] && current instanceof Object[]
+                && base.getClass() == current.getClass()
+                && ((Object[]) base).length == ((Object[]) current).length) {
+                return diffArray((Object[]) base, (Object[]) current);
+            }
+            if (base instanceof HashMap && current instanceof HashMap) {
+                return diffMap((Map<?, ?>) base, (Map<?, ?>) current);
+            }
+            if ((isValue(base) && base.equals(current))
+                || (isPrimitiveArray(base) && Objects.deepEquals(base, current))) {
+                total++;
+                return null;
+            }
+            return replace(current);
+
+        }
+
+
+        private Object diffArray(Object[] base, Object[] current) {
+
+            List<Integer> indices = null;
+            List<Object> patches = null;
+            for (int i = 0; i < base.length; i++) {
+                Object patch = diff(base[i], current[i]);
+                if (patch != null) {
+                    if (indices == null) {
+                        indices = new ArrayList<>();
+                        patches = new ArrayList<>();
+                    }
+                    indices.add(i);
+                    patches.add(patch);
+                }
+            }
+            if (indices == null) {
+                return null;
+            }
+            int[] idx = new int[indices.size()];
+            for (int i = 0; i < idx.length; i++) {
+                idx[i] = indices.get(i);
+            }
+            return new ArrayPatch(idx, patches.toArray());
+
+        }
+
+
+        private Object diffMap(Map<?, ?> base, Map<?, ?> current) {
+
+            List<Object> keys = null;
+            List<Object> patches = null;
+            int added = 0;
+            for (Map.Entry<?, ?> entry : current.entrySet()) {
+                Object key = entry.getKey();
+                Object patch;
+                if (base.containsKey(key)) {
+                    patch = diff(base.get(key), entry.getValue());
+                } else {
+                    added++;
+                    patch = replace(entry.getValue());
+                }
+                if (patch != null) {
+                    if (keys == null) {
+                        keys = new ArrayList<>();
+                        patches = new ArrayList<>();
+                    }
+                    keys.add(key);
+                    patches.add(patch);
+                }
+            }
+            List<Object> removed = null;
+            // only look for removed keys if not all of them are still present
+            if (base.size() > current.size() - added) {
+                for (Object key : base.keySet()) {
+                    if (!current.containsKey(key)) {
+                        if (removed == null) {
+                            removed = new ArrayList<>();
+                        }
+                        removed.add(key);
+                        int weight = weigh(base.get(key));
+                        total += weight;
+                        changed += weight;
+                    }
+                }
+            }
+            if (keys == null && removed == null) {
+                return null;
+            }
+            return new MapPatch(((keys != null) ? keys.toArray() : EMPTY),
+                                ((patches != null) ? patches.toArray() : EMPTY),
+                                ((removed != null) ? removed.toArray() : EMPTY));
+
+        }
+
+
+        private Replace replace(Object current) {
+
+            int weight = weigh(current);
+            total += weight;
+            changed += weight;
+            return new Replace(current);
+
+        }
+
+
+        /**
+         * @return the number of leaves of <code>value</code>
+         */
+        private static int weigh(Object value) {
+
+            int weight = 0;
+            if (value instanceof Object[]) {
+                for (Object element : (Object[]) value) {
+                    weight += weigh(element);
+                }
+            } else if (value instanceof Map) {
+                for (Object element : ((Map<?, ?>) value).values()) {
+                    weight += weigh(element);
+                }
+            }
+            return Math.max(weight, 1);
+
+        }
+
+
+        private static boolean isValue(Object o) {
+
+            return (o instanceof String
+                    || o instanceof Boolean
+                    || o instanceof Number
+                    || o instanceof Character
+                    || o instanceof Enum);
+
+        }
+
+
+        private static boolean isPrimitiveArray(Object o) {
+
+            return (o != null
+                    && o.getClass().isArray()
+                    && o.getClass().getComponentType().isPrimitive());
+
+        }
+
+    }
+
+
+    private static final class Replace implements Serializable {
+
+        private static final long serialVersionUID = 4870421360870932167L;
+
+        private final Object value;
+
+        Replace(Object value) {
+            this.value = value;
+        }
+
+    }
+
+
+    private static final class ArrayPatch implements Serializable {
+
+        private static final long serialVersionUID = -6245207392463427861L;
+
+        private final int[] indices;
+        private final Object[] patches;
+
+        ArrayPatch(int[] indices, Object[] patches) {
+            this.indices = indices;
+            this.patches = patches;
+        }
+
+    }
+
+
+    private static final class MapPatch implements Serializable {
+
+        private static final long serialVersionUID = 2096578424733616214L;
+
+        private final Object[] keys;
+        private final Object[] patches;
+        private final Object[] removed;
+
+        MapPatch(Object[] keys, Object[] patches, Object[] removed) {
+            this.keys = keys;
+            this.patches = patches;
+            this.removed = removed;
+        }
+
+    }
+
+}
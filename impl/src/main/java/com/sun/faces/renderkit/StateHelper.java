@@ -62,6 +62,8 @@ import javax.servlet.http.HttpSession;
 
 import com.sun.faces.RIConstants;
 import com.sun.faces.config.WebConfiguration;
+import com.sun.faces.spi.CompressionCodec;
+import com.sun.faces.spi.CompressionCodecFactory;
 import com.sun.faces.spi.SerializationProvider;
 import com.sun.faces.spi.SerializationProviderFactory;
 import com.sun.faces.util.ByteArrayGuardAESCTR;
@@ -102,6 +104,16 @@ public abstract class StateHelper {
     protected boolean compressViewState;
 
 
+    /**
+     * <p>
+     * The codec used to compress view state if <code>compressViewState</code>
+     * is <code>true</code>.  These are pluggable via
+     * the WebConfiguration.WebContextInitParameter#CompressViewStateCodec.
+     * </p>
+     */
+    protected CompressionCodec compressionCodec;
+
+
     /**
      * This will be used the by the different <code>StateHelper</code> implementations
      * when writing the start of the state field.
@@ -137,6 +149,11 @@ public abstract class StateHelper {
               .createInstance(ctx.getExternalContext());
         webConfig = WebConfiguration.getInstance(ctx.getExternalContext());
         compressViewState = webConfig.isOptionEnabled(CompressViewState);
+        if (compressViewState) {
+            compressionCodec = CompressionCodecFactory
+                  .createInstance(ctx.getExternalContext());
+            compressViewState = (compressionCodec != null);
+        }
 
         if (serialProvider == null) {
             serialProvider = SerializationProviderFactory
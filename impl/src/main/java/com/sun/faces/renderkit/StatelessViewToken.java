@@ -0,0 +1,350 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.renderkit;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import javax.faces.FacesException;
+import javax.faces.context.ExternalContext;
+import javax.faces.context.FacesContext;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+
+import com.sun.faces.config.WebConfiguration;
+import com.sun.faces.util.FacesLogger;
+
+import static com.sun.faces.config.WebConfiguration.WebContextInitParameter.ClientStateTimeout;
+
+/**
+ * <p>
+ * Marks views that have been rendered stateless automatically, as enabled by
+ * <code>com.sun.faces.automaticStatelessViews</code>.  Such a view is not
+ * transient, it just had no state to save when it was rendered, so instead
+ * of a state identifier the response carries a token of the form
+ * <code>stateless:&lt;issue time&gt;.&lt;MAC of the view ID and issue
+ * time&gt;</code> in the view state field.  On postback a token that
+ * {@link #verify(String, String) verifies} proves that the view was rendered
+ * stateless, so it is restored by building it from its template.  Nothing
+ * is kept on the server in between, so the token is valid on any node using
+ * the same key.
+ * </p>
+ *
+ * <p>
+ * A token is only offered when no session exists, as views rendered for a
+ * session keep their state, which is bound to the session and thereby
+ * protects them from cross-site request forgery.  It is accepted whether or
+ * not a session has been created since, just like <code>"stateless"</code>.
+ * Being stateless it can be replayed, but only until it expires after
+ * <code>com.sun.faces.clientStateTimeout</code> minutes, or 30 minutes if
+ * that is not set, and all it allows is building the view from its template,
+ * the same as requesting it does.
+ * </p>
+ *
+ * <p>
+ * The key is the one configured for client side state saving, see
+ * {@link ByteArrayGuard}, or generated at startup otherwise.
+ * </p>
+ */
+public final class StatelessViewToken {
+
+    private static final Logger LOGGER = FacesLogger.RENDERKIT.getLogger();
+
+    private static final String INSTANCE_KEY = StatelessViewToken.class.getName();
+    private static final String OFFERED_TOKEN_KEY =
+          StatelessViewToken.class.getName() + ".OFFERED";
+
+    private static final String PREFIX = "stateless:";
+    private static final String MAC_CODE = "HmacSHA256";
+    private static final int MAC_LENGTH = 16;
+    private static final long DEFAULT_MAX_AGE = 30;
+
+    private final SecretKey key;
+    private final long maxAge;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    StatelessViewToken() {
+
+        this(DEFAULT_MAX_AGE);
+
+    }
+
+
+    /**
+     * @param maxAge the number of minutes a token is valid
+     */
+    StatelessViewToken(long maxAge) {
+
+        key = getKey();
+        this.maxAge = maxAge;
+
+    }
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    /**
+     * @param extContext the <code>ExternalContext</code> for this application
+     * @return the <code>StatelessViewToken</code> of the current
+     *  application, created on first access
+     */
+    public static StatelessViewToken getInstance(ExternalContext extContext) {
+
+        Map<String, Object> appMap = extContext.getApplicationMap();
+        StatelessViewToken token = (StatelessViewToken) appMap.get(INSTANCE_KEY);
+        if (token == null) {
+            synchronized (StatelessViewToken.class) {
+                token = (StatelessViewToken) appMap.get(INSTANCE_KEY);
+                if (token == null) {
+                    token = new StatelessViewToken(getMaxAge(extContext));
+                    appMap.put(INSTANCE_KEY, token);
+                }
+            }
+        }
+        return token;
+
+    }
+
+
+    /**
+     * <p>Allows the view being rendered to be marked stateless with the
+     * token for <code>viewId</code>, should its saved state turn out to be
+     * empty.  See {@link #getOfferedToken(FacesContext, Object)}.</p>
+     * @param ctx the <code>FacesContext</code> for the current request
+     * @param viewId the ID of the view being rendered
+     */
+    public void offer(FacesContext ctx, String viewId) {
+
+        ctx.getAttributes().put(OFFERED_TOKEN_KEY,
+                                create(viewId, System.currentTimeMillis()));
+
+    }
+
+
+    /**
+     * @param value the view state value sent with a postback
+     * @param viewId the ID of the view being restored
+     * @return <code>true</code> if <code>value</code> is a token
+     *  created for <code>viewId</code> that has not expired yet
+     */
+    public boolean verify(String value, String viewId) {
+
+        if (!isToken(value)) {
+            return false;
+        }
+        int sep = value.indexOf('.', PREFIX.length());
+        if (sep == -1) {
+            return false;
+        }
+        long issued;
+        try {
+            issued = Long.parseLong(value.substring(PREFIX.length(), sep), Character.MAX_RADIX);
+        } catch (NumberFormatException nfe) {
+            return false;
+        }
+        if ((System.currentTimeMillis() - issued) / 60000 >= maxAge) {
+            return false;
+        }
+        byte[] expected = create(viewId, issued).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, value.getBytes(StandardCharsets.US_ASCII));
+
+    }
+
+
+    // --------------------------------------------------------- Package Methods
+
+
+    /**
+     * @param ctx the <code>FacesContext</code> for the current request
+     * @param value the view state value sent with a postback
+     * @param viewId the ID of the view being restored
+     * @return <code>true</code> if automatic stateless views are enabled
+     *  and <code>value</code> is a valid token for <code>viewId</code>,
+     *  which like <code>"stateless"</code> denotes a view without state
+     */
+    static boolean isValidToken(FacesContext ctx, String value, String viewId) {
+
+        if (!isToken(value)) {
+            return false;
+        }
+        StatelessViewToken token = (StatelessViewToken)
+              ctx.getExternalContext().getApplicationMap().get(INSTANCE_KEY);
+        return (token != null && token.verify(value, viewId));
+
+    }
+
+
+    /**
+     * @param value a view state value
+     * @return <code>true</code> if <code>value</code> looks like a token,
+     *  which alone never means it is one, see
+     *  {@link #verify(String, String)}
+     */
+    static boolean isToken(String value) {
+
+        return (value != null && value.startsWith(PREFIX));
+
+    }
+
+
+    /**
+     * @param ctx the <code>FacesContext</code> for the current request
+     * @param state the state of the view being rendered
+     * @return the token to write in place of <code>state</code>, or
+     *  <code>null</code> if no token has been offered for this request,
+     *  <code>state</code> is not empty or a session has been created
+     *  in the meantime
+     */
+    static String getOfferedToken(FacesContext ctx, Object state) {
+
+        String token = (String) ctx.getAttributes().get(OFFERED_TOKEN_KEY);
+        if (token == null
+              || !isEmptyState(state)
+              || ctx.getExternalContext().getSession(false) != null) {
+            return null;
+        }
+        return token;
+
+    }
+
+
+    /**
+     * @return <code>true</code> if <code>state</code> holds nothing but
+     *  <code>null</code>s, possibly nested in arrays and maps
+     */
+    static boolean isEmptyState(Object state) {
+
+        if (state == null) {
+            return true;
+        }
+        if (state instanceof Object[]) {
+            for (Object element : (Object[]) state) {
+                if (!isEmptyState(element)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (state instanceof Map) {
+            for (Object value : ((Map<?, ?>) state).values()) {
+                if (!isEmptyState(value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private String create(String viewId, long issued) {
+
+        String time = Long.toString(issued, Character.MAX_RADIX);
+        try {
+            Mac mac = Mac.getInstance(MAC_CODE);
+            mac.init(key);
+            mac.update(time.getBytes(StandardCharsets.US_ASCII));
+            mac.update((byte) '\n');
+            byte[] bytes = mac.doFinal(viewId.getBytes(StandardCharsets.UTF_8));
+            return PREFIX + time + '.' + Base64.getUrlEncoder().withoutPadding()
+                  .encodeToString(Arrays.copyOf(bytes, MAC_LENGTH));
+        } catch (GeneralSecurityException gse) {
+            throw new FacesException(gse);
+        }
+
+    }
+
+
+    private static long getMaxAge(ExternalContext extContext) {
+
+        WebConfiguration webConfig = WebConfiguration.getInstance(extContext);
+        if (webConfig != null && webConfig.isSet(ClientStateTimeout)) {
+            try {
+                return Long.parseLong(webConfig.getOptionValue(ClientStateTimeout));
+            } catch (NumberFormatException nfe) {
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE, "Invalid client state timeout, using the default", nfe);
+                }
+            }
+        }
+        return DEFAULT_MAX_AGE;
+
+    }
+
+
+    private static SecretKey getKey() {
+
+        try {
+            InitialContext context = new InitialContext();
+            String encodedKey = (String) context.lookup("java:comp/env/jsf/ClientSideSecretKey");
+            return new SecretKeySpec(Base64.getDecoder().decode(encodedKey), MAC_CODE);
+        } catch (NamingException exception) {
+            if (LOGGER.isLoggable(Level.FINEST)) {
+                LOGGER.log(Level.FINEST, "Unable to find the encoded key.", exception);
+            }
+        }
+        try {
+            return KeyGenerator.getInstance(MAC_CODE).generateKey();
+        } catch (GeneralSecurityException gse) {
+            throw new FacesException(gse);
+        }
+
+    }
+
+}
@@ -0,0 +1,1026 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.renderkit;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sun.faces.spi.SerializationProvider;
+import com.sun.faces.util.Util;
+
+/**
+ * <p>A <code>SerializationProvider</code> writing view state in a compact,
+ * typed binary format instead of Java serialization.</p>
+ *
+ * <p>The state saved by components consists almost entirely of
+ * <code>Object[]</code>, <code>HashMap</code> and <code>ArrayList</code>
+ * graphs holding strings, boxed primitives and <code>PropertyKeys</code>
+ * enums, for which Java serialization emits full class descriptors and boxed
+ * objects.  Here every value is written with a one byte type tag: integral
+ * values as variable length integers, enums as their class followed by the
+ * ordinal, and each distinct string (including class names) only once, later
+ * occurrences referring back to it by index.  Containers referenced more
+ * than once are written once as well.  <code>Externalizable</code> instances
+ * write themselves to this stream, while any other <code>Serializable</code>
+ * is written using standard Java serialization, embedded in the same stream
+ * so that its class descriptors are written only once as well.</p>
+ *
+ * <p>When reading, classes are loaded without being initialized and must be
+ * of the kind the writer emits for the type tag naming them: enums for enum
+ * constants, and <code>Externalizable</code> classes with a public no-arg
+ * constructor, as required by Java serialization, for externalized
+ * objects.</p>
+ *
+ * <p>As enum ordinals are written, state can only be read by the same
+ * version of the classes that wrote it.  This provider is enabled by
+ * setting the <code>com.sun.faces.serializationProvider</code> context
+ * parameter to the name of this class.  Apart from client side state, it
+ * applies to server side state when <code>com.sun.faces.serializeServerState</code>
+ * is enabled.</p>
+ */
+public class TypedStateSerializationProvider implements SerializationProvider {
+
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1024;
+
+    // elements up to this number are allocated without checking the input first
+    private static final int UNVERIFIED_LENGTH = 1024;
+
+    private static final int NULL = 0;
+    private static final int TRUE = 1;
+    private static final int FALSE = 2;
+    private static final int INT = 3;
+    private static final int LONG = 4;
+    private static final int SHORT = 5;
+    private static final int BYTE = 6;
+    private static final int CHAR = 7;
+    private static final int FLOAT = 8;
+    private static final int DOUBLE = 9;
+    private static final int STRING = 10;
+    private static final int STRING_REF = 11;
+    private static final int ENUM = 12;
+    private static final int CLASS = 13;
+    private static final int OBJECT_ARRAY = 14;
+    private static final int ARRAY = 15;
+    private static final int LIST = 16;
+    private static final int MAP = 17;
+    private static final int EXTERNALIZABLE = 18;
+    private static final int SERIALIZED = 19;
+    private static final int REF = 20;
+
+    private static final Class<?>[] PRIMITIVES = {
+          boolean.class, byte.class, char.class, short.class, int.class,
+          long.class, float.class, double.class, void.class
+    };
+
+
+    // ---------------------------------------- Methods from SerializationProvider
+
+
+    @Override
+    public ObjectOutputStream createObjectOutputStream(OutputStream destination)
+    throws IOException {
+
+        return new TypedObjectOutputStream(destination);
+
+    }
+
+
+    @Override
+    public ObjectInputStream createObjectInputStream(InputStream source)
+    throws IOException {
+
+        return new TypedObjectInputStream(source);
+
+    }
+
+
+    // ---------------------------------------------------------- Nested Classes
+
+
+    /**
+     * Writes the typed format.  Primitive data written through the
+     * <code>DataOutput</code> methods is passed through unchanged.
+     */
+    private static final class TypedObjectOutputStream extends ObjectOutputStream {
+
+        private final DataOutputStream out;
+        private final Map<String,Integer> strings = new HashMap<>();
+        private final Map<Object,Integer> handles = new IdentityHashMap<>();
+        private ObjectOutputStream javaOut;
+
+
+        // -------------------------------------------------------- Constructors
+
+
+        TypedObjectOutputStream(OutputStream destination) throws IOException {
+
+            super();
+            out = new DataOutputStream(new BufferedOutputStream(destination, BUFFER_SIZE));
+            out.writeByte(VERSION);
+
+        }
+
+
+        // ------------------------------------------- Methods from ObjectOutputStream
+
+
+        @Override
+        protected void writeObjectOverride(Object obj) throws IOException {
+
+            if (obj == null) {
+                out.writeByte(NULL);
+                return;
+            }
+            Class<?> type = obj.getClass();
+            if (type == String.class) {
+                writeString((String) obj);
+            } else if (type == Boolean.class) {
+                out.writeByte(((Boolean) obj) ? TRUE : FALSE);
+            } else if (type == Integer.class) {
+                out.writeByte(INT);
+                writeVarInt(zigZag((Integer) obj));
+            } else if (type == Long.class) {
+                out.writeByte(LONG);
+                writeVarLong(zigZag((Long) obj));
+            } else if (type == Short.class) {
+                out.writeByte(SHORT);
+                writeVarInt(zigZag((Short) obj));
+            } else if (type == Byte.class) {
+                out.writeByte(BYTE);
+                out.writeByte((Byte) obj);
+            } else if (type == Character.class) {
+                out.writeByte(CHAR);
+                writeVarInt((Character) obj);
+            } else if (type == Float.class) {
+                out.writeByte(FLOAT);
+                out.writeFloat((Float) obj);
+            } else if (type == Double.class) {
+                out.writeByte(DOUBLE);
+                out.writeDouble((Double) obj);
+            } else if (obj instanceof Enum) {
+                Enum<?> e = (Enum<?>) obj;
+                out.writeByte(ENUM);
+                writeString(e.getDeclaringClass().getName());
+                writeVarInt(e.ordinal());
+            } else if (type == Class.class) {
+                out.writeByte(CLASS);
+                writeString(((Class<?>) obj).getName());
+            } else {
+                Integer handle = handles.get(obj);
+                if (handle != null) {
+                    out.writeByte(REF);
+                    writeVarInt(handle);
+                    return;
+                }
+                handles.put(obj, handles.size());
+                writeReferenceable(obj, type);
+            }
+
+        }
+
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+
+
+        @Override
+        public void write(byte[] b) throws IOException {
+            out.write(b, 0, b.length);
+        }
+
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+
+        @Override
+        public void writeBoolean(boolean v) throws IOException {
+            out.writeBoolean(v);
+        }
+
+
+        @Override
+        public void writeByte(int v) throws IOException {
+            out.writeByte(v);
+        }
+
+
+        @Override
+        public void writeShort(int v) throws IOException {
+            out.writeShort(v);
+        }
+
+
+        @Override
+        public void writeChar(int v) throws IOException {
+            out.writeChar(v);
+        }
+
+
+        @Override
+        public void writeInt(int v) throws IOException {
+            out.writeInt(v);
+        }
+
+
+        @Override
+        public void writeLong(long v) throws IOException {
+            out.writeLong(v);
+        }
+
+
+        @Override
+        public void writeFloat(float v) throws IOException {
+            out.writeFloat(v);
+        }
+
+
+        @Override
+        public void writeDouble(double v) throws IOException {
+            out.writeDouble(v);
+        }
+
+
+        @Override
+        public void writeBytes(String s) throws IOException {
+            out.writeBytes(s);
+        }
+
+
+        @Override
+        public void writeChars(String s) throws IOException {
+            out.writeChars(s);
+        }
+
+
+        @Override
+        public void writeUTF(String s) throws IOException {
+            out.writeUTF(s);
+        }
+
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+
+        // ----------------------------------------------------- Private Methods
+
+
+        private void writeReferenceable(Object obj, Class<?> type)
+        throws IOException {
+
+            if (type == Object[].class) {
+                Object[] array = (Object[]) obj;
+                out.writeByte(OBJECT_ARRAY);
+                writeVarInt(array.length);
+                for (Object element : array) {
+                    writeObject(element);
+                }
+            } else if (type.isArray() && !type.getComponentType().isPrimitive()) {
+                Object[] array = (Object[]) obj;
+                out.writeByte(ARRAY);
+                writeString(type.getComponentType().getName());
+                writeVarInt(array.length);
+                for (Object element : array) {
+                    writeObject(element);
+                }
+            } else if (type == ArrayList.class) {
+                List<?> list = (List<?>) obj;
+                out.writeByte(LIST);
+                writeVarInt(list.size());
+                for (Object element : list) {
+                    writeObject(element);
+                }
+            } else if (type == HashMap.class) {
+                Map<?,?> map = (Map<?,?>) obj;
+                out.writeByte(MAP);
+                writeVarInt(map.size());
+                for (Map.Entry<?,?> entry : map.entrySet()) {
+                    writeObject(entry.getKey());
+                    writeObject(entry.getValue());
+                }
+            } else if (obj instanceof Externalizable) {
+                out.writeByte(EXTERNALIZABLE);
+                writeString(type.getName());
+                ((Externalizable) obj).writeExternal(this);
+            } else if (obj instanceof Serializable) {
+                out.writeByte(SERIALIZED);
+                if (javaOut == null) {
+                    javaOut = new ObjectOutputStream(new NonClosingOutputStream(out));
+                }
+                javaOut.writeObject(obj);
+                javaOut.flush();
+            } else {
+                throw new NotSerializableException(type.getName());
+            }
+
+        }
+
+
+        private void writeString(String s) throws IOException {
+
+            Integer index = strings.get(s);
+            if (index != null) {
+                out.writeByte(STRING_REF);
+                writeVarInt(index);
+                return;
+            }
+            strings.put(s, strings.size());
+            out.writeByte(STRING);
+            int length = s.length();
+            writeVarInt(length);
+            for (int i = 0; i < length; i++) {
+                writeVarInt(s.charAt(i));
+            }
+
+        }
+
+
+        private void writeVarInt(int v) throws IOException {
+
+            writeVarLong(v & 0xFFFFFFFFL);
+
+        }
+
+
+        private void writeVarLong(long v) throws IOException {
+
+            while ((v & ~0x7FL) != 0) {
+                out.writeByte((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            out.writeByte((int) v);
+
+        }
+
+
+        private static int zigZag(int v) {
+            return (v << 1) ^ (v >> 31);
+        }
+
+
+        private static long zigZag(long v) {
+            return (v << 1) ^ (v >> 63);
+        }
+
+    } // END TypedObjectOutputStream
+
+
+    /**
+     * Lets the Java serialization stream embedded in a {@link TypedObjectOutputStream}
+     * write to the shared buffer without flushing or closing it.
+     */
+    private static final class NonClosingOutputStream extends OutputStream {
+
+        private final OutputStream out;
+
+        NonClosingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+    } // END NonClosingOutputStream
+
+
+    /**
+     * Reads the format written by {@link TypedObjectOutputStream}.
+     */
+    private static final class TypedObjectInputStream extends ObjectInputStream {
+
+        private final LookaheadInputStream lookahead;
+        private final DataInputStream in;
+        private final List<String> strings = new ArrayList<>();
+        private final List<Object> handles = new ArrayList<>();
+        private final Map<String,Class<?>> classes = new HashMap<>();
+        private final Map<Class<?>,Object[]> enumConstants = new HashMap<>();
+        private ObjectInputStream javaIn;
+
+        /**
+         * The number of elements of the containers and strings being read
+         * that have not been read yet.  Each of them takes at least one byte.
+         */
+        private long outstanding;
+
+
+        // -------------------------------------------------------- Constructors
+
+
+        TypedObjectInputStream(InputStream source) throws IOException {
+
+            super();
+            lookahead = new LookaheadInputStream(source);
+            in = new DataInputStream(lookahead);
+            int version = in.read();
+            if (version != VERSION) {
+                throw new StreamCorruptedException("Unsupported state format version: " + version);
+            }
+
+        }
+
+
+        // -------------------------------------------- Methods from ObjectInputStream
+
+
+        @Override
+        protected Object readObjectOverride()
+        throws IOException, ClassNotFoundException {
+
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case INT:
+                    return unZigZag(readVarInt());
+                case LONG:
+                    return unZigZag(readVarLong());
+                case SHORT:
+                    return (short) unZigZag(readVarInt());
+                case BYTE:
+                    return in.readByte();
+                case CHAR:
+                    return (char) readVarInt();
+                case FLOAT:
+                    return in.readFloat();
+                case DOUBLE:
+                    return in.readDouble();
+                case STRING:
+                case STRING_REF:
+                    return readString(tag);
+                case ENUM:
+                    return readEnum();
+                case CLASS:
+                    return readClass(tag);
+                case OBJECT_ARRAY:
+                    return readElements(new Object[readLength()]);
+                case ARRAY:
+                    Class<?> componentType = readClass(tag);
+                    return readElements((Object[]) Array.newInstance(componentType, readLength()));
+                case LIST:
+                    int size = readLength();
+                    List<Object> list = new ArrayList<>(size);
+                    handles.add(list);
+                    for (int i = 0; i < size; i++) {
+                        outstanding--;
+                        list.add(readObject());
+                    }
+                    return list;
+                case MAP:
+                    int entries = readLength();
+                    Map<Object,Object> map = new HashMap<>(Math.max(4, (int) (entries / .75f) + 1));
+                    handles.add(map);
+                    for (int i = 0; i < entries; i++) {
+                        outstanding--;
+                        map.put(readObject(), readObject());
+                    }
+                    return map;
+                case EXTERNALIZABLE:
+                    return readExternalizable();
+                case SERIALIZED:
+                    if (javaIn == null) {
+                        javaIn = new ApplicationObjectInputStream(in);
+                    }
+                    Object obj = javaIn.readObject();
+                    handles.add(obj);
+                    return obj;
+                case REF:
+                    int handle = readVarInt();
+                    if (handle < 0 || handle >= handles.size()) {
+                        throw new StreamCorruptedException("Invalid object reference: " + handle);
+                    }
+                    return handles.get(handle);
+                default:
+                    throw new StreamCorruptedException("Unknown type tag: " + tag);
+            }
+
+        }
+
+
+        @Override
+        public int read() throws IOException {
+            return in.read();
+        }
+
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return in.read(b, off, len);
+        }
+
+
+        @Override
+        public int available() throws IOException {
+            return in.available();
+        }
+
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+
+        @Override
+        public boolean readBoolean() throws IOException {
+            return in.readBoolean();
+        }
+
+
+        @Override
+        public byte readByte() throws IOException {
+            return in.readByte();
+        }
+
+
+        @Override
+        public int readUnsignedByte() throws IOException {
+            return in.readUnsignedByte();
+        }
+
+
+        @Override
+        public char readChar() throws IOException {
+            return in.readChar();
+        }
+
+
+        @Override
+        public short readShort() throws IOException {
+            return in.readShort();
+        }
+
+
+        @Override
+        public int readUnsignedShort() throws IOException {
+            return in.readUnsignedShort();
+        }
+
+
+        @Override
+        public int readInt() throws IOException {
+            return in.readInt();
+        }
+
+
+        @Override
+        public long readLong() throws IOException {
+            return in.readLong();
+        }
+
+
+        @Override
+        public float readFloat() throws IOException {
+            return in.readFloat();
+        }
+
+
+        @Override
+        public double readDouble() throws IOException {
+            return in.readDouble();
+        }
+
+
+        @Override
+        public void readFully(byte[] b) throws IOException {
+            in.readFully(b);
+        }
+
+
+        @Override
+        public void readFully(byte[] b, int off, int len) throws IOException {
+            in.readFully(b, off, len);
+        }
+
+
+        @Override
+        public int skipBytes(int len) throws IOException {
+            return in.skipBytes(len);
+        }
+
+
+        @Override
+        public String readUTF() throws IOException {
+            return in.readUTF();
+        }
+
+
+        // ----------------------------------------------------- Private Methods
+
+
+        private Object[] readElements(Object[] array)
+        throws IOException, ClassNotFoundException {
+
+            handles.add(array);
+            for (int i = 0; i < array.length; i++) {
+                outstanding--;
+                array[i] = readObject();
+            }
+            return array;
+
+        }
+
+
+        private Object readEnum() throws IOException, ClassNotFoundException {
+
+            Class<?> type = readClass(ENUM);
+            int ordinal = readVarInt();
+            Object[] constants = enumConstants.get(type);
+            if (constants == null) {
+                constants = type.getEnumConstants();
+                if (constants == null) {
+                    throw new InvalidClassException(type.getName(), "not an enum");
+                }
+                enumConstants.put(type, constants);
+            }
+            if (ordinal < 0 || ordinal >= constants.length) {
+                throw new InvalidClassException(type.getName(),
+                                                "no enum constant with ordinal " + ordinal);
+            }
+            return constants[ordinal];
+
+        }
+
+
+        private Object readExternalizable()
+        throws IOException, ClassNotFoundException {
+
+            Class<?> type = readClass(EXTERNALIZABLE);
+            Externalizable obj;
+            try {
+                Constructor<?> ctor = type.getConstructor();
+                obj = (Externalizable) ctor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                InvalidClassException ice =
+                      new InvalidClassException(type.getName(), "unable to instantiate");
+                ice.initCause(e);
+                throw ice;
+            }
+            handles.add(obj);
+            obj.readExternal(this);
+            return obj;
+
+        }
+
+
+        /**
+         * Reads a class name and loads the class without initializing it.
+         * @param tag the type tag the class is read for
+         * @return the class, if it is of the kind the writer emits for
+         *  <code>tag</code>
+         */
+        private Class<?> readClass(int tag) throws IOException, ClassNotFoundException {
+
+            String name = readString(in.readUnsignedByte());
+            Class<?> type = classes.get(name);
+            if (type == null) {
+                type = loadClass(name);
+                classes.put(name, type);
+            }
+            if (tag == ENUM && !type.isEnum()) {
+                throw new InvalidClassException(name, "not an enum");
+            }
+            if (tag == EXTERNALIZABLE) {
+                if (!Externalizable.class.isAssignableFrom(type)) {
+                    throw new InvalidClassException(name, "not Externalizable");
+                }
+                if (!Modifier.isPublic(type.getModifiers())
+                    || Modifier.isAbstract(type.getModifiers())
+                    || !hasPublicNoArgConstructor(type)) {
+                    throw new InvalidClassException(name, "no valid constructor");
+                }
+            }
+            return type;
+
+        }
+
+
+        private Class<?> loadClass(String name) throws ClassNotFoundException {
+
+            for (Class<?> primitive : PRIMITIVES) {
+                if (primitive.getName().equals(name)) {
+                    return primitive;
+                }
+            }
+            // the class is initialized once it is used, after it has been
+            // checked
+            return Class.forName(name, false, Util.getCurrentLoader(this));
+
+        }
+
+
+        private static boolean hasPublicNoArgConstructor(Class<?> type) {
+
+            try {
+                type.getConstructor();
+                return true;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+
+        }
+
+
+        private String readString(int tag) throws IOException {
+
+            if (tag == STRING_REF) {
+                int index = readVarInt();
+                if (index < 0 || index >= strings.size()) {
+                    throw new StreamCorruptedException("Invalid string reference: " + index);
+                }
+                return strings.get(index);
+            }
+            if (tag != STRING) {
+                throw new StreamCorruptedException("Expected a string, found type tag: " + tag);
+            }
+            int length = readLength();
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                outstanding--;
+                chars[i] = (char) readVarInt();
+            }
+            String s = new String(chars);
+            strings.add(s);
+            return s;
+
+        }
+
+
+        /**
+         * Reads the length of an array, collection or string.  Each element
+         * takes at least one byte, so once the elements of all containers
+         * being read exceed the remaining input, the length is rejected
+         * before anything is allocated for it.  The remaining input is not
+         * known up front when reading from a decompressing stream, so it is
+         * buffered ahead as far as needed.  Each byte of the input is only
+         * read once that way, however deeply the containers are nested.
+         */
+        private int readLength() throws IOException {
+
+            int length = readVarInt();
+            if (length < 0) {
+                throw new StreamCorruptedException("Invalid length: " + length);
+            }
+            outstanding += length;
+            if (outstanding > UNVERIFIED_LENGTH
+                && !lookahead.ensureAvailable(outstanding)) {
+                throw new EOFException("Length " + length
+                                       + " exceeds the remaining input");
+            }
+            return length;
+
+        }
+
+
+        private int readVarInt() throws IOException {
+
+            return (int) readVarLong();
+
+        }
+
+
+        private long readVarLong() throws IOException {
+
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.readUnsignedByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new StreamCorruptedException("Malformed variable length integer");
+
+        }
+
+
+        private static int unZigZag(int v) {
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+
+        private static long unZigZag(long v) {
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+    } // END TypedObjectInputStream
+
+
+    /**
+     * A buffered stream that can read ahead as far as needed to tell whether
+     * the input holds a number of bytes.  Bytes read ahead are kept until
+     * they are consumed, so the underlying stream is read only once.
+     */
+    private static final class LookaheadInputStream extends InputStream {
+
+        // larger amounts are never buffered
+        private static final int MAX_LOOKAHEAD = Integer.MAX_VALUE - 16;
+
+        private final InputStream in;
+        private byte[] buf = new byte[BUFFER_SIZE];
+        private int pos;
+        private int count;
+
+
+        LookaheadInputStream(InputStream in) {
+            this.in = in;
+        }
+
+
+        /**
+         * @param n the number of bytes
+         * @return <code>true</code> if at least <code>n</code> more bytes
+         *  can be read
+         */
+        boolean ensureAvailable(long n) throws IOException {
+
+            if (n > MAX_LOOKAHEAD) {
+                return false;
+            }
+            while (count - pos < n) {
+                if (count == buf.length) {
+                    if (pos > buf.length / 2) {
+                        // only move the content once at least as much has
+                        // been consumed
+                        System.arraycopy(buf, pos, buf, 0, count - pos);
+                        count -= pos;
+                        pos = 0;
+                    } else {
+                        long size = Math.max((long) buf.length * 2, n - pos);
+                        buf = Arrays.copyOf(buf, (int) Math.min(size, MAX_LOOKAHEAD));
+                    }
+                }
+                int read = in.read(buf, count, buf.length - count);
+                if (read == -1) {
+                    return false;
+                }
+                count += read;
+            }
+            return true;
+
+        }
+
+
+        @Override
+        public int read() throws IOException {
+
+            if (pos == count && !fill()) {
+                return -1;
+            }
+            return buf[pos++] & 0xFF;
+
+        }
+
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+
+            if (len == 0) {
+                return 0;
+            }
+            if (pos == count && !fill()) {
+                return -1;
+            }
+            int n = Math.min(len, count - pos);
+            System.arraycopy(buf, pos, b, off, n);
+            pos += n;
+            return n;
+
+        }
+
+
+        @Override
+        public long skip(long n) throws IOException {
+
+            if (n <= 0) {
+                return 0;
+            }
+            if (pos == count && !fill()) {
+                return 0;
+            }
+            int skipped = (int) Math.min(n, count - pos);
+            pos += skipped;
+            return skipped;
+
+        }
+
+
+        @Override
+        public int available() throws IOException {
+            return (count - pos) + in.available();
+        }
+
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+
+        private boolean fill() throws IOException {
+
+            pos = 0;
+            count = 0;
+            int read = in.read(buf, 0, buf.length);
+            if (read <= 0) {
+                return false;
+            }
+            count = read;
+            return true;
+
+        }
+
+    } // END LookaheadInputStream
+
+} // END TypedStateSerializationProvider
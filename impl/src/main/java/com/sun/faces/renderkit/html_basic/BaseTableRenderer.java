@@ -53,6 +53,7 @@ import javax.faces.component.UIColumn;
 import javax.faces.component.UIData;
 
 import com.sun.faces.renderkit.Attribute;
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.renderkit.RenderKitUtils;
 import com.sun.faces.util.Util;
 
@@ -129,7 +130,7 @@ public abstract class BaseTableRenderer extends HtmlBasicRenderer {
         writeIdAttributeIfNecessary(context, writer, table);
         String styleClass = (String) table.getAttributes().get("styleClass");
         if (styleClass != null) {
-            writer.writeAttribute("class", styleClass, "styleClass");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, styleClass, "styleClass");
         }
         RenderKitUtils.renderPassThruAttributes(context,
                                                 writer,
@@ -180,10 +181,10 @@ public abstract class BaseTableRenderer extends HtmlBasicRenderer {
                   table.getAttributes().get("captionStyle");
             writer.startElement("caption", table);
             if (captionClass != null) {
-                writer.writeAttribute("class", captionClass, "captionClass");
+                RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, captionClass, "captionClass");
             }
             if (captionStyle != null) {
-                writer.writeAttribute("style", captionStyle, "captionStyle");
+                RenderKitUtils.writeAttribute(writer, AttributeToken.STYLE, captionStyle, "captionStyle");
             }
             encodeRecursive(context, caption);
             writer.endElement("caption");
@@ -253,14 +254,14 @@ public abstract class BaseTableRenderer extends HtmlBasicRenderer {
             if(rowClass != null) {
                 throw new IOException("Cannot define both rowClasses on a table and rowClass");
             }
-            writer.writeAttribute("class", tableRowClass, "rowClasses");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, tableRowClass, "rowClasses");
         }
         
         if(rowClass != null){
             if(tableRowClass != null) {
                 throw new IOException("Cannot define both rowClasses on a table and rowClass");
             }
-            writer.writeAttribute("class", rowClass, "rowClass");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, rowClass, "rowClass");
         }
         
         writer.writeText("\n", table, null);
@@ -46,6 +46,7 @@ import javax.faces.component.UIComponent;
 import javax.faces.component.UIViewRoot;
 import javax.faces.context.FacesContext;
 import javax.faces.context.ResponseWriter;
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.renderkit.RenderKitUtils;
 import com.sun.faces.renderkit.Attribute;
 import com.sun.faces.renderkit.AttributeManager;
@@ -81,7 +82,7 @@ public class BodyRenderer extends HtmlBasicRenderer {
         writeIdAttributeIfNecessary(context, writer, component);
         String styleClass = (String) component.getAttributes().get("styleClass");
         if (styleClass != null && styleClass.length() != 0) {
-            writer.writeAttribute("class", styleClass, "styleClass");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, styleClass, "styleClass");
         }
         RenderKitUtils.renderPassThruAttributes(context,
                                                 writer,
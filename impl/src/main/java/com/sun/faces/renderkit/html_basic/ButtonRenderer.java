@@ -60,6 +60,7 @@ import javax.faces.event.ActionEvent;
 
 import com.sun.faces.renderkit.Attribute;
 import com.sun.faces.renderkit.AttributeManager;
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.renderkit.RenderKitUtils;
 
 /**
@@ -142,13 +143,13 @@ public class ButtonRenderer extends HtmlBasicRenderer {
         writeIdAttributeIfNecessary(context, writer, component);
         String clientId = component.getClientId(context);
         if (imageSrc != null) {
-            writer.writeAttribute("type", "image", "type");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.TYPE, "image", "type");
             writer.writeURIAttribute("src", RenderKitUtils.getImageSource(context, component, "image"), "image");
-            writer.writeAttribute("name", clientId, "clientId");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.NAME, clientId, "clientId");
         } else {
-            writer.writeAttribute("type", type, "type");
-            writer.writeAttribute("name", clientId, "clientId");
-            writer.writeAttribute("value", label, "value");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.TYPE, type, "type");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.NAME, clientId, "clientId");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.VALUE, label, "value");
         }
 
         RenderKitUtils.renderPassThruAttributes(context,
@@ -162,7 +163,7 @@ public class ButtonRenderer extends HtmlBasicRenderer {
         String styleClass = (String)
               component.getAttributes().get("styleClass");
         if (styleClass != null && styleClass.length() > 0) {
-            writer.writeAttribute("class", styleClass, "styleClass");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, styleClass, "styleClass");
         }
 
         RenderKitUtils.renderOnclick(context, 
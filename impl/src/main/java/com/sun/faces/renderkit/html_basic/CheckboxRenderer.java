@@ -53,6 +53,7 @@ import javax.faces.convert.ConverterException;
 
 import com.sun.faces.renderkit.Attribute;
 import com.sun.faces.renderkit.AttributeManager;
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.renderkit.RenderKitUtils;
 
 
@@ -134,16 +135,16 @@ public class CheckboxRenderer extends HtmlBasicInputRenderer {
 
         writer.startElement("input", component);
         writeIdAttributeIfNecessary(context, writer, component);
-        writer.writeAttribute("type", "checkbox", "type");
-        writer.writeAttribute("name", component.getClientId(context),
-                              "clientId");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.TYPE, "checkbox", "type");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.NAME, component.getClientId(context),
+                                      "clientId");
 
         if (Boolean.valueOf(currentValue)) { 
             writer.writeAttribute("checked", Boolean.TRUE, "value");
         }
         if (null != (styleClass = (String)
               component.getAttributes().get("styleClass"))) {
-            writer.writeAttribute("class", styleClass, "styleClass");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, styleClass, "styleClass");
         }
         RenderKitUtils.renderPassThruAttributes(context,
                                                 writer,
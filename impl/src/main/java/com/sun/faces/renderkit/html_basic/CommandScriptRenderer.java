@@ -54,6 +54,7 @@ import javax.faces.context.ResponseWriter;
 import javax.faces.event.ActionEvent;
 import javax.faces.event.PhaseId;
 
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.renderkit.RenderKitUtils;
 
 
@@ -116,9 +117,9 @@ public class CommandScriptRenderer extends HtmlBasicRenderer {
         assert (writer != null);
         
         writer.startElement("span", commandScript);
-        writer.writeAttribute("id", clientId, "id");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.ID, clientId, "id");
         writer.startElement("script", commandScript);
-        writer.writeAttribute("type", "text/javascript", "type");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.TYPE, "text/javascript", "type");
 
         RenderKitUtils.renderFunction(context, component, getBehaviorParameters(commandScript), clientId);
     }
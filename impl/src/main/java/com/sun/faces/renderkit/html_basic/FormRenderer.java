@@ -60,6 +60,7 @@ import com.sun.faces.config.WebConfiguration;
 import com.sun.faces.config.WebConfiguration.BooleanWebContextInitParameter;
 import com.sun.faces.renderkit.Attribute;
 import com.sun.faces.renderkit.AttributeManager;
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.renderkit.RenderKitUtils;
 
 /** <B>FormRenderer</B> is a class that renders a <code>UIForm<code> as a Form. */
@@ -130,14 +131,14 @@ public class FormRenderer extends HtmlBasicRenderer {
         // to the pass through attributes in Util class.
         writer.write('\n');
         writer.startElement("form", component);
-        writer.writeAttribute("id", clientId, "clientId");
-        writer.writeAttribute("name", clientId, "name");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.ID, clientId, "clientId");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.NAME, clientId, "name");
         writer.writeAttribute("method", "post", null);
         writer.writeAttribute("action", getActionStr(context), null);
         String styleClass =
               (String) component.getAttributes().get("styleClass");
         if (styleClass != null) {
-            writer.writeAttribute("class", styleClass, "styleClass");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, styleClass, "styleClass");
         }
         String acceptcharset = (String)
               component.getAttributes().get("acceptcharset");
@@ -155,10 +156,10 @@ public class FormRenderer extends HtmlBasicRenderer {
         // this hidden field will be checked in the decode method to
         // determine if this form has been submitted.         
         writer.startElement("input", null);
-        writer.writeAttribute("type", "hidden", "type");
-        writer.writeAttribute("name", clientId,
-                              "clientId");
-        writer.writeAttribute("value", clientId, "value");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.TYPE, "hidden", "type");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.NAME, clientId,
+                                      "clientId");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.VALUE, clientId, "value");
         writer.endElement("input");
         writer.write('\n');
         
@@ -174,9 +175,9 @@ public class FormRenderer extends HtmlBasicRenderer {
         if (encodedPartialActionURL != null && 
             (!encodedPartialActionURL.equals(encodedActionURL))) {
             writer.startElement("input", null);
-            writer.writeAttribute("type", "hidden", "type");
-            writer.writeAttribute("name", getParameterName(context, "javax.faces.encodedURL"), null);
-            writer.writeAttribute("value", encodedPartialActionURL, "value");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.TYPE, "hidden", "type");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.NAME, getParameterName(context, "javax.faces.encodedURL"), null);
+            RenderKitUtils.writeAttribute(writer, AttributeToken.VALUE, encodedPartialActionURL, "value");
             writer.endElement("input");
             writer.write('\n');
         }
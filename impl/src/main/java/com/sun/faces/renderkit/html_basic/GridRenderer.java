@@ -50,6 +50,8 @@ import javax.faces.context.ResponseWriter;
 
 import com.sun.faces.renderkit.Attribute;
 import com.sun.faces.renderkit.AttributeManager;
+import com.sun.faces.renderkit.AttributeToken;
+import com.sun.faces.renderkit.RenderKitUtils;
 
 /**
  * <B>GridRenderer</B> is a class that renders <code>UIPanel</code> component
@@ -179,9 +181,9 @@ public class GridRenderer extends BaseTableRenderer {
         writer.startElement("td", table);
         String columnClass = info.getCurrentColumnClass();
         if (columnClass != null) {
-            writer.writeAttribute("class",
-                                  columnClass,
-                                  "columns");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS,
+                                          columnClass,
+                                          "columns");
         }
         encodeRecursive(context, child);
         writer.endElement("td");
@@ -205,7 +207,7 @@ public class GridRenderer extends BaseTableRenderer {
             writer.startElement("tr", header);
             writer.startElement("th", header);
             if (headerClass != null) {
-                writer.writeAttribute("class", headerClass, "headerClass");
+                RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, headerClass, "headerClass");
             }
             writer.writeAttribute("colspan",
                                   String.valueOf(info.columns.size()),
@@ -237,7 +239,7 @@ public class GridRenderer extends BaseTableRenderer {
             writer.startElement("tr", footer);
             writer.startElement("td", footer);
             if (footerClass != null) {
-                writer.writeAttribute("class", footerClass, "footerClass");
+                RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, footerClass, "footerClass");
             }
             writer.writeAttribute("colspan",
                                   String.valueOf(info.columns.size()),
@@ -42,6 +42,7 @@ package com.sun.faces.renderkit.html_basic;
 
 import com.sun.faces.renderkit.Attribute;
 import com.sun.faces.renderkit.AttributeManager;
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.renderkit.RenderKitUtils;
 import java.io.IOException;
 import java.util.Iterator;
@@ -84,7 +85,7 @@ private static final Attribute[] ATTRIBUTES =
             }
             writeIdAttributeIfNecessary(context, writer, component);
             if (styleClass != null) {
-                writer.writeAttribute("class", styleClass, "styleClass");
+                RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, styleClass, "styleClass");
             }
             // JAVASERVERFACES-3270: do not manually render "style" as it is handled
             // in renderPassThruAttributes().
@@ -40,12 +40,15 @@
 
 package com.sun.faces.renderkit.html_basic;
 
+import com.sun.faces.RIConstants;
 import com.sun.faces.config.FaceletsConfiguration;
 import com.sun.faces.config.WebConfiguration;
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.renderkit.RenderKitUtils;
 import com.sun.faces.renderkit.Attribute;
 import com.sun.faces.renderkit.AttributeManager;
 
+import java.io.Flushable;
 import java.io.IOException;
 
 import javax.faces.component.UIComponent;
@@ -83,7 +86,7 @@ public class HeadRenderer extends Renderer {
         FaceletsConfiguration faceletsConfig = webConfig.getFaceletsConfiguration();
         if (faceletsConfig.isOutputHtml5Doctype(context.getViewRoot().getViewId())) {
             String clientId = component.getClientId(context);
-            writer.writeAttribute("id", clientId, "clientId");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.ID, clientId, "clientId");
         }
     }
 
@@ -99,6 +102,14 @@ public class HeadRenderer extends Renderer {
         ResponseWriter writer = context.getResponseWriter();
         encodeHeadResources(context);
         writer.endElement("head");
+
+        // let the browser start loading the head resources while the body
+        // is rendered
+        Flushable earlyFlush = (Flushable)
+              context.getAttributes().get(RIConstants.EARLY_FLUSH);
+        if (earlyFlush != null) {
+            earlyFlush.flush();
+        }
     }
 
 
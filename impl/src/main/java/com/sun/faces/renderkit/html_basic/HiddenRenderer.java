@@ -48,6 +48,9 @@ import javax.faces.component.UIComponent;
 import javax.faces.context.FacesContext;
 import javax.faces.context.ResponseWriter;
 
+import com.sun.faces.renderkit.AttributeToken;
+import com.sun.faces.renderkit.RenderKitUtils;
+
 /**
  * <B>HiddenRenderer</B> is a class that renders the current value of
  * <code>UIInput<code> component as a HTML hidden variable.
@@ -79,13 +82,13 @@ public class HiddenRenderer extends HtmlBasicInputRenderer {
 
         writer.startElement("input", component);
         writeIdAttributeIfNecessary(context, writer, component);
-        writer.writeAttribute("type", "hidden", "type");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.TYPE, "hidden", "type");
         String clientId = component.getClientId(context);
-        writer.writeAttribute("name", clientId, "clientId");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.NAME, clientId, "clientId");
 
         // render default text specified
         if (currentValue != null) {
-            writer.writeAttribute("value", currentValue, "value");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.VALUE, currentValue, "value");
         }
         writer.endElement("input");
 
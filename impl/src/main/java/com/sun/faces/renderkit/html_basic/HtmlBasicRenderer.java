@@ -82,6 +82,8 @@ import javax.faces.convert.Converter;
 import javax.faces.convert.ConverterException;
 import javax.faces.render.Renderer;
 
+import com.sun.faces.renderkit.AttributeToken;
+import com.sun.faces.renderkit.RenderKitUtils;
 import com.sun.faces.util.FacesLogger;
 import com.sun.faces.util.MessageUtils;
 import com.sun.faces.util.Util;
@@ -671,7 +673,7 @@ public abstract class HtmlBasicRenderer extends Renderer {
         String id = null;
         if (shouldWriteIdAttribute(component)) {
             try {
-                writer.writeAttribute("id", id = component.getClientId(context), "id");
+                RenderKitUtils.writeAttribute(writer, AttributeToken.ID, id = component.getClientId(context), "id");
             } catch (IOException e) {
                 if (logger.isLoggable(WARNING)) {
                     logger.warning(
@@ -54,7 +54,10 @@ import javax.faces.context.ResponseWriter;
 import com.sun.faces.RIConstants;
 import com.sun.faces.config.WebConfiguration;
 import com.sun.faces.config.WebConfiguration.BooleanWebContextInitParameter;
+import com.sun.faces.io.EncodedText;
+import com.sun.faces.io.EncodedTextSink;
 import com.sun.faces.io.FastStringWriter;
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.util.HtmlUtils;
 import com.sun.faces.util.MessageUtils;
 import java.util.Map;
@@ -69,7 +72,7 @@ import javax.faces.render.Renderer;
  * of the <code>ResponseWriter</code> abstract class.
  * Kudos to Adam Winer (Oracle) for much of this code.
  */
-public class HtmlResponseWriter extends ResponseWriter {
+public class HtmlResponseWriter extends ResponseWriter implements EncodedTextSink {
 
 
     // Content Type for this Writer.
@@ -757,6 +760,24 @@ public class HtmlResponseWriter extends ResponseWriter {
         writer.write(str, off, len);
     }
 
+    /**
+     * <p>Writes pre-encoded static markup if the underlying writer is able
+     * to take it.  Any open start element is closed first, so callers may
+     * fall back to {@link #write(String)} when <code>false</code> is
+     * returned.</p>
+     *
+     * @param text the static markup to write
+     * @return <code>true</code> if the markup has been written
+     * @throws IOException if an error occurs writing
+     */
+    @Override
+    public boolean write(EncodedText text) throws IOException {
+        closeStartIfNecessary();
+        // inside script or style elements writer is the script buffer
+        return writer instanceof EncodedTextSink
+               && ((EncodedTextSink) writer).write(text);
+    }
+
 
     /**
      * <p>Write a properly escaped attribute name and the corresponding
@@ -785,6 +806,43 @@ public class HtmlResponseWriter extends ResponseWriter {
             throw new NullPointerException(MessageUtils.getExceptionMessageString(
                   MessageUtils.NULL_PARAMETERS_ERROR_MESSAGE_ID, "name"));
         }
+        writeAttribute(name, null, value);
+
+    }
+
+
+    /**
+     * <p>Identical to {@link #writeAttribute(String, Object, String)}, but
+     * writes the pre-encoded <code> name="</code> prefix held by the
+     * token in one call.</p>
+     *
+     * @param token                 Attribute name to be added
+     * @param value                 Attribute value to be added
+     * @param componentPropertyName The name of the component property to
+     *                              which this attribute argument applies.  This argument may be
+     *                              <code>null</code>.
+     *
+     * @throws IllegalStateException if this method is called when there
+     *                               is no currently open element
+     * @throws IOException           if an input/output error occurs
+     * @throws NullPointerException  if <code>token</code> is <code>null</code>
+     */
+    public void writeAttribute(AttributeToken token, Object value,
+                               String componentPropertyName)
+          throws IOException {
+
+        if (token == null) {
+            throw new NullPointerException(MessageUtils.getExceptionMessageString(
+                  MessageUtils.NULL_PARAMETERS_ERROR_MESSAGE_ID, "name"));
+        }
+        writeAttribute(token.getName(), token.getPrefix(), value);
+
+    }
+
+
+    private void writeAttribute(String name, char[] prefix, Object value)
+          throws IOException {
+
         if (value == null) {
             return;
         }
@@ -811,16 +869,12 @@ public class HtmlResponseWriter extends ResponseWriter {
                 //        name of the attribute itself or appear using
                 //        minimization.
                 //  http://www.w3.org/TR/html401/intro/sgmltut.html#h-3.3.4.2
-                attributesBuffer.write(' ');
-                attributesBuffer.write(name);
-                attributesBuffer.write("=\"");
+                writeAttributePrefix(name, prefix);
                 attributesBuffer.write(name);
                 attributesBuffer.write('"');
             }
         } else {
-            attributesBuffer.write(' ');
-            attributesBuffer.write(name);
-            attributesBuffer.write("=\"");
+            writeAttributePrefix(name, prefix);
             // write the attribute value
             String val = value.toString();
             ensureTextBufferCapacity(val);
@@ -837,6 +891,20 @@ public class HtmlResponseWriter extends ResponseWriter {
     }
 
 
+    private void writeAttributePrefix(String name, char[] prefix)
+          throws IOException {
+
+        if (prefix != null) {
+            attributesBuffer.write(prefix, 0, prefix.length);
+        } else {
+            attributesBuffer.write(' ');
+            attributesBuffer.write(name);
+            attributesBuffer.write("=\"");
+        }
+
+    }
+
+
     /**
      * <p>Write a comment string containing the specified text.
      * The text will be converted to a String if necessary.
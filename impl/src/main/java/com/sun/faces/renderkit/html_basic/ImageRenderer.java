@@ -52,6 +52,7 @@ import javax.faces.context.ResponseWriter;
 import com.sun.faces.RIConstants;
 import com.sun.faces.renderkit.Attribute;
 import com.sun.faces.renderkit.AttributeManager;
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.renderkit.RenderKitUtils;
 
 /**
@@ -109,7 +110,7 @@ public class ImageRenderer extends HtmlBasicRenderer {
         String styleClass;
         if (null != (styleClass = (String)
               component.getAttributes().get("styleClass"))) {
-            writer.writeAttribute("class", styleClass, "styleClass");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, styleClass, "styleClass");
         }
         writer.endElement("img");
         if (logger.isLoggable(Level.FINER)) {
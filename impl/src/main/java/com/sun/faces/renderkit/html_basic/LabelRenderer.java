@@ -53,6 +53,7 @@ import javax.faces.context.ResponseWriter;
 
 import com.sun.faces.renderkit.Attribute;
 import com.sun.faces.renderkit.AttributeManager;
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.renderkit.RenderKitUtils;
 import java.util.EnumSet;
 import java.util.Set;
@@ -121,7 +122,7 @@ public class LabelRenderer extends HtmlBasicInputRenderer {
         String styleClass = (String)
             component.getAttributes().get("styleClass");
         if (null != styleClass) {
-            writer.writeAttribute("class", styleClass, "styleClass");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, styleClass, "styleClass");
         }
 
         // render the curentValue as label text if specified.
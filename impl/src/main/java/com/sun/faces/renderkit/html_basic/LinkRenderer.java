@@ -51,6 +51,7 @@ import javax.faces.context.ResponseWriter;
 
 import com.sun.faces.renderkit.Attribute;
 import com.sun.faces.renderkit.AttributeManager;
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.renderkit.RenderKitUtils;
 
 
@@ -84,7 +85,7 @@ public abstract class LinkRenderer extends HtmlBasicRenderer {
         String writtenId =
               writeIdAttributeIfNecessary(context, writer, component);
         if (null != writtenId) {
-            writer.writeAttribute("name", writtenId, "name");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.NAME, writtenId, "name");
         }
 
         RenderKitUtils.renderPassThruAttributes(context,
@@ -107,7 +108,7 @@ public abstract class LinkRenderer extends HtmlBasicRenderer {
         String styleClass = (String)
               component.getAttributes().get("styleClass");
         if (styleClass != null) {
-            writer.writeAttribute("class", styleClass, "styleClass");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, styleClass, "styleClass");
         }
 
     }
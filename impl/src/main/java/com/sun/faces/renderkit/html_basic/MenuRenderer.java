@@ -98,6 +98,8 @@ import javax.faces.model.SelectItemGroup;
 import com.sun.faces.io.FastStringWriter;
 import com.sun.faces.renderkit.Attribute;
 import com.sun.faces.renderkit.AttributeManager;
+import com.sun.faces.renderkit.AttributeToken;
+import com.sun.faces.renderkit.RenderKitUtils;
 import com.sun.faces.renderkit.SelectItemsIterator;
 import com.sun.faces.util.RequestStateManager;
 import com.sun.faces.util.Util;
@@ -424,7 +426,7 @@ public class MenuRenderer extends HtmlBasicInputRenderer {
         assert (writer != null);
         writer.writeText("\t", component, null);
         writer.startElement("option", (null != selectComponent) ? selectComponent : component);
-        writer.writeAttribute("value", valueString, "value");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.VALUE, valueString, "value");
 
         if (isSelected) {
             writer.writeAttribute("selected", true, "selected");
@@ -443,7 +445,7 @@ public class MenuRenderer extends HtmlBasicInputRenderer {
             labelClass = optionInfo.getEnabledClass();
         }
         if (labelClass != null) {
-            writer.writeAttribute("class", labelClass, "labelClass");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, labelClass, "labelClass");
         }
 
         if (curItem.isEscape()) {
@@ -646,12 +648,12 @@ public class MenuRenderer extends HtmlBasicInputRenderer {
         
         writer.startElement("select", component);
         writeIdAttributeIfNecessary(context, writer, component);
-        writer.writeAttribute("name", component.getClientId(context), "clientId");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.NAME, component.getClientId(context), "clientId");
         
         // Render styleClass attribute if present.
         String styleClass;
         if ((styleClass = (String) component.getAttributes().get("styleClass")) != null) {
-            writer.writeAttribute("class", styleClass, "styleClass");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, styleClass, "styleClass");
         }
         
         if (!getMultipleText(component).equals("")) {
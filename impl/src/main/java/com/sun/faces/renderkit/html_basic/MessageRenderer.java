@@ -53,6 +53,7 @@ import javax.faces.component.UIOutput;
 import javax.faces.context.FacesContext;
 import javax.faces.context.ResponseWriter;
 
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.renderkit.RenderKitUtils;
 
 /**
@@ -233,10 +234,10 @@ public class MessageRenderer extends HtmlBasicRenderer {
 
             wroteSpan = true;
             if (style != null) {               
-                writer.writeAttribute("style", style, "style");
+                RenderKitUtils.writeAttribute(writer, AttributeToken.STYLE, style, "style");
             }
             if (styleClass != null) {
-                writer.writeAttribute("class", styleClass, "styleClass");
+                RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, styleClass, "styleClass");
             }
             if (dir != null) {
                 writer.writeAttribute("dir", dir, "dir");
@@ -53,6 +53,7 @@ import javax.faces.context.ResponseWriter;
 
 import com.sun.faces.renderkit.Attribute;
 import com.sun.faces.renderkit.AttributeManager;
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.renderkit.RenderKitUtils;
 
 /**
@@ -147,7 +148,7 @@ public class MessagesRenderer extends HtmlBasicRenderer {
         //Render "table" or "ul" level attributes.
         writeIdAttributeIfNecessary(context, writer, component);
         if (null != styleClass) {
-            writer.writeAttribute("class", styleClass, "styleClass");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, styleClass, "styleClass");
         }
         // style is rendered as a passthru attribute
         RenderKitUtils.renderPassThruAttributes(context,
@@ -207,11 +208,11 @@ public class MessagesRenderer extends HtmlBasicRenderer {
             }
 
             if (severityStyle != null) {
-                writer.writeAttribute("style", severityStyle, "style");
+                RenderKitUtils.writeAttribute(writer, AttributeToken.STYLE, severityStyle, "style");
             }
             if (severityStyleClass != null) {
                 styleClass = severityStyleClass;
-                writer.writeAttribute("class", styleClass, "styleClass");
+                RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, styleClass, "styleClass");
             }
 
             if (wroteTable) {
@@ -42,6 +42,7 @@ package com.sun.faces.renderkit.html_basic;
 
 import com.sun.faces.renderkit.AttributeManager;
 import com.sun.faces.renderkit.Attribute;
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.renderkit.RenderKitUtils;
 import com.sun.faces.util.MessageUtils;
 import com.sun.faces.util.Util;
@@ -77,11 +78,11 @@ public class OutcomeTargetButtonRenderer extends OutcomeTargetRenderer {
 
         String imageSrc = (String) component.getAttributes().get("image");
         if (imageSrc != null) {
-            writer.writeAttribute("type", "image", "type");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.TYPE, "image", "type");
             writer.writeURIAttribute("src", RenderKitUtils.getImageSource(context, component, "image"), "image");
         }
         else {
-            writer.writeAttribute("type", "button", "type");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.TYPE, "button", "type");
         }
 
         String label = getLabel(component);
@@ -102,11 +103,11 @@ public class OutcomeTargetButtonRenderer extends OutcomeTargetRenderer {
         }
 
         // value should be used even for image type for accessibility (e.g., images disabled in browser)
-        writer.writeAttribute("value", label, "value");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.VALUE, label, "value");
 
         String styleClass = (String) component.getAttributes().get("styleClass");
         if (styleClass != null && styleClass.length() > 0) {
-            writer.writeAttribute("class", styleClass, "styleClass");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, styleClass, "styleClass");
         }
 
         renderPassThruAttributes(context, writer, component, ATTRIBUTES, null);
@@ -42,6 +42,8 @@ package com.sun.faces.renderkit.html_basic;
 
 import com.sun.faces.renderkit.AttributeManager;
 import com.sun.faces.renderkit.Attribute;
+import com.sun.faces.renderkit.AttributeToken;
+import com.sun.faces.renderkit.RenderKitUtils;
 import com.sun.faces.util.MessageUtils;
 import com.sun.faces.util.Util;
 import java.io.IOException;
@@ -172,7 +174,7 @@ public class OutcomeTargetLinkRenderer extends OutcomeTargetRenderer {
 
         String writtenId = writeIdAttributeIfNecessary(context, writer, component);
         if (null != writtenId) {
-            writer.writeAttribute("name", writtenId, "name");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.NAME, writtenId, "name");
         }
 
     }
@@ -193,7 +195,7 @@ public class OutcomeTargetLinkRenderer extends OutcomeTargetRenderer {
         // this is common to both link and button target renderers
         String styleClass = (String) component.getAttributes().get("styleClass");
         if (styleClass != null && styleClass.length() > 0) {
-            writer.writeAttribute("class", styleClass, "styleClass");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, styleClass, "styleClass");
         }
 
         // target/onclick should be pass through, but right now, due to command Link,
@@ -55,6 +55,7 @@ import javax.faces.context.ResponseWriter;
 
 import com.sun.faces.renderkit.Attribute;
 import com.sun.faces.renderkit.AttributeManager;
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.renderkit.RenderKitUtils;
 import com.sun.faces.util.Util;
 
@@ -210,7 +211,7 @@ public class OutputLinkRenderer extends LinkRenderer {
         String writtenId =
               writeIdAttributeIfNecessary(context, writer, component);
         if (null != writtenId) {
-            writer.writeAttribute("name", writtenId, "name");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.NAME, writtenId, "name");
         }
         // render an empty value for href if it is not specified
         if (null == hrefVal || 0 == hrefVal.length()) {
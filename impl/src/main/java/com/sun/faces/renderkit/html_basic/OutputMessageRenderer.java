@@ -53,6 +53,7 @@ import javax.faces.component.UIParameter;
 import javax.faces.context.FacesContext;
 import javax.faces.context.ResponseWriter;
 
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.renderkit.RenderKitUtils;
 
 
@@ -141,10 +142,10 @@ public class OutputMessageRenderer extends HtmlBasicInputRenderer {
             wroteSpan = true;
 
             if (style != null) {
-                writer.writeAttribute("style", style, "style");
+                RenderKitUtils.writeAttribute(writer, AttributeToken.STYLE, style, "style");
             }
             if (null != styleClass) {
-                writer.writeAttribute("class", styleClass, "styleClass");
+                RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, styleClass, "styleClass");
             }
             if (dir != null) {
                 writer.writeAttribute("dir", dir, "dir");
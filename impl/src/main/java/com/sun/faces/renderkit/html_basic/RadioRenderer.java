@@ -72,6 +72,7 @@ import javax.faces.model.SelectItem;
 import com.sun.faces.RIConstants;
 import com.sun.faces.renderkit.Attribute;
 import com.sun.faces.renderkit.AttributeManager;
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.renderkit.RenderKitUtils;
 import com.sun.faces.renderkit.SelectItemsIterator;
 import com.sun.faces.util.RequestStateManager;
@@ -321,7 +322,7 @@ public class RadioRenderer extends SelectManyCheckboxListRenderer implements Com
             Converter<?> converter, boolean checked, boolean disabled, Group group) throws IOException
     {
         writer.startElement("input", component);
-        writer.writeAttribute("type", "radio", "type");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.TYPE, "radio", "type");
 
         if (checked) {
             writer.writeAttribute("checked", Boolean.TRUE, null);
@@ -330,14 +331,14 @@ public class RadioRenderer extends SelectManyCheckboxListRenderer implements Com
         Object value = (getFormattedValue(context, component, itemValue, converter));
 
         if (group == null) {
-            writer.writeAttribute("name", component.getClientId(context), "clientId");
-            writer.writeAttribute("id", clientId, "id");
-            writer.writeAttribute("value", value, "value");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.NAME, component.getClientId(context), "clientId");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.ID, clientId, "id");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.VALUE, value, "value");
         }
         else {
-            writer.writeAttribute("name", group.getClientName(), "group");
-            writer.writeAttribute("id", clientId, "id");
-            writer.writeAttribute("value", clientId + UINamingContainer.getSeparatorChar(context) + value, "value");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.NAME, group.getClientName(), "group");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.ID, clientId, "id");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.VALUE, clientId + UINamingContainer.getSeparatorChar(context) + value, "value");
         }
 
         if (disabled) {
@@ -374,7 +375,7 @@ public class RadioRenderer extends SelectManyCheckboxListRenderer implements Com
         // if enabledClass or disabledClass attributes are specified, apply
         // it on the label.
         if (labelClass != null) {
-            writer.writeAttribute("class", labelClass, "labelClass");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, labelClass, "labelClass");
         }
         String itemLabel = curItem.getLabel();
         if (itemLabel != null) {
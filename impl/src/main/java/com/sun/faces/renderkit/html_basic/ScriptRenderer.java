@@ -45,6 +45,9 @@ import java.io.IOException;
 import javax.faces.component.UIComponent;
 import javax.faces.context.ResponseWriter;
 
+import com.sun.faces.renderkit.AttributeToken;
+import com.sun.faces.renderkit.RenderKitUtils;
+
 /**
  * <p>This <code>Renderer</code> handles the rendering of <code>script</code> references.</p>
  */
@@ -53,7 +56,7 @@ public class ScriptRenderer extends ScriptStyleBaseRenderer {
     @Override
     protected void startInlineElement(ResponseWriter writer, UIComponent component) throws IOException {
         writer.startElement("script", component);
-        writer.writeAttribute("type", "text/javascript", "type");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.TYPE, "text/javascript", "type");
     }
 
     @Override
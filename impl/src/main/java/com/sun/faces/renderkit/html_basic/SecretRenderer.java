@@ -50,6 +50,7 @@ import javax.faces.context.ResponseWriter;
 
 import com.sun.faces.renderkit.Attribute;
 import com.sun.faces.renderkit.AttributeManager;
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.renderkit.RenderKitUtils;
 
 /**
@@ -93,9 +94,9 @@ public class SecretRenderer extends HtmlBasicInputRenderer {
 
         writer.startElement("input", component);
         writeIdAttributeIfNecessary(context, writer, component);
-        writer.writeAttribute("type", "password", "type");
-        writer.writeAttribute("name", component.getClientId(context),
-                              "clientId");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.TYPE, "password", "type");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.NAME, component.getClientId(context),
+                                      "clientId");
 
         String autoComplete = (String)
               component.getAttributes().get("autocomplete");
@@ -112,7 +113,7 @@ public class SecretRenderer extends HtmlBasicInputRenderer {
 
         // render default text specified
         if (currentValue != null) {
-            writer.writeAttribute("value", currentValue, "value");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.VALUE, currentValue, "value");
         }
 
         RenderKitUtils.renderPassThruAttributes(context,
@@ -127,7 +128,7 @@ public class SecretRenderer extends HtmlBasicInputRenderer {
         String styleClass;
         if (null != (styleClass = (String)
               component.getAttributes().get("styleClass"))) {
-            writer.writeAttribute("class", styleClass, "styleClass");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, styleClass, "styleClass");
         }
 
         writer.endElement("input");
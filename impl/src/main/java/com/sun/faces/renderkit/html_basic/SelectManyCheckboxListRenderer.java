@@ -56,6 +56,7 @@ import javax.faces.model.SelectItemGroup;
 
 import com.sun.faces.renderkit.Attribute;
 import com.sun.faces.renderkit.AttributeManager;
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.renderkit.RenderKitUtils;
 import com.sun.faces.util.RequestStateManager;
 
@@ -231,10 +232,10 @@ public class SelectManyCheckboxListRenderer extends MenuRenderer {
                   "styleClass");
             String style = (String) component.getAttributes().get("style");
             if (styleClass != null) {
-                writer.writeAttribute("class", styleClass, "class");
+                RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, styleClass, "class");
             }
             if (style != null) {
-                writer.writeAttribute("style", style, "style");
+                RenderKitUtils.writeAttribute(writer, AttributeToken.STYLE, style, "style");
             }
         }
         writer.writeText("\n", component, null);
@@ -314,15 +315,15 @@ public class SelectManyCheckboxListRenderer extends MenuRenderer {
         writer.writeText("\n", component, null);
 
         writer.startElement("input", component);
-        writer.writeAttribute("name", component.getClientId(context),
-                              "clientId");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.NAME, component.getClientId(context),
+                                      "clientId");
         String idString = component.getClientId(context)
                           + UINamingContainer.getSeparatorChar(context)
                           + Integer.toString(itemNumber);
-        writer.writeAttribute("id", idString, "id");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.ID, idString, "id");
 
-        writer.writeAttribute("value", valueString, "value");
-        writer.writeAttribute("type", "checkbox", null);
+        RenderKitUtils.writeAttribute(writer, AttributeToken.VALUE, valueString, "value");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.TYPE, "checkbox", null);
 
         if (isSelected) {
             writer.writeAttribute(getSelectedTextString(), Boolean.TRUE, null);
@@ -377,7 +378,7 @@ public class SelectManyCheckboxListRenderer extends MenuRenderer {
             }
             labelClass.append(style);
         }
-        writer.writeAttribute("class", labelClass.toString(), "labelClass");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, labelClass.toString(), "labelClass");
         String itemLabel = curItem.getLabel();
         if (itemLabel == null) {
             itemLabel = valueString;
@@ -45,6 +45,9 @@ import java.io.IOException;
 import javax.faces.component.UIComponent;
 import javax.faces.context.ResponseWriter;
 
+import com.sun.faces.renderkit.AttributeToken;
+import com.sun.faces.renderkit.RenderKitUtils;
+
 /**
  * <p>This <code>Renderer</code> handles the rendering of <code>stylesheet</code> references.</p>
  */
@@ -53,7 +56,7 @@ public class StylesheetRenderer extends ScriptStyleBaseRenderer {
     @Override
     protected void startInlineElement(ResponseWriter writer, UIComponent component) throws IOException {
         writer.startElement("style", component);
-        writer.writeAttribute("type", "text/css", "type");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.TYPE, "text/css", "type");
     }
 
     @Override
@@ -64,7 +67,7 @@ public class StylesheetRenderer extends ScriptStyleBaseRenderer {
     @Override
     protected void startExternalElement(ResponseWriter writer, UIComponent component) throws IOException {
         writer.startElement("link", component);
-        writer.writeAttribute("type", "text/css", "type");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.TYPE, "text/css", "type");
         writer.writeAttribute("rel", "stylesheet", "rel");
     }
 
@@ -41,15 +41,22 @@
 package com.sun.faces.renderkit.html_basic;
 
 
+import com.sun.faces.RIConstants;
+import com.sun.faces.config.WebConfiguration;
+import com.sun.faces.config.WebConfiguration.WebContextInitParameter;
 import com.sun.faces.renderkit.Attribute;
 import com.sun.faces.renderkit.AttributeManager;
+import com.sun.faces.renderkit.AttributeToken;
+import com.sun.faces.renderkit.RenderKitUtils;
 import com.sun.faces.util.Util;
+import java.io.Flushable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
 import javax.faces.component.UIColumn;
 import javax.faces.component.UIComponent;
 import javax.faces.component.UIData;
@@ -64,6 +71,29 @@ public class TableRenderer extends BaseTableRenderer {
     private static final Attribute[] ATTRIBUTES =
           AttributeManager.getAttributes(AttributeManager.Key.DATATABLE);
 
+    private int streamingRows;
+
+    // ------------------------------------------------------------ Constructors
+
+
+    public TableRenderer() {
+        WebConfiguration webConfig = WebConfiguration.getInstance();
+        String value =
+             webConfig.getOptionValue(WebContextInitParameter.TableStreamingRows);
+        try {
+            streamingRows = Integer.parseInt(value);
+        } catch (NumberFormatException nfe) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING,
+                           "Invalid value ''{0}'' for {1}, table streaming disabled",
+                           new Object[] {
+                               value,
+                               WebContextInitParameter.TableStreamingRows.getQualifiedName()
+                           });
+            }
+        }
+    }
+
     // ---------------------------------------------------------- Public Methods
 
 
@@ -133,6 +163,14 @@ public class TableRenderer extends BaseTableRenderer {
             renderTableBodyStart(context, component, writer);
         }
         boolean renderedRow = false;
+
+        // When early flushing is enabled, send every streamingRows rows to
+        // the client rather than holding the whole table in the response
+        // buffer.  A cursor based DataModel then keeps only the current row.
+        Flushable streamingFlush = (streamingRows > 0)
+                                   ? (Flushable) context.getAttributes().get(RIConstants.EARLY_FLUSH)
+                                   : null;
+        int streamed = 0;
         while (true) {
 
             // Have we displayed the requested number of rows?
@@ -164,6 +202,12 @@ public class TableRenderer extends BaseTableRenderer {
             renderRowEnd(context, component, writer);
             renderedRow = true;
 
+            if (streamingFlush != null && ++streamed == streamingRows) {
+                writer.flush();
+                streamingFlush.flush();
+                streamed = 0;
+            }
+
         }
 
         // fill an empty tbody, if no row has been rendered
@@ -259,10 +303,10 @@ public class TableRenderer extends BaseTableRenderer {
                       (String) column.getAttributes().get("footerClass");
                 writer.startElement("td", column);
                 if (columnFooterClass != null) {
-                    writer.writeAttribute("class", columnFooterClass,
-                                          "columnFooterClass");
+                    RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, columnFooterClass,
+                                                  "columnFooterClass");
                 } else if (footerClass != null) {
-                    writer.writeAttribute("class", footerClass, "footerClass");
+                    RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, footerClass, "footerClass");
                 }
                 UIComponent facet = getFacet(column, "footer");
                 if (facet != null) {
@@ -278,7 +322,7 @@ public class TableRenderer extends BaseTableRenderer {
             writer.startElement("tr", footer);
             writer.startElement("td", footer);
             if (footerClass != null) {
-                writer.writeAttribute("class", footerClass, "footerClass");
+                RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, footerClass, "footerClass");
             }
             if(info.columns.size()>1) {
             	writer.writeAttribute("colspan", String.valueOf(info.columns.size()), null);
@@ -311,7 +355,7 @@ public class TableRenderer extends BaseTableRenderer {
             writer.startElement("tr", header);
             writer.startElement("th", header);
             if (headerClass != null) {
-                writer.writeAttribute("class", headerClass, "headerClass");
+                RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, headerClass, "headerClass");
             }
             if(info.columns.size()>1) {
             	writer.writeAttribute("colspan", String.valueOf(info.columns.size()), null);
@@ -329,10 +373,10 @@ public class TableRenderer extends BaseTableRenderer {
                       (String) column.getAttributes().get("headerClass");
                 writer.startElement("th", column);
                 if (columnHeaderClass != null) {
-                    writer.writeAttribute("class", columnHeaderClass,
-                                          "columnHeaderClass");
+                    RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, columnHeaderClass,
+                                                  "columnHeaderClass");
                 } else if (headerClass != null) {
-                    writer.writeAttribute("class", headerClass, "headerClass");
+                    RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, headerClass, "headerClass");
                 }
                 writer.writeAttribute("scope", "col", null);
                 UIComponent facet = getFacet(column, "header");
@@ -381,14 +425,14 @@ public class TableRenderer extends BaseTableRenderer {
                 if(columnStyleClass != null) {
                     throw new IOException("Cannot define both columnClasses on a table and styleClass on a column");
                 }
-                writer.writeAttribute("class", tableColumnStyleClass, "columnClasses");
+                RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, tableColumnStyleClass, "columnClasses");
             }
             
             if(columnStyleClass != null){
                 if(tableColumnStyleClass != null) {
                     throw new IOException("Cannot define both columnClasses on a table and styleClass on a column");
                 }
-                writer.writeAttribute("class", columnStyleClass, "styleClass");
+                RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, columnStyleClass, "styleClass");
             }
 
             // Render the contents of this cell by iterating over
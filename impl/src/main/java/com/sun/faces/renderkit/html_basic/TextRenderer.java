@@ -53,6 +53,7 @@ import javax.faces.context.ResponseWriter;
 
 import com.sun.faces.renderkit.Attribute;
 import com.sun.faces.renderkit.AttributeManager;
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.renderkit.RenderKitUtils;
 import com.sun.faces.config.WebConfiguration;
 import java.util.Map;
@@ -108,13 +109,13 @@ public class TextRenderer extends HtmlBasicInputRenderer {
             writeIdAttributeIfNecessary(context, writer, component);
             
             if (component instanceof HtmlInputFile) {
-                writer.writeAttribute("type", "file", null);
+                RenderKitUtils.writeAttribute(writer, AttributeToken.TYPE, "file", null);
             }
             else {
-                writer.writeAttribute("type", "text", null);
+                RenderKitUtils.writeAttribute(writer, AttributeToken.TYPE, "text", null);
             }
-            writer.writeAttribute("name", (component.getClientId(context)),
-                                  "clientId");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.NAME, (component.getClientId(context)),
+                                          "clientId");
 
             // only output the autocomplete attribute if the value
             // is 'off' since its lack of presence will be interpreted
@@ -127,10 +128,10 @@ public class TextRenderer extends HtmlBasicInputRenderer {
 
             // render default text specified
             if (currentValue != null) {
-                writer.writeAttribute("value", currentValue, "value");
+                RenderKitUtils.writeAttribute(writer, AttributeToken.VALUE, currentValue, "value");
             }
             if (null != styleClass) {
-                writer.writeAttribute("class", styleClass, "styleClass");
+                RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, styleClass, "styleClass");
             }
 
             // style is rendered as a passthur attribute
@@ -157,7 +158,7 @@ public class TextRenderer extends HtmlBasicInputRenderer {
                 writer.startElement("span", component);
                 writeIdAttributeIfNecessary(context, writer, component);
                 if (null != styleClass) {
-                    writer.writeAttribute("class", styleClass, "styleClass");
+                    RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, styleClass, "styleClass");
                 }
                 // style is rendered as a passthru attribute
                 RenderKitUtils.renderPassThruAttributes(context,
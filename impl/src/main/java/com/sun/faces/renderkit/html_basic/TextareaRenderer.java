@@ -50,6 +50,7 @@ import javax.faces.context.ResponseWriter;
 
 import com.sun.faces.renderkit.Attribute;
 import com.sun.faces.renderkit.AttributeManager;
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.renderkit.RenderKitUtils;
 
 /**
@@ -90,10 +91,10 @@ public class TextareaRenderer extends HtmlBasicInputRenderer {
 
         writer.startElement("textarea", component);
         writeIdAttributeIfNecessary(context, writer, component);
-        writer.writeAttribute("name", component.getClientId(context),
-                              "clientId");
+        RenderKitUtils.writeAttribute(writer, AttributeToken.NAME, component.getClientId(context),
+                                      "clientId");
         if (null != styleClass) {
-            writer.writeAttribute("class", styleClass, "styleClass");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.CLASS, styleClass, "styleClass");
         }
 
         // style is rendered as a passthru attribute
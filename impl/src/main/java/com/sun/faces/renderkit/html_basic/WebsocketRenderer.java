@@ -63,6 +63,7 @@ import javax.faces.event.PostAddToViewEvent;
 
 import com.sun.faces.push.WebsocketChannelManager;
 import com.sun.faces.push.WebsocketFacesListener;
+import com.sun.faces.renderkit.AttributeToken;
 import com.sun.faces.renderkit.RenderKitUtils;
 
 /**
@@ -121,7 +122,7 @@ public class WebsocketRenderer extends HtmlBasicRenderer implements ComponentSys
 
             ResponseWriter writer = context.getResponseWriter();
             writer.startElement("script", component);
-            writer.writeAttribute("id", clientId, "id");
+            RenderKitUtils.writeAttribute(writer, AttributeToken.ID, clientId, "id");
             writer.write(String.format(SCRIPT_INIT, clientId, url, channel, functions, behaviors, connected));
             writer.endElement("script");
         }
@@ -0,0 +1,87 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.spi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+
+/**
+ * <p>This interface provides a mechanism to control how view state is
+ * compressed when the <code>com.sun.faces.compressViewState</code> context
+ * initialization parameter is enabled.  It applies to client side state
+ * as well as to serialized server side state.</p>
+ *
+ * <p>The codec to use may be specified by the context initialization
+ * parameter <code>com.sun.faces.compressViewStateCodec</code>, either by
+ * the name of a built-in codec or by the name of a class implementing this
+ * interface.  Implementations must be thread-safe.</p>
+ */
+public interface CompressionCodec {
+
+    /**
+     * <p>Creates a new <code>OutputStream</code> compressing all data
+     * written to it into <code>destination</code>.  Closing the returned
+     * stream must finish the compressed data and close
+     * <code>destination</code>.</p>
+     * @param destination the destination of the compressed data
+     * @return an <code>OutputStream</code>
+     * @throws IOException if an error occurs when creating the output stream
+     */
+    public OutputStream createCompressingStream(OutputStream destination)
+    throws IOException;
+
+
+    /**
+     * <p>Creates a new <code>InputStream</code> decompressing the data
+     * read from <code>source</code>.  Closing the returned stream must
+     * close <code>source</code>.</p>
+     * @param source the compressed data, as written by a stream obtained
+     *  from {@link #createCompressingStream(OutputStream)}
+     * @return an <code>InputStream</code>
+     * @throws IOException if an error occurs when creating the input stream
+     */
+    public InputStream createDecompressingStream(InputStream source)
+    throws IOException;
+
+
+} // END CompressionCodec
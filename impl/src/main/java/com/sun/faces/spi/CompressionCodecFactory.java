@@ -0,0 +1,189 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.spi;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+
+import javax.faces.context.ExternalContext;
+
+import com.sun.faces.config.WebConfiguration;
+import com.sun.faces.config.WebConfiguration.WebContextInitParameter;
+import com.sun.faces.renderkit.DeflateCompressionCodec;
+import com.sun.faces.renderkit.GZIPCompressionCodec;
+import com.sun.faces.renderkit.LZFCompressionCodec;
+import com.sun.faces.util.FacesLogger;
+import com.sun.faces.util.Util;
+
+public class CompressionCodecFactory {
+
+    /**
+     * <p>Name of the built-in codec producing the GZIP format.  This is
+     * the default.</p>
+     */
+    public static final String GZIP = "gzip";
+
+    /**
+     * <p>Name of the built-in codec producing raw deflate data using the
+     * level configured by <code>com.sun.faces.compressViewStateLevel</code>.</p>
+     */
+    public static final String DEFLATE = "deflate";
+
+    /**
+     * <p>Name of the built-in codec producing raw deflate data using the
+     * configured level and a preset dictionary of common state content.</p>
+     */
+    public static final String DICTIONARY = "dictionary";
+
+    /**
+     * <p>Name of the built-in pure Java LZF codec.</p>
+     */
+    public static final String FAST = "fast";
+
+    /**
+     * <p>Name indicating that state should not be compressed.</p>
+     */
+    public static final String NONE = "none";
+
+    private static final Logger LOGGER = FacesLogger.APPLICATION.getLogger();
+
+
+    /**
+     * <p>Creates the <code>CompressionCodec</code> specified by the
+     * <code>com.sun.faces.compressViewStateCodec</code> context parameter.
+     * If the codec cannot be created, the GZIP codec will be returned.</p>
+     * @param extContext the ExternalContext for this application
+     * @return an implementation of the <code>CompressionCodec</code>
+     *  interface, or <code>null</code> if the codec is <code>none</code>
+     */
+    public static CompressionCodec createInstance(ExternalContext extContext) {
+
+        WebConfiguration webConfig = WebConfiguration.getInstance(extContext);
+        String name = webConfig.getOptionValue(
+              WebContextInitParameter.CompressViewStateCodec).trim();
+
+        CompressionCodec codec;
+        if (GZIP.equalsIgnoreCase(name) || name.length() == 0) {
+            codec = new GZIPCompressionCodec();
+        } else if (DEFLATE.equalsIgnoreCase(name)) {
+            codec = new DeflateCompressionCodec(getLevel(webConfig), null);
+        } else if (DICTIONARY.equalsIgnoreCase(name)) {
+            codec = new DeflateCompressionCodec(getLevel(webConfig),
+                                                DeflateCompressionCodec.STATE_DICTIONARY);
+        } else if (FAST.equalsIgnoreCase(name)) {
+            codec = new LZFCompressionCodec();
+        } else if (NONE.equalsIgnoreCase(name)) {
+            codec = null;
+        } else {
+            codec = getCodecInstance(name);
+        }
+
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE,
+                       "jsf.spi.compression.codec_configured",
+                       new Object[]{ ((codec != null)
+                                      ? codec.getClass().getName()
+                                      : NONE) });
+        }
+        return codec;
+
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private static int getLevel(WebConfiguration webConfig) {
+
+        WebContextInitParameter param = WebContextInitParameter.CompressViewStateLevel;
+        String value = webConfig.getOptionValue(param);
+        try {
+            int level = Integer.parseInt(value);
+            if (level >= Deflater.DEFAULT_COMPRESSION && level <= Deflater.BEST_COMPRESSION) {
+                return level;
+            }
+        } catch (NumberFormatException nfe) {
+            // fall through to the warning below
+        }
+        if (LOGGER.isLoggable(Level.WARNING)) {
+            LOGGER.log(Level.WARNING,
+                       "jsf.state.server.cannot.parse.int.option",
+                       new Object[] { param.getQualifiedName(),
+                                      param.getDefaultValue() });
+        }
+        return Integer.parseInt(param.getDefaultValue());
+
+    }
+
+
+    private static CompressionCodec getCodecInstance(String className) {
+
+        try {
+            Class<?> clazz = Util.loadClass(className, CompressionCodecFactory.class);
+            if (CompressionCodec.class.isAssignableFrom(clazz)) {
+                return (CompressionCodec) clazz.newInstance();
+            } else {
+                if (LOGGER.isLoggable(Level.SEVERE)) {
+                    LOGGER.log(Level.SEVERE,
+                               "jsf.spi.compression.codec_not_implemented",
+                               new Object[]{ className });
+                }
+            }
+        } catch (ClassNotFoundException cnfe) {
+            if (LOGGER.isLoggable(Level.SEVERE)) {
+                LOGGER.log(Level.SEVERE,
+                           "jsf.spi.compression.codec_not_found",
+                           new Object[]{ className });
+            }
+        } catch (InstantiationException | IllegalAccessException ie) {
+            if (LOGGER.isLoggable(Level.SEVERE)) {
+                LOGGER.log(Level.SEVERE,
+                           "jsf.spi.compression.codec_cannot_instantiate",
+                           new Object[]{ className });
+                LOGGER.log(Level.SEVERE, "", ie);
+            }
+        }
+        return new GZIPCompressionCodec();
+
+    }
+
+} // END CompressionCodecFactory
@@ -0,0 +1,120 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.spi;
+
+import javax.faces.context.FacesContext;
+
+
+/**
+ * <p>This interface provides a mechanism to control where the view state
+ * produced by server side state saving is kept.  The
+ * <code>ServerSideStateHelper</code> generates the logical and actual view
+ * identifiers that are written to the client; an implementation of this
+ * interface is responsible for mapping those identifiers to the state
+ * itself.</p>
+ *
+ * <p>Implementations are shared by all requests of the application and
+ * must therefore be thread-safe.  Requests belonging to the same session
+ * may call into the store concurrently.</p>
+ *
+ * <p>The implementation to use may be specified by the context
+ * initialization parameter <code>com.sun.faces.viewStateStore</code>.
+ * If not specified, the state will be kept within the session.</p>
+ */
+public interface ViewStateStore {
+
+    /**
+     * <p>Stores <code>state</code> under the provided identifiers.  Any state
+     * previously stored under the same identifiers is replaced.</p>
+     *
+     * @param context the <code>FacesContext</code> for the current request
+     * @param idInLogicalMap the identifier of the logical view
+     * @param idInActualMap the identifier of the actual view within the
+     *  logical view
+     * @param state a two element array containing the tree structure and
+     *  the component state
+     */
+    public void put(FacesContext context,
+                    String idInLogicalMap,
+                    String idInActualMap,
+                    Object[] state);
+
+
+    /**
+     * <p>Obtains the state previously stored under the provided identifiers.</p>
+     *
+     * @param context the <code>FacesContext</code> for the current request
+     * @param idInLogicalMap the identifier of the logical view
+     * @param idInActualMap the identifier of the actual view within the
+     *  logical view
+     * @return a two element array containing the tree structure and the
+     *  component state, or <code>null</code> if no state is available
+     *  for the provided identifiers
+     */
+    public Object[] get(FacesContext context,
+                        String idInLogicalMap,
+                        String idInActualMap);
+
+
+    /**
+     * <p>Indicates whether the component state may be passed to
+     * {@link #put(FacesContext, String, String, Object[])} before it has
+     * been serialized, so that it can be serialized in the background as
+     * enabled by <code>com.sun.faces.serializeServerStateAsynchronously</code>.
+     * The component state is then a placeholder that an implementation
+     * returning <code>true</code> must keep as is and return unchanged from
+     * {@link #get(FacesContext, String, String)}.  It must not inspect it,
+     * and may only serialize it using Java serialization, which writes the
+     * serialized state in its place, waiting for it if necessary.</p>
+     *
+     * <p>Implementations that process the state when it is stored, e.g. to
+     * serialize it on their own, must return <code>false</code>, which is
+     * the default.</p>
+     *
+     * @return <code>true</code> if this store keeps the component state as
+     *  passed in
+     */
+    default public boolean acceptsPendingState() {
+        return false;
+    }
+
+
+} // END ViewStateStore
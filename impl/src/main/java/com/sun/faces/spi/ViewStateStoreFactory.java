@@ -0,0 +1,178 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.spi;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.faces.context.ExternalContext;
+import javax.servlet.ServletContext;
+
+import com.sun.faces.config.WebConfiguration;
+import com.sun.faces.config.WebConfiguration.WebContextInitParameter;
+import com.sun.faces.renderkit.SessionViewStateStore;
+import com.sun.faces.util.FacesLogger;
+import com.sun.faces.util.Util;
+
+public class ViewStateStoreFactory {
+
+    /**
+     * <p>The application scoped attribute under which the
+     * <code>ViewStateStore</code> for the application is kept.</p>
+     */
+    private static final String VIEW_STATE_STORE_KEY =
+          ViewStateStoreFactory.class.getName() + ".ViewStateStore";
+
+    private static final Logger LOGGER = FacesLogger.APPLICATION.getLogger();
+
+
+    /**
+     * <p>Returns the <code>ViewStateStore</code> for the current application,
+     * creating it on first access.  The class specified by the
+     * <code>com.sun.faces.viewStateStore</code> context parameter will be
+     * used.  If this parameter is not defined, or the class cannot be
+     * instantiated, the session based store will be returned.</p>
+     * @param extContext the ExternalContext for this application
+     * @return an implementation of the <code>ViewStateStore</code>
+     *  interface
+     */
+    public static ViewStateStore getInstance(ExternalContext extContext) {
+
+        Map<String, Object> appMap = extContext.getApplicationMap();
+        ViewStateStore store = (ViewStateStore) appMap.get(VIEW_STATE_STORE_KEY);
+        if (store == null) {
+            synchronized (ViewStateStoreFactory.class) {
+                store = (ViewStateStore) appMap.get(VIEW_STATE_STORE_KEY);
+                if (store == null) {
+                    store = createInstance(extContext);
+                    appMap.put(VIEW_STATE_STORE_KEY, store);
+                }
+            }
+        }
+        return store;
+
+    }
+
+
+    /**
+     * <p>Closes the <code>ViewStateStore</code> of the application, if it
+     * was created and implements <code>Closeable</code>.  Called when the
+     * application is undeployed.</p>
+     * @param context the <code>ServletContext</code> of the application
+     */
+    public static void shutdown(ServletContext context) {
+
+        Object store = context.getAttribute(VIEW_STATE_STORE_KEY);
+        context.removeAttribute(VIEW_STATE_STORE_KEY);
+        if (store instanceof Closeable) {
+            try {
+                ((Closeable) store).close();
+            } catch (IOException ioe) {
+                if (LOGGER.isLoggable(Level.WARNING)) {
+                    LOGGER.log(Level.WARNING, ioe.toString(), ioe);
+                }
+            }
+        }
+
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private static ViewStateStore createInstance(ExternalContext extContext) {
+
+        WebConfiguration webConfig = WebConfiguration.getInstance(extContext);
+        String className =
+              webConfig.getOptionValue(WebContextInitParameter.ViewStateStoreClass);
+        ViewStateStore store = null;
+        if (className != null && className.length() > 0) {
+            store = getStoreInstance(className);
+        }
+        if (store == null) {
+            store = new SessionViewStateStore();
+        } else {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE,
+                           "jsf.spi.viewstate.store_configured",
+                           new Object[]{store.getClass().getName()});
+            }
+        }
+        return store;
+
+    }
+
+
+    private static ViewStateStore getStoreInstance(String className) {
+
+        try {
+            Class<?> clazz = Util.loadClass(className, ViewStateStoreFactory.class);
+            if (ViewStateStore.class.isAssignableFrom(clazz)) {
+                return (ViewStateStore) clazz.newInstance();
+            } else {
+                if (LOGGER.isLoggable(Level.SEVERE)) {
+                    LOGGER.log(Level.SEVERE,
+                               "jsf.spi.viewstate.store_not_implemented",
+                               new Object[]{ className });
+                }
+            }
+        } catch (ClassNotFoundException cnfe) {
+            if (LOGGER.isLoggable(Level.SEVERE)) {
+                LOGGER.log(Level.SEVERE,
+                           "jsf.spi.viewstate.store_not_found",
+                           new Object[]{ className });
+            }
+        } catch (InstantiationException | IllegalAccessException ie) {
+            if (LOGGER.isLoggable(Level.SEVERE)) {
+                LOGGER.log(Level.SEVERE,
+                           "jsf.spi.viewstate.store_cannot_instantiate",
+                           new Object[]{ className });
+                LOGGER.log(Level.SEVERE, "", ie);
+            }
+        }
+        return null;
+
+    }
+
+} // END ViewStateStoreFactory
@@ -0,0 +1,392 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.faces.FacesException;
+
+/**
+ * <p>
+ * A {@link ConcurrentCache} whose content is bounded by the total weight of
+ * its values.  Like {@link ExpiringConcurrentCache} it creates each value
+ * once, hands out values while they are not expired and is self-managing.
+ * </p>
+ *
+ * <p>
+ * The access frequency of every key, cached or not, is recorded in a small
+ * count-min sketch whose counters are halved periodically, so the frequency
+ * reflects recent use.  The sketch is updated without locking; increments
+ * that race with each other may be lost, which only makes the frequencies
+ * slightly less precise.
+ * </p>
+ *
+ * <p>
+ * When the cache grows beyond its maximum weight, a few values are sampled
+ * from the head of a queue holding the cached values in the order they were
+ * added, and the one with the lowest frequency is chosen as victim.  The
+ * other sampled values are moved to the tail of the queue, so the next
+ * eviction looks at different values.  A newly created value that is used
+ * less often than the victim is not admitted, instead of evicting a more
+ * popular one; it is still returned to the caller.  This keeps one-off keys
+ * from flushing the cache.
+ * </p>
+ */
+public final class BoundedConcurrentCache<K, V> extends ConcurrentCache<K, V> {
+
+    /**
+     * Computes the weight of a value, e.g. an estimate of its size.
+     */
+    public interface Weigher<K, V> {
+        /**
+         * @param key cache key
+         * @param value the value to weigh
+         * @return the weight of the value, at least <code>1</code>
+         */
+        public int weigh(K key, V value);
+    }
+
+    /**
+     * Receives notifications about the activity of the cache.
+     */
+    public interface Listener<K> {
+        /**
+         * A value was found in the cache.
+         */
+        public void hit(K key);
+
+        /**
+         * A value was not found in the cache and has been created in
+         * <code>nanos</code> nanoseconds.
+         */
+        public void miss(K key, long nanos);
+
+        /**
+         * A value was removed to make room for other values.
+         */
+        public void evicted(K key);
+
+        /**
+         * A newly created value was not admitted to the cache because it is
+         * used less frequently than the values already cached.
+         */
+        public void rejected(K key);
+    }
+
+    /**
+     * Public constructor.
+     * @param f used to create new instances of objects that are not already available
+     * @param checker used to check whether an object in the cache has expired
+     * @param weigher used to compute the weight of new instances
+     * @param maxWeight the maximum total weight of the cached instances
+     * @param listener notified of hits, misses, evictions and rejections, may be <code>null</code>
+     */
+    public BoundedConcurrentCache(Factory<K, V> f,
+                                  ExpiringConcurrentCache.ExpiryChecker<K, V> checker,
+                                  Weigher<K, V> weigher,
+                                  long maxWeight,
+                                  Listener<? super K> listener) {
+        super(f);
+        _checker = checker;
+        _weigher = weigher;
+        _maxWeight = maxWeight;
+        _listener = listener;
+    }
+
+    @Override
+    public V get(final K key) throws ExecutionException {
+        _sketch.increment(key.hashCode());
+
+        // Same pattern as ExpiringConcurrentCache: only one thread creates a
+        // missing object while all others asking for it wait for the result
+        while (true) {
+            Node<K, V> node = _cache.get(key);
+            boolean newlyCached = false;
+            if (node == null) {
+                Node<K, V> newNode = new Node<>(key);
+                // the weight is accounted for before the value becomes
+                // visible, so whoever removes the node sees its weight
+                FutureTask<V> ft = new FutureTask<>(() -> {
+                    V obj = getFactory().newInstance(key);
+                    newNode.weight = Math.max(1, _weigher.weigh(key, obj));
+                    _weight.addAndGet(newNode.weight);
+                    return obj;
+                });
+                newNode.future = ft;
+                node = _cache.putIfAbsent(key, newNode);
+                if (node == null) {
+                    node = newNode;
+                    long start = System.nanoTime();
+                    ft.run();
+                    newlyCached = true;
+                    if (_listener != null) {
+                        _listener.miss(key, System.nanoTime() - start);
+                    }
+                }
+            }
+            try {
+                V obj = node.future.get();
+                if (newlyCached) {
+                    _queue.offer(node);
+                    evict(key, node);
+                    return obj;
+                }
+                if (_checker.isExpired(key, obj)) {
+                    remove(key, node);
+                } else {
+                    if (_listener != null) {
+                        _listener.hit(key);
+                    }
+                    return obj;
+                }
+            } catch (CancellationException ce) {
+                if (_LOGGER.isLoggable(Level.SEVERE)) {
+                    _LOGGER.log(Level.SEVERE, ce.toString(), ce);
+                }
+                remove(key, node);
+            } catch (ExecutionException ee) {
+                remove(key, node);
+                throw ee;
+            } catch (InterruptedException ie) {
+                throw new FacesException(ie);
+            }
+        }
+    }
+
+    @Override
+    public boolean containsKey(final K key) {
+        Node<K, V> node = _cache.get(key);
+
+        if (node != null && node.future.isDone() && !node.future.isCancelled()) {
+            try {
+                // Call get() with a 0 timeout to avoid any wait
+                V obj = node.future.get(0, TimeUnit.MILLISECONDS);
+                if (_checker.isExpired(key, obj)) {
+                    remove(key, node);
+                } else {
+                    return true;
+                }
+            } catch (TimeoutException | ExecutionException ce) {
+            } catch (CancellationException ce) {
+                if (_LOGGER.isLoggable(Level.SEVERE)) {
+                    _LOGGER.log(Level.SEVERE, ce.toString(), ce);
+                }
+            } catch (InterruptedException ie) {
+                throw new FacesException(ie);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the number of cached values
+     */
+    public int size() {
+        return _cache.size();
+    }
+
+    /**
+     * @return the total weight of the cached values
+     */
+    public long weight() {
+        return _weight.get();
+    }
+
+    /**
+     * Remove values until the total weight fits, either evicting the least
+     * frequently used of the sampled values or rejecting the one that was
+     * just added.
+     */
+    private void evict(K candidate, Node<K, V> candidateNode) {
+        if (_weight.get() <= _maxWeight) {
+            return;
+        }
+        synchronized (_evictionLock) {
+            int candidateFrequency = _sketch.frequency(candidate.hashCode());
+            List<Node<K, V>> sample = new ArrayList<>(SAMPLE_SIZE);
+            while (_weight.get() > _maxWeight) {
+                Node<K, V> victimNode = null;
+                int victimFrequency = Integer.MAX_VALUE;
+                Node<K, V> node;
+                while (sample.size() < SAMPLE_SIZE && (node = _queue.poll()) != null) {
+                    if (_cache.get(node.key) != node) {
+                        // removed by now, drop it from the queue
+                        continue;
+                    }
+                    sample.add(node);
+                    if (node == candidateNode) {
+                        continue;
+                    }
+                    int frequency = _sketch.frequency(node.key.hashCode());
+                    if (frequency < victimFrequency) {
+                        victimNode = node;
+                        victimFrequency = frequency;
+                    }
+                }
+                for (Node<K, V> sampled : sample) {
+                    if (sampled != victimNode) {
+                        _queue.offer(sampled);
+                    }
+                }
+                sample.clear();
+                if (victimNode == null
+                      || candidateFrequency < victimFrequency
+                      || candidateNode.weight > _maxWeight) {
+                    if (victimNode != null) {
+                        _queue.offer(victimNode);
+                    }
+                    if (remove(candidate, candidateNode) && _listener != null) {
+                        _listener.rejected(candidate);
+                    }
+                    return;
+                }
+                if (remove(victimNode.key, victimNode) && _listener != null) {
+                    _listener.evicted(victimNode.key);
+                }
+            }
+        }
+    }
+
+    private boolean remove(K key, Node<K, V> node) {
+        // Note that we are using both key and value in remove() call to ensure
+        // that we are not removing a node added by a different thread
+        if (_cache.remove(key, node)) {
+            _weight.addAndGet(-node.weight);
+            // removed nodes stay queued until they are polled, drop them
+            // all once they may outnumber the cached ones
+            if (_removed.incrementAndGet() > Math.max(_cache.size(), SAMPLE_SIZE)) {
+                _removed.set(0);
+                _queue.removeIf(n -> _cache.get(n.key) != n);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static final class Node<K, V> {
+        Node(K key) {
+            this.key = key;
+        }
+
+        final K key;
+        volatile Future<V> future;
+        volatile int weight;
+    }
+
+    /**
+     * Count-min sketch with four hash functions and counters saturating at
+     * fifteen.  All counters are halved once the number of recorded accesses
+     * reaches ten times the width of a row.
+     */
+    private static final class FrequencySketch {
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = { 0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F };
+
+        void increment(int hash) {
+            AtomicIntegerArray t = table;
+            boolean added = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                int index = index(hash, i);
+                int count = t.get(index);
+                if (count < MAX_COUNT && t.compareAndSet(index, count, count + 1)) {
+                    added = true;
+                }
+            }
+            // only the thread completing a period halves the counters
+            if (added && additions.incrementAndGet() == RESET_PERIOD) {
+                for (int i = 0; i < t.length(); i++) {
+                    t.set(i, t.get(i) >>> 1);
+                }
+                additions.addAndGet(-RESET_PERIOD);
+            }
+        }
+
+        int frequency(int hash) {
+            int frequency = MAX_COUNT;
+            for (int i = 0; i < SEEDS.length; i++) {
+                frequency = Math.min(frequency, table.get(index(hash, i)));
+            }
+            return frequency;
+        }
+
+        private int index(int hash, int i) {
+            int h = (hash ^ (hash >>> 16)) * SEEDS[i];
+            h ^= h >>> 15;
+            // each hash function uses its own quarter of the table
+            return (i * ROW) + (h & (ROW - 1));
+        }
+
+        private static final int ROW = 1024;
+        private static final int RESET_PERIOD = ROW * 10;
+        private final AtomicIntegerArray table = new AtomicIntegerArray(ROW * SEEDS.length);
+        private final AtomicInteger additions = new AtomicInteger();
+    }
+
+    private final ExpiringConcurrentCache.ExpiryChecker<K, V> _checker;
+    private final Weigher<K, V> _weigher;
+    private final long _maxWeight;
+    private final Listener<? super K> _listener;
+    private final ConcurrentMap<K, Node<K, V>> _cache = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Node<K, V>> _queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger _removed = new AtomicInteger();
+    private final AtomicLong _weight = new AtomicLong();
+    private final FrequencySketch _sketch = new FrequencySketch();
+    private final Object _evictionLock = new Object();
+
+    private static final int SAMPLE_SIZE = 8;
+    private static final Logger _LOGGER = FacesLogger.UTIL.getLogger();
+}
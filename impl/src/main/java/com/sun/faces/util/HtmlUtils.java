@@ -78,7 +78,8 @@ public class HtmlUtils {
 
 
     /**
-     * Write char array text.
+     * Write char array text.  Runs of characters that need no escaping are
+     * copied in bulk, see {@link #isClean(char, boolean[], boolean, boolean)}.
      */
     static public void writeText(Writer out,
                                  boolean escapeUnicode,
@@ -86,13 +87,19 @@ public class HtmlUtils {
                                  char[] text,
                                  int start,
                                  int length) throws IOException {
-        int buffLength = buff.length;
         int buffIndex = 0;
+        int run = start;
 
         int end = start + length;
         for (int i = start; i < end; i++) {
-            buffIndex = writeTextChar(out, escapeUnicode, escapeIsocode, text[i], buffIndex, buff, buffLength);
+            char ch = text[i];
+            if (!isClean(ch, TEXT_CLEAN, escapeUnicode, escapeIsocode)) {
+                buffIndex = addToBuffer(out, buff, buffIndex, text, run, i);
+                buffIndex = escapeChar(out, escapeUnicode, escapeIsocode, ch, buffIndex, buff);
+                run = i + 1;
+            }
         }
+        buffIndex = addToBuffer(out, buff, buffIndex, text, run, end);
 
         flushBuffer(out, buff, buffIndex);
     }
@@ -109,104 +116,25 @@ public class HtmlUtils {
 
         int length = text.length();
 
-        if (length >= 16) {
+        if (length >= 16 && length <= textBuff.length) {
             text.getChars(0, length, textBuff, 0);
             writeText(out, escapeUnicode, escapeIsocode, buff, textBuff, 0, length);
-        } else {
-            int buffLength = buff.length;
-            int buffIndex = 0;
-            for (int i = 0; i < length; i++) {
-                char ch = text.charAt(i);
-                buffIndex = writeTextChar(out, escapeUnicode, escapeIsocode, ch, buffIndex, buff, buffLength);
-            }
-            flushBuffer(out, buff, buffIndex);
+            return;
         }
 
-        
-    }
-
-    private static int writeTextChar(Writer out,
-                                     boolean escapeUnicode,
-                                     boolean escapeIsocode,
-                                     char ch,
-                                     int buffIndex,
-                                     char[] buff,
-                                     int buffLength) throws IOException {
-        int nextIndex;
-        if (ch <= 0x1f) {
-            if (!isPrintableControlChar(ch)) {
-                return buffIndex;
-            }
-        }
-        if (ch < 0xA0) {
-            // If "?" or over, no escaping is needed (this covers
-            // most of the Latin alphabet)
-            if (ch >= 0x3f) {
-                nextIndex = addToBuffer(out, buff, buffIndex,
-                                        buffLength, ch);
-            } else if (ch >= 0x27) {  // If above "'"...
-                // If between "'" and ";", no escaping is needed
-                if (ch < 0x3c) {
-                    nextIndex = addToBuffer(out, buff, buffIndex,
-                                            buffLength, ch);
-                } else if (ch == '<') {
-                    nextIndex = addToBuffer(out,
-                                            buff,
-                                            buffIndex,
-                                            buffLength,
-                                            LT_CHARS);
-                } else if (ch == '>') {
-                    nextIndex = addToBuffer(out,
-                                            buff,
-                                            buffIndex,
-                                            buffLength,
-                                            GT_CHARS);
-                } else {
-                    nextIndex = addToBuffer(out, buff, buffIndex,
-                                            buffLength, ch);
-                }
-            } else {
-                if (ch == '&') {
-                    nextIndex = addToBuffer(out,
-                                            buff,
-                                            buffIndex,
-                                            buffLength,
-                                            AMP_CHARS);
-                } else if (ch == '"') {
-                        nextIndex = addToBuffer(out,
-                             buff,
-                             buffIndex,
-                             buffLength,
-                             "\"".toCharArray());
-                } else {
-                    nextIndex = addToBuffer(out, buff, buffIndex,
-                                            buffLength, ch);
-                }
-            }
-        } else if (ch <= 0xff) {
-            if (escapeIsocode) {
-                // ISO-8859-1 entities: encode as needed
-                nextIndex = addToBuffer(out,
-                                        buff,
-                                        buffIndex,
-                                        buffLength,
-                                        sISO8859_1_Entities[ch - 0xA0]);
-            }
-            else {
-                nextIndex = addToBuffer(out, buff, buffIndex,
-                        buffLength, ch);
-            }
-        } else {
-            if(escapeUnicode) {
-                // UNICODE entities: encode as needed
-                nextIndex =
-                      _writeDecRef(out, buff, buffIndex, buffLength, ch);
-            } else {
-                nextIndex = addToBuffer(out, buff, buffIndex,
-                        buffLength, ch);
+        int buffIndex = 0;
+        int run = 0;
+        for (int i = 0; i < length; i++) {
+            char ch = text.charAt(i);
+            if (!isClean(ch, TEXT_CLEAN, escapeUnicode, escapeIsocode)) {
+                buffIndex = addToBuffer(out, buff, buffIndex, text, run, i);
+                buffIndex = escapeChar(out, escapeUnicode, escapeIsocode, ch, buffIndex, buff);
+                run = i + 1;
             }
         }
-        return nextIndex;
+        buffIndex = addToBuffer(out, buff, buffIndex, text, run, length);
+
+        flushBuffer(out, buff, buffIndex);
     }
 
 
@@ -222,128 +150,41 @@ public class HtmlUtils {
                                       String text,
                                       char[] textBuff,
                                       boolean isScriptInAttributeValueEnabled) throws IOException {
-
         int length = text.length();
-        if (length >= 16) {
-            if (length > textBuff.length) {
-                // resize our buffer
-                textBuff = new char[length * 2];
-            }
+
+        if (length >= 16 && length <= textBuff.length) {
             text.getChars(0, length, textBuff, 0);
             writeAttribute(out, escapeUnicode, escapeIsocode, buff, textBuff, 0, length,
                     isScriptInAttributeValueEnabled);
-        } else {
-            int buffLength = buff.length;
-            int buffIndex = 0;
-            for (int i = 0; i < length; i++) {
-                char ch = text.charAt(i);
+            return;
+        }
 
-                if (ch <= 0x1f) {
-                    if (!isPrintableControlChar(ch)) {
-                        continue;
-                    }
-                }
-                // Tilde or less...
-                if (ch < 0xA0) {
-                    // If "?" or over, no escaping is needed (this covers
-                    // most of the Latin alphabet)
-                    if (ch >= 0x3f) {
-                        if (ch == 's') {
-                            // If putting scripts in attribute values
-                            // has been disabled (the defualt), look for
-                            // script: in the attribute value.
-                            // ensure the attribute value is long enough
-                            // to accomodate "script:"
-                            if (!isScriptInAttributeValueEnabled &&
-                                    ((i + 6) < text.length())) {
-                                if ('c' == text.charAt(i + 1) &&
-                                    'r' == text.charAt(i + 2) &&
-                                    'i' == text.charAt(i + 3) &&
-                                    'p' == text.charAt(i + 4) &&
-                                    't' == text.charAt(i + 5) &&
-                                    ':' == text.charAt(i + 6)) {
-                                    return;
-                                }
-                            }
-                        }
-                        buffIndex = addToBuffer(out, buff, buffIndex,
-                                                buffLength, ch);
-                    } else if (ch >= 0x27) { // If above "'"...
-                        // If between "'" and ";", no escaping is needed
-                        if (ch < 0x3c) {
-                            buffIndex = addToBuffer(out, buff, buffIndex,
-                                                    buffLength, ch);
-                        } else if (ch == '<') {
-                            buffIndex = addToBuffer(out,
-                                                    buff,
-                                                    buffIndex,
-                                                    buffLength,
-                                                    LT_CHARS);
-                        } else if (ch == '>') {
-                            buffIndex = addToBuffer(out,
-                                                    buff,
-                                                    buffIndex,
-                                                    buffLength,
-                                                    GT_CHARS);
-                        } else {
-                            buffIndex = addToBuffer(out, buff, buffIndex,
-                                                    buffLength, ch);
-                        }
-                    } else {
-                        if (ch == '&') {
-                            // HTML 4.0, section B.7.1: ampersands followed by
-                            // an open brace don't get escaped
-                            if ((i + 1 < length) && (text.charAt(i + 1)
-                                                     == '{')) {
-                                buffIndex = addToBuffer(out,
-                                                        buff,
-                                                        buffIndex,
-                                                        buffLength,
-                                                        ch);
-                            } else {
-                                buffIndex = addToBuffer(out,
-                                                        buff,
-                                                        buffIndex,
-                                                        buffLength,
-                                                        AMP_CHARS);
-                            }
-                        } else if (ch == '"') {
-                            buffIndex = addToBuffer(out,
-                                                    buff,
-                                                    buffIndex,
-                                                    buffLength,
-                                                    QUOT_CHARS);
-                        } else {
-                            buffIndex = addToBuffer(out, buff, buffIndex,
-                                                    buffLength, ch);
-                        }
-                    }
-                } else if (ch <= 0xff) {
-                    if (escapeIsocode) {
-                        // ISO-8859-1 entities: encode as needed
-                        buffIndex = addToBuffer(out,
-                                                buff,
-                                                buffIndex,
-                                                buffLength,
-                                                sISO8859_1_Entities[ch - 0xA0]);
-                    } else {
-                        buffIndex = addToBuffer(out, buff, buffIndex,
-                                                buffLength, ch);
-                    }
+        // If putting scripts in attribute values
+        // has been disabled (the defualt), look for
+        // script: in the attribute value.
+        if (!isScriptInAttributeValueEnabled && text.contains("script:")) {
+            return;
+        }
+
+        int buffIndex = 0;
+        int run = 0;
+        for (int i = 0; i < length; i++) {
+            char ch = text.charAt(i);
+            if (!isClean(ch, ATTRIBUTE_CLEAN, escapeUnicode, escapeIsocode)) {
+                buffIndex = addToBuffer(out, buff, buffIndex, text, run, i);
+                run = i + 1;
+                if (ch == '&' && (i + 1 < length) && (text.charAt(i + 1) == '{')) {
+                    // HTML 4.0, section B.7.1: ampersands followed by
+                    // an open brace don't get escaped
+                    buffIndex = addToBuffer(out, buff, buffIndex, buff.length, ch);
                 } else {
-                    if(escapeUnicode) {
-                        // UNICODE entities: encode as needed
-                        buffIndex =
-                              _writeDecRef(out, buff, buffIndex, buffLength, ch);
-                    } else {
-                        buffIndex = addToBuffer(out, buff, buffIndex,
-                                buffLength, ch);
-                    }
+                    buffIndex = escapeChar(out, escapeUnicode, escapeIsocode, ch, buffIndex, buff);
                 }
             }
-
-            flushBuffer(out, buff, buffIndex);
         }
+        buffIndex = addToBuffer(out, buff, buffIndex, text, run, length);
+
+        flushBuffer(out, buff, buffIndex);
     }
 
 
@@ -370,121 +211,118 @@ public class HtmlUtils {
                                       int start,
                                       int length,
                                       boolean isScriptInAttributeValueEnabled) throws IOException {
-        int buffLength = buff.length;
-        int buffIndex = 0;
-
         int end = start + length;
+
+        // If putting scripts in attribute values
+        // has been disabled (the defualt), look for
+        // script: in the attribute value.
+        if (!isScriptInAttributeValueEnabled && containsScript(text, start, end)) {
+            return;
+        }
+
+        int buffIndex = 0;
+        int run = start;
         for (int i = start; i < end; i++) {
             char ch = text[i];
-
-            // "Application Program Command" or less...
-            if (ch <= 0x1f) {
-                if (!isPrintableControlChar(ch)) {
-                    continue;
-                }
-            }
-            if (ch < 0xA0) {
-                // If "?" or over, no escaping is needed (this covers
-                // most of the Latin alphabet)
-                if (ch >= 0x3f) {
-                    if (ch == 's') {
-                        // If putting scripts in attribute values
-                        // has been disabled (the defualt), look for
-                        // script: in the attribute value.  
-                        // ensure the attribute value is long enough
-                        // to accomodate "script:"
-                        if (!isScriptInAttributeValueEnabled &&
-                                ((i + 6) < text.length)) {
-                            if ('c' == text[i + 1] &&
-                                'r' == text[i + 2] &&
-                                'i' == text[i + 3] &&
-                                'p' == text[i + 4] &&
-                                't' == text[i + 5] &&
-                                ':' == text[i + 6]) {
-                                return;
-                            }
-                        }
-                    }
-                    
-                    buffIndex = addToBuffer(out, buff, buffIndex,
-                                            buffLength, ch);
-                } else if (ch >= 0x27) { // If above "'"...
-                    if (ch < 0x3c) {
-                        // If between "'" and ";", no escaping is needed
-                        buffIndex = addToBuffer(out, buff, buffIndex,
-                                                buffLength, ch);                       
-                    } else if (ch == '<') {
-                        buffIndex = addToBuffer(out,
-                                                buff,
-                                                buffIndex,
-                                                buffLength,
-                                                LT_CHARS);
-                    } else if (ch == '>') {
-                        buffIndex = addToBuffer(out,
-                                                buff,
-                                                buffIndex,
-                                                buffLength,
-                                                GT_CHARS);
-                    } else {
-                        buffIndex = addToBuffer(out, buff, buffIndex,
-                                                buffLength, ch);
-                    }
+            if (!isClean(ch, ATTRIBUTE_CLEAN, escapeUnicode, escapeIsocode)) {
+                buffIndex = addToBuffer(out, buff, buffIndex, text, run, i);
+                run = i + 1;
+                if (ch == '&' && (i + 1 < end) && (text[i + 1] == '{')) {
+                    // HTML 4.0, section B.7.1: ampersands followed by
+                    // an open brace don't get escaped
+                    buffIndex = addToBuffer(out, buff, buffIndex, buff.length, ch);
                 } else {
-                    if (ch == '&') {
-                        // HTML 4.0, section B.7.1: ampersands followed by
-                        // an open brace don't get escaped
-                        if ((i + 1 < end) && (text[i + 1] == '{')) {
-                            buffIndex = addToBuffer(out,
-                                                    buff,
-                                                    buffIndex,
-                                                    buffLength,
-                                                    ch);
-                        } else {
-                            buffIndex = addToBuffer(out,
-                                                buff,
-                                                buffIndex,
-                                                buffLength,
-                                                AMP_CHARS);
-                        }
-                    } else if (ch == '"') {
-                        buffIndex = addToBuffer(out,
-                                                buff,
-                                                buffIndex,
-                                                buffLength,
-                                                QUOT_CHARS);
-                    } else {
-                        buffIndex = addToBuffer(out, buff, buffIndex,
-                                                buffLength, ch);
-                    }
-                }
-            } else if (ch <= 0xff) {
-                if (escapeIsocode) {
-                    // ISO-8859-1 entities: encode as needed
-                    buffIndex = addToBuffer(out,
-                                            buff,
-                                            buffIndex,
-                                            buffLength,
-                                            sISO8859_1_Entities[ch - 0xA0]);
-                }
-                else {
-                    buffIndex = addToBuffer(out, buff, buffIndex,
-                            buffLength, ch);
-                }
-            } else {
-                if(escapeUnicode) {
-                    // UNICODE entities: encode as needed
-                    buffIndex = _writeDecRef(out, buff, buffIndex, buffLength, ch);
-                } else {
-                    buffIndex = addToBuffer(out, buff, buffIndex,
-                            buffLength, ch);
+                    buffIndex = escapeChar(out, escapeUnicode, escapeIsocode, ch, buffIndex, buff);
                 }
             }
         }
+        buffIndex = addToBuffer(out, buff, buffIndex, text, run, end);
 
         flushBuffer(out, buff, buffIndex);
     }
 
 
+    private static boolean containsScript(char[] text, int start, int end) {
+
+        for (int i = start; i + 6 < end; i++) {
+            if ('s' == text[i] &&
+                'c' == text[i + 1] &&
+                'r' == text[i + 2] &&
+                'i' == text[i + 3] &&
+                'p' == text[i + 4] &&
+                't' == text[i + 5] &&
+                ':' == text[i + 6]) {
+                return true;
+            }
+        }
+        return false;
+
+    }
+
+
+    /**
+     * @param ch the character to check
+     * @param table whether each character below <code>0xA0</code> can be
+     *  written as is
+     * @return <code>true</code> if <code>ch</code> can be written as is with
+     *  the given escaping mode
+     */
+    private static boolean isClean(char ch,
+                                   boolean[] table,
+                                   boolean escapeUnicode,
+                                   boolean escapeIsocode) {
+
+        if (ch < 0xA0) {
+            return table[ch];
+        }
+        return ((ch <= 0xff) ? !escapeIsocode : !escapeUnicode);
+
+    }
+
+
+    /**
+     * Escapes a character that is not clean for text or attributes, dropping
+     * it if it is a control character that can't be printed.
+     */
+    private static int escapeChar(Writer out,
+                                  boolean escapeUnicode,
+                                  boolean escapeIsocode,
+                                  char ch,
+                                  int buffIndex,
+                                  char[] buff) throws IOException {
+        int buffLength = buff.length;
+        if (ch < 0xA0) {
+            switch (ch) {
+                case '<':
+                    return addToBuffer(out, buff, buffIndex, buffLength, LT_CHARS);
+                case '>':
+                    return addToBuffer(out, buff, buffIndex, buffLength, GT_CHARS);
+                case '&':
+                    return addToBuffer(out, buff, buffIndex, buffLength, AMP_CHARS);
+                case '"':
+                    return addToBuffer(out, buff, buffIndex, buffLength, QUOT_CHARS);
+                default:
+                    if (ch <= 0x1f && !isPrintableControlChar(ch)) {
+                        return buffIndex;
+                    }
+                    return addToBuffer(out, buff, buffIndex, buffLength, ch);
+            }
+        } else if (ch <= 0xff) {
+            if (escapeIsocode) {
+                // ISO-8859-1 entities: encode as needed
+                return addToBuffer(out, buff, buffIndex, buffLength,
+                                   sISO8859_1_Entities[ch - 0xA0]);
+            }
+            return addToBuffer(out, buff, buffIndex, buffLength, ch);
+        } else {
+            if (escapeUnicode) {
+                // UNICODE entities: encode as needed
+                return _writeDecRef(out, buff, buffIndex, buffLength, ch);
+            }
+            return addToBuffer(out, buff, buffIndex, buffLength, ch);
+        }
+    }
+
     static private boolean isPrintableControlChar(int ch) {
 
         return (ch == 0x09 || ch == 0x0A || ch == 0x0C || ch == 0x0D);
@@ -596,6 +434,63 @@ public class HtmlUtils {
     }
 
 
+    /**
+     * Add a run of characters from an array to the buffer, writing them
+     * straight to the output if they don't fit in the buffer, and returning
+     * the new buffer index.
+     */
+    private static int addToBuffer(Writer out,
+                                   char[] buffer,
+                                   int bufferIndex,
+                                   char[] text,
+                                   int start,
+                                   int end) throws IOException {
+
+        int len = end - start;
+        if (len == 0) {
+            return bufferIndex;
+        }
+        if (bufferIndex + len > buffer.length) {
+            bufferIndex = flushBuffer(out, buffer, bufferIndex);
+            if (len > buffer.length) {
+                out.write(text, start, len);
+                return 0;
+            }
+        }
+        System.arraycopy(text, start, buffer, bufferIndex, len);
+        return bufferIndex + len;
+
+    }
+
+    /**
+     * Add a run of characters from a String to the buffer, writing them
+     * straight to the output if they don't fit in the buffer, and returning
+     * the new buffer index.
+     */
+    private static int addToBuffer(Writer out,
+                                   char[] buffer,
+                                   int bufferIndex,
+                                   String text,
+                                   int start,
+                                   int end) throws IOException {
+
+        int len = end - start;
+        if (len == 0) {
+            return bufferIndex;
+        }
+        if (bufferIndex + len > buffer.length) {
+            bufferIndex = flushBuffer(out, buffer, bufferIndex);
+            if (len > buffer.length) {
+                out.write(text, start, len);
+                return 0;
+            }
+        }
+        text.getChars(start, end, buffer, bufferIndex);
+        return bufferIndex + len;
+
+    }
+
+
     /**
      * Flush the contents of the buffer to the output stream
      * and return the reset buffer index
@@ -964,6 +859,20 @@ public class HtmlUtils {
     static private final char[] EURO_CHARS = "&euro;".toCharArray();
     static private final char[] DEC_REF_START = "&#".toCharArray();
     static private final int MAX_BYTES_PER_CHAR = 10;
+
+    // Whether each character below 0xA0 can be written as is in text and in
+    // attributes.  Characters from 0xA0 on depend on the escaping mode.
+    static private final boolean[] TEXT_CLEAN = new boolean[0xA0];
+    static private final boolean[] ATTRIBUTE_CLEAN = new boolean[0xA0];
+    static {
+        for (int ch = 0; ch < 0xA0; ch++) {
+            boolean clean = (ch > 0x1f || isPrintableControlChar(ch))
+                            && ch != '<' && ch != '>' && ch != '&';
+            TEXT_CLEAN[ch] = clean;
+            ATTRIBUTE_CLEAN[ch] = clean && ch != '"';
+        }
+    }
+
     static private final BitSet DONT_ENCODE_SET = new BitSet(256);
 
 
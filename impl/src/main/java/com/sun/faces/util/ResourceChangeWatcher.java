@@ -0,0 +1,311 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.util;
+
+import static com.sun.faces.config.WebConfiguration.BooleanWebContextInitParameter.WatchResourceChanges;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.faces.context.ExternalContext;
+import javax.servlet.ServletContext;
+
+import com.sun.faces.config.WebConfiguration;
+
+/**
+ * <p>
+ * Detects changes of Facelets and resources served from an exploded web
+ * application using a <code>java.nio.file.WatchService</code>, so the
+ * caches holding them do not have to poll the file system on request
+ * threads.  A single background thread receives the file system events and
+ * marks the {@link Handle}s of the changed files; caches check the handle
+ * instead of the last modification time.  All callers watching a file share
+ * its handle until the file changes, so only one handle per file is kept.
+ * </p>
+ *
+ * <p>
+ * Only <code>file:</code> URLs can be watched.  For everything else, e.g.
+ * resources inside JARs, {@link #watch(URL)} returns <code>null</code> and
+ * callers keep polling as before.  Enabled through
+ * <code>com.sun.faces.watchResourceChanges</code>.
+ * </p>
+ */
+public final class ResourceChangeWatcher {
+
+    private static final Logger LOGGER = FacesLogger.RESOURCE.getLogger();
+
+    private static final String WATCHER_KEY =
+          ResourceChangeWatcher.class.getName();
+
+    private final WatchService watchService;
+    private final ConcurrentMap<Path, WatchKey> directories = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Path, Handle> handles = new ConcurrentHashMap<>();
+    private final Thread thread;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    ResourceChangeWatcher() throws IOException {
+
+        watchService = FileSystems.getDefault().newWatchService();
+        thread = new MojarraThreadFactory("ResourceChangeWatcher").newThread(new Runnable() {
+            @Override
+            public void run() {
+                processEvents();
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+
+    }
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    /**
+     * @param extContext the <code>ExternalContext</code> for this application
+     * @return the <code>ResourceChangeWatcher</code> of the current
+     *  application, created on first access, or <code>null</code> if
+     *  watching is disabled or not supported
+     */
+    public static ResourceChangeWatcher getInstance(ExternalContext extContext) {
+
+        if (!WebConfiguration.getInstance(extContext).isOptionEnabled(WatchResourceChanges)) {
+            return null;
+        }
+        Map<String, Object> appMap = extContext.getApplicationMap();
+        Object watcher = appMap.get(WATCHER_KEY);
+        if (watcher == null) {
+            synchronized (ResourceChangeWatcher.class) {
+                watcher = appMap.get(WATCHER_KEY);
+                if (watcher == null) {
+                    try {
+                        watcher = new ResourceChangeWatcher();
+                    } catch (IOException | UnsupportedOperationException e) {
+                        if (LOGGER.isLoggable(Level.WARNING)) {
+                            LOGGER.log(Level.WARNING,
+                                       "Unable to watch for resource changes, falling back to polling",
+                                       e);
+                        }
+                        watcher = Boolean.FALSE;
+                    }
+                    appMap.put(WATCHER_KEY, watcher);
+                }
+            }
+        }
+        return ((watcher instanceof ResourceChangeWatcher) ? (ResourceChangeWatcher) watcher : null);
+
+    }
+
+
+    /**
+     * <p>Stops the <code>ResourceChangeWatcher</code> of the application,
+     * if any.</p>
+     * @param context the <code>ServletContext</code> of the application
+     */
+    public static void shutdown(ServletContext context) {
+
+        Object watcher = context.getAttribute(WATCHER_KEY);
+        if (watcher instanceof ResourceChangeWatcher) {
+            ((ResourceChangeWatcher) watcher).close();
+        }
+        context.removeAttribute(WATCHER_KEY);
+
+    }
+
+
+    /**
+     * <p>
+     * Start watching <code>url</code>.  Call this before reading the
+     * resource, so changes made while it is being read are not missed.
+     * </p>
+     *
+     * @param url the URL of a Facelet or resource
+     * @return a <code>Handle</code> that is marked changed once the file is
+     *  modified, deleted or replaced, or <code>null</code> if the URL cannot
+     *  be watched.  The same handle is returned for a file until it changes.
+     */
+    public Handle watch(URL url) {
+
+        if (url == null || !"file".equals(url.getProtocol())) {
+            return null;
+        }
+        Path file;
+        try {
+            file = Paths.get(url.toURI()).toAbsolutePath().normalize();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+        Path dir = file.getParent();
+        if (dir == null) {
+            return null;
+        }
+        if (!directories.containsKey(dir)) {
+            try {
+                WatchKey key = dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                directories.putIfAbsent(dir, key);
+            } catch (IOException | ClosedWatchServiceException e) {
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE, "Unable to watch " + dir + ", polling " + url, e);
+                }
+                return null;
+            }
+        }
+        // a change racing with this registration either marks the handle
+        // returned here or happens before a new one is created
+        return handles.computeIfAbsent(file, f -> new Handle());
+
+    }
+
+
+    // ---------------------------------------------------------- Package Methods
+
+
+    void close() {
+
+        try {
+            watchService.close();
+        } catch (IOException ioe) {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE, "Unable to close the watch service", ioe);
+            }
+        }
+
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private void processEvents() {
+
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path dir = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    // events were lost, consider everything in the directory changed
+                    for (Path file : handles.keySet()) {
+                        if (dir.equals(file.getParent())) {
+                            changed(file);
+                        }
+                    }
+                } else {
+                    changed(dir.resolve((Path) event.context()));
+                }
+            }
+            if (!key.reset()) {
+                // the directory is gone, so are its files
+                directories.remove(dir, key);
+                for (Path file : handles.keySet()) {
+                    if (dir.equals(file.getParent())) {
+                        changed(file);
+                    }
+                }
+            }
+        }
+
+    }
+
+
+    private void changed(Path file) {
+
+        Handle handle = handles.remove(file);
+        if (handle != null) {
+            handle.changed = true;
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE, "Detected change of {0}", file);
+            }
+        }
+
+    }
+
+
+    // ---------------------------------------------------------- Nested Classes
+
+
+    /**
+     * <p>
+     * Tracks whether a watched file has changed since it was registered.
+     * </p>
+     */
+    public static final class Handle {
+
+        private volatile boolean changed;
+
+
+        /**
+         * @return <code>true</code> once the file has been modified, deleted
+         *  or replaced
+         */
+        public boolean isChanged() {
+
+            return changed;
+
+        }
+
+    }
+
+}
@@ -0,0 +1,242 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package javax.faces.component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.faces.context.FacesContext;
+import javax.faces.convert.Converter;
+import javax.faces.event.PhaseId;
+import javax.faces.model.SelectItem;
+import javax.faces.model.SelectItemGroup;
+
+/**
+ * <p>A copy of the {@link SelectItem}s of a {@link UISelectOne} or
+ * {@link UISelectMany}, taken once per request phase and component client
+ * id so that the <code>f:selectItem(s)</code> expressions are evaluated a
+ * single time while the submitted value(s) are validated.  Values are
+ * looked up through a hash index of the converted item values; only a
+ * value that is not found in the index falls back to the linear scan of
+ * {@link SelectUtils}, which keeps the result identical for values whose
+ * <code>equals()</code> and <code>hashCode()</code> disagree.</p>
+ */
+final class SelectItemsSnapshot {
+
+    private static final String SNAPSHOTS_KEY =
+          SelectItemsSnapshot.class.getName();
+
+    private final PhaseId phaseId;
+    private final List<SelectItem> items;
+    private final List<SelectItem> noSelectionItems;
+
+    private Converter indexConverter;
+    private Map<Class<?>, Set<Object>> indexes;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    private SelectItemsSnapshot(FacesContext ctx,
+                                UIComponent component,
+                                PhaseId phaseId) {
+
+        this.phaseId = phaseId;
+        items = new ArrayList<>();
+        noSelectionItems = new ArrayList<>();
+        Iterator<SelectItem> iterator = new SelectItemsIterator(ctx, component);
+        while (iterator.hasNext()) {
+            add(iterator.next());
+        }
+
+    }
+
+
+    // ------------------------------------------------- Package Private Methods
+
+
+    /**
+     * @param ctx the {@link FacesContext} for the current request
+     * @param component the select component
+     * @return the snapshot of the select items of <code>component</code>
+     *  for the current phase
+     */
+    @SuppressWarnings("unchecked")
+    static SelectItemsSnapshot getSnapshot(FacesContext ctx,
+                                           UIComponent component) {
+
+        Map<Object, Object> attributes = ctx.getAttributes();
+        Map<String, SelectItemsSnapshot> snapshots =
+              (Map<String, SelectItemsSnapshot>) attributes.get(SNAPSHOTS_KEY);
+        if (snapshots == null) {
+            snapshots = new HashMap<>();
+            attributes.put(SNAPSHOTS_KEY, snapshots);
+        }
+
+        // items may legitimately change between phases, e.g. in an action
+        String clientId = component.getClientId(ctx);
+        PhaseId currentPhaseId = ctx.getCurrentPhaseId();
+        SelectItemsSnapshot snapshot = snapshots.get(clientId);
+        if (snapshot == null || snapshot.phaseId != currentPhaseId) {
+            snapshot = new SelectItemsSnapshot(ctx, component, currentPhaseId);
+            snapshots.put(clientId, snapshot);
+        }
+        return snapshot;
+
+    }
+
+
+    /**
+     * @see SelectUtils#matchValue(FacesContext, UIComponent, Object, Iterator, Converter)
+     */
+    boolean matchValue(FacesContext ctx,
+                       UIComponent component,
+                       Object value,
+                       Converter converter) {
+
+        if (value != null
+              && getIndex(ctx, component, value.getClass(), converter).contains(value)) {
+            return true;
+        }
+        return SelectUtils.matchValue(ctx,
+                                      component,
+                                      value,
+                                      items.iterator(),
+                                      converter);
+
+    }
+
+
+    /**
+     * @see SelectUtils#valueIsNoSelectionOption(FacesContext, UIComponent, Object, Iterator, Converter)
+     */
+    boolean valueIsNoSelectionOption(FacesContext ctx,
+                                     UIComponent component,
+                                     Object value,
+                                     Converter converter) {
+
+        return !noSelectionItems.isEmpty()
+               && SelectUtils.valueIsNoSelectionOption(ctx,
+                                                       component,
+                                                       value,
+                                                       noSelectionItems.iterator(),
+                                                       converter);
+
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private void add(SelectItem item) {
+
+        if (item instanceof SelectItemGroup) {
+            SelectItem[] subitems = ((SelectItemGroup) item).getSelectItems();
+            if (subitems != null) {
+                for (SelectItem subitem : subitems) {
+                    add(subitem);
+                }
+            }
+        } else {
+            // the iterator may hand out the same instance for every item
+            SelectItem copy = new SelectItem(item.getValue(),
+                                             item.getLabel(),
+                                             item.getDescription(),
+                                             item.isDisabled(),
+                                             item.isEscape(),
+                                             item.isNoSelectionOption());
+            items.add(copy);
+            if (copy.isNoSelectionOption()) {
+                noSelectionItems.add(copy);
+            }
+        }
+
+    }
+
+
+    /*
+     * Returns the converted item values for values of the given type.  If
+     * any item fails to convert, an empty set is returned so that every
+     * lookup takes the linear path, which reports the failure the way it
+     * always has.
+     */
+    private Set<Object> getIndex(FacesContext ctx,
+                                 UIComponent component,
+                                 Class<?> valueType,
+                                 Converter converter) {
+
+        if (indexes == null || indexConverter != converter) {
+            indexes = new HashMap<>(4);
+            indexConverter = converter;
+        }
+        Set<Object> index = indexes.get(valueType);
+        if (index == null) {
+            index = new HashSet<>(items.size() * 2);
+            try {
+                for (SelectItem item : items) {
+                    if (item.getValue() == null) {
+                        continue;
+                    }
+                    Object compareValue = SelectUtils.convertItemValue(ctx,
+                                                                       component,
+                                                                       item,
+                                                                       valueType,
+                                                                       converter);
+                    if (compareValue != null) {
+                        index.add(compareValue);
+                    }
+                }
+            } catch (RuntimeException re) {
+                index = Collections.emptySet();
+            }
+            indexes.put(valueType, index);
+        }
+        return index;
+
+    }
+
+}
@@ -178,14 +178,26 @@ class SelectUtils {
         if ((value == null) ^ (itemValue == null)) {
             throw new IllegalStateException("Either value was null, or itemValue was null, but not both.");
         }
+
+        return convertItemValue(ctx, component, item, value.getClass(), converter);
+    }
+
+    /**
+     * Converts the non-null value of <code>item</code> so that it can be
+     * compared with a value of type <code>valueType</code>.
+     */
+    static Object convertItemValue(FacesContext ctx,
+            UIComponent component, SelectItem item,
+            Class<?> valueType, Converter converter) {
+        Object itemValue = item.getValue();
         Object compareValue;
         if (converter == null) {
             compareValue =
-                    coerceToModelType(ctx, itemValue, value.getClass());
+                    coerceToModelType(ctx, itemValue, valueType);
         } else {
             compareValue = itemValue;
             if (compareValue instanceof String
-                 && !(value instanceof String)) {
+                 && valueType != String.class) {
                 // type mismatch between the time and the value we're
                 // comparing.  Invoke the Converter.
                 compareValue = converter.getAsObject(ctx,
@@ -604,14 +604,13 @@ public class UISelectMany extends UIInput {
         // Don't arrays cast to "Object[]", as we may now be using an array
         // of primitives
         Converter converter = getConverter();
+        SelectItemsSnapshot items = SelectItemsSnapshot.getSnapshot(context, this);
         for (Iterator i = getValuesIterator(value); i.hasNext(); ) {
-            Iterator items = new SelectItemsIterator(context, this);
             Object currentValue = i.next();
-            if (!SelectUtils.matchValue(context,
-                                        this,
-                                        currentValue,
-                                        items,
-                                        converter)) {
+            if (!items.matchValue(context,
+                                  this,
+                                  currentValue,
+                                  converter)) {
                 doAddMessage = true;
                 break;
             }
@@ -621,12 +620,10 @@ public class UISelectMany extends UIInput {
         // value is required, a message is queued
         if (isRequired()) {
             for (Iterator i = getValuesIterator(value); i.hasNext();) {
-                Iterator items = new SelectItemsIterator(context, this);
                 Object currentValue = i.next();
-                if (SelectUtils.valueIsNoSelectionOption(context,
+                if (items.valueIsNoSelectionOption(context,
                         this,
                         currentValue,
-                        items,
                         converter)) {
                     doAddMessage = true;
                     break;
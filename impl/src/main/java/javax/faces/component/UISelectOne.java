@@ -261,17 +261,16 @@ public class UISelectOne extends UIInput {
         }
 
         // Ensure that the value matches one of the available options
-        boolean found = SelectUtils.matchValue(getFacesContext(),
-                                               this,
-                                               value,
-                                               new SelectItemsIterator(context, this),
-                                               getConverter());
-
-        boolean isNoSelection = SelectUtils.valueIsNoSelectionOption(getFacesContext(),
-                                               this,
-                                               value,
-                                               new SelectItemsIterator(context, this),
-                                               getConverter());
+        SelectItemsSnapshot items = SelectItemsSnapshot.getSnapshot(context, this);
+        boolean found = items.matchValue(context,
+                                         this,
+                                         value,
+                                         getConverter());
+
+        boolean isNoSelection = items.valueIsNoSelectionOption(context,
+                                         this,
+                                         value,
+                                         getConverter());
 
         // Enqueue an error message if an invalid value was specified
         if ((!found) ||
@@ -0,0 +1,82 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.application.view;
+
+import static com.sun.faces.application.view.FaceletWarmUp.getCompositeComponentId;
+import static com.sun.faces.application.view.FaceletWarmUp.getThreads;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class FaceletWarmUpTest {
+
+    @Test
+    public void testCompositeComponentId() {
+        assertArrayEquals(new String[] { "ez", "button.xhtml" },
+                          getCompositeComponentId("/resources/ez/button.xhtml", "/resources/"));
+        assertArrayEquals(new String[] { "ez", "button.xhtml" },
+                          getCompositeComponentId("/resources/ez/1_2/button.xhtml", "/resources/"));
+        assertArrayEquals(new String[] { "ez", "button.xhtml" },
+                          getCompositeComponentId("/WEB-INF/resources/ez/button.xhtml", "/WEB-INF/resources/"));
+    }
+
+    @Test
+    public void testFaceletsOutsideOfLibrariesAreNotCompositeComponents() {
+        assertNull(getCompositeComponentId("/index.xhtml", "/resources/"));
+        assertNull(getCompositeComponentId("/WEB-INF/templates/layout.xhtml", "/resources/"));
+        assertNull(getCompositeComponentId("/resources/button.xhtml", "/resources/"));
+        assertNull(getCompositeComponentId("/resources/ez/1_2/nested/button.xhtml", "/resources/"));
+    }
+
+    @Test
+    public void testThreads() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        assertEquals(3, getThreads("3"));
+        assertEquals(processors, getThreads(""));
+        assertEquals(processors, getThreads("0"));
+        assertEquals(processors, getThreads("-2"));
+        assertEquals(processors, getThreads("many"));
+        assertEquals(processors, getThreads(null));
+    }
+
+}
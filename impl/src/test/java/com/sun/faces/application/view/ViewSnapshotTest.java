@@ -0,0 +1,220 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.application.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.faces.component.UIComponent;
+import javax.faces.component.UIOutput;
+import javax.faces.component.UIPanel;
+import javax.faces.component.UIViewRoot;
+import javax.faces.context.FacesContext;
+import javax.faces.event.ComponentSystemEvent;
+import javax.faces.event.ComponentSystemEventListener;
+import javax.faces.event.PostAddToViewEvent;
+import javax.faces.view.facelets.Facelet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.faces.RIConstants;
+import com.sun.faces.mock.MockApplication;
+import com.sun.faces.mock.MockExternalContext;
+import com.sun.faces.mock.MockFacesContext;
+
+public class ViewSnapshotTest {
+
+    private MockFacesContext facesContext;
+    private Facelet facelet;
+
+    @Before
+    public void setUp() {
+        facesContext = new MockFacesContext(new MockExternalContext(null, null, null));
+        facesContext.setApplication(new MockApplication());
+        facelet = new Facelet() {
+            @Override
+            public void apply(FacesContext context, UIComponent parent) {
+            }
+        };
+        RecordingListener.childCounts.clear();
+    }
+
+    @After
+    public void tearDown() {
+        facesContext.release();
+    }
+
+    @Test
+    public void testRestoreCreatesNewComponents() throws Exception {
+        UIViewRoot view = createView();
+        ViewSnapshot snapshot = capture(view, null);
+        assertTrue(snapshot.isCurrent(facelet));
+        assertTrue(snapshot.isUsable(facelet));
+
+        UIViewRoot restored = new UIViewRoot();
+        assertTrue(snapshot.restore(facesContext, restored));
+
+        assertEquals(2, restored.getChildCount());
+        UIOutput text = (UIOutput) restored.getChildren().get(0);
+        assertEquals("text", text.getId());
+        assertEquals("Hello", text.getValue());
+        assertNotSame(view.getChildren().get(0), text);
+
+        UIComponent panel = restored.getChildren().get(1);
+        assertEquals("panel", panel.getId());
+        assertEquals(1, panel.getChildCount());
+        assertEquals("nested", panel.getChildren().get(0).getId());
+        assertEquals("header", restored.getFacet("header").getId());
+    }
+
+    @Test
+    public void testPostAddToViewListenersSeeTheirChildren() throws Exception {
+        UIViewRoot view = createView();
+        ViewSnapshot snapshot = capture(view, null);
+        RecordingListener.childCounts.clear();
+
+        snapshot.restore(facesContext, new UIViewRoot());
+        assertEquals(1, RecordingListener.childCounts.size());
+        assertEquals(Integer.valueOf(1), RecordingListener.childCounts.get(0));
+    }
+
+    @Test
+    public void testPopulatedViewIsNotRestored() throws Exception {
+        ViewSnapshot snapshot = capture(createView(), null);
+
+        UIViewRoot populated = new UIViewRoot();
+        populated.getChildren().add(new UIOutput());
+        assertFalse(snapshot.restore(facesContext, populated));
+        assertEquals(1, populated.getChildCount());
+    }
+
+    @Test
+    public void testDependentViewIsNotUsable() throws Exception {
+        ViewSnapshot snapshot = capture(createView(), "c:if test");
+        assertTrue(snapshot.isCurrent(facelet));
+        assertFalse(snapshot.isUsable(facelet));
+
+        UIViewRoot transientView = createView();
+        transientView.setTransient(true);
+        assertFalse(capture(transientView, null).isUsable(facelet));
+    }
+
+    @Test
+    public void testSnapshotOfAnotherFaceletIsNotUsable() throws Exception {
+        ViewSnapshot snapshot = capture(createView(), null);
+        Facelet other = new Facelet() {
+            @Override
+            public void apply(FacesContext context, UIComponent parent) {
+            }
+        };
+        assertFalse(snapshot.isCurrent(other));
+        assertFalse(snapshot.isUsable(other));
+    }
+
+    @Test
+    public void testOnlyKnownContextAttributesAreRestored() throws Exception {
+        Map<Object, Object> before = new HashMap<>(facesContext.getAttributes());
+        UIViewRoot view = createView();
+        facesContext.getAttributes().put("facelets.ContentType", "application/xhtml+xml");
+        facesContext.getAttributes().put(RIConstants.FACELETS_ENCODING_KEY, "UTF-8");
+        facesContext.getAttributes().put("com.example.requestState", "first request");
+        ViewSnapshot snapshot = ViewSnapshot.capture(facesContext, view, facelet, null, before);
+
+        facesContext.getAttributes().clear();
+        snapshot.restore(facesContext, new UIViewRoot());
+        assertEquals("application/xhtml+xml", facesContext.getAttributes().get("facelets.ContentType"));
+        assertEquals("UTF-8", facesContext.getAttributes().get(RIConstants.FACELETS_ENCODING_KEY));
+        assertNull(facesContext.getAttributes().get("com.example.requestState"));
+    }
+
+    private ViewSnapshot capture(UIViewRoot view, Object dependency) {
+        return ViewSnapshot.capture(facesContext, view, facelet, dependency,
+                                    new HashMap<>(facesContext.getAttributes()));
+    }
+
+    private UIViewRoot createView() {
+        UIViewRoot view = new UIViewRoot();
+        view.setViewId("/page.xhtml");
+
+        UIOutput text = new UIOutput();
+        text.setId("text");
+        text.setValue("Hello");
+        view.getChildren().add(text);
+
+        UIPanel panel = new UIPanel();
+        panel.setId("panel");
+        panel.subscribeToEvent(PostAddToViewEvent.class, new RecordingListener());
+        UIOutput nested = new UIOutput();
+        nested.setId("nested");
+        panel.getChildren().add(nested);
+        view.getChildren().add(panel);
+
+        UIOutput header = new UIOutput();
+        header.setId("header");
+        view.getFacets().put("header", header);
+        return view;
+    }
+
+    public static final class RecordingListener implements ComponentSystemEventListener, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        static final List<Integer> childCounts = new ArrayList<>();
+
+        @Override
+        public void processEvent(ComponentSystemEvent event) {
+            childCounts.add(event.getComponent().getChildCount());
+        }
+
+    }
+
+}
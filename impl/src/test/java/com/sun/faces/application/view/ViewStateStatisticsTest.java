@@ -0,0 +1,140 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.application.view;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.lang.management.ManagementFactory;
+
+import javax.faces.component.UIInput;
+import javax.faces.component.UIOutput;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import com.sun.faces.junit.JUnitFacesTestCaseBase;
+
+/**
+ * The JUnit tests for the ViewStateStatistics class.
+ */
+public class ViewStateStatisticsTest extends JUnitFacesTestCaseBase {
+
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    private ObjectName name;
+
+    public ViewStateStatisticsTest(String name) {
+        super(name);
+    }
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        name = new ObjectName("com.sun.faces:type=ViewStateStatistics,context="
+                              + ObjectName.quote(servletContext.getContextPath()));
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        ViewStateStatistics.unregister(servletContext);
+        assertFalse(server.isRegistered(name));
+        super.tearDown();
+    }
+
+    public void testDisabledByDefault() {
+        assertNull(ViewStateStatistics.getRecorder(facesContext, "/index.xhtml"));
+        assertFalse(server.isRegistered(name));
+    }
+
+    public void testCountsSavedViews() throws Exception {
+        servletContext.addInitParameter("com.sun.faces.enableViewStateStatistics", "true");
+        Object[] small = new Object[] { "value" };
+        Object[] large = new Object[] { "value", "a longer value", 42 };
+
+        ViewStateStatistics.Recorder recorder =
+              ViewStateStatistics.getRecorder(facesContext, "/index.xhtml");
+        recorder.component(new UIOutput(), small);
+        recorder.component(new UIOutput(), small);
+        recorder.view(small);
+        recorder = ViewStateStatistics.getRecorder(facesContext, "/index.xhtml");
+        recorder.component(new UIInput(), large);
+        recorder.view(large);
+        recorder = ViewStateStatistics.getRecorder(facesContext, "/other.xhtml");
+        recorder.view(small);
+
+        ViewStateStatistics statistics = (ViewStateStatistics)
+              externalContext.getApplicationMap().get(ViewStateStatistics.class.getName());
+        ViewStateStatistics.SizeStatistics view = statistics.getViews().get("/index.xhtml");
+        assertEquals(2, view.getCount());
+        assertEquals(sizeOf(small) + sizeOf(large), view.getTotalSize());
+        assertEquals(sizeOf(large), view.getMaxSize());
+        assertEquals((sizeOf(small) + sizeOf(large)) / 2, view.getAverageSize());
+        assertEquals(1, statistics.getViews().get("/other.xhtml").getCount());
+
+        // sizes are summed up per view
+        ViewStateStatistics.SizeStatistics output =
+              statistics.getComponentTypes().get(UIOutput.class.getName());
+        assertEquals(1, output.getCount());
+        assertEquals(2 * sizeOf(small), output.getTotalSize());
+        assertEquals(sizeOf(large),
+                     statistics.getComponentTypes().get(UIInput.class.getName()).getTotalSize());
+
+        // the same counters are exposed through the MBean server
+        TabularData views = (TabularData) server.getAttribute(name, "Views");
+        CompositeData row = (CompositeData) views.get(new Object[] { "/index.xhtml" }).get("value");
+        assertEquals(2L, row.get("count"));
+        assertEquals(sizeOf(large), row.get("maxSize"));
+
+        server.invoke(name, "reset", null, null);
+        assertTrue(statistics.getViews().isEmpty());
+        assertTrue(statistics.getComponentTypes().isEmpty());
+    }
+
+    private static long sizeOf(Object state) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            oos.writeObject(state);
+        }
+        return baos.size();
+    }
+
+}
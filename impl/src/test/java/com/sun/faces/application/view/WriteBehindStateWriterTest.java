@@ -0,0 +1,189 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.application.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.sun.faces.io.EncodedText;
+import com.sun.faces.io.EncodingOutputWriter;
+import com.sun.faces.mock.MockExternalContext;
+import com.sun.faces.mock.MockFacesContext;
+
+public class WriteBehindStateWriterTest {
+
+    private WriteBehindStateWriter writer;
+    private MockFacesContext facesContext;
+    private int responseFlushes;
+
+    @After
+    public void tearDown() {
+        if (writer != null) {
+            writer.release();
+        }
+        if (facesContext != null) {
+            facesContext.release();
+        }
+    }
+
+    @Test
+    public void testEncodedTextIsPassedToTheStream() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncodingOutputWriter encodingWriter = new EncodingOutputWriter(out, StandardCharsets.UTF_8, 64);
+        writer = new WriteBehindStateWriter(encodingWriter, null, 64);
+
+        writer.write("<p>");
+        assertTrue(writer.write(new EncodedText("pre-encoded")));
+        writer.write("</p>");
+        encodingWriter.flush();
+
+        assertEquals("<p>pre-encoded</p>", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testEncodedTextIsRefusedOnceStateIsWritten() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncodingOutputWriter encodingWriter = new EncodingOutputWriter(out, StandardCharsets.UTF_8, 64);
+        writer = new WriteBehindStateWriter(encodingWriter, null, 64);
+
+        writer.writingState();
+        // the caller writes the characters, which are buffered until the
+        // state field markers are replaced
+        assertFalse(writer.write(new EncodedText("after the state")));
+        encodingWriter.flush();
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    public void testEncodedTextIsRefusedWhileContentIsHeld() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer = new WriteBehindStateWriter(new EncodingOutputWriter(out, StandardCharsets.UTF_8, 64), null, 64);
+
+        writer.holdContent();
+        assertFalse(writer.write(new EncodedText("held")));
+        assertTrue(writer.stateWritten());
+    }
+
+    @Test
+    public void testEncodedTextIsRefusedByCharacterWriters() throws Exception {
+        writer = new WriteBehindStateWriter(new StringWriter(), null, 64);
+
+        assertFalse(writer.write(new EncodedText("text")));
+    }
+
+    @Test
+    public void testFlushEarlySendsContentWrittenSoFar() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer = new WriteBehindStateWriter(new EncodingOutputWriter(out, StandardCharsets.UTF_8, 64),
+                                            createFacesContext(), 64);
+
+        writer.write("<head></head>");
+        writer.flushEarly();
+        assertEquals("<head></head>", new String(out.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(1, responseFlushes);
+    }
+
+    @Test
+    public void testFirstStateFieldFlushesEarly() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer = new WriteBehindStateWriter(new EncodingOutputWriter(out, StandardCharsets.UTF_8, 64),
+                                            createFacesContext(), 64);
+        writer.setEarlyFlush(true);
+
+        writer.write("<form>");
+        writer.writingState();
+        assertEquals("<form>", new String(out.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(1, responseFlushes);
+
+        // the content following the state field is buffered
+        writer.write("</form>");
+        writer.writingState();
+        writer.flushEarly();
+        assertEquals("<form>", new String(out.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(1, responseFlushes);
+    }
+
+    @Test
+    public void testStateFieldDoesNotFlushByDefault() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer = new WriteBehindStateWriter(new EncodingOutputWriter(out, StandardCharsets.UTF_8, 64),
+                                            createFacesContext(), 64);
+
+        writer.write("<form>");
+        writer.writingState();
+        assertEquals(0, out.size());
+        assertEquals(0, responseFlushes);
+    }
+
+    @Test
+    public void testFlushEarlyDoesNothingWhileContentIsHeld() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer = new WriteBehindStateWriter(new EncodingOutputWriter(out, StandardCharsets.UTF_8, 64),
+                                            createFacesContext(), 64);
+        writer.setEarlyFlush(true);
+
+        writer.holdContent();
+        writer.write("<head></head>");
+        writer.flushEarly();
+        writer.writingState();
+        assertEquals(0, out.size());
+        assertEquals(0, responseFlushes);
+    }
+
+    private MockFacesContext createFacesContext() {
+        facesContext = new MockFacesContext(new MockExternalContext(null, null, null) {
+            @Override
+            public void responseFlushBuffer() {
+                responseFlushes++;
+            }
+        });
+        return facesContext;
+    }
+
+}
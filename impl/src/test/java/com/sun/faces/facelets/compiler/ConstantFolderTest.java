@@ -0,0 +1,144 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.facelets.compiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import javax.faces.view.Location;
+import javax.faces.view.facelets.Tag;
+import javax.faces.view.facelets.TagAttribute;
+
+import org.junit.Test;
+
+import com.sun.el.ExpressionFactoryImpl;
+import com.sun.faces.facelets.tag.TagAttributeImpl;
+import com.sun.faces.facelets.tag.TagAttributesImpl;
+
+public class ConstantFolderTest {
+
+    private static final Location LOCATION = new Location("/test.xhtml", 1, 1);
+
+    private final ConstantFolder folder = new ConstantFolder(new ExpressionFactoryImpl());
+
+    @Test
+    public void testIsConstant() {
+        assertTrue(ConstantFolder.isConstant("#{1 + 2}"));
+        assertTrue(ConstantFolder.isConstant("#{'a' += \"b\"}"));
+        assertTrue(ConstantFolder.isConstant("#{1.5e+3 * 2 div 4}"));
+        assertTrue(ConstantFolder.isConstant("#{not empty '' ? 'x' : 'y'}"));
+        assertTrue(ConstantFolder.isConstant("${true and (3 >= 2)}"));
+    }
+
+    @Test
+    public void testIsNotConstant() {
+        assertFalse(ConstantFolder.isConstant("#{}"));
+        assertFalse(ConstantFolder.isConstant("#{bean}"));
+        assertFalse(ConstantFolder.isConstant("#{bean.value + 1}"));
+        assertFalse(ConstantFolder.isConstant("#{fn:length('abc')}"));
+        assertFalse(ConstantFolder.isConstant("#{[1, 2]}"));
+        assertFalse(ConstantFolder.isConstant("#{x -> x + 1}"));
+        assertFalse(ConstantFolder.isConstant("#{'unterminated}"));
+    }
+
+    @Test
+    public void testFold() {
+        Tag tag = tag(attribute("value", "#{2 * 60}"),
+                      attribute("title", "#{1 + 1} items"),
+                      attribute("rendered", "#{bean.rendered}"),
+                      attribute("styleClass", "plain"),
+                      attribute("size", "#{1 / 'a'}"));
+        Tag folded = folder.fold(tag);
+        assertNotSame(tag, folded);
+
+        TagAttributeImpl value = (TagAttributeImpl) folded.getAttributes().get("value");
+        assertTrue(value.isConstant());
+        assertEquals(120L, value.getConstantValue());
+        assertEquals("#{2 * 60}", value.getValue());
+        assertSame(LOCATION, value.getLocation());
+
+        TagAttributeImpl title = (TagAttributeImpl) folded.getAttributes().get("title");
+        assertTrue(title.isConstant());
+        assertEquals("2 items", title.getConstantValue());
+
+        // expressions that aren't constant, literals and constant
+        // expressions that fail are left alone
+        assertSame(tag.getAttributes().get("rendered"), folded.getAttributes().get("rendered"));
+        assertSame(tag.getAttributes().get("styleClass"), folded.getAttributes().get("styleClass"));
+        assertSame(tag.getAttributes().get("size"), folded.getAttributes().get("size"));
+    }
+
+    @Test
+    public void testFoldWithoutConstants() {
+        Tag tag = tag(attribute("value", "#{bean.value}"), attribute("styleClass", "plain"));
+        assertSame(tag, folder.fold(tag));
+    }
+
+    @Test
+    public void testFoldText() {
+        assertEquals("120 seconds", folder.foldText("#{2 * 60} seconds"));
+        assertEquals("a bc #{bean.d}", folder.foldText("a #{'b' += 'c'} #{bean.d}"));
+        assertEquals("", folder.foldText("#{null}"));
+        assertEquals("no expressions", folder.foldText("no expressions"));
+    }
+
+    @Test
+    public void testFoldTextKeepsValuesThatNeedEscaping() {
+        assertEquals("#{'<b>'}", folder.foldText("#{'<b>'}"));
+        assertEquals("#{'a &amp; b'}", folder.foldText("#{'a &amp; b'}"));
+        assertEquals("#{'#{x}'}", folder.foldText("#{'#{x}'}"));
+        assertEquals("#{'\u00e9'}", folder.foldText("#{'\u00e9'}"));
+        assertEquals("#{1 / 'a'}", folder.foldText("#{1 / 'a'}"));
+    }
+
+    private static Tag tag(TagAttribute... attributes) {
+        return new Tag(LOCATION, "http://xmlns.jcp.org/jsf/html", "outputText", "h:outputText",
+                       new TagAttributesImpl(attributes));
+    }
+
+    private static TagAttribute attribute(String name, String value) {
+        return new TagAttributeImpl(LOCATION, "", name, name, value);
+    }
+
+}
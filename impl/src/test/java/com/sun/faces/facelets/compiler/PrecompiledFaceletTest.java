@@ -0,0 +1,273 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.facelets.compiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.DefaultHandler;
+
+public class PrecompiledFaceletTest {
+
+    private static final String PAGE =
+          "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+          + "<html xmlns=\"http://www.w3.org/1999/xhtml\"\n"
+          + "      xmlns:h=\"http://xmlns.jcp.org/jsf/html\">\n"
+          + "<!-- a comment -->\n"
+          + "  <h:outputText value=\"#{bean.value}\"/>\n"
+          + "  <p>\n"
+          + "    text on line seven #{bean.text}\n"
+          + "  </p>\n"
+          + "  <script><![CDATA[ if (a < b) {} ]]></script>\n"
+          + "  <?php echo 'pi' ?>\n"
+          + "</html>\n";
+
+    private File sourceDir;
+    private File targetDir;
+
+    @Before
+    public void setUp() throws IOException {
+        sourceDir = Files.createTempDirectory("facelets").toFile();
+        targetDir = Files.createTempDirectory("precompiled").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        delete(sourceDir);
+        delete(targetDir);
+    }
+
+    @Test
+    public void testReplayMatchesParser() throws Exception {
+        File page = write("page.xhtml", PAGE.getBytes(StandardCharsets.UTF_8));
+        assertEquals(1, PrecompiledFacelet.precompile(sourceDir, targetDir));
+
+        PrecompiledFacelet precompiled = find(page, "/page.xhtml");
+        assertNotNull(precompiled);
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?>", precompiled.getXmlDeclaration());
+
+        EventLog replayed = new EventLog();
+        precompiled.replay(replayed);
+
+        EventLog parsed = new EventLog();
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setFeature("http://xml.org/sax/features/namespace-prefixes", true);
+        SAXParser parser = factory.newSAXParser();
+        parser.getXMLReader().setProperty("http://xml.org/sax/properties/lexical-handler", parsed);
+        parser.parse(new InputSource(page.toURI().toString()), parsed);
+
+        // text events keep their location, so EL errors report the right line
+        assertEquals(parsed.events, replayed.events);
+        assertEquals(true, replayed.events.contains("characters 8:3 [\n    text on line seven #{bean.text}\n  ]"));
+    }
+
+    @Test
+    public void testOutOfDateRecordingIsIgnored() throws Exception {
+        File page = write("page.xhtml", PAGE.getBytes(StandardCharsets.UTF_8));
+        PrecompiledFacelet.precompile(sourceDir, targetDir);
+        page.setLastModified(page.lastModified() + 60000L);
+        assertNull(find(page, "/page.xhtml"));
+    }
+
+    @Test
+    public void testXmlDeclarationHonorsEncoding() throws Exception {
+        String decl = "<?xml version=\"1.0\" encoding=\"%s\"?>";
+        String body = "\n<p>\u00e9t\u00e9</p>";
+
+        assertEquals(String.format(decl, "ISO-8859-1"),
+                     readXmlDeclaration((String.format(decl, "ISO-8859-1") + body)
+                                              .getBytes(StandardCharsets.ISO_8859_1)));
+        assertEquals(String.format(decl, "UTF-16"),
+                     readXmlDeclaration((String.format(decl, "UTF-16") + body)
+                                              .getBytes(StandardCharsets.UTF_16)));
+        assertEquals(String.format(decl, "UTF-16LE"),
+                     readXmlDeclaration((String.format(decl, "UTF-16LE") + body)
+                                              .getBytes(StandardCharsets.UTF_16LE)));
+
+        ByteArrayOutputStream bom = new ByteArrayOutputStream();
+        bom.write(new byte[] { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF });
+        bom.write((String.format(decl, "UTF-8") + body).getBytes(StandardCharsets.UTF_8));
+        assertEquals(String.format(decl, "UTF-8"), readXmlDeclaration(bom.toByteArray()));
+
+        assertNull(readXmlDeclaration(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String readXmlDeclaration(byte[] bytes) throws IOException {
+        return PrecompiledFacelet.readXmlDeclaration(
+              new BufferedInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    private PrecompiledFacelet find(File page, String alias) throws IOException {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader recordings = new URLClassLoader(new URL[] { targetDir.toURI().toURL() }, null)) {
+            Thread.currentThread().setContextClassLoader(recordings);
+            return PrecompiledFacelet.find(page.toURI().toURL(), alias);
+        } finally {
+            Thread.currentThread().setContextClassLoader(loader);
+        }
+    }
+
+    private File write(String name, byte[] content) throws IOException {
+        File file = new File(sourceDir, name);
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(content);
+        }
+        return file;
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static final class EventLog extends DefaultHandler implements LexicalHandler {
+
+        final List<String> events = new ArrayList<>();
+        private Locator locator;
+
+        @Override
+        public void setDocumentLocator(Locator locator) {
+            this.locator = locator;
+        }
+
+        private void log(String event, String detail) {
+            events.add(event + ' ' + locator.getLineNumber() + ':' + locator.getColumnNumber()
+                       + ' ' + detail);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            StringBuilder detail = new StringBuilder(qName);
+            for (int i = 0; i < attributes.getLength(); i++) {
+                detail.append(' ').append(attributes.getQName(i)).append('=').append(attributes.getValue(i));
+            }
+            log("startElement", detail.toString());
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            log("endElement", qName);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            // parsers may split text, only the concatenation is significant
+            String text = new String(ch, start, length);
+            int last = events.size() - 1;
+            if (last >= 0 && events.get(last).startsWith("characters ")) {
+                String previous = events.remove(last);
+                events.add(previous.substring(0, previous.length() - 1) + text + ']');
+            } else {
+                log("characters", '[' + text + ']');
+            }
+        }
+
+        @Override
+        public void processingInstruction(String target, String data) {
+            log("processingInstruction", target + ' ' + data);
+        }
+
+        @Override
+        public void comment(char[] ch, int start, int length) {
+            log("comment", new String(ch, start, length));
+        }
+
+        @Override
+        public void startCDATA() {
+            log("startCDATA", "");
+        }
+
+        @Override
+        public void endCDATA() {
+            log("endCDATA", "");
+        }
+
+        @Override
+        public void startDTD(String name, String publicId, String systemId) {
+            log("startDTD", name);
+        }
+
+        @Override
+        public void endDTD() {
+        }
+
+        @Override
+        public void startEntity(String name) {
+        }
+
+        @Override
+        public void endEntity(String name) {
+        }
+
+    }
+
+}
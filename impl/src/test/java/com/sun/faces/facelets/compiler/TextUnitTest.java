@@ -0,0 +1,144 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.facelets.compiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.faces.component.UIComponent;
+import javax.faces.view.Location;
+import javax.faces.view.facelets.FaceletHandler;
+import javax.faces.view.facelets.Tag;
+import javax.faces.view.facelets.TagAttribute;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.el.ExpressionFactoryImpl;
+import com.sun.faces.facelets.tag.TagAttributeImpl;
+import com.sun.faces.facelets.tag.TagAttributesImpl;
+import com.sun.faces.mock.MockFacesContext;
+import com.sun.faces.mock.MockResponseWriter;
+
+public class TextUnitTest {
+
+    private static final Location LOCATION = new Location("/test.xhtml", 1, 1);
+
+    private MockFacesContext facesContext;
+    private List<String> written;
+
+    @Before
+    public void setUp() {
+        facesContext = new MockFacesContext();
+        written = new ArrayList<>();
+        facesContext.setResponseWriter(new MockResponseWriter(new StringWriter(), "UTF-8") {
+            @Override
+            public void startElement(String name, UIComponent component) {
+                written.add("<" + name);
+            }
+
+            @Override
+            public void writeAttribute(String name, Object value, String property) {
+                written.add(name + "=" + value);
+            }
+
+            @Override
+            public void endElement(String name) {
+                written.add("</" + name);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        facesContext.release();
+    }
+
+    @Test
+    public void testConstantAttributesAreFolded() throws Exception {
+        TextUnit unit = new TextUnit("/test.xhtml", "id", new ConstantFolder(new ExpressionFactoryImpl()));
+        unit.startTag(tag(attribute("width", "#{2 * 3}"), attribute("title", "#{'a' += 'b'}")));
+        unit.endTag();
+
+        write(unit.createFaceletHandler());
+        assertEquals(Arrays.asList("<div", "width=6", "title=ab", "</div"), written);
+    }
+
+    @Test
+    public void testAttributeFoldedToEmptyStringIsDropped() throws Exception {
+        TextUnit unit = new TextUnit("/test.xhtml", "id", new ConstantFolder(new ExpressionFactoryImpl()));
+        unit.startTag(tag(attribute("title", "#{null}"),
+                          attribute("class", ""),
+                          attribute("lang", "#{''}")));
+        unit.endTag();
+
+        // an expression that evaluates to an empty string is never written,
+        // an empty literal is
+        write(unit.createFaceletHandler());
+        assertEquals(Arrays.asList("<div", "class=", "</div"), written);
+    }
+
+    private void write(FaceletHandler handler) throws Exception {
+        assertTrue(handler instanceof UIInstructionHandler);
+        Field field = UIInstructionHandler.class.getDeclaredField("instructions");
+        field.setAccessible(true);
+        for (Instruction instruction : (Instruction[]) field.get(handler)) {
+            instruction.write(facesContext);
+        }
+    }
+
+    private static Tag tag(TagAttribute... attributes) {
+        return new Tag(LOCATION, "http://www.w3.org/1999/xhtml", "div", "div",
+                       new TagAttributesImpl(attributes));
+    }
+
+    private static TagAttribute attribute(String name, String value) {
+        return new TagAttributeImpl(LOCATION, "", name, name, value);
+    }
+
+}
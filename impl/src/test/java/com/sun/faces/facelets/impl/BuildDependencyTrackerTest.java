@@ -0,0 +1,160 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.facelets.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.beans.FeatureDescriptor;
+import java.util.Iterator;
+
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.faces.context.FacesContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.faces.mock.MockExternalContext;
+import com.sun.faces.mock.MockFacesContext;
+
+public class BuildDependencyTrackerTest {
+
+    private FacesContext facesContext;
+
+    @Before
+    public void setUp() {
+        facesContext = new MockFacesContext(new MockExternalContext(null, null, null));
+    }
+
+    @After
+    public void tearDown() {
+        facesContext.release();
+    }
+
+    @Test
+    public void testTrackerIsInstalledForTheRequest() {
+        assertNull(BuildDependencyTracker.getCurrentInstance(facesContext));
+
+        BuildDependencyTracker tracker = BuildDependencyTracker.start(facesContext);
+        assertSame(tracker, BuildDependencyTracker.getCurrentInstance(facesContext));
+        BuildDependencyTracker.record(facesContext, "locale");
+        assertEquals("locale", tracker.getDependency());
+
+        BuildDependencyTracker.stop(facesContext);
+        assertNull(BuildDependencyTracker.getCurrentInstance(facesContext));
+        // nothing is recorded without a tracker
+        BuildDependencyTracker.record(facesContext, "renderKitId");
+    }
+
+    @Test
+    public void testFirstDependencyIsKept() {
+        BuildDependencyTracker tracker = BuildDependencyTracker.start(facesContext);
+        assertNull(tracker.getDependency());
+
+        tracker.record("first");
+        tracker.record("second");
+        assertEquals("first", tracker.getDependency());
+    }
+
+    @Test
+    public void testTopLevelIdentifiersAreTracked() {
+        BuildDependencyTracker tracker = BuildDependencyTracker.start(facesContext);
+        ELResolver resolver = tracker.wrap(new ValueResolver());
+
+        // properties of a resolved base are not dependencies of their own
+        assertEquals("value", resolver.getValue(null, "base", "property"));
+        assertNull(tracker.getDependency());
+
+        assertEquals("value", resolver.getValue(null, null, "bean"));
+        assertEquals("bean", tracker.getDependency());
+    }
+
+    @Test
+    public void testMethodInvocationsAreTracked() {
+        BuildDependencyTracker tracker = BuildDependencyTracker.start(facesContext);
+        ELResolver resolver = tracker.wrap(new ValueResolver());
+
+        resolver.invoke(null, null, "function", null, null);
+        assertEquals("function", tracker.getDependency());
+    }
+
+    private static final class ValueResolver extends ELResolver {
+
+        @Override
+        public Object getValue(ELContext context, Object base, Object property) {
+            return "value";
+        }
+
+        @Override
+        public Class<?> getType(ELContext context, Object base, Object property) {
+            return String.class;
+        }
+
+        @Override
+        public void setValue(ELContext context, Object base, Object property, Object value) {
+        }
+
+        @Override
+        public boolean isReadOnly(ELContext context, Object base, Object property) {
+            return true;
+        }
+
+        @Override
+        public Object invoke(ELContext context, Object base, Object method, Class<?>[] paramTypes, Object[] params) {
+            return null;
+        }
+
+        @Override
+        public Iterator<FeatureDescriptor> getFeatureDescriptors(ELContext context, Object base) {
+            return null;
+        }
+
+        @Override
+        public Class<?> getCommonPropertyType(ELContext context, Object base) {
+            return Object.class;
+        }
+
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.facelets.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+public class IdMapperTest {
+
+    @Test
+    public void testToBase62() {
+        assertEquals("0", IdMapper.toBase62(0));
+        assertEquals("9", IdMapper.toBase62(9));
+        assertEquals("a", IdMapper.toBase62(10));
+        assertEquals("Z", IdMapper.toBase62(61));
+        assertEquals("10", IdMapper.toBase62(62));
+        assertEquals("g8", IdMapper.toBase62(1000));
+        assertEquals("2lkCB1", IdMapper.toBase62(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testDefaultAliases() {
+        IdMapper mapper = new IdMapper();
+        assertEquals("t1", mapper.getAliasedId("a"));
+        assertEquals("t2", mapper.getAliasedInstructionId("b"));
+        assertEquals("t1", mapper.getAliasedId("a"));
+    }
+
+    @Test
+    public void testCompactAliases() {
+        IdMapper mapper = new IdMapper(true);
+        for (int i = 1; i < 62; i++) {
+            mapper.getAliasedId("c" + i);
+        }
+        assertEquals("t10", mapper.getAliasedId("c62"));
+        assertEquals("i1", mapper.getAliasedInstructionId("text"));
+        assertNotEquals(mapper.getAliasedId("text"), mapper.getAliasedInstructionId("text"));
+        assertEquals("t10", mapper.getAliasedId("c62"));
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class EncodingOutputWriterTest {
+
+    @Test
+    public void testSupportedCharsets() {
+        assertTrue(EncodingOutputWriter.isSupported(StandardCharsets.UTF_8));
+        assertTrue(EncodingOutputWriter.isSupported(StandardCharsets.ISO_8859_1));
+        assertTrue(EncodingOutputWriter.isSupported(StandardCharsets.US_ASCII));
+        assertTrue(EncodingOutputWriter.isSupported(Charset.forName("windows-1252")));
+        assertFalse(EncodingOutputWriter.isSupported(StandardCharsets.UTF_16));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedCharset() {
+        new EncodingOutputWriter(new ByteArrayOutputStream(), StandardCharsets.UTF_16, 64);
+    }
+
+    @Test
+    public void testEncodedTextKeepsItsPosition() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncodingOutputWriter writer = new EncodingOutputWriter(out, StandardCharsets.UTF_8, 64);
+
+        writer.write("<p>\u00e9t\u00e9 ");
+        assertTrue(writer.write(new EncodedText("<b>pr\u00e9-encod\u00e9</b>")));
+        writer.write(" \u20ac</p>");
+        writer.flush();
+
+        assertEquals("<p>\u00e9t\u00e9 <b>pr\u00e9-encod\u00e9</b> \u20ac</p>",
+                     new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testBufferIsEncodedWhenFull() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncodingOutputWriter writer = new EncodingOutputWriter(out, StandardCharsets.ISO_8859_1, 64);
+
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append((char) ('a' + (i % 26)));
+        }
+        writer.write(text.toString());
+        // everything but the last, partially filled buffer has been written
+        assertEquals(448, out.size());
+
+        writer.writeBuffer();
+        assertArrayEquals(text.toString().getBytes(StandardCharsets.ISO_8859_1), out.toByteArray());
+    }
+
+    @Test
+    public void testSurrogatePairAcrossWrites() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncodingOutputWriter writer = new EncodingOutputWriter(out, StandardCharsets.UTF_8, 64);
+
+        String clef = "\ud834\udd1e";
+        writer.write(clef.charAt(0));
+        writer.writeBuffer();
+        assertEquals(0, out.size());
+        writer.write(clef.charAt(1));
+        writer.flush();
+
+        assertArrayEquals(clef.getBytes(StandardCharsets.UTF_8), out.toByteArray());
+    }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+public class CursorDataModelTest {
+
+    private int iterations;
+    private int closed;
+
+    @Test
+    public void testEachPassIteratesOnce() {
+        CursorDataModel<String> model = new CursorDataModel<>(() -> {
+            iterations++;
+            return new ClosingIterator(Arrays.asList("a", "b", "c").iterator());
+        });
+
+        for (int pass = 0; pass < 2; pass++) {
+            List<String> rows = new ArrayList<>();
+            int rowIndex = -1;
+            while (true) {
+                model.setRowIndex(++rowIndex);
+                if (!model.isRowAvailable()) {
+                    break;
+                }
+                rows.add(model.getRowData());
+            }
+            assertFalse(model.isRowAvailable());
+            model.setRowIndex(-1);
+            assertEquals(Arrays.asList("a", "b", "c"), rows);
+        }
+
+        assertEquals(2, iterations);
+        assertEquals(2, closed);
+        assertEquals(-1, model.getRowCount());
+    }
+
+    @Test
+    public void testResetClosesIterator() {
+        CursorDataModel<String> model = new CursorDataModel<>(() -> {
+            iterations++;
+            return new ClosingIterator(Arrays.asList("a", "b", "c").iterator());
+        });
+
+        model.setRowIndex(0);
+        assertEquals("a", model.getRowData());
+        model.setRowIndex(-1);
+        assertEquals(1, closed);
+        assertFalse(model.isRowAvailable());
+
+        model.setRowIndex(1);
+        assertEquals("b", model.getRowData());
+        assertEquals(2, iterations);
+        assertEquals(1, closed);
+    }
+
+    @Test
+    public void testClosesStreams() {
+        CursorDataModel<String> model = CursorDataModel.of(() -> {
+            iterations++;
+            return Stream.of("a", "b", "c").onClose(() -> closed++);
+        });
+
+        model.setRowIndex(1);
+        assertEquals("b", model.getRowData());
+        // moving backwards starts over with a new stream
+        model.setRowIndex(0);
+        assertEquals("a", model.getRowData());
+        assertEquals(2, iterations);
+        assertEquals(1, closed);
+        model.setRowIndex(-1);
+        assertEquals(2, closed);
+
+        model.setRowIndex(3);
+        assertFalse(model.isRowAvailable());
+        assertEquals(3, closed);
+    }
+
+    @Test
+    public void testSkipsAhead() {
+        CursorDataModel<String> model =
+              new CursorDataModel<>(Arrays.asList("a", "b", "c"));
+        model.setRowIndex(2);
+        assertTrue(model.isRowAvailable());
+        assertEquals("c", model.getRowData());
+        model.setRowIndex(1);
+        assertEquals("b", model.getRowData());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoRowAvailable() {
+        CursorDataModel<String> model =
+              new CursorDataModel<>(Arrays.asList("a"));
+        model.setRowIndex(1);
+        model.getRowData();
+    }
+
+    private class ClosingIterator implements Iterator<String>, AutoCloseable {
+
+        private final Iterator<String> delegate;
+
+        ClosingIterator(Iterator<String> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+
+        @Override
+        public String next() {
+            return delegate.next();
+        }
+
+        @Override
+        public void close() {
+            closed++;
+        }
+
+    }
+
+}
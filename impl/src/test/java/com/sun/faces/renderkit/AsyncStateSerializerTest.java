@@ -0,0 +1,153 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.renderkit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import javax.faces.FacesException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class AsyncStateSerializerTest {
+
+    private final AsyncStateSerializer serializer = new AsyncStateSerializer(1, 1);
+
+    @Test
+    public void testSerializesDetachedState() throws Exception {
+        Map<String, Object> map = new HashMap<>();
+        map.put("form:input", new Object[] { "value" });
+        List<Object> list = new ArrayList<>();
+        list.add(new Object[] { "element" });
+        Object[] state = new Object[] { map, list, "leaf" };
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        AsyncStateSerializer.PendingState pending = serializer.submit(state, new AsyncStateSerializer.Serializer() {
+            @Override
+            public Object serialize(Object state) throws Exception {
+                latch.await();
+                return state;
+            }
+        });
+        // components reuse the containers of their saved state
+        ((Object[]) map.get("form:input"))[0] = "changed";
+        map.put("form:other", "added");
+        ((Object[]) list.get(0))[0] = "changed";
+        latch.countDown();
+
+        Object[] serialized = (Object[]) pending.get();
+        @SuppressWarnings("unchecked")
+        Map<String, Object> serializedMap = (Map<String, Object>) serialized[0];
+        assertEquals(1, serializedMap.size());
+        assertEquals("value", ((Object[]) serializedMap.get("form:input"))[0]);
+        assertEquals("element", ((Object[]) ((List<?>) serialized[1]).get(0))[0]);
+        assertSame(state[2], serialized[2]);
+    }
+
+    @Test
+    public void testSerializesOnCallingThreadIfQueueIsFull() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        AsyncStateSerializer.Serializer currentThread = new AsyncStateSerializer.Serializer() {
+            @Override
+            public Object serialize(Object state) throws Exception {
+                if (state != null) {
+                    latch.await();
+                }
+                return Thread.currentThread();
+            }
+        };
+        // one running, one queued
+        AsyncStateSerializer.PendingState running = serializer.submit("block", currentThread);
+        AsyncStateSerializer.PendingState queued = serializer.submit("block", currentThread);
+        AsyncStateSerializer.PendingState rejected = serializer.submit(null, currentThread);
+        assertSame(Thread.currentThread(), rejected.get());
+        latch.countDown();
+        assertSame(running.get(), queued.get());
+    }
+
+    @Test
+    public void testFailureSurfacesOnRestore() {
+        final IOException failure = new IOException("not serializable");
+        AsyncStateSerializer.PendingState pending = serializer.submit(new Object[0], new AsyncStateSerializer.Serializer() {
+            @Override
+            public Object serialize(Object state) throws Exception {
+                throw failure;
+            }
+        });
+        try {
+            pending.get();
+            fail();
+        } catch (FacesException expected) {
+            assertSame(failure, expected.getCause());
+        }
+    }
+
+    @Test
+    public void testReplacedBySerializedStateWhenSerialized() throws Exception {
+        AsyncStateSerializer.PendingState pending = serializer.submit(new Object[0], new AsyncStateSerializer.Serializer() {
+            @Override
+            public Object serialize(Object state) {
+                return new byte[] { 1, 2, 3 };
+            }
+        });
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            oos.writeObject(new Object[] { "structure", pending });
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+            Object[] state = (Object[]) ois.readObject();
+            assertEquals(3, ((byte[]) state[1]).length);
+        }
+    }
+
+}
@@ -0,0 +1,197 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.renderkit;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import javax.faces.context.FacesContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.faces.mock.MockExternalContext;
+import com.sun.faces.mock.MockFacesContext;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ByteArrayGuardTest {
+
+    private FacesContext facesContext;
+
+    @Before
+    public void setUp() {
+        // no session, so the guard uses its own key
+        facesContext = new MockFacesContext(new MockExternalContext(null, null, null) {
+            @Override
+            public Object getSession(boolean create) {
+                return null;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        facesContext.release();
+    }
+
+    @Test
+    public void testInPlaceRoundTrip() {
+        ByteArrayGuard guard = new ByteArrayGuard();
+        Random random = new Random(42);
+        for (int length : new int[] { 0, 1, 15, 16, 17, 1000 }) {
+            byte[] plain = new byte[length];
+            random.nextBytes(plain);
+
+            // the guard must only touch the header, data and padding area
+            int headerLength = guard.getHeaderLength();
+            byte[] buf = new byte[headerLength + length + guard.getMaxPaddingLength() + 8];
+            Arrays.fill(buf, (byte) 0x5a);
+            System.arraycopy(plain, 0, buf, headerLength, length);
+            int secured = guard.encrypt(facesContext, buf, length);
+            assertTrue(secured > headerLength + length);
+            assertTrue(secured <= headerLength + length + guard.getMaxPaddingLength());
+            for (int i = secured; i < buf.length; i++) {
+                assertEquals((byte) 0x5a, buf[i]);
+            }
+
+            // secured data written in place is readable through the array API
+            assertArrayEquals(plain, guard.decrypt(facesContext, Arrays.copyOf(buf, secured)));
+
+            assertEquals(length, guard.decrypt(facesContext, buf, secured));
+            assertArrayEquals(plain, Arrays.copyOfRange(buf, headerLength, headerLength + length));
+        }
+    }
+
+    @Test
+    public void testInPlaceDecryptOfArrayEncryptedData() {
+        ByteArrayGuard guard = new ByteArrayGuard();
+        byte[] plain = "in place".getBytes();
+        byte[] secured = guard.encrypt(facesContext, plain);
+
+        // decrypting must honor the length and ignore what follows it
+        byte[] buf = Arrays.copyOf(secured, secured.length + 32);
+        assertEquals(plain.length, guard.decrypt(facesContext, buf, secured.length));
+        assertArrayEquals(plain, Arrays.copyOfRange(buf, guard.getHeaderLength(),
+                                                    guard.getHeaderLength() + plain.length));
+    }
+
+    @Test
+    public void testInPlaceDecryptRejectsShortInput() {
+        ByteArrayGuard guard = new ByteArrayGuard();
+        byte[] secured = guard.encrypt(facesContext, new byte[10]);
+        assertEquals(-1, guard.decrypt(facesContext, secured, guard.getHeaderLength() - 1));
+        assertEquals(-1, guard.decrypt(facesContext, secured, secured.length - 1));
+    }
+
+    @Test
+    public void testGcmRoundTrip() {
+        ByteArrayGuard guard = new ByteArrayGuard(true);
+        assertEquals(12, guard.getHeaderLength());
+        assertEquals(16, guard.getMaxPaddingLength());
+        Random random = new Random(7);
+        for (int length : new int[] { 0, 1, 16, 1000 }) {
+            byte[] plain = new byte[length];
+            random.nextBytes(plain);
+            byte[] secured = guard.encrypt(facesContext, plain);
+            // |IV|encrypted data|tag|
+            assertEquals(12 + length + 16, secured.length);
+            assertArrayEquals(plain, guard.decrypt(facesContext, secured));
+        }
+    }
+
+    @Test
+    public void testTamperedDataIsRejected() {
+        for (boolean gcm : new boolean[] { false, true }) {
+            ByteArrayGuard guard = new ByteArrayGuard(gcm);
+            byte[] secured = guard.encrypt(facesContext, "some view state".getBytes());
+            // flip a bit in the header, in the data and in the last byte
+            for (int i : new int[] { 0, guard.getHeaderLength(), secured.length - 1 }) {
+                byte[] tampered = secured.clone();
+                tampered[i] ^= 1;
+                assertNull(guard.decrypt(facesContext, tampered));
+            }
+            assertNull(guard.decrypt(facesContext, Arrays.copyOf(secured, secured.length - 1)));
+        }
+    }
+
+    @Test
+    public void testModesAreNotInterchangeable() {
+        ByteArrayGuard cbc = new ByteArrayGuard(false);
+        ByteArrayGuard gcm = new ByteArrayGuard(true);
+        assertNull(gcm.decrypt(facesContext, cbc.encrypt(facesContext, new byte[40])));
+        assertNull(cbc.decrypt(facesContext, gcm.encrypt(facesContext, new byte[40])));
+    }
+
+    @Test
+    public void testCbcWireLayout() throws Exception {
+        ByteArrayGuard guard = new ByteArrayGuard();
+        assertEquals(48, guard.getHeaderLength());
+        assertEquals(16, guard.getMaxPaddingLength());
+        byte[] plain = "unchanged wire layout".getBytes();
+        byte[] secured = guard.encrypt(facesContext, plain);
+        assertEquals(48 + (plain.length / 16 + 1) * 16, secured.length);
+
+        Field field = ByteArrayGuard.class.getDeclaredField("sk");
+        field.setAccessible(true);
+        SecretKey key = (SecretKey) field.get(guard);
+
+        // |HMAC-SHA256 over IV and encrypted data|IV|AES/CBC encrypted data|
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(key);
+        mac.update(secured, 32, secured.length - 32);
+        assertArrayEquals(mac.doFinal(), Arrays.copyOf(secured, 32));
+
+        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(secured, 32, 16));
+        assertArrayEquals(plain, cipher.doFinal(secured, 48, secured.length - 48));
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.renderkit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.sun.faces.spi.CompressionCodec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CompressionCodecTest {
+
+    private static final CompressionCodec[] CODECS = {
+        new GZIPCompressionCodec(),
+        new DeflateCompressionCodec(1, null),
+        new DeflateCompressionCodec(9, DeflateCompressionCodec.STATE_DICTIONARY),
+        new LZFCompressionCodec()
+    };
+
+    @Test
+    public void testRoundTripRandomData() throws Exception {
+        Random random = new Random(7);
+        for (int length : new int[] { 0, 1, 2, 3, 100, 65535, 65536, 200000 }) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            for (CompressionCodec codec : CODECS) {
+                assertArrayEquals(codec.getClass().getName(), data, roundTrip(codec, data));
+            }
+        }
+    }
+
+    @Test
+    public void testRoundTripSerializedState() throws Exception {
+        Map<String, Object> state = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            state.put("form:j_idt" + i, new Object[] { Boolean.TRUE, "value" + i, i });
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            oos.writeObject(state);
+        }
+        byte[] data = baos.toByteArray();
+        for (CompressionCodec codec : CODECS) {
+            assertArrayEquals(codec.getClass().getName(), data, roundTrip(codec, data));
+            assertTrue(compress(codec, data).length < data.length / 2);
+        }
+    }
+
+    private static byte[] compress(CompressionCodec codec, byte[] data) throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = codec.createCompressingStream(compressed)) {
+            // write in uneven chunks to cross block boundaries
+            int offset = 0;
+            while (offset < data.length) {
+                int length = Math.min(data.length - offset, 7919);
+                out.write(data, offset, length);
+                offset += length;
+            }
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] roundTrip(CompressionCodec codec, byte[] data) throws Exception {
+        byte[] compressed = compress(codec, data);
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (InputStream in = codec.createDecompressingStream(new ByteArrayInputStream(compressed))) {
+            byte[] buffer = new byte[1000];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                result.write(buffer, 0, read);
+            }
+        }
+        return result.toByteArray();
+    }
+
+}
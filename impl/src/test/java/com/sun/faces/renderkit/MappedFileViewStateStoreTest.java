@@ -0,0 +1,151 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.renderkit;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import javax.faces.FacesException;
+
+import com.sun.faces.junit.JUnitFacesTestCaseBase;
+
+/**
+ * The JUnit tests for the MappedFileViewStateStore class.
+ */
+public class MappedFileViewStateStoreTest extends JUnitFacesTestCaseBase {
+
+    private File directory;
+    private MappedFileViewStateStore store;
+
+    public MappedFileViewStateStoreTest(String name) {
+        super(name);
+    }
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        directory = Files.createTempDirectory("viewstate").toFile();
+        servletContext.addInitParameter("com.sun.faces.mappedViewStateStoreDirectory", directory.getPath());
+        servletContext.addInitParameter("com.sun.faces.mappedViewStateStoreSegmentSize", "1024");
+        servletContext.addInitParameter("com.sun.faces.mappedViewStateStoreSegments", "2");
+        store = new MappedFileViewStateStore();
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        store.close();
+        directory.delete();
+        super.tearDown();
+    }
+
+    public void testStoredValueRestoresState() {
+        Object value = store.toStoredValue(new Object[] { "structure", "state" });
+        assertTrue(Arrays.equals(new Object[] { "structure", "state" }, store.fromStoredValue(value)));
+    }
+
+    public void testWriteAndRead() {
+        MappedFileViewStateStore.Handle first = store.write(bytes(400, 1));
+        MappedFileViewStateStore.Handle second = store.write(bytes(400, 2));
+        assertTrue(Arrays.equals(bytes(400, 1), store.read(first)));
+        assertTrue(Arrays.equals(bytes(400, 2), store.read(second)));
+    }
+
+    public void testRecycledSegmentIsNotRead() {
+        MappedFileViewStateStore.Handle first = store.write(bytes(400, 1));
+        // two entries fit into a segment, the fifth one recycles the first
+        // segment
+        for (int i = 0; i < 3; i++) {
+            store.write(bytes(400, 2));
+        }
+        assertTrue(Arrays.equals(bytes(400, 1), store.read(first)));
+        MappedFileViewStateStore.Handle fifth = store.write(bytes(400, 3));
+        assertNull(store.read(first));
+        assertTrue(Arrays.equals(bytes(400, 3), store.read(fifth)));
+    }
+
+    public void testHandleOfAnotherStoreIsNotRead() {
+        MappedFileViewStateStore other = new MappedFileViewStateStore();
+        try {
+            // both entries are at the start of the first segment
+            MappedFileViewStateStore.Handle stale = other.write(bytes(400, 1));
+            MappedFileViewStateStore.Handle current = store.write(bytes(400, 2));
+            assertNull(store.read(stale));
+            assertNull(other.read(current));
+        } finally {
+            other.close();
+        }
+    }
+
+    public void testForgedHandleIsNotRead() {
+        store.write(bytes(400, 1));
+        assertNull(store.read(new MappedFileViewStateStore.Handle(0, 0, 0L)));
+        assertNull(store.read(new MappedFileViewStateStore.Handle(0, 1020, 0L)));
+        assertNull(store.read(new MappedFileViewStateStore.Handle(-1, 0, 0L)));
+        assertNull(store.fromStoredValue(Long.valueOf(0L)));
+    }
+
+    public void testClosedStoreReadsNothing() {
+        MappedFileViewStateStore.Handle handle = store.write(bytes(400, 1));
+        store.close();
+        assertNull(store.read(handle));
+        try {
+            store.write(bytes(400, 2));
+            fail();
+        } catch (FacesException expected) {
+        }
+    }
+
+    public void testStateLargerThanSegmentIsRejected() {
+        try {
+            store.write(bytes(1024, 1));
+            fail();
+        } catch (FacesException expected) {
+        }
+    }
+
+    private static byte[] bytes(int length, int value) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) value);
+        return bytes;
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.renderkit;
+
+import java.io.StringWriter;
+import java.util.Base64;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class StateBufferTest {
+
+    @Test
+    public void testBase64MatchesJdkEncoding() throws Exception {
+        Random random = new Random(42);
+        for (int length : new int[] { 0, 1, 2, 3, 4, 5, 3071, 3072, 3073, 10000 }) {
+            byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+
+            StateBuffer buffer = StateBuffer.acquire(16);
+            buffer.write(bytes, 0, bytes.length);
+            StringWriter writer = new StringWriter();
+            int written = buffer.writeBase64(writer);
+            buffer.release();
+
+            String expected = Base64.getEncoder().encodeToString(bytes);
+            assertEquals(expected, writer.toString());
+            assertEquals(expected.length(), written);
+
+            buffer = StateBuffer.acquire(16);
+            buffer.readBase64(expected);
+            byte[] decoded = new byte[buffer.size()];
+            System.arraycopy(buffer.getBuffer(), 0, decoded, 0, decoded.length);
+            buffer.release();
+            assertArrayEquals(bytes, decoded);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBase64() {
+        StateBuffer buffer = StateBuffer.acquire(16);
+        try {
+            buffer.readBase64("ab?d");
+        } finally {
+            buffer.release();
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.renderkit;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class StateDeltaTest {
+
+    @Test
+    public void testRebuildsChangedState() {
+        Object[] base = createState(100);
+        Object[] state = createState(100);
+        Map<Object, Object> stateMap = getStateMap(state);
+        ((Object[]) stateMap.get("form:input3"))[1] = "changed";
+        stateMap.put("form:added", new Object[] { "added", null });
+        stateMap.remove("form:input7");
+
+        StateDelta delta = StateDelta.create(base, state);
+        assertNotNull(delta);
+        Object[] rebuilt = delta.toState();
+        assertEquals(getStateMap(state).keySet(), getStateMap(rebuilt).keySet());
+        for (Map.Entry<Object, Object> entry : getStateMap(state).entrySet()) {
+            assertArrayEquals((Object[]) entry.getValue(),
+                              (Object[]) getStateMap(rebuilt).get(entry.getKey()));
+        }
+        // unchanged parts are shared with the base
+        assertSame(getStateMap(base).get("form:input4"), getStateMap(rebuilt).get("form:input4"));
+        // the base itself is left untouched
+        assertEquals("value3", ((Object[]) getStateMap(base).get("form:input3"))[1]);
+    }
+
+    @Test
+    public void testComparesArraysByElement() {
+        Object[] base = createState(10);
+        Object[] state = createState(10);
+        getStateMap(base).put("form:table", new Object[] { new int[] { 1, 2, 3 }, new char[] { 'a' } });
+        getStateMap(state).put("form:table", new Object[] { new int[] { 1, 2, 3 }, new char[] { 'b' } });
+
+        StateDelta delta = StateDelta.create(base, state);
+        assertNotNull(delta);
+        Object[] table = (Object[]) getStateMap(delta.toState()).get("form:table");
+        // equal arrays are taken from the base, changed ones from the state
+        assertSame(((Object[]) getStateMap(base).get("form:table"))[0], table[0]);
+        assertSame(((Object[]) getStateMap(state).get("form:table"))[1], table[1]);
+
+        // equal arrays make no change
+        Object[] unchanged = createState(10);
+        getStateMap(unchanged).put("form:table", new Object[] { new int[] { 1, 2, 3 }, new char[] { 'a' } });
+        assertNull(StateDelta.create(base, unchanged).getPatch());
+    }
+
+    @Test
+    public void testNoDeltaForDifferentState() {
+        assertNull(StateDelta.create(createState(10), createState(30)));
+    }
+
+    private static Object[] createState(int components) {
+        Map<Object, Object> stateMap = new HashMap<>();
+        for (int i = 0; i < components; i++) {
+            stateMap.put("form:input" + i, new Object[] { Boolean.TRUE, "value" + i, i });
+        }
+        return new Object[] { null, new Object[] { null, stateMap } };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> getStateMap(Object[] state) {
+        return (Map<Object, Object>) ((Object[]) state[1])[1];
+    }
+
+}
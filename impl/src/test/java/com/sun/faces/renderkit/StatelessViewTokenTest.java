@@ -0,0 +1,173 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.renderkit;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.faces.context.FacesContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.faces.mock.MockExternalContext;
+import com.sun.faces.mock.MockFacesContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StatelessViewTokenTest {
+
+    private FacesContext facesContext;
+    private Object session;
+    private final Map<String, Object> applicationMap = new HashMap<>();
+
+    @Before
+    public void setUp() {
+        facesContext = new MockFacesContext(new MockExternalContext(null, null, null) {
+            @Override
+            public Object getSession(boolean create) {
+                return session;
+            }
+
+            @Override
+            public Map<String, Object> getApplicationMap() {
+                return applicationMap;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        facesContext.release();
+    }
+
+    @Test
+    public void testVerify() {
+        StatelessViewToken token = new StatelessViewToken();
+        token.offer(facesContext, "/index.xhtml");
+        String value = StatelessViewToken.getOfferedToken(facesContext, null);
+        assertTrue(StatelessViewToken.isToken(value));
+        assertTrue(token.verify(value, "/index.xhtml"));
+
+        // bound to the view and the key
+        assertFalse(token.verify(value, "/other.xhtml"));
+        assertFalse(new StatelessViewToken().verify(value, "/index.xhtml"));
+        assertFalse(token.verify("stateless", "/index.xhtml"));
+        assertFalse(token.verify(null, "/index.xhtml"));
+        char last = value.charAt(value.length() - 1);
+        assertFalse(token.verify(value.substring(0, value.length() - 1)
+                                 + (last == 'A' ? 'B' : 'A'), "/index.xhtml"));
+        assertFalse(StatelessViewToken.isToken("stateless"));
+        assertFalse(StatelessViewToken.isToken("1234:5678"));
+    }
+
+    @Test
+    public void testExpiredTokenIsRejected() {
+        StatelessViewToken token = new StatelessViewToken(0);
+        token.offer(facesContext, "/index.xhtml");
+        assertFalse(token.verify(StatelessViewToken.getOfferedToken(facesContext, null), "/index.xhtml"));
+
+        // the issue time is covered by the MAC
+        token = new StatelessViewToken();
+        token.offer(facesContext, "/index.xhtml");
+        String value = StatelessViewToken.getOfferedToken(facesContext, null);
+        int sep = value.indexOf('.');
+        long issued = Long.parseLong(value.substring("stateless:".length(), sep), Character.MAX_RADIX);
+        assertFalse(token.verify("stateless:" + Long.toString(issued + 60000, Character.MAX_RADIX)
+                                 + value.substring(sep), "/index.xhtml"));
+    }
+
+    @Test
+    public void testOnlyVerifiedTokensAreValid() {
+        // automatic stateless views not enabled
+        StatelessViewToken token = new StatelessViewToken();
+        token.offer(facesContext, "/index.xhtml");
+        String value = StatelessViewToken.getOfferedToken(facesContext, null);
+        assertFalse(StatelessViewToken.isValidToken(facesContext, value, "/index.xhtml"));
+
+        token = new StatelessViewToken();
+        applicationMap.put(StatelessViewToken.class.getName(), token);
+        token.offer(facesContext, "/index.xhtml");
+        value = StatelessViewToken.getOfferedToken(facesContext, null);
+        assertTrue(StatelessViewToken.isValidToken(facesContext, value, "/index.xhtml"));
+        assertFalse(StatelessViewToken.isValidToken(facesContext, value, "/other.xhtml"));
+        assertFalse(StatelessViewToken.isValidToken(facesContext, "stateless:forged", "/index.xhtml"));
+
+        // a session created since does not invalidate the token
+        session = new Object();
+        assertTrue(StatelessViewToken.isValidToken(facesContext, value, "/index.xhtml"));
+    }
+
+    @Test
+    public void testOfferedTokenRequiresEmptyState() {
+        StatelessViewToken token = new StatelessViewToken();
+        assertNull(StatelessViewToken.getOfferedToken(facesContext, null));
+
+        token.offer(facesContext, "/index.xhtml");
+        Map<String, Object> emptyMap = new HashMap<>();
+        emptyMap.put("form", new Object[] { null, null });
+        Object[] empty = new Object[] { null, new Object[] { null, emptyMap } };
+        assertTrue(token.verify(StatelessViewToken.getOfferedToken(facesContext, empty), "/index.xhtml"));
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("form:input", new Object[] { null, "value" });
+        assertNull(StatelessViewToken.getOfferedToken(facesContext, new Object[] { null, map }));
+        assertNull(StatelessViewToken.getOfferedToken(facesContext, new Object[] { Boolean.FALSE }));
+    }
+
+    @Test
+    public void testOfferedTokenRequiresNoSession() {
+        StatelessViewToken token = new StatelessViewToken();
+        token.offer(facesContext, "/index.xhtml");
+        // a session created while rendering, e.g. by a session scoped bean,
+        // means the state must be kept
+        session = new Object();
+        assertNull(StatelessViewToken.getOfferedToken(facesContext, null));
+        session = null;
+        assertEquals(StatelessViewToken.getOfferedToken(facesContext, new Object[0]),
+                     StatelessViewToken.getOfferedToken(facesContext, null));
+    }
+
+}
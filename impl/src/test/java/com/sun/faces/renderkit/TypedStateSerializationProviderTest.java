@@ -0,0 +1,312 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.renderkit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+import com.sun.faces.spi.SerializationProvider;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TypedStateSerializationProviderTest {
+
+    private enum PropertyKeys { value, rendered, styleClass }
+
+    private final SerializationProvider provider = new TypedStateSerializationProvider();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Object[] state = createState();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = provider.createObjectOutputStream(baos)) {
+            oos.writeLong(42L);
+            oos.writeObject(state);
+            oos.writeObject("trailer");
+        }
+        try (ObjectInputStream ois = provider.createObjectInputStream(
+                  new ByteArrayInputStream(baos.toByteArray()))) {
+            assertEquals(42L, ois.readLong());
+            Object[] restored = (Object[]) ois.readObject();
+            assertArrayEquals(state, restored);
+            assertEquals("trailer", ois.readObject());
+            assertSame(restored[2], ((Object[]) restored[3])[0]);
+            assertSame(PropertyKeys.rendered, ((Object[]) restored[0])[2]);
+        }
+    }
+
+    @Test
+    public void testSmallerThanJavaSerialization() throws Exception {
+        Map<String, Object> stateMap = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            stateMap.put("form:table:" + i + ":input", new Object[] {
+                new Object[] { PropertyKeys.value, "text " + i, PropertyKeys.styleClass, "ui-input" },
+                null,
+                new Object[] { Boolean.TRUE, i, (long) i }
+            });
+        }
+        ByteArrayOutputStream typed = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = provider.createObjectOutputStream(typed)) {
+            oos.writeObject(stateMap);
+        }
+        ByteArrayOutputStream java = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(java)) {
+            oos.writeObject(stateMap);
+        }
+        assertTrue(typed.size() + " vs. " + java.size(), typed.size() * 3 < java.size() * 2);
+    }
+
+    @Test
+    public void testLargeContainersFromDecompressingStream() throws Exception {
+        Object[] array = new Object[5000];
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < array.length; i++) {
+            array[i] = (i % 2 == 0) ? array : i;
+            list.add("s" + (i % 10));
+        }
+        char[] chars = new char[3000];
+        Arrays.fill(chars, 'x');
+        Object[] state = new Object[] { array, list, new String(chars) };
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = provider.createObjectOutputStream(new GZIPOutputStream(baos))) {
+            oos.writeObject(state);
+        }
+        try (ObjectInputStream ois = provider.createObjectInputStream(
+                  new GZIPInputStream(new ByteArrayInputStream(baos.toByteArray())))) {
+            Object[] restored = (Object[]) ois.readObject();
+            Object[] restoredArray = (Object[]) restored[0];
+            assertEquals(array.length, restoredArray.length);
+            assertSame(restoredArray, restoredArray[0]);
+            assertEquals(4999, restoredArray[4999]);
+            assertEquals(list, restored[1]);
+            assertEquals(state[2], restored[2]);
+        }
+    }
+
+    @Test
+    public void testLengthExceedingInputIsRejected() throws Exception {
+        for (Object value : new Object[] { new Object[0], new String[0], new ArrayList<>(), new HashMap<>(), "" }) {
+            byte[] bytes = write(value);
+            // replace the trailing zero length with Integer.MAX_VALUE
+            byte[] corrupt = Arrays.copyOf(bytes, bytes.length + 4);
+            System.arraycopy(new byte[] { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07 },
+                             0, corrupt, bytes.length - 1, 5);
+            try (ObjectInputStream ois = provider.createObjectInputStream(new ByteArrayInputStream(corrupt))) {
+                ois.readObject();
+                fail(value.getClass().getName());
+            } catch (EOFException expected) {
+            }
+        }
+
+        // a truncated stream must fail before the full length is allocated
+        byte[] bytes = write(new Object[2000]);
+        try (ObjectInputStream ois = provider.createObjectInputStream(
+                  new ByteArrayInputStream(bytes, 0, bytes.length - 1))) {
+            ois.readObject();
+            fail();
+        } catch (EOFException expected) {
+        }
+    }
+
+    @Test
+    public void testNestedLengthsExceedingInputAreRejected() throws Exception {
+        // ten nested arrays of 1000 elements each, every one of them small
+        // enough to be allocated unchecked on its own
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        baos.write(1);
+        for (int i = 0; i < 10; i++) {
+            baos.write(new byte[] { 14, (byte) 0xE8, 0x07 });
+        }
+        try (ObjectInputStream ois = provider.createObjectInputStream(
+                  new ByteArrayInputStream(baos.toByteArray()))) {
+            ois.readObject();
+            fail();
+        } catch (EOFException expected) {
+        }
+    }
+
+    @Test
+    public void testExternalizableWithoutPublicConstructorIsRejected() throws Exception {
+        byte[] bytes = write(new Object[] { HiddenNode.create() });
+        try (ObjectInputStream ois = provider.createObjectInputStream(new ByteArrayInputStream(bytes))) {
+            ois.readObject();
+            fail();
+        } catch (InvalidClassException expected) {
+        }
+    }
+
+    @Test
+    public void testClassesOfAnotherKindAreRejected() throws Exception {
+        // an enum constant and an externalized object naming a class that
+        // is neither, which must not even be initialized
+        for (int tag : new int[] { 12, 18 }) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            baos.write(1);
+            baos.write(tag);
+            baos.write(10);
+            String name = Initialized.class.getName();
+            baos.write(name.length());
+            for (int i = 0; i < name.length(); i++) {
+                baos.write(name.charAt(i));
+            }
+            baos.write(0);
+            try (ObjectInputStream ois = provider.createObjectInputStream(
+                      new ByteArrayInputStream(baos.toByteArray()))) {
+                ois.readObject();
+                fail();
+            } catch (InvalidClassException expected) {
+            }
+        }
+        assertFalse(initialized);
+    }
+
+    private byte[] write(Object value) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = provider.createObjectOutputStream(baos)) {
+            oos.writeObject(value);
+        }
+        return baos.toByteArray();
+    }
+
+    private static Object[] createState() {
+        List<Object> list = new ArrayList<>(Arrays.asList("a", 'b', (short) -3, (byte) 4, 1.5f, 2.5d));
+        Map<Object, Object> map = new HashMap<>();
+        map.put(PropertyKeys.styleClass, "ui-input");
+        map.put("maxlength", 255);
+        Object[] shared = new Object[] { Boolean.TRUE, -1L, Long.MAX_VALUE, Integer.MIN_VALUE };
+        return new Object[] {
+            new Object[] { PropertyKeys.value, "\u00e9t\u00e9 \ud83d\ude00", PropertyKeys.rendered, Boolean.FALSE },
+            new String[] { "one", null, "one" },
+            shared,
+            new Object[] { shared, list, map, String.class, int.class },
+            new BigDecimal("12.50"),
+            new Node("node"),
+            null
+        };
+    }
+
+    private static boolean initialized;
+
+    public static final class Initialized {
+
+        static {
+            initialized = true;
+        }
+
+    }
+
+    public static final class HiddenNode implements Externalizable {
+
+        private HiddenNode() {
+        }
+
+        static HiddenNode create() {
+            return new HiddenNode();
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) {
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) {
+        }
+
+    }
+
+    public static final class Node implements Externalizable {
+
+        private String name;
+
+        public Node() {
+        }
+
+        Node(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeUTF(name);
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) throws IOException {
+            name = in.readUTF();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return (obj instanceof Node && ((Node) obj).name.equals(name));
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+
+    }
+
+}
@@ -40,12 +40,17 @@
 
 package com.sun.faces.renderkit.html_basic;
 
+import java.io.Flushable;
 import java.io.StringWriter;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import javax.faces.component.UIViewRoot;
 import javax.faces.component.html.HtmlHead;
 import javax.faces.context.FacesContext;
 import javax.faces.context.ResponseWriter;
+import com.sun.faces.RIConstants;
+import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertTrue;
 import static org.easymock.EasyMock.expect;
 import org.junit.Test;
@@ -115,6 +120,7 @@ public class HeadRendererTest {
         expect(facesContext.getResponseWriter()).andReturn(testResponseWriter).anyTimes();
         expect(facesContext.getViewRoot()).andReturn(viewRoot).anyTimes();
         expect(viewRoot.getComponentResources(facesContext, "head")).andReturn(Collections.EMPTY_LIST).anyTimes();
+        expect(facesContext.getAttributes()).andReturn(new HashMap<Object, Object>()).anyTimes();
         
         PowerMock.replay(facesContext, viewRoot);
         headRenderer.encodeEnd(facesContext, htmlHead);
@@ -122,4 +128,38 @@ public class HeadRendererTest {
         String html = writer.toString();
         assertTrue(html.contains("</head>"));
     }
+
+    /**
+     * Test encodeEnd method flushes the head when early flushing is enabled.
+     *
+     * @throws Exception when a serious error occurs.
+     */
+    @Test
+    public void testEncodeEndFlushesEarly() throws Exception {
+        final StringWriter writer = new StringWriter();
+        ResponseWriter testResponseWriter = new TestResponseWriter(writer);
+        FacesContext facesContext = PowerMock.createPartialMockForAllMethodsExcept(FacesContext.class, "getCurrentInstance");
+        UIViewRoot viewRoot = PowerMock.createMock(UIViewRoot.class);
+        HeadRenderer headRenderer = new HeadRenderer();
+        HtmlHead htmlHead = new HtmlHead();
+        final StringBuilder flushed = new StringBuilder();
+        Map<Object, Object> attributes = new HashMap<>();
+        attributes.put(RIConstants.EARLY_FLUSH, new Flushable() {
+            @Override
+            public void flush() {
+                flushed.append(writer.toString());
+            }
+        });
+
+        expect(facesContext.getResponseWriter()).andReturn(testResponseWriter).anyTimes();
+        expect(facesContext.getViewRoot()).andReturn(viewRoot).anyTimes();
+        expect(viewRoot.getComponentResources(facesContext, "head")).andReturn(Collections.EMPTY_LIST).anyTimes();
+        expect(facesContext.getAttributes()).andReturn(attributes).anyTimes();
+
+        PowerMock.replay(facesContext, viewRoot);
+        headRenderer.encodeEnd(facesContext, htmlHead);
+        PowerMock.verify(facesContext, viewRoot);
+        assertTrue(flushed.toString().contains("</head>"));
+        assertEquals(writer.toString(), flushed.toString());
+    }
 }
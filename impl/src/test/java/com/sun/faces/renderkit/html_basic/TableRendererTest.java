@@ -0,0 +1,181 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.renderkit.html_basic;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import javax.faces.component.UIColumn;
+import javax.faces.component.UIComponent;
+import javax.faces.component.html.HtmlDataTable;
+
+import com.sun.faces.RIConstants;
+import com.sun.faces.junit.JUnitFacesTestCaseBase;
+import com.sun.faces.model.CursorDataModel;
+
+/**
+ * The JUnit tests for streaming the rows of the TableRenderer.
+ */
+public class TableRendererTest extends JUnitFacesTestCaseBase {
+
+    private StringWriter writer;
+    private List<String> flushed;
+    private int responseWriterFlushes;
+    private int closed;
+
+    public TableRendererTest(String name) {
+        super(name);
+    }
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        servletContext.addInitParameter("com.sun.faces.tableStreamingRows", "2");
+        writer = new StringWriter();
+        flushed = new ArrayList<>();
+        facesContext.setResponseWriter(new TestResponseWriter(writer) {
+            @Override
+            public void writeText(Object text, String property) throws IOException {
+                writer.write(text.toString());
+            }
+
+            @Override
+            public void flush() {
+                responseWriterFlushes++;
+            }
+        });
+    }
+
+    /**
+     * Test that every two rows are flushed when early flushing is enabled.
+     *
+     * @throws Exception when a serious error occurs.
+     */
+    public void testRowsAreFlushed() throws Exception {
+        facesContext.getAttributes().put(RIConstants.EARLY_FLUSH, new Flushable() {
+            @Override
+            public void flush() {
+                flushed.add(writer.toString());
+            }
+        });
+
+        new TableRenderer().encodeChildren(facesContext, createTable(5, 0));
+
+        assertEquals(2, flushed.size());
+        assertEquals(2, responseWriterFlushes);
+        assertEquals(2, count(flushed.get(0), "</tr>"));
+        assertEquals(4, count(flushed.get(1), "</tr>"));
+        assertEquals(5, count(writer.toString(), "</tr>"));
+    }
+
+    /**
+     * Test that nothing is flushed unless early flushing is enabled.
+     *
+     * @throws Exception when a serious error occurs.
+     */
+    public void testRowsAreNotFlushedWithoutEarlyFlush() throws Exception {
+        new TableRenderer().encodeChildren(facesContext, createTable(5, 0));
+
+        assertEquals(0, responseWriterFlushes);
+        assertEquals(5, count(writer.toString(), "</tr>"));
+    }
+
+    /**
+     * Test that the cursor is closed once the rows have been rendered, even
+     * if not all rows were shown.
+     *
+     * @throws Exception when a serious error occurs.
+     */
+    public void testCursorIsClosed() throws Exception {
+        new TableRenderer().encodeChildren(facesContext, createTable(5, 3));
+
+        assertEquals(3, count(writer.toString(), "</tr>"));
+        assertEquals(1, closed);
+    }
+
+    private HtmlDataTable createTable(final int rowCount, int rows) {
+        HtmlDataTable table = new HtmlDataTable();
+        table.setId("table");
+        table.setRows(rows);
+        table.setValue(new CursorDataModel<Integer>(() -> new CountingIterator(rowCount)));
+        UIComponent column = new UIColumn();
+        column.setId("column");
+        table.getChildren().add(column);
+        return table;
+    }
+
+    private static int count(String html, String tag) {
+        int count = 0;
+        for (int i = html.indexOf(tag); i != -1; i = html.indexOf(tag, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private class CountingIterator implements Iterator<Integer>, AutoCloseable {
+
+        private final int count;
+        private int next;
+
+        CountingIterator(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < count;
+        }
+
+        @Override
+        public Integer next() {
+            return next++;
+        }
+
+        @Override
+        public void close() {
+            closed++;
+        }
+
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class BoundedConcurrentCacheTest {
+
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger evicted = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+
+    private BoundedConcurrentCache<String, String> createCache(long maxWeight) {
+        return new BoundedConcurrentCache<>(
+            key -> {
+                created.incrementAndGet();
+                return key.toUpperCase();
+            },
+            (key, value) -> false,
+            (key, value) -> key.length(),
+            maxWeight,
+            new BoundedConcurrentCache.Listener<String>() {
+                @Override
+                public void hit(String key) {
+                }
+
+                @Override
+                public void miss(String key, long nanos) {
+                }
+
+                @Override
+                public void evicted(String key) {
+                    evicted.incrementAndGet();
+                }
+
+                @Override
+                public void rejected(String key) {
+                    rejected.incrementAndGet();
+                }
+            });
+    }
+
+    @Test
+    public void testCreatesOnce() throws Exception {
+        BoundedConcurrentCache<String, String> cache = createCache(100);
+
+        assertEquals("ABC", cache.get("abc"));
+        assertEquals("ABC", cache.get("abc"));
+        assertTrue(cache.containsKey("abc"));
+        assertEquals(1, created.get());
+        assertEquals(3, cache.weight());
+    }
+
+    @Test
+    public void testWeightIsBounded() throws Exception {
+        BoundedConcurrentCache<String, String> cache = createCache(10);
+
+        for (int i = 0; i < 100; i++) {
+            cache.get("key" + i);
+            assertTrue(cache.weight() <= 10);
+        }
+        assertEquals(100 - cache.size(), evicted.get() + rejected.get());
+    }
+
+    @Test
+    public void testFrequentKeysAreRetained() throws Exception {
+        BoundedConcurrentCache<String, String> cache = createCache(20);
+
+        // four popular keys of weight five fill the cache
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 4; i++) {
+                cache.get("hot-" + i);
+            }
+        }
+        // one-off keys must not displace them
+        for (int i = 0; i < 50; i++) {
+            assertEquals("COLD" + i, cache.get("cold" + i));
+        }
+        for (int i = 0; i < 4; i++) {
+            assertTrue(cache.containsKey("hot-" + i));
+        }
+        assertTrue(rejected.get() > 0);
+    }
+
+    @Test
+    public void testLeastFrequentValueIsEvicted() throws Exception {
+        BoundedConcurrentCache<String, String> cache = createCache(20);
+
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 3; i++) {
+                cache.get("hot-" + i);
+            }
+        }
+        cache.get("warm1");
+        assertEquals(20, cache.weight());
+
+        assertEquals("NEW-1", cache.get("new-1"));
+        assertEquals(1, evicted.get());
+        assertFalse(cache.containsKey("warm1"));
+        assertTrue(cache.containsKey("new-1"));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(cache.containsKey("hot-" + i));
+        }
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final BoundedConcurrentCache<String, String> cache = createCache(50);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int seed = t;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int i = 0; i < 5000; i++) {
+                            // a few keys are used far more often than the rest
+                            int key = ((i + seed) % 4 == 0) ? (i % 200) : (i % 5);
+                            assertEquals("K" + key, cache.get("k" + key));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(cache.weight() <= 50);
+        assertTrue(cache.size() > 0);
+    }
+
+    @Test
+    public void testOversizedValueIsNotCached() throws Exception {
+        BoundedConcurrentCache<String, String> cache = createCache(5);
+
+        assertEquals("TOOLONGKEY", cache.get("toolongkey"));
+        assertFalse(cache.containsKey("toolongkey"));
+        assertEquals(0, cache.weight());
+    }
+
+}
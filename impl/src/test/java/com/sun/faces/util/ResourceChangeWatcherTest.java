@@ -0,0 +1,132 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.util;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResourceChangeWatcherTest {
+
+    private ResourceChangeWatcher watcher;
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        watcher = new ResourceChangeWatcher();
+        directory = Files.createTempDirectory("watched").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        watcher.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testHandleIsSharedUntilChanged() throws Exception {
+        File file = write("page.xhtml", "<p>one</p>");
+        URL url = file.toURI().toURL();
+
+        ResourceChangeWatcher.Handle first = watcher.watch(url);
+        ResourceChangeWatcher.Handle second = watcher.watch(url);
+        assertSame(first, second);
+        assertFalse(first.isChanged());
+
+        write("page.xhtml", "<p>two</p>");
+        assertTrue(awaitChange(first));
+
+        ResourceChangeWatcher.Handle third = watcher.watch(url);
+        assertNotSame(first, third);
+        assertFalse(third.isChanged());
+    }
+
+    @Test
+    public void testDeletionIsDetected() throws Exception {
+        File file = write("page.xhtml", "<p>one</p>");
+        ResourceChangeWatcher.Handle handle = watcher.watch(file.toURI().toURL());
+
+        assertTrue(file.delete());
+        assertTrue(awaitChange(handle));
+    }
+
+    @Test
+    public void testOnlyFilesCanBeWatched() throws Exception {
+        assertNull(watcher.watch(null));
+        assertNull(watcher.watch(new URL("jar:file:/app.jar!/META-INF/resources/page.xhtml")));
+    }
+
+    private File write(String name, String content) throws IOException {
+        File file = new File(directory, name);
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(content.getBytes("UTF-8"));
+        }
+        return file;
+    }
+
+    private static boolean awaitChange(ResourceChangeWatcher.Handle handle) throws InterruptedException {
+        // file system events are delivered asynchronously
+        for (int i = 0; i < 200 && !handle.isChanged(); i++) {
+            Thread.sleep(50);
+        }
+        return handle.isChanged();
+    }
+
+}
@@ -156,6 +156,66 @@ public class TestHtmlUtils extends TestCase {
         }
     }
 
+    public void testWriteTextEscaping() throws IOException {
+
+        String text = "a < b && c > \"d\" \u00e9\u20ac\u4e2d";
+        assertEquals("a &lt; b &amp;&amp; c &gt; \"d\" \u00e9\u20ac\u4e2d",
+                     writeText(text, false, false, 1024));
+        assertEquals("a &lt; b &amp;&amp; c &gt; \"d\" \u00e9&euro;&#20013;",
+                     writeText(text, true, false, 1024));
+        assertEquals("a &lt; b &amp;&amp; c &gt; \"d\" &eacute;&euro;&#20013;",
+                     writeText(text, true, true, 1024));
+
+        // runs longer than the buffer
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            builder.append("clean text ");
+        }
+        String longText = builder.toString();
+        assertEquals(longText + "&amp;" + longText,
+                     writeText(longText + '&' + longText, false, false, 32));
+
+    }
+
+    public void testWriteAttributeEscaping() throws IOException {
+
+        String text = "a < b &{c} & \"d\" \u00e9\u20ac";
+        assertEquals("a &lt; b &{c} &amp; &quot;d&quot; \u00e9\u20ac",
+                     writeAttribute(text, false, false, false));
+        assertEquals("a &lt; b &{c} &amp; &quot;d&quot; &eacute;&euro;",
+                     writeAttribute(text, true, true, false));
+
+        // script: is dropped unless enabled
+        assertEquals("", writeAttribute("javascript:alert('a')", false, false, false));
+        assertEquals("javascript:alert('a')",
+                     writeAttribute("javascript:alert('a')", false, false, true));
+        assertEquals("", writeAttribute("x javascript:alert('a') with some more text", false, false, false));
+
+    }
+
+    private static String writeText(String text, boolean escapeUnicode, boolean escapeIsocode, int bufferSize)
+            throws IOException {
+        StringWriter stringWriter = new StringWriter();
+        HtmlUtils.writeText(stringWriter, escapeUnicode, escapeIsocode, new char[bufferSize], text, new char[1024]);
+        StringWriter charsWriter = new StringWriter();
+        HtmlUtils.writeText(charsWriter, escapeUnicode, escapeIsocode, new char[bufferSize], text.toCharArray());
+        assertEquals(stringWriter.toString(), charsWriter.toString());
+        return stringWriter.toString();
+    }
+
+    private static String writeAttribute(String text, boolean escapeUnicode, boolean escapeIsocode,
+                                         boolean isScriptInAttributeValueEnabled) throws IOException {
+        StringWriter stringWriter = new StringWriter();
+        HtmlUtils.writeAttribute(stringWriter, escapeUnicode, escapeIsocode, new char[1024], text, new char[1024],
+                                 isScriptInAttributeValueEnabled);
+        StringWriter charsWriter = new StringWriter();
+        char[] chars = text.toCharArray();
+        HtmlUtils.writeAttribute(charsWriter, escapeUnicode, escapeIsocode, new char[1024], chars, 0, chars.length,
+                                 isScriptInAttributeValueEnabled);
+        assertEquals(stringWriter.toString(), charsWriter.toString());
+        return stringWriter.toString();
+    }
+
     private void testURLEncoding(String urlToEncode, String expectedHTML, String expectedXML)
             throws IOException {
         char[] textBuffer = new char[1024];
@@ -43,6 +43,7 @@ package javax.faces.component;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import javax.faces.application.FacesMessage;
+import javax.faces.event.PhaseId;
 import javax.faces.model.SelectItem;
 import javax.faces.model.SelectItemGroup;
 import java.util.ArrayList;
@@ -143,6 +144,37 @@ public class UISelectOneTestCase extends UIInputTestCase {
         }
     }
 
+    // Test that the select items are evaluated once per phase
+    public void testValidationSnapshotPerPhase() throws Exception {
+        UIViewRoot root = facesContext.getApplication().getViewHandler().createView(facesContext, null);
+        root.getChildren().add(component);
+
+        UISelectOne selectOne = (UISelectOne) component;
+        selectOne.setRendererType(null);
+        selectOne.getChildren().add(new UISelectItemSub("foo", null, null));
+        selectOne.getChildren().add(new UISelectItemSub("bar", null, null));
+
+        facesContext.setCurrentPhaseId(PhaseId.PROCESS_VALIDATIONS);
+        selectOne.setValid(true);
+        selectOne.setSubmittedValue("bar");
+        selectOne.validate(facesContext);
+        assertTrue(selectOne.isValid());
+
+        // items added later in the same phase are not seen
+        selectOne.getChildren().add(new UISelectItemSub("baz", null, null));
+        selectOne.setValid(true);
+        selectOne.setSubmittedValue("baz");
+        selectOne.validate(facesContext);
+        assertTrue(!selectOne.isValid());
+
+        // but are picked up once the phase changes
+        facesContext.setCurrentPhaseId(PhaseId.RENDER_RESPONSE);
+        selectOne.setValid(true);
+        selectOne.setSubmittedValue("baz");
+        selectOne.validate(facesContext);
+        assertTrue(selectOne.isValid());
+    }
+
     // Test validation of component with UISelectItems pointing to map
     public void testValidation2() throws Exception {
         // Put our component under test in a tree under a UIViewRoot
@@ -0,0 +1,129 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.faces.ant;
+
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.taskdefs.Java;
+
+/**
+ * <p>Precompiles the Facelets of a web application at build time.  The
+ * parsed form of each Facelet is written below
+ * <code>META-INF/faces-precompiled</code> in <code>destDir</code> and is
+ * picked up at runtime when <code>com.sun.faces.enablePrecompiledFacelets</code>
+ * is enabled and the source Facelet has not changed since.</p>
+ *
+ * <p>The nested <code>classpath</code> must contain the Mojarra
+ * implementation, e.g.</p>
+ *
+ * <pre>
+ * &lt;taskdef name="precompileFacelets" classname="com.sun.faces.ant.FaceletPrecompileTask"/&gt;
+ * &lt;precompileFacelets srcDir="src/main/webapp" destDir="target/classes"&gt;
+ *     &lt;classpath&gt;&lt;pathelement location="javax.faces.jar"/&gt;&lt;/classpath&gt;
+ * &lt;/precompileFacelets&gt;
+ * </pre>
+ */
+public class FaceletPrecompileTask extends Java {
+
+    private static final String PRECOMPILER_CLASS =
+          "com.sun.faces.facelets.compiler.PrecompiledFacelet";
+
+    /**
+     * <p>The root directory of the web application.</p>
+     */
+    private String srcDir;
+
+    /**
+     * <p>The directory receiving the precompiled Facelets.</p>
+     */
+    private String destDir;
+
+    /**
+     * <p>Comma separated list of the suffixes identifying Facelets.</p>
+     */
+    private String suffixes = ".xhtml";
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    public void setSrcDir(String srcDir) {
+
+        this.srcDir = srcDir;
+
+    } // END setSrcDir
+
+
+    public void setDestDir(String destDir) {
+
+        this.destDir = destDir;
+
+    } // END setDestDir
+
+
+    public void setSuffixes(String suffixes) {
+
+        this.suffixes = suffixes;
+
+    } // END setSuffixes
+
+
+    public void execute() throws BuildException {
+
+        if (srcDir == null || destDir == null) {
+            throw new BuildException("Both srcDir and destDir must be specified");
+        }
+
+        super.createArg().setValue(srcDir);
+        super.createArg().setValue(destDir);
+        for (String suffix : suffixes.split(",")) {
+            if (suffix.trim().length() > 0) {
+                super.createArg().setValue(suffix.trim());
+            }
+        }
+
+        super.setClassname(PRECOMPILER_CLASS);
+        super.setFailonerror(true);
+
+        super.execute();
+
+    } // END execute
+
+}
@@ -95,7 +95,7 @@ import java.util.Iterator;
  * <code>
  * <pre>
  * private static Map&lt;String,Attribute[]> ATTRIBUTE_LOOKUP=CollectionsUtils.&lt;String,Attribute[]>map()
- *      .add("CommandButton",ar(
+ *      .add("CommandButton",indexed(
  *          attr("accesskey")
  *          ,attr("alt")
  *          ,attr("dir")
@@ -104,7 +104,11 @@ import java.util.Iterator;
  *          ...
  * </pre>
  * </code>
- * 
+ *
+ * <p>
+ * <code>Attribute.indexed()</code> gives every attribute its ordinal within
+ * the array, which lets RenderKitUtils track the attributes that are set
+ * on a component as a bitset rather than searching the array by name.
  *  
  */
 public class AttributeManagerGenerator extends AbstractGenerator {
@@ -297,7 +301,7 @@ public class AttributeManagerGenerator extends AbstractGenerator {
                             keys.add(key);
                             writer.fwrite(".add(\"");
                             writer.write(key);
-                            writer.write("\",ar(\n");
+                            writer.write("\",indexed(\n");
                             writer.indent();
                         	writer.fwrite("attr(\"");
                         }